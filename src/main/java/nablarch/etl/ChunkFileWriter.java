@@ -0,0 +1,262 @@
+package nablarch.etl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import nablarch.common.databind.ObjectMapper;
+import nablarch.common.databind.ObjectMapperFactory;
+
+/**
+ * チャンク単位のJavaオブジェクトをファイルに書き込むクラス。
+ * <p/>
+ * チャンクはそれぞれ個別の{@link ObjectMapper}で変換するため、変換結果からヘッダ行を取り除いて{@link ChunkOutput}に書き込む。
+ * ヘッダ行は{@link #formatHeader(Class, RecordFormat)}で生成し、書き込み先で出力する。
+ * チャンクごとに変換を完了させるため、{@link #sync()}の時点で書き込んだデータがマッパー内に残ることはない。
+ * <p/>
+ * 非同期モードの場合は、{@link #write(List)}で受け取ったチャンクを上限付きのキューを介して専用のスレッドに渡し、
+ * 専用のスレッドでデータへの変換と出力先への書き込みを行う。
+ * キューの上限に達した場合は、先頭のチャンクの書き込みを待ち合わせる。
+ * 専用のスレッドで発生した例外は、{@link #write(List)}、{@link #sync()}または{@link #close()}の呼び出し時に送出する。
+ * <p/>
+ * {@link #sync()}は書き込み中のチャンクを全て待ち合わせ、書き込み先の内容をディスクに反映する。
+ */
+final class ChunkFileWriter {
+
+    /** Beanクラス */
+    private final Class<?> bean;
+
+    /** 出力ファイルの形式情報 */
+    private final RecordFormat format;
+
+    /** 書き込み先 */
+    private final ChunkOutput output;
+
+    /** 書き込みを行うスレッド(同期モードの場合は{@code null}) */
+    private final ExecutorService writer;
+
+    /** 同時に保持するチャンクの上限 */
+    private final int maxPendingChunks;
+
+    /** 書き込み中のチャンク(受け取った順序で保持する) */
+    private final LinkedList<Future<Void>> pendingChunks = new LinkedList<Future<Void>>();
+
+    /** 書き込みを受け付けたJavaオブジェクトの件数 */
+    private long itemCount;
+
+    /** 閉じられたか否か */
+    private boolean closed;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param bean Beanクラス
+     * @param format 出力ファイルの形式情報
+     * @param output 書き込み先
+     * @param async 非同期モードか否か
+     * @param maxPendingChunks 非同期モードで同時に保持するチャンクの上限
+     */
+    ChunkFileWriter(final Class<?> bean, final RecordFormat format, final ChunkOutput output,
+            final boolean async, final int maxPendingChunks) {
+        this.bean = bean;
+        this.format = format;
+        this.output = output;
+        this.maxPendingChunks = maxPendingChunks;
+        writer = async ? Executors.newSingleThreadExecutor(new EtlThreadFactory("file-writer")) : null;
+    }
+
+    /**
+     * ヘッダ行を生成する。
+     *
+     * @param bean Beanクラス
+     * @param format 出力ファイルの形式情報
+     * @return ヘッダ行。ヘッダ行がない形式の場合は空の配列
+     * @throws IOException 入出力例外
+     */
+    static byte[] formatHeader(final Class<?> bean, final RecordFormat format) throws IOException {
+        if (!format.headerRequired) {
+            return new byte[0];
+        }
+        return format(bean, new ArrayList<Object>());
+    }
+
+    /**
+     * Javaオブジェクトをデータに変換する。
+     *
+     * @param bean Beanクラス
+     * @param items Javaオブジェクト
+     * @return 変換結果(ヘッダ行がある形式の場合はヘッダ行を含む)
+     * @throws IOException 入出力例外
+     */
+    @SuppressWarnings("unchecked")
+    private static byte[] format(final Class<?> bean, final List<Object> items) throws IOException {
+        final ByteArrayOutputStream formatted = new ByteArrayOutputStream();
+        final ObjectMapper<Object> mapper = (ObjectMapper<Object>) ObjectMapperFactory.create(bean, formatted);
+        try {
+            for (Object item : items) {
+                mapper.write(item);
+            }
+        } finally {
+            mapper.close();
+        }
+        return formatted.toByteArray();
+    }
+
+    /**
+     * チャンクを書き込む。
+     * <p/>
+     * 非同期モードの場合は、書き込みを開始して呼び出し元に戻る。
+     *
+     * @param items チャンク内のJavaオブジェクト
+     * @throws IOException 入出力例外
+     */
+    void write(final List<Object> items) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("chunk file writer is already closed.");
+        }
+        submit(new ChunkWriteTask(new ArrayList<Object>(items)));
+        itemCount += items.size();
+    }
+
+    /**
+     * タスクを実行する。
+     * <p/>
+     * 非同期モードの場合は専用のスレッドに渡し、保持するチャンクが上限を超えた場合は先頭のチャンクを待ち合わせる。
+     *
+     * @param task タスク
+     * @throws IOException 入出力例外
+     */
+    private void submit(final ChunkWriteTask task) throws IOException {
+        if (writer == null) {
+            task.call();
+            return;
+        }
+        pendingChunks.add(writer.submit(task));
+        while (pendingChunks.size() > maxPendingChunks) {
+            awaitFirstChunk();
+        }
+    }
+
+    /**
+     * 書き込みを受け付けたJavaオブジェクトの件数を返す。
+     *
+     * @return 書き込みを受け付けたJavaオブジェクトの件数
+     */
+    long getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * 書き込み中のチャンクを全て待ち合わせ、ファイルの内容をディスクに反映する。
+     *
+     * @throws IOException 入出力例外
+     */
+    void sync() throws IOException {
+        while (!pendingChunks.isEmpty()) {
+            awaitFirstChunk();
+        }
+        output.sync();
+    }
+
+    /**
+     * 書き込み中のチャンクを全て待ち合わせ、スレッドを停止して出力先を閉じる。
+     *
+     * @throws IOException 入出力例外
+     */
+    void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            while (!pendingChunks.isEmpty()) {
+                awaitFirstChunk();
+            }
+        } finally {
+            if (writer != null) {
+                writer.shutdownNow();
+            }
+            output.close();
+        }
+    }
+
+    /**
+     * 先頭のチャンクの書き込み完了を待ち合わせる。
+     *
+     * @throws IOException 入出力例外
+     */
+    private void awaitFirstChunk() throws IOException {
+        final Future<Void> first = pendingChunks.removeFirst();
+        try {
+            first.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while writing output file.");
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * 1チャンク分のJavaオブジェクトを変換し、書き込み先に書き込むタスク。
+     */
+    private class ChunkWriteTask implements Callable<Void> {
+
+        /** チャンク内のJavaオブジェクト */
+        private final List<Object> items;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param items チャンク内のJavaオブジェクト
+         */
+        ChunkWriteTask(final List<Object> items) {
+            this.items = items;
+        }
+
+        @Override
+        public Void call() throws IOException {
+            final byte[] bytes = format(bean, items);
+            final int offset = headerLength(bytes);
+            output.write(bytes, offset, bytes.length - offset);
+            return null;
+        }
+
+        /**
+         * 変換結果のヘッダ行の長さを求める。
+         *
+         * @param bytes 変換結果
+         * @return ヘッダ行の長さ。ヘッダ行がない形式の場合は0
+         * @throws IOException 入出力例外
+         */
+        private int headerLength(final byte[] bytes) throws IOException {
+            if (!format.headerRequired) {
+                return 0;
+            }
+            final RecordScanner scanner = new RecordScanner(format,
+                    Channels.newChannel(new ByteArrayInputStream(bytes)), 0L);
+            scanner.skipHeader();
+            return (int) scanner.position();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package nablarch.etl;
+
+import java.io.IOException;
+
+/**
+ * {@link ChunkFileWriter}が変換したデータの書き込み先。
+ */
+interface ChunkOutput {
+
+    /**
+     * データを書き込む。
+     * <p/>
+     * データにはヘッダ行を含まず、レコードの途中で区切られることはない。
+     *
+     * @param data データ
+     * @param offset 書き込むデータの開始位置
+     * @param length 書き込むデータの長さ
+     * @throws IOException 入出力例外
+     */
+    void write(byte[] data, int offset, int length) throws IOException;
+
+    /**
+     * 書き込んだデータをフラッシュし、ファイルの内容をディスクに反映する。
+     *
+     * @throws IOException 入出力例外
+     */
+    void sync() throws IOException;
+
+    /**
+     * 書き込み済みのデータの状態からチェックポイント情報を生成する。
+     * <p/>
+     * {@link #sync()}の直後に呼び出すこと。
+     *
+     * @param recordCount 書き込み済みのレコード数
+     * @return チェックポイント情報
+     * @throws IOException 入出力例外
+     */
+    FileWriteCheckpoint checkpoint(long recordCount) throws IOException;
+
+    /**
+     * 書き込み先を閉じる。
+     * <p/>
+     * 異常終了時にも呼び出されるため、書き込みの完了を後続の処理に通知してはならない。
+     *
+     * @throws IOException 入出力例外
+     */
+    void close() throws IOException;
+
+    /**
+     * 全てのデータの書き込みが完了したことを後続の処理に通知する。
+     * <p/>
+     * 全てのチャンクがコミットされて正常に終了する場合のみ、{@link #close()}の後に呼び出すこと。
+     *
+     * @throws IOException 入出力例外
+     */
+    void complete() throws IOException;
+}
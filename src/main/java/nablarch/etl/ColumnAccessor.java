@@ -0,0 +1,158 @@
+package nablarch.etl;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.sql.Types;
+
+import nablarch.common.dao.ColumnMeta;
+import nablarch.core.db.dialect.Dialect;
+import nablarch.core.db.statement.SqlPStatement;
+
+/**
+ * Entityオブジェクトからカラムの値を取得し、ステートメントのパラメータに設定するクラス。
+ * <p/>
+ * プロパティのgetterが存在する場合はgetterを、存在しない場合はpublicフィールドを使用する。
+ * getterまたはフィールドと、値が{@code null}の場合に設定するSQL型は生成時に解決して保持する。
+ * <p/>
+ * {@code null}以外の値は、{@link nablarch.common.dao.UniversalDao}と同様に{@link Dialect#convertToDatabase(Object, Class)}で
+ * カラムのJDBCの型({@link ColumnMeta#getJdbcType()})に変換してから設定する。
+ * これにより、{@code java.util.Date}のプロパティなど、JDBCドライバが直接受け付けない型の値も登録できる。
+ */
+final class ColumnAccessor {
+
+    /** getter */
+    private final Method getter;
+
+    /** フィールド */
+    private final Field field;
+
+    /** {@code null}を設定する場合のSQL型 */
+    private final int sqlType;
+
+    /** カラムのJDBCの型 */
+    private final Class<?> jdbcType;
+
+    /** 値の変換に使用するダイアレクト */
+    private final Dialect dialect;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param bean Entityクラス
+     * @param column カラムのメタデータ
+     * @param dialect 値の変換に使用するダイアレクト
+     */
+    ColumnAccessor(final Class<?> bean, final ColumnMeta column, final Dialect dialect) {
+        getter = findGetter(bean, column.getPropertyName());
+        if (getter == null) {
+            try {
+                field = bean.getField(column.getPropertyName());
+            } catch (NoSuchFieldException e) {
+                throw new IllegalStateException("property accessor was not found. bean = [" + bean.getName()
+                        + "], property = [" + column.getPropertyName() + ']', e);
+            }
+        } else {
+            field = null;
+        }
+        jdbcType = column.getJdbcType();
+        sqlType = toSqlType(jdbcType);
+        this.dialect = dialect;
+    }
+
+    /**
+     * プロパティのgetterを取得する。
+     *
+     * @param bean Entityクラス
+     * @param propertyName プロパティ名
+     * @return getter。存在しない場合は{@code null}
+     */
+    private static Method findGetter(final Class<?> bean, final String propertyName) {
+        try {
+            for (PropertyDescriptor descriptor : Introspector.getBeanInfo(bean).getPropertyDescriptors()) {
+                if (descriptor.getName().equals(propertyName) && descriptor.getReadMethod() != null) {
+                    final Method getter = descriptor.getReadMethod();
+                    getter.setAccessible(true);
+                    return getter;
+                }
+            }
+            return null;
+        } catch (IntrospectionException e) {
+            throw new IllegalStateException("failed to introspect bean. bean = [" + bean.getName() + ']', e);
+        }
+    }
+
+    /**
+     * JDBCの型に対応するSQL型を取得する。
+     *
+     * @param jdbcType JDBCの型
+     * @return SQL型
+     */
+    private static int toSqlType(final Class<?> jdbcType) {
+        if (jdbcType == String.class) {
+            return Types.VARCHAR;
+        } else if (jdbcType == Integer.class || jdbcType == int.class) {
+            return Types.INTEGER;
+        } else if (jdbcType == Long.class || jdbcType == long.class) {
+            return Types.BIGINT;
+        } else if (jdbcType == Short.class || jdbcType == short.class) {
+            return Types.SMALLINT;
+        } else if (jdbcType == BigDecimal.class) {
+            return Types.DECIMAL;
+        } else if (jdbcType == java.sql.Date.class) {
+            return Types.DATE;
+        } else if (jdbcType == java.sql.Time.class) {
+            return Types.TIME;
+        } else if (jdbcType == java.sql.Timestamp.class || jdbcType == java.util.Date.class) {
+            return Types.TIMESTAMP;
+        } else if (jdbcType == byte[].class) {
+            return Types.VARBINARY;
+        } else if (jdbcType == Boolean.class || jdbcType == boolean.class) {
+            return Types.BOOLEAN;
+        }
+        return Types.NULL;
+    }
+
+    /**
+     * カラムの値を取得する。
+     *
+     * @param item Entityオブジェクト
+     * @return カラムの値
+     */
+    Object get(final Object item) {
+        try {
+            return getter == null ? field.get(item) : getter.invoke(item);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        } catch (InvocationTargetException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * カラムの値をステートメントのパラメータに設定する。
+     * <p/>
+     * 値が{@code null}の場合は、カラムの型に対応するSQL型で{@code null}を設定する。
+     * {@code null}以外の場合は、カラムのJDBCの型に変換した値を設定する。
+     *
+     * @param statement ステートメント
+     * @param index パラメータの位置
+     * @param item Entityオブジェクト
+     */
+    void bind(final SqlPStatement statement, final int index, final Object item) {
+        final Object value = get(item);
+        if (value == null) {
+            statement.setNull(index, sqlType);
+        } else {
+            statement.setObject(index, dialect.convertToDatabase(value, jdbcType));
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package nablarch.etl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.batch.api.chunk.AbstractItemWriter;
+import javax.batch.runtime.context.JobContext;
+import javax.batch.runtime.context.StepContext;
+import javax.enterprise.context.Dependent;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import nablarch.common.dao.ColumnMeta;
+import nablarch.common.dao.EntityUtil;
+import nablarch.core.db.connection.DbConnectionContext;
+import nablarch.core.db.dialect.Dialect;
+import nablarch.etl.config.EtlConfig;
+import nablarch.etl.config.FileToDbStepConfig;
+import nablarch.etl.config.StepConfig;
+import nablarch.fw.batch.progress.ProgressLogger;
+
+/**
+ * PostgreSQLの{@code COPY FROM STDIN}を使用して、データベースのテーブルに対してデータを書き込む
+ * {@link javax.batch.api.chunk.ItemWriter}実装クラス。
+ * <p/>
+ * チャンク内のEntityオブジェクトをCSV形式に変換し、JDBCドライバが提供する{@code CopyManager}で一括して登録する。
+ * CSVは{@code CopyManager}が読み込むごとに1レコードずつ変換するため、チャンク全体のCSVをメモリに保持することはない。
+ * {@code COPY}はチャンクのトランザクションと同じコネクションで実行されるため、チャンクと同じ単位でコミットされる。
+ * <p/>
+ * CSVのカラム順は{@link EtlUtil#getAllColumns(String)}で取得したテーブルのカラム順とする。
+ * Entityに対応するプロパティが存在しないカラムは{@code COPY}の対象外とし、データベースのデフォルト値が設定される。
+ * プロパティの値を取得する{@link ColumnAccessor}は、{@link #open(Serializable)}で解決して保持する。
+ * <p/>
+ * 本クラスはPostgreSQLでのみ使用できる。使用する場合はPostgreSQLのJDBCドライバがクラスパスに存在する必要がある。
+ */
+@Named
+@Dependent
+public class CopyItemWriter extends AbstractItemWriter {
+
+    /** {@link JobContext} */
+    private final JobContext jobContext;
+
+    /** {@link StepContext} */
+    private final StepContext stepContext;
+
+    /** ETLの設定 */
+    private final StepConfig stepConfig;
+
+    /** COPY文 */
+    private String copySql;
+
+    /** CSVのカラム順のプロパティのアクセサ */
+    private List<ColumnAccessor> accessors;
+
+    /** {@code COPY FROM STDIN}を実行するクラス */
+    private PgCopyManager copyManager;
+
+    /** {@link #copyManager}を生成したコネクション */
+    private Connection copyManagerConnection;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param jobContext {@link JobContext}
+     * @param stepContext {@link StepContext}
+     * @param stepConfig ステップの設定
+     */
+    @Inject
+    public CopyItemWriter(
+            final JobContext jobContext,
+            final StepContext stepContext,
+            @EtlConfig final StepConfig stepConfig) {
+        this.jobContext = jobContext;
+        this.stepContext = stepContext;
+        this.stepConfig = stepConfig;
+    }
+
+    @Override
+    public void open(final Serializable checkpoint) throws Exception {
+        if (!(stepConfig instanceof FileToDbStepConfig)) {
+            throw new InvalidEtlConfigException(
+                    "unsupported config type. supported class is FileToDbStepConfig."
+                            + " step config class: " + (stepConfig == null ? "null" : stepConfig.getClass().getName()));
+        }
+        final Class<?> bean = ((FileToDbStepConfig) stepConfig).getBean();
+        EtlUtil.verifyRequired(jobContext.getJobName(), stepContext.getStepName(), "bean", bean);
+
+        final Map<String, ColumnMeta> properties = new HashMap<String, ColumnMeta>();
+        for (ColumnMeta column : EntityUtil.findAllColumns(bean)) {
+            properties.put(column.getName().toUpperCase(), column);
+        }
+        final Dialect dialect = DbConnectionContext.getTransactionManagerConnection().getDialect();
+        final StringBuilder columns = new StringBuilder();
+        accessors = new ArrayList<ColumnAccessor>();
+        for (String column : EtlUtil.getAllColumns(EntityUtil.getTableName(bean))) {
+            final ColumnMeta columnMeta = properties.get(column.toUpperCase());
+            if (columnMeta == null) {
+                continue;
+            }
+            if (columns.length() > 0) {
+                columns.append(", ");
+            }
+            columns.append(column);
+            accessors.add(new ColumnAccessor(bean, columnMeta, dialect));
+        }
+        if (accessors.isEmpty()) {
+            throw new InvalidEtlConfigException(
+                    "no column corresponds to the bean. bean = [" + bean.getName() + ']');
+        }
+        copySql = "copy " + EntityUtil.getTableNameWithSchema(bean) + " (" + columns + ") from stdin with csv";
+        loggingStartChunk(EntityUtil.getTableName(bean));
+    }
+
+    @Override
+    public void writeItems(final List<Object> items) throws Exception {
+        copyIn(copySql, new CsvRecordReader(items));
+    }
+
+    /**
+     * Entityオブジェクトを1レコード分のCSV形式で追加する。
+     *
+     * @param csv 追加先
+     * @param item Entityオブジェクト
+     */
+    private void appendRecord(final StringBuilder csv, final Object item) {
+        for (int i = 0; i < accessors.size(); i++) {
+            if (i > 0) {
+                csv.append(',');
+            }
+            appendValue(csv, accessors.get(i).get(item));
+        }
+        csv.append('\n');
+    }
+
+    /**
+     * {@code COPY FROM STDIN}を実行する。
+     * <p/>
+     * {@code CopyManager}は、チャンクのトランザクションのコネクションから取得する。
+     *
+     * @param sql COPY文
+     * @param data CSV形式のデータ
+     * @return 登録した件数
+     * @throws SQLException データベース関連の例外
+     * @throws IOException 入出力例外
+     */
+    long copyIn(final String sql, final Reader data) throws SQLException, IOException {
+        final Connection connection = DbConnectionContext.getTransactionManagerConnection().getConnection();
+        if (copyManager == null || copyManagerConnection != connection) {
+            copyManager = new PgCopyManager(connection);
+            copyManagerConnection = connection;
+        }
+        return copyManager.copyIn(sql, data);
+    }
+
+    /**
+     * 値をCSV形式で追加する。
+     * <p/>
+     * {@code null}は空の値(引用符なし)とし、{@code COPY}ではNULLとして登録される。
+     * 文字列は常に引用符で囲み、空文字列とNULLを区別する。
+     *
+     * @param csv 追加先
+     * @param value 値
+     */
+    static void appendValue(final StringBuilder csv, final Object value) {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof BigDecimal) {
+            csv.append(((BigDecimal) value).toPlainString());
+        } else if (value instanceof Number || value instanceof Boolean) {
+            csv.append(value);
+        } else if (value instanceof java.sql.Date || value instanceof java.sql.Time || value instanceof Timestamp) {
+            csv.append(value);
+        } else if (value instanceof java.util.Date) {
+            csv.append(new Timestamp(((java.util.Date) value).getTime()));
+        } else if (value instanceof byte[]) {
+            csv.append("\\x");
+            for (byte b : (byte[]) value) {
+                csv.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+        } else {
+            csv.append('"').append(value.toString().replace("\"", "\"\"")).append('"');
+        }
+    }
+
+    /**
+     * チャンク内のEntityオブジェクトを、読み込まれるごとに1レコードずつCSV形式に変換する{@link Reader}。
+     * <p/>
+     * 変換したCSVは1レコード分のみ保持する。
+     */
+    private final class CsvRecordReader extends Reader {
+
+        /** 未変換のEntityオブジェクト */
+        private final Iterator<Object> items;
+
+        /** 変換した1レコード分のCSV */
+        private final StringBuilder record = new StringBuilder();
+
+        /** {@link #record}の読み込み位置 */
+        private int position;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param items チャンク内のEntityオブジェクト
+         */
+        CsvRecordReader(final List<Object> items) {
+            this.items = items.iterator();
+        }
+
+        @Override
+        public int read(final char[] buffer, final int offset, final int length) {
+            if (length == 0) {
+                return 0;
+            }
+            int read = 0;
+            while (read < length) {
+                if (position == record.length()) {
+                    if (!items.hasNext()) {
+                        break;
+                    }
+                    record.setLength(0);
+                    position = 0;
+                    appendRecord(record, items.next());
+                }
+                final int count = Math.min(length - read, record.length() - position);
+                record.getChars(position, position + count, buffer, offset + read);
+                position += count;
+                read += count;
+            }
+            return read == 0 ? -1 : read;
+        }
+
+        @Override
+        public void close() {
+            // nop
+        }
+    }
+
+    /**
+     * 進捗ログを出力する。
+     * @param tableName 登録先テーブル名
+     */
+    private void loggingStartChunk(final String tableName) {
+        ProgressLogger.write(MessageFormat.format("job name: [{0}] step name: [{1}] write table name: [{2}]",
+                jobContext.getJobName(), stepContext.getStepName(), tableName));
+    }
+}
@@ -1,8 +1,18 @@
 package nablarch.etl;
 
+import nablarch.common.dao.DatabaseUtil;
+import nablarch.common.dao.EntityUtil;
 import nablarch.common.dao.UniversalDao;
+import nablarch.core.db.connection.DbConnectionContext;
+import nablarch.core.db.statement.ResultSetIterator;
+import nablarch.core.db.statement.SqlPStatement;
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+import nablarch.core.util.StringUtil;
 import nablarch.etl.config.DbInputStepConfig;
+import nablarch.etl.config.DbToFileStepConfig;
 import nablarch.etl.config.EtlConfig;
+import nablarch.etl.config.InputCountMode;
 import nablarch.etl.config.StepConfig;
 import nablarch.fw.batch.ee.chunk.BaseDatabaseItemReader;
 import nablarch.fw.batch.ee.progress.ProgressManager;
@@ -14,11 +24,43 @@ import javax.enterprise.context.Dependent;
 import javax.inject.Inject;
 import javax.inject.Named;
 import java.io.Serializable;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Iterator;
 
 /**
  * 指定されたSELECT文を使ってテーブルから取得したレコードの読み込みを行う{@link AbstractItemReader}の実装クラス。
+ * <p/>
+ * チェックポイントとして読み込み済みのレコード数を返す。
+ * {@link DbInputStepConfig#isSkipOnRestart()}が{@code true}の場合は、再実行時にその件数分のレコードを読み飛ばす。
+ * 再実行時に同じレコードを読み飛ばすため、SELECT文には一意な並び順となるORDER BY句を指定すること。
+ * 並び順が一意でない場合は、データベースが返すレコードの順序が実行ごとに変わり得るため、
+ * 未処理のレコードを読み飛ばしたり処理済みのレコードを再度読み込んだりする可能性がある。
+ * {@code false}の場合(デフォルト)は、再実行時に先頭から読み込み直す。
+ * また、出力ファイルを途中から再開できないステップ({@link FileItemWriter#isRestartable(DbToFileStepConfig)}が
+ * {@code false}の場合)では、出力ファイルが先頭から書き直されるため、設定に関わらず読み飛ばさない。
+ * <p/>
+ * {@link DbInputStepConfig#getPageSize()}が設定されている場合は、{@link KeysetPageIterator}を使用して
+ * {@link DbInputStepConfig#getPageKey()}のカラムの昇順にページ単位で読み込む。
+ * 長時間カーソルを開いたままにしないため、長時間の読み込みでもUNDOの保持期間切れ(ORA-01555など)が発生しにくい。
+ * この場合のチェックポイント情報は最後に読み込んだキーの値となり、再実行時はそのキーより大きいレコードから読み込む。
+ * SELECT文は副問い合わせとして使用するため、ORDER BY句を指定しないこと。
+ * <p/>
+ * {@link DbInputStepConfig#getFetchSize()}が設定されている場合は、{@link EntityCursor}を使用して
+ * 指定されたフェッチサイズで読み込み、読み込み終了時にラウンドトリップ数をログに出力する。
+ * <p/>
+ * 進捗ログに出力する入力件数は、{@link DbInputStepConfig#getInputCountMode()}に従い取得する。
+ * <ul>
+ * <li>{@link InputCountMode#EXACT}:SELECT文の件数を数える</li>
+ * <li>{@link InputCountMode#ESTIMATE}:Beanに対応するテーブルの統計情報の行数を使用し、読み込み件数が上回った場合は補正する。
+ * 1つのテーブルを条件なしで読み込むSELECT文の場合のみ有効な見積もりとなる。
+ * 統計情報が取得できない場合は、ワーニングログを出力して入力件数を取得しない</li>
+ * <li>{@link InputCountMode#NONE}:入力件数を取得しない</li>
+ * </ul>
+ * {@link DbInputStepConfig#getCountSqlId()}が設定されている場合は、{@link InputCountMode#NONE}以外のモードでは
+ * SELECT文の件数を数える代わりに、そのSQL文の結果を入力件数とする。
+ * 結合や条件を含むSELECT文で件数を数えるコストを抑える場合は、{@link InputCountMode#ESTIMATE}ではなくこちらを使用すること。
  *
  * @author Kumiko Omi
  */
@@ -26,6 +68,9 @@ import java.util.Iterator;
 @Dependent
 public class DatabaseItemReader extends BaseDatabaseItemReader {
 
+    /** ロガー */
+    private static final Logger LOGGER = LoggerManager.get("etl");
+
     /** {@link JobContext} */
     private final JobContext jobContext;
 
@@ -41,6 +86,21 @@ public class DatabaseItemReader extends BaseDatabaseItemReader {
     /** テーブルのデータを格納する変数 */
     private Iterator<?> reader;
 
+    /** キーでページングして読み込む場合のイテレータ */
+    private KeysetPageIterator pageReader;
+
+    /** フェッチサイズを指定して読み込む場合のイテレータ */
+    private EntityCursor cursor;
+
+    /** 読み込み済みのレコード数 */
+    private long readCount;
+
+    /** 入力件数 */
+    private long inputCount;
+
+    /** 入力件数が見積もりか否か */
+    private boolean estimated;
+
     /**
      * コンストラクタ。
      *
@@ -63,6 +123,9 @@ public class DatabaseItemReader extends BaseDatabaseItemReader {
 
     /**
      * テーブルにアクセスして指定されたSELECT文を使ってレコードを取得する。
+     * <p/>
+     * チェックポイント情報があり、読み飛ばす設定の場合は、読み込み済みのレコードを読み飛ばす。
+     * キーでページングして読み込む場合は、チェックポイント情報のキーより大きいレコードから読み込む。
      */
     @Override
     public void doOpen(final Serializable checkpoint) throws SQLException {
@@ -73,17 +136,173 @@ public class DatabaseItemReader extends BaseDatabaseItemReader {
         EtlUtil.verifyRequired(jobId, stepId, "bean", stepConfig.getBean());
         EtlUtil.verifyRequired(jobId, stepId, "sqlId", stepConfig.getSqlId());
 
-        reader = UniversalDao.defer().findAllBySqlFile(
-                        stepConfig.getBean(), stepConfig.getSqlId()).iterator();
+        readCount = 0;
+        final int pageSize = stepConfig.getPageSize();
+        if (pageSize > 0) {
+            EtlUtil.verifyRequired(jobId, stepId, "pageKey", stepConfig.getPageKey());
+            final Serializable lastKey = checkpoint instanceof KeysetReadCheckpoint && isSkippable()
+                    ? ((KeysetReadCheckpoint) checkpoint).getLastKey() : null;
+            pageReader = new KeysetPageIterator(stepConfig.getBean(), stepConfig.loadSql(),
+                    stepConfig.getPageKey(), pageSize, stepConfig.getFetchSize(), lastKey);
+            reader = pageReader;
+        } else {
+            reader = openCursor();
+            if (checkpoint instanceof Long && stepConfig.isSkipOnRestart() && isSkippable()) {
+                final long restartCount = (Long) checkpoint;
+                while (readCount < restartCount && reader.hasNext()) {
+                    reader.next();
+                    readCount++;
+                }
+            }
+        }
+
+        setupInputCount();
+    }
+
+    /**
+     * 1つのカーソルで全件を読み込むイテレータを生成する。
+     * <p/>
+     * フェッチサイズが設定されている場合は、{@link EntityCursor}を使用する。
+     *
+     * @return イテレータ
+     */
+    private Iterator<?> openCursor() {
+        if (stepConfig.getFetchSize() > 0) {
+            cursor = new EntityCursor(stepConfig.getBean(),
+                    DbConnectionContext.getConnection().prepareStatementBySqlId(
+                            stepConfig.getBean().getName() + '#' + stepConfig.getSqlId()),
+                    stepConfig.getFetchSize());
+            return cursor;
+        }
+        return UniversalDao.defer().findAllBySqlFile(stepConfig.getBean(), stepConfig.getSqlId()).iterator();
+    }
+
+    /**
+     * 入力件数を取得し、進捗ログに出力する。
+     *
+     * @throws SQLException SQL例外
+     */
+    private void setupInputCount() throws SQLException {
+        estimated = false;
+        final InputCountMode mode = stepConfig.getInputCountMode();
+        if (mode == InputCountMode.NONE) {
+            return;
+        }
+        if (!StringUtil.isNullOrEmpty(stepConfig.getCountSqlId())) {
+            inputCount = countByCountSql();
+        } else if (mode == InputCountMode.ESTIMATE) {
+            final Long estimatedCount = estimateByStatistics();
+            if (estimatedCount == null) {
+                LOGGER.logWarn("input count can not be estimated because the table statistics are not available."
+                        + " set countSqlId to output the input count. table name = ["
+                        + EntityUtil.getTableName(stepConfig.getBean()) + ']');
+                return;
+            }
+            inputCount = estimatedCount;
+            estimated = true;
+        } else {
+            inputCount = UniversalDao.countBySqlFile(stepConfig.getBean(), stepConfig.getSqlId());
+        }
+        progressManager.setInputCount(inputCount);
+    }
+
+    /**
+     * 入力件数を取得するSQL文を実行し、結果の1行目の1列目を返す。
+     *
+     * @return 入力件数
+     */
+    private long countByCountSql() {
+        final SqlPStatement statement = DbConnectionContext.getConnection().prepareStatementBySqlId(
+                stepConfig.getBean().getName() + '#' + stepConfig.getCountSqlId());
+        final ResultSetIterator rs = statement.executeQuery();
+        try {
+            return rs.next() ? rs.getLong(1) : 0L;
+        } finally {
+            rs.close();
+        }
+    }
+
+    /**
+     * Beanに対応するテーブルの統計情報から、行数の見積もりを取得する。
+     * <p/>
+     * {@link DatabaseMetaData#getIndexInfo(String, String, String, boolean, boolean)}が返す
+     * テーブルの統計情報({@link DatabaseMetaData#tableIndexStatistic})の行数を使用する。
+     *
+     * @return 行数の見積もり。統計情報が取得できない場合は{@code null}
+     * @throws SQLException SQL例外
+     */
+    private Long estimateByStatistics() throws SQLException {
+        final Class<?> bean = stepConfig.getBean();
+        final String schema = EntityUtil.getSchemaName(bean);
+        final DatabaseMetaData metaData =
+                DbConnectionContext.getTransactionManagerConnection().getConnection().getMetaData();
+        final ResultSet rs = metaData.getIndexInfo(null,
+                schema == null ? null : DatabaseUtil.convertIdentifiers(schema),
+                DatabaseUtil.convertIdentifiers(EntityUtil.getTableName(bean)), false, true);
+        try {
+            while (rs.next()) {
+                if (rs.getShort("TYPE") == DatabaseMetaData.tableIndexStatistic) {
+                    return rs.getLong("CARDINALITY");
+                }
+            }
+            return null;
+        } finally {
+            rs.close();
+        }
+    }
 
-        progressManager.setInputCount(UniversalDao.countBySqlFile(stepConfig.getBean(), stepConfig.getSqlId()));
+    /**
+     * 再実行時に読み込み済みのレコードを読み飛ばせるか否かを判定する。
+     *
+     * @return 読み飛ばせる場合は{@code true}
+     */
+    private boolean isSkippable() {
+        return !(stepConfig instanceof DbToFileStepConfig)
+                || FileItemWriter.isRestartable((DbToFileStepConfig) stepConfig);
     }
 
     @Override
     public Object readItem() {
         if (reader.hasNext()) {
+            readCount++;
             return reader.next();
         }
         return null;
     }
+
+    /**
+     * 見積もった入力件数を読み込み件数が上回った場合は、読み込み件数を入力件数として進捗ログに出力し直す。
+     */
+    private void refineEstimatedInputCount() {
+        if (estimated && readCount > inputCount) {
+            inputCount = readCount;
+            progressManager.setInputCount(inputCount);
+        }
+    }
+
+    /**
+     * 読み込み済みのレコード数をチェックポイント情報として返す。
+     * <p/>
+     * キーでページングして読み込む場合は、最後に読み込んだキーの値を返す。
+     */
+    @Override
+    public Serializable checkpointInfo() {
+        refineEstimatedInputCount();
+        if (pageReader != null) {
+            return new KeysetReadCheckpoint(pageReader.getLastKey());
+        }
+        return readCount;
+    }
+
+    /**
+     * フェッチサイズを指定して読み込んだ場合は、カーソルを閉じてラウンドトリップ数をログに出力する。
+     */
+    @Override
+    protected void doClose() {
+        if (cursor != null) {
+            final EntityCursor opened = cursor;
+            cursor = null;
+            opened.close();
+        }
+    }
 }
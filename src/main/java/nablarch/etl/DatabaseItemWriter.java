@@ -4,6 +4,7 @@ import java.io.Serializable;
 import java.text.MessageFormat;
 import java.util.List;
 
+import javax.batch.api.BatchProperty;
 import javax.batch.api.chunk.AbstractItemWriter;
 import javax.batch.runtime.context.JobContext;
 import javax.batch.runtime.context.StepContext;
@@ -13,6 +14,7 @@ import javax.inject.Named;
 
 import nablarch.common.dao.EntityUtil;
 import nablarch.common.dao.UniversalDao;
+import nablarch.core.db.connection.DbConnectionContext;
 import nablarch.etl.config.DbToDbStepConfig;
 import nablarch.etl.config.EtlConfig;
 import nablarch.etl.config.FileToDbStepConfig;
@@ -24,6 +26,16 @@ import nablarch.fw.batch.progress.ProgressLogger;
  * データベースのテーブルに対してデータを書き込む{@link javax.batch.api.chunk.ItemWriter}実装クラス。
  * <p/>
  * {@link UniversalDao#insert(Object)}を使用して、Entityオブジェクトの内容をデータベースに登録する。
+ * <p/>
+ * ステップの設定でインデックスの遅延作成が指定されている場合は、{@link #open(Serializable)}で登録先テーブルの
+ * インデックス(主キーと一意インデックスを除く)を削除し、{@link #close()}で再作成する。
+ * パーティション実行時は、パーティションごとにインデックスの削除と作成が行われるため使用できない。
+ * インデックスの削除と作成に使用するコンポーネントの名前は、バッチプロパティ{@code connectionFactoryName}と
+ * {@code transactionFactoryName}で指定できる({@link TransactionComponents}参照)。
+ * <p/>
+ * ステップの設定で一括登録の行数が指定されている場合は、{@link UniversalDao#batchInsert(List)}の代わりに、
+ * {@link #open(Serializable)}で解決したEntityのメタデータとアクセサを使用して、
+ * 複数行を指定したINSERT文(Oracleの場合はJDBCのバッチ実行)で登録する。
  *
  * @author Hisaaki Shioiri
  */
@@ -40,6 +52,22 @@ public class DatabaseItemWriter extends AbstractItemWriter {
     /** ETLの設定 */
     private final StepConfig stepConfig;
 
+    /** 削除したインデックス(インデックスを削除していない場合は{@code null}) */
+    private DeferredIndexes deferredIndexes;
+
+    /** 一括登録を行うクラス(一括登録の行数が指定されていない場合は{@code null}) */
+    private EntityBulkInserter bulkInserter;
+
+    /** インデックスの削除と作成に使用するConnectionFactoryのコンポーネント名 */
+    @Inject
+    @BatchProperty
+    String connectionFactoryName;
+
+    /** インデックスの削除と作成に使用するTransactionFactoryのコンポーネント名 */
+    @Inject
+    @BatchProperty
+    String transactionFactoryName;
+
     /**
      * コンストラクタ。
      *
@@ -60,9 +88,25 @@ public class DatabaseItemWriter extends AbstractItemWriter {
     @Override
     public void open(final Serializable checkpoint) throws Exception {
         if (stepConfig instanceof DbToDbStepConfig) {
-            loggingStartChunk(EntityUtil.getTableName(((DbToDbStepConfig)stepConfig).getBean()));
+            final DbToDbStepConfig config = (DbToDbStepConfig) stepConfig;
+            loggingStartChunk(EntityUtil.getTableName(config.getBean()));
+            if (config.isDeferIndexes()) {
+                dropIndexes(config.getBean(), config.getIndexRebuildThreads());
+            }
+            createBulkInserter(config.getBean(), config.getBulkInsertSize());
         } else if (stepConfig instanceof FileToDbStepConfig) {
-            loggingStartChunk(EntityUtil.getTableName(((FileToDbStepConfig)stepConfig).getBean()));
+            final FileToDbStepConfig config = (FileToDbStepConfig) stepConfig;
+            loggingStartChunk(EntityUtil.getTableName(config.getBean()));
+            if (config.isDeferIndexes()) {
+                if (config.getPartitions() > 1) {
+                    throw new InvalidEtlConfigException(String.format(
+                            "deferIndexes can not be used with partitions."
+                                    + " jobId = [%s], stepId = [%s], partitions = [%s]",
+                            jobContext.getJobName(), stepContext.getStepName(), config.getPartitions()));
+                }
+                dropIndexes(config.getBean(), config.getIndexRebuildThreads());
+            }
+            createBulkInserter(config.getBean(), config.getBulkInsertSize());
         } else {
             throw new InvalidEtlConfigException(
                     "unsupported config type. supported class is DbToDbStepConfig or FileToDbStepConfig."
@@ -72,7 +116,58 @@ public class DatabaseItemWriter extends AbstractItemWriter {
 
     @Override
     public void writeItems(final List<Object> items) throws Exception {
-        UniversalDao.batchInsert(items);
+        if (bulkInserter == null) {
+            UniversalDao.batchInsert(items);
+        } else {
+            bulkInserter.insert(DbConnectionContext.getConnection(), items);
+        }
+    }
+
+    /**
+     * 削除したインデックスを再作成する。
+     */
+    @Override
+    public void close() throws Exception {
+        if (deferredIndexes != null) {
+            final DeferredIndexes indexes = deferredIndexes;
+            deferredIndexes = null;
+            indexes.rebuild();
+        }
+    }
+
+    /**
+     * 一括登録の行数が指定されている場合は、一括登録を行うクラスを生成する。
+     *
+     * @param bean 登録先テーブルのBeanクラス
+     * @param bulkInsertSize 一括登録で1回の実行で登録する行数
+     */
+    private void createBulkInserter(final Class<?> bean, final Integer bulkInsertSize) {
+        if (bulkInsertSize == null) {
+            return;
+        }
+        if (bulkInsertSize <= 0) {
+            throw new InvalidEtlConfigException(String.format(
+                    "bulkInsertSize must be greater than 0. jobId = [%s], stepId = [%s], size = [%s]",
+                    jobContext.getJobName(), stepContext.getStepName(), bulkInsertSize));
+        }
+        bulkInserter = new EntityBulkInserter(bean, bulkInsertSize,
+                DbConnectionContext.getTransactionManagerConnection());
+    }
+
+    /**
+     * 登録先テーブルのインデックスを削除する。
+     *
+     * @param bean 登録先テーブルのBeanクラス
+     * @param indexRebuildThreads インデックスを再作成するスレッド数
+     */
+    private void dropIndexes(final Class<?> bean, final int indexRebuildThreads) {
+        if (indexRebuildThreads <= 0) {
+            throw new InvalidEtlConfigException(String.format(
+                    "indexRebuildThreads must be greater than 0. jobId = [%s], stepId = [%s], size = [%s]",
+                    jobContext.getJobName(), stepContext.getStepName(), indexRebuildThreads));
+        }
+        deferredIndexes = DeferredIndexes.drop(stepContext, bean, indexRebuildThreads, TransactionComponents.lookup(
+                jobContext.getJobName(), stepContext.getStepName(), connectionFactoryName, transactionFactoryName));
     }
 
     /**
@@ -0,0 +1,274 @@
+package nablarch.etl;
+
+import java.io.Serializable;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.batch.runtime.context.StepContext;
+
+import nablarch.common.dao.EntityUtil;
+import nablarch.core.db.connection.DbConnectionContext;
+import nablarch.core.db.statement.SqlPStatement;
+import nablarch.core.db.transaction.SimpleDbTransactionManager;
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+import nablarch.etl.generator.IndexSqlGenerator;
+import nablarch.etl.generator.IndexSqlGeneratorFactory;
+
+/**
+ * 一括登録の前にテーブルのインデックスを削除し、登録後に再作成するクラス。
+ * <p/>
+ * 対象は主キーと一意インデックスを除いたインデックスとする。
+ * インデックスの削除と作成は、登録処理とは別のコネクションとトランザクションで実行し、SQL文ごとにコミットする。
+ * コネクションとトランザクションは、{@link ParallelRangeExecutor}と同じく、{@link TransactionComponents}から取得する。
+ * <p/>
+ * インデックスの再作成は、指定されたスレッド数で並列に実行する。
+ * <p/>
+ * 削除したインデックスの定義は、再作成前にステップが異常終了した場合に備えてステップの永続ユーザデータに保存し、
+ * 再作成が完了した時点で破棄する。
+ * 再実行時に保存された定義がある場合は、その時点で存在しないインデックスを削除済みのインデックスとして引き継ぎ、
+ * 登録後に再作成する。
+ * 永続ユーザデータはバッチ実行環境がチェックポイントやステップの終了時に保存するため、
+ * その前にプロセスが停止した場合は定義が失われる。この場合に備えて、削除時にインデックスを作成するSQL文をログに出力する。
+ */
+final class DeferredIndexes {
+
+    /** インデックスの削除と作成に使用するトランザクション名 */
+    static final String TRANSACTION_NAME = "etl-deferred-index";
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerManager.get("etl");
+
+    /** {@link StepContext} */
+    private final StepContext stepContext;
+
+    /** テーブル名 */
+    private final String tableName;
+
+    /** インデックスを作成するSQL文 */
+    private final List<String> createSql;
+
+    /** インデックスを再作成するスレッド数 */
+    private final int threads;
+
+    /** インデックスの削除と作成に使用するコネクションとトランザクションを取得するコンポーネント */
+    private final TransactionComponents transactionComponents;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param stepContext {@link StepContext}
+     * @param tableName テーブル名
+     * @param createSql インデックスを作成するSQL文
+     * @param threads インデックスを再作成するスレッド数
+     * @param transactionComponents インデックスの削除と作成に使用するコネクションとトランザクションを取得するコンポーネント
+     */
+    private DeferredIndexes(final StepContext stepContext, final String tableName, final List<String> createSql,
+            final int threads, final TransactionComponents transactionComponents) {
+        this.stepContext = stepContext;
+        this.tableName = tableName;
+        this.createSql = createSql;
+        this.threads = threads;
+        this.transactionComponents = transactionComponents;
+    }
+
+    /**
+     * テーブルのインデックスを削除する。
+     * <p/>
+     * 削除するインデックスの定義は、インデックスを削除する前にステップの永続ユーザデータに保存する。
+     * 前回の実行で保存された定義がある場合は、その時点で存在しないインデックスも再作成の対象とする。
+     *
+     * @param stepContext {@link StepContext}
+     * @param entity テーブルのエンティティクラス
+     * @param threads インデックスを再作成するスレッド数
+     * @param transactionComponents インデックスの削除と作成に使用するコネクションとトランザクションを取得するコンポーネント
+     * @return 削除したインデックス
+     */
+    static DeferredIndexes drop(final StepContext stepContext, final Class<?> entity, final int threads,
+            final TransactionComponents transactionComponents) {
+        final String tableName = EntityUtil.getTableName(entity);
+        final TableIndexes indexes = TableIndexes.find(entity).nonUniqueIndexes();
+        final List<String> indexNames = indexes.getIndexNames();
+        final List<String> currentSql = indexes.generateCreateSql(EntityUtil.getTableNameWithSchema(entity));
+
+        final SavedIndexes saved = new SavedIndexes(tableName);
+        final Serializable previous = stepContext.getPersistentUserData();
+        if (previous instanceof SavedIndexes && ((SavedIndexes) previous).tableName.equals(tableName)) {
+            saved.createSql.putAll(((SavedIndexes) previous).createSql);
+            final List<String> restored = new ArrayList<String>(saved.createSql.keySet());
+            restored.removeAll(indexNames);
+            LOGGER.logWarn(MessageFormat.format(
+                    "indexes dropped in the previous execution will be rebuilt. table name=[{0}], indexes={1}",
+                    tableName, restored));
+        }
+        for (int i = 0; i < indexNames.size(); i++) {
+            saved.createSql.put(indexNames.get(i), currentSql.get(i));
+        }
+        stepContext.setPersistentUserData(saved);
+
+        final IndexSqlGenerator generator =
+                IndexSqlGeneratorFactory.create(DbConnectionContext.getTransactionManagerConnection());
+        final List<String> dropSql = new ArrayList<String>();
+        for (String indexName : indexNames) {
+            dropSql.add(generator.generateDropSql(entity, indexName));
+        }
+        new IndexWorker(transactionComponents, dropSql).call();
+        LOGGER.logInfo(MessageFormat.format("indexes dropped. table name=[{0}], indexes={1}, create sql={2}",
+                tableName, indexNames, currentSql));
+        return new DeferredIndexes(stepContext, tableName, new ArrayList<String>(saved.createSql.values()), threads,
+                transactionComponents);
+    }
+
+    /**
+     * 削除したインデックスを再作成する。
+     * <p/>
+     * いずれかのスレッドでインデックスの作成に失敗した場合でも他のスレッドの処理は継続し、
+     * 全てのスレッドの完了後に最初に発生した例外を送出する。
+     * 全てのインデックスを作成した場合は、ステップの永続ユーザデータに保存した定義を破棄する。
+     */
+    void rebuild() {
+        if (createSql.isEmpty()) {
+            stepContext.setPersistentUserData(null);
+            return;
+        }
+        final long start = System.currentTimeMillis();
+        final int parallelism = Math.min(threads, createSql.size());
+        final ExecutorService executor =
+                Executors.newFixedThreadPool(parallelism, new EtlThreadFactory("index-rebuild"));
+        try {
+            final List<Future<Void>> workers = new ArrayList<Future<Void>>();
+            for (int i = 0; i < parallelism; i++) {
+                final List<String> assigned = new ArrayList<String>();
+                for (int j = i; j < createSql.size(); j += parallelism) {
+                    assigned.add(createSql.get(j));
+                }
+                workers.add(executor.submit(new IndexWorker(transactionComponents, assigned)));
+            }
+            RuntimeException failure = null;
+            for (Future<Void> worker : workers) {
+                try {
+                    await(worker);
+                } catch (RuntimeException e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        stepContext.setPersistentUserData(null);
+        LOGGER.logInfo(MessageFormat.format(
+                "indexes rebuilt. table name=[{0}], index count=[{1}], threads=[{2}], elapsed time(ms)=[{3}]",
+                tableName, String.valueOf(createSql.size()), String.valueOf(parallelism),
+                String.valueOf(System.currentTimeMillis() - start)));
+    }
+
+    /**
+     * スレッドの完了を待ち合わせる。
+     *
+     * @param worker スレッド
+     */
+    private static void await(final Future<Void> worker) {
+        try {
+            worker.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while rebuilding indexes.", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * ステップの永続ユーザデータに保存する、削除したインデックスの定義。
+     */
+    private static final class SavedIndexes implements Serializable {
+
+        /** シリアルバージョンUID */
+        private static final long serialVersionUID = 1L;
+
+        /** テーブル名 */
+        private final String tableName;
+
+        /** インデックス名とインデックスを作成するSQL文 */
+        private final LinkedHashMap<String, String> createSql = new LinkedHashMap<String, String>();
+
+        /**
+         * コンストラクタ。
+         *
+         * @param tableName テーブル名
+         */
+        private SavedIndexes(final String tableName) {
+            this.tableName = tableName;
+        }
+    }
+
+    /**
+     * 個別のトランザクションでSQL文を順に実行し、SQL文ごとにコミットするタスク。
+     */
+    private static class IndexWorker implements Callable<Void> {
+
+        /** コネクションとトランザクションを取得するコンポーネント */
+        private final TransactionComponents transactionComponents;
+
+        /** 実行するSQL文 */
+        private final List<String> sqlList;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param transactionComponents コネクションとトランザクションを取得するコンポーネント
+         * @param sqlList 実行するSQL文
+         */
+        IndexWorker(final TransactionComponents transactionComponents, final List<String> sqlList) {
+            this.transactionComponents = transactionComponents;
+            this.sqlList = sqlList;
+        }
+
+        @Override
+        public Void call() {
+            if (sqlList.isEmpty()) {
+                return null;
+            }
+            final SimpleDbTransactionManager transaction =
+                    transactionComponents.createTransactionManager(TRANSACTION_NAME);
+            transaction.beginTransaction();
+            try {
+                for (String sql : sqlList) {
+                    final SqlPStatement statement = DbConnectionContext.getConnection(TRANSACTION_NAME)
+                                                                       .prepareStatement(sql);
+                    try {
+                        statement.execute();
+                    } finally {
+                        statement.close();
+                    }
+                    transaction.commitTransaction();
+                }
+                return null;
+            } catch (RuntimeException e) {
+                transaction.rollbackTransaction();
+                throw e;
+            } finally {
+                transaction.endTransaction();
+            }
+        }
+    }
+}
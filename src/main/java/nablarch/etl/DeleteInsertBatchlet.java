@@ -1,26 +1,45 @@
 package nablarch.etl;
 
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import javax.batch.api.AbstractBatchlet;
+import javax.batch.api.BatchProperty;
 import javax.batch.runtime.context.JobContext;
 import javax.batch.runtime.context.StepContext;
 import javax.enterprise.context.Dependent;
 import javax.inject.Inject;
 import javax.inject.Named;
 
+import nablarch.common.dao.ColumnMeta;
+import nablarch.common.dao.DatabaseUtil;
 import nablarch.common.dao.EntityUtil;
 import nablarch.common.dao.UniversalDao;
 import nablarch.core.db.connection.AppDbConnection;
 import nablarch.core.db.connection.DbConnectionContext;
+import nablarch.core.db.connection.TransactionManagerConnection;
+import nablarch.core.db.dialect.Dialect;
+import nablarch.core.db.statement.ResultSetIterator;
+import nablarch.core.db.statement.SelectOption;
 import nablarch.core.db.statement.SqlPStatement;
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
 import nablarch.core.transaction.TransactionContext;
 import nablarch.etl.config.DbToDbStepConfig;
+import nablarch.etl.config.DbToDbStepConfig.CleaningMode;
 import nablarch.etl.config.DbToDbStepConfig.InsertMode;
 import nablarch.etl.config.DbToDbStepConfig.UpdateSize;
 import nablarch.etl.config.EtlConfig;
 import nablarch.etl.config.StepConfig;
 import nablarch.etl.generator.InsertSqlGenerator;
+import nablarch.etl.generator.TableSwapSqlGenerator;
+import nablarch.etl.generator.TableSwapSqlGeneratorFactory;
+import nablarch.etl.generator.TruncateSqlGeneratorFactory;
 import nablarch.fw.batch.ee.progress.ProgressManager;
 import nablarch.fw.batch.progress.ProgressLogger;
 
@@ -28,6 +47,48 @@ import nablarch.fw.batch.progress.ProgressLogger;
  * テーブル間のデータ転送を行う{@link javax.batch.api.Batchlet}実装クラス。
  * <p/>
  * 移送先テーブルのデータをクリーニング後に、移送元のデータを一括で移送先のテーブルに転送（登録）する。
+ * <p/>
+ * クリーニングの方法は{@link CleaningMode}で指定する。
+ * TRUNCATEモードと分割削除モードでは、クリーニングは登録処理とは別のトランザクションでコミットされる。
+ * <p/>
+ * {@link UpdateSize}が設定されている場合は、再実行時に前回の実行でコミット済みの範囲の次から処理を再開する。
+ * クリーニングは最初の範囲と同じトランザクションでコミットされるため、コミット済みの範囲がある場合はクリーニングを行わない。
+ * <p/>
+ * {@link InsertMode#SWAP}の場合は、クリーニングを行わずに、移送先テーブルと同じカラム構成のシャドウテーブルに登録してから
+ * テーブル名を変更して移送先テーブルと入れ替える。シャドウテーブルはインデックスを持たないため、
+ * 登録後に移送先テーブルが持っていた主キーとインデックスをシャドウテーブルに作成してから入れ替え、
+ * 最後に旧テーブルを削除する。主キーとインデックスの名前は移送先テーブルと重複しないように、
+ * 入れ替えのたびに{@value TableSwapSqlGenerator#SHADOW_SUFFIX}の付与と除去を交互に行う。
+ * 条件付きのインデックスや式に対するインデックスなど、メタデータから再作成できないインデックスを持つテーブルは、
+ * 処理の開始時に例外を送出する。
+ * <p/>
+ * 2つのテーブル名の変更は1つのトランザクションで実行する。
+ * DDLをトランザクション内で実行できるデータベース製品(PostgreSQL、SQL Server、DB2)では、
+ * 他のトランザクションから移送先テーブルが存在しない状態が見えることはない。
+ * それ以外のデータベース製品(Oracleなど)ではDDLが個別にコミットされるため、
+ * 2つのテーブル名の変更の間に移送先テーブルにアクセスすると、テーブルが存在しないエラーとなる。
+ * このため、移送先テーブルにアクセスする他の処理と並行して実行しないこと。
+ * <p/>
+ * DDLが個別にコミットされる場合に入れ替えの途中でプロセスが停止した場合に備えて、
+ * 処理の開始時に前回の実行で残ったテーブルの状態を以下のように復旧する。
+ * <ul>
+ * <li>移送先テーブルが存在せず旧テーブルが存在する場合は、旧テーブルの名前を移送先テーブルに戻す</li>
+ * <li>移送先テーブルが存在する場合のみ、残ったシャドウテーブルと旧テーブルを削除する</li>
+ * </ul>
+ * シャドウテーブルにはカラムのデフォルト値、チェック制約、外部キー制約、権限およびトリガーは引き継がれない。
+ * また、移送先テーブルを参照するビューは旧テーブルを参照したままとなる。
+ * これらを持つテーブルは、データベースのメタデータとディクショナリで検出して処理の開始時に例外を送出する
+ * ({@link TableSwapSqlGenerator#generateFindDependentObjectsSql(Class)}参照)。
+ * また、{@link InsertMode#SWAP}は{@link DbToDbStepConfig#isDeferIndexes()}と併用できない。
+ * <p/>
+ * {@link DbToDbStepConfig#isDeferIndexes()}が{@code true}の場合は、クリーニングの前に移送先テーブルのインデックス
+ * (主キーと一意インデックスを除く)を削除し、登録処理をコミットしてから再作成する。
+ * 条件付きのインデックスや式に対するインデックスなど、メタデータから再作成できないインデックスは削除しない。
+ * 登録処理に失敗した場合も、ロールバックしてからインデックスを再作成する。
+ * このときインデックスの再作成に失敗した場合は、登録処理の例外を送出し、再作成の失敗はワーニングログに出力する。
+ * 削除したインデックスの定義はステップの永続ユーザデータに保存するため、{@link UpdateSize}と併用することはできない。
+ * インデックスの削除と作成は個別のトランザクションで行う。使用するコンポーネントの名前は、
+ * バッチプロパティ{@code connectionFactoryName}と{@code transactionFactoryName}で指定できる({@link TransactionComponents}参照)。
  *
  * @author Hisaaki Shioiri
  */
@@ -35,6 +96,9 @@ import nablarch.fw.batch.progress.ProgressLogger;
 @Dependent
 public class DeleteInsertBatchlet extends AbstractBatchlet {
 
+    /** ロガー */
+    private static final Logger LOGGER = LoggerManager.get("etl");
+
     /** {@link JobContext} */
     private final JobContext jobContext;
 
@@ -50,6 +114,16 @@ public class DeleteInsertBatchlet extends AbstractBatchlet {
     /** 進捗状況を管理するBean */
     private final ProgressManager progressManager;
 
+    /** インデックスの削除と作成に使用するConnectionFactoryのコンポーネント名 */
+    @Inject
+    @BatchProperty
+    String connectionFactoryName;
+
+    /** インデックスの削除と作成に使用するTransactionFactoryのコンポーネント名 */
+    @Inject
+    @BatchProperty
+    String transactionFactoryName;
+
     /**
      * コンストラクタ。
      *
@@ -88,13 +162,83 @@ public class DeleteInsertBatchlet extends AbstractBatchlet {
 
         final AppDbConnection connection = DbConnectionContext.getConnection();
 
-        cleaning(connection, config);
-
-        insert(connection, config);
+        if (config.getInsertMode() == InsertMode.SWAP) {
+            final TableSwapSqlGenerator swapSqlGenerator =
+                    TableSwapSqlGeneratorFactory.create(DbConnectionContext.getTransactionManagerConnection());
+            recoverSwap(connection, swapSqlGenerator, config.getBean());
+            verifySwappable(connection, swapSqlGenerator, config.getBean());
+            final TableIndexes indexes = TableIndexes.find(config.getBean());
+            if (!indexes.getUnsupportedIndexNames().isEmpty()) {
+                throw new InvalidEtlConfigException("Swap mode does not support indexes that can not be recreated"
+                        + " from the database metadata. table name = [" + EntityUtil.getTableName(config.getBean())
+                        + "], index names = " + indexes.getUnsupportedIndexNames());
+            }
+            execute(connection, Collections.singletonList(swapSqlGenerator.generateCreateShadowSql(config.getBean())));
+            insert(connection, config);
+            commit();
+            swap(connection, swapSqlGenerator, config.getBean(), indexes);
+        } else if (config.isDeferIndexes()) {
+            final DeferredIndexes deferredIndexes = DeferredIndexes.drop(stepContext, config.getBean(),
+                    config.getIndexRebuildThreads(), TransactionComponents.lookup(jobContext.getJobName(),
+                            stepContext.getStepName(), connectionFactoryName, transactionFactoryName));
+            try {
+                cleaningAndInsert(connection, config);
+                commit();
+            } catch (RuntimeException e) {
+                rollbackAndRebuild(deferredIndexes);
+                throw e;
+            } catch (Error e) {
+                rollbackAndRebuild(deferredIndexes);
+                throw e;
+            }
+            deferredIndexes.rebuild();
+        } else {
+            cleaningAndInsert(connection, config);
+        }
 
         return "SUCCESS";
     }
 
+    /**
+     * 登録処理に失敗した場合に、ロールバックしてから削除したインデックスを再作成する。
+     * <p/>
+     * 呼び出し元で登録処理の例外を送出するため、ロールバックまたはインデックスの再作成に失敗した場合は、
+     * 例外を送出せずにワーニングログを出力する。
+     * 再作成できなかったインデックスの定義はステップの永続ユーザデータに残るため、再実行時に再作成される。
+     *
+     * @param deferredIndexes 削除したインデックス
+     */
+    private static void rollbackAndRebuild(final DeferredIndexes deferredIndexes) {
+        try {
+            TransactionContext.getTransaction().rollback();
+        } catch (RuntimeException e) {
+            LOGGER.logWarn("failed to rollback after the insert failed.", e);
+        }
+        try {
+            deferredIndexes.rebuild();
+        } catch (RuntimeException e) {
+            LOGGER.logWarn("failed to rebuild the dropped indexes after the insert failed."
+                    + " the indexes will be rebuilt on restart.", e);
+        }
+    }
+
+    /**
+     * クリーニング後に登録処理を行う。
+     * <p/>
+     * {@link UpdateSize}が設定されていて前回の実行でコミット済みの範囲がある場合は、クリーニングを行わない。
+     *
+     * @param connection データベース接続
+     * @param config 設定
+     */
+    private void cleaningAndInsert(final AppDbConnection connection, final DbToDbStepConfig config) {
+        if (config.getUpdateSize() != null && rangeUpdateHelper.getCommittedPosition() > 0L) {
+            loggingCleaningSkipped(EntityUtil.getTableName(config.getBean()));
+        } else {
+            cleaning(connection, config);
+        }
+        insert(connection, config);
+    }
+
     /**
      * 設定値の検証を行う。
      *
@@ -113,10 +257,38 @@ public class DeleteInsertBatchlet extends AbstractBatchlet {
             throw new InvalidEtlConfigException("Oracle Direct Path mode does not support UpdateSize.");
         }
 
+        if (insertMode == InsertMode.SWAP && updateSize != null) {
+            throw new InvalidEtlConfigException("Swap mode does not support UpdateSize.");
+        }
+
+        if (insertMode == InsertMode.SWAP && config.isDeferIndexes()) {
+            throw new InvalidEtlConfigException("Swap mode does not support deferIndexes.");
+        }
+
+        if (config.isDeferIndexes() && updateSize != null) {
+            throw new InvalidEtlConfigException(String.format(
+                    "deferIndexes can not be used with updateSize. jobId = [%s], stepId = [%s]", jobName, stepName));
+        }
+
         if (updateSize != null) {
             EtlUtil.verifySqlRangeParameter(config);
             rangeUpdateHelper.verifyUpdateSize(updateSize);
         }
+
+        if (config.isDeferIndexes() && config.getIndexRebuildThreads() <= 0) {
+            throw new InvalidEtlConfigException(String.format(
+                    "indexRebuildThreads must be greater than 0. jobId = [%s], stepId = [%s], size = [%s]",
+                    jobName, stepName, config.getIndexRebuildThreads()));
+        }
+
+        if (config.getCleaningMode() == CleaningMode.CHUNKED_DELETE) {
+            EtlUtil.verifyRequired(jobName, stepName, "cleaningChunkSize", config.getCleaningChunkSize());
+            if (config.getCleaningChunkSize() <= 0) {
+                throw new InvalidEtlConfigException(String.format(
+                        "cleaningChunkSize must be greater than 0. jobId = [%s], stepId = [%s], size = [%s]",
+                        jobName, stepName, config.getCleaningChunkSize()));
+            }
+        }
     }
 
     /**
@@ -127,10 +299,133 @@ public class DeleteInsertBatchlet extends AbstractBatchlet {
      */
     private void cleaning(final AppDbConnection connection, final DbToDbStepConfig config) {
         final String tableName = EntityUtil.getTableName(config.getBean());
-        final SqlPStatement statement = connection.prepareStatement(
-                "delete from " + tableName);
+        final CleaningMode mode = config.getCleaningMode();
+        if (mode == CleaningMode.TRUNCATE) {
+            truncate(config);
+            loggingTruncate(tableName);
+        } else if (mode == CleaningMode.CHUNKED_DELETE) {
+            loggingCleaning(tableName, deleteByChunk(connection, config));
+        } else {
+            final SqlPStatement statement = connection.prepareStatement(
+                    "delete from " + tableName);
+            statement.execute();
+            loggingCleaning(tableName, statement.getUpdateCount());
+        }
+    }
+
+    /**
+     * TRUNCATE文でテーブルをクリーニングする。
+     * <p/>
+     * RDBMS製品によっては、TRUNCATE文の発行はトランザクション内の最初のステートメントである必要があるため、
+     * {@link TableCleaningBatchlet}と同様に、TRUNCATE文の構築後に明示的にトランザクションをロールバックしてから発行する。
+     *
+     * @param config 設定
+     */
+    private static void truncate(final DbToDbStepConfig config) {
+        final TransactionManagerConnection connection = DbConnectionContext.getTransactionManagerConnection();
+        final String sql = TruncateSqlGeneratorFactory.create(connection).generateSql(config.getBean());
+        connection.rollback();
+
+        final SqlPStatement statement = connection.prepareStatement(sql);
         statement.execute();
-        loggingCleaning(tableName, statement.getUpdateCount());
+        connection.commit();
+    }
+
+    /**
+     * 主キーを指定したDELETE文で、一定件数ごとにコミットしながらテーブルをクリーニングする。
+     * <p/>
+     * 削除対象の主キーは、ダイアレクトのページング機能で件数を制限したSELECT文で取得する。
+     * ダイアレクトがページングに対応していない場合は、最大行数を指定して制限する。
+     *
+     * @param connection データベース接続
+     * @param config 設定
+     * @return 削除した件数
+     */
+    private static int deleteByChunk(final AppDbConnection connection, final DbToDbStepConfig config) {
+        final Class<?> entity = config.getBean();
+        final List<ColumnMeta> idColumns = EntityUtil.findIdColumns(entity);
+        if (idColumns.isEmpty()) {
+            throw new InvalidEtlConfigException(
+                    "chunked delete requires id columns. bean = [" + entity.getName() + ']');
+        }
+        final StringBuilder columns = new StringBuilder();
+        final StringBuilder condition = new StringBuilder();
+        for (ColumnMeta idColumn : idColumns) {
+            if (columns.length() > 0) {
+                columns.append(", ");
+                condition.append(" and ");
+            }
+            columns.append(idColumn.getName());
+            condition.append(idColumn.getName()).append(" = ?");
+        }
+        final String tableName = EntityUtil.getTableNameWithSchema(entity);
+        final int chunkSize = config.getCleaningChunkSize();
+        final Dialect dialect = DbConnectionContext.getTransactionManagerConnection().getDialect();
+        final String selectSql = dialect.convertPaginationSql(
+                "select " + columns + " from " + tableName, new SelectOption(1, chunkSize));
+        final String deleteSql = "delete from " + tableName + " where " + condition;
+
+        int deleteCount = 0;
+        while (true) {
+            final List<Object[]> keys = selectKeys(connection, selectSql, idColumns.size(),
+                    dialect.supportsOffset() ? 0 : chunkSize);
+            if (keys.isEmpty()) {
+                break;
+            }
+            final SqlPStatement statement = connection.prepareStatement(deleteSql);
+            try {
+                for (Object[] key : keys) {
+                    for (int i = 0; i < key.length; i++) {
+                        statement.setObject(i + 1, key[i]);
+                    }
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            } finally {
+                statement.close();
+            }
+            commit();
+            deleteCount += keys.size();
+            if (keys.size() < chunkSize) {
+                break;
+            }
+        }
+        return deleteCount;
+    }
+
+    /**
+     * 削除対象の主キーを取得する。
+     *
+     * @param connection データベース接続
+     * @param sql 主キーを取得するSELECT文
+     * @param columnCount 主キーのカラム数
+     * @param maxRows 最大行数(制限しない場合は0)
+     * @return 主キーのリスト
+     */
+    private static List<Object[]> selectKeys(final AppDbConnection connection, final String sql,
+            final int columnCount, final int maxRows) {
+        final List<Object[]> keys = new ArrayList<Object[]>();
+        final SqlPStatement statement = connection.prepareStatement(sql);
+        try {
+            if (maxRows > 0) {
+                statement.setMaxRows(maxRows);
+            }
+            final ResultSetIterator rs = statement.executeQuery();
+            try {
+                while (rs.next()) {
+                    final Object[] key = new Object[columnCount];
+                    for (int i = 0; i < columnCount; i++) {
+                        key[i] = rs.getObject(i + 1);
+                    }
+                    keys.add(key);
+                }
+            } finally {
+                rs.close();
+            }
+        } finally {
+            statement.close();
+        }
+        return keys;
     }
 
     /**
@@ -152,17 +447,192 @@ public class DeleteInsertBatchlet extends AbstractBatchlet {
         } else {
             final Long maxLineNum = rangeUpdateHelper.getMaxLineNumber(config);
             progressManager.setInputCount(maxLineNum);
-            final Range range = new Range(updateSize.getSize(), maxLineNum);
+            final Range range = rangeUpdateHelper.createRange(config, maxLineNum);
             while (range.next()) {
                 statement.setLong(1, range.from);
                 statement.setLong(2, range.to);
-                statement.executeUpdate();
+                final long start = System.currentTimeMillis();
+                final int updateCount = statement.executeUpdate();
                 commit();
+                rangeUpdateHelper.saveCommittedPosition(range.to);
+                rangeUpdateHelper.adjustInterval(updateSize, range, range.to - range.from + 1,
+                        System.currentTimeMillis() - start, updateCount);
                 progressManager.outputProgressInfo(range.to);
             }
+            rangeUpdateHelper.clearCommittedPosition();
         }
     }
 
+    /**
+     * 前回の実行で入れ替えの途中で停止した場合に、テーブルの状態を復旧する。
+     * <p/>
+     * 移送先テーブルが存在せず旧テーブルが存在する場合は、旧テーブルの名前を移送先テーブルに戻す。
+     * 移送先テーブルが存在することを確認してから、残ったシャドウテーブルと旧テーブルを削除する。
+     *
+     * @param connection データベース接続
+     * @param generator テーブルを入れ替えるSQL文のジェネレータ
+     * @param entity エンティティクラス
+     */
+    private void recoverSwap(final AppDbConnection connection,
+            final TableSwapSqlGenerator generator, final Class<?> entity) {
+        final String tableName = EntityUtil.getTableName(entity);
+        final String oldTableName = generator.getOldTableName(entity);
+        if (!existsTable(entity, tableName)) {
+            if (!existsTable(entity, oldTableName)) {
+                throw new IllegalStateException("target table does not exist. table name = [" + tableName + ']');
+            }
+            execute(connection, Collections.singletonList(generator.generateRestoreSql(entity)));
+            loggingSwapRecovered(tableName);
+        }
+        final List<String> sqlList = new ArrayList<String>();
+        for (String leftover : new String[] {generator.getShadowTableName(entity), oldTableName}) {
+            if (existsTable(entity, leftover)) {
+                sqlList.add(generator.generateDropSql(entity, leftover));
+            }
+        }
+        execute(connection, sqlList);
+    }
+
+    /**
+     * シャドウテーブルに引き継げない定義を移送先テーブルが持っていないことを検証する。
+     * <p/>
+     * カラムのデフォルト値と外部キー制約(移送先テーブルが参照するものと、移送先テーブルを参照するもの)は
+     * データベースのメタデータで検証する。
+     * チェック制約、トリガー、ビューおよび権限は、データベースのディクショナリを検索して検証する。
+     *
+     * @param connection データベース接続
+     * @param generator テーブルを入れ替えるSQL文のジェネレータ
+     * @param entity エンティティクラス
+     * @throws RuntimeException データベース関連の例外が発生した場合
+     */
+    private static void verifySwappable(final AppDbConnection connection,
+            final TableSwapSqlGenerator generator, final Class<?> entity) {
+        final String tableName = EntityUtil.getTableName(entity);
+        final String schema = getSchemaPattern(entity);
+        final String convertedTableName = DatabaseUtil.convertIdentifiers(tableName);
+        try {
+            final DatabaseMetaData metaData = DbConnectionContext.getTransactionManagerConnection()
+                                                                 .getConnection()
+                                                                 .getMetaData();
+            final ResultSet columns = metaData.getColumns(null, schema, convertedTableName, null);
+            try {
+                while (columns.next()) {
+                    final String defaultValue = columns.getString("COLUMN_DEF");
+                    if (defaultValue != null && defaultValue.trim().length() > 0
+                            && !"null".equalsIgnoreCase(defaultValue.trim())) {
+                        throw new InvalidEtlConfigException("Swap mode does not support tables with column defaults."
+                                + " table name = [" + tableName + "], column name = ["
+                                + columns.getString("COLUMN_NAME") + ']');
+                    }
+                }
+            } finally {
+                columns.close();
+            }
+            final ResultSet importedKeys = metaData.getImportedKeys(null, schema, convertedTableName);
+            final ResultSet exportedKeys = metaData.getExportedKeys(null, schema, convertedTableName);
+            try {
+                if (importedKeys.next() || exportedKeys.next()) {
+                    throw new InvalidEtlConfigException("Swap mode does not support tables with foreign keys."
+                            + " table name = [" + tableName + ']');
+                }
+            } finally {
+                importedKeys.close();
+                exportedKeys.close();
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        for (String sql : generator.generateFindDependentObjectsSql(entity)) {
+            final SqlPStatement statement = connection.prepareStatement(sql);
+            try {
+                final ResultSetIterator rs = statement.executeQuery();
+                try {
+                    if (rs.next()) {
+                        throw new InvalidEtlConfigException("Swap mode does not support tables with objects"
+                                + " that can not be copied to the shadow table."
+                                + " table name = [" + tableName + "], object type = [" + rs.getString(1)
+                                + "], object name = [" + rs.getString(2) + ']');
+                    }
+                } finally {
+                    rs.close();
+                }
+            } finally {
+                statement.close();
+            }
+        }
+    }
+
+    /**
+     * シャドウテーブルに主キーとインデックスを作成してから移送先テーブルと入れ替え、最後に旧テーブルを削除する。
+     *
+     * @param connection データベース接続
+     * @param generator テーブルを入れ替えるSQL文のジェネレータ
+     * @param entity エンティティクラス
+     * @param indexes 移送先テーブルが持っていた主キーとインデックス
+     */
+    private void swap(final AppDbConnection connection, final TableSwapSqlGenerator generator,
+            final Class<?> entity, final TableIndexes indexes) {
+        execute(connection, indexes.toShadowNames().generateCreateSql(generator.getShadowTableNameWithSchema(entity)));
+        execute(connection, generator.generateSwapSql(entity));
+        execute(connection, Collections.singletonList(
+                generator.generateDropSql(entity, generator.getOldTableName(entity))));
+        loggingSwap(EntityUtil.getTableName(entity));
+    }
+
+    /**
+     * SQL文を順に実行してコミットする。
+     *
+     * @param connection データベース接続
+     * @param sqlList SQL文
+     */
+    private static void execute(final AppDbConnection connection, final List<String> sqlList) {
+        for (String sql : sqlList) {
+            final SqlPStatement statement = connection.prepareStatement(sql);
+            try {
+                statement.execute();
+            } finally {
+                statement.close();
+            }
+        }
+        commit();
+    }
+
+    /**
+     * エンティティのスキーマにテーブルが存在するか否かを判定する。
+     *
+     * @param entity エンティティクラス
+     * @param tableName テーブル名(スキーマ名を含まない)
+     * @return 存在する場合は{@code true}
+     * @throws RuntimeException データベース関連の例外が発生した場合
+     */
+    private static boolean existsTable(final Class<?> entity, final String tableName) {
+        try {
+            final DatabaseMetaData metaData = DbConnectionContext.getTransactionManagerConnection()
+                                                                 .getConnection()
+                                                                 .getMetaData();
+            final ResultSet tables = metaData.getTables(
+                    null, getSchemaPattern(entity), DatabaseUtil.convertIdentifiers(tableName), null);
+            try {
+                return tables.next();
+            } finally {
+                tables.close();
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * メタデータの検索に使用するスキーマ名を取得する。
+     *
+     * @param entity エンティティクラス
+     * @return スキーマ名(エンティティにスキーマが指定されていない場合は{@code null})
+     */
+    private static String getSchemaPattern(final Class<?> entity) {
+        final String schema = EntityUtil.getSchemaName(entity);
+        return schema == null ? null : DatabaseUtil.convertIdentifiers(schema);
+    }
+
     /**
      * コミットを行う。
      */
@@ -180,4 +650,44 @@ public class DeleteInsertBatchlet extends AbstractBatchlet {
                         + "job name: [{0}] step name: [{1}] table name: [{2}] delete count: [{3}]",
                 jobContext.getJobName(), stepContext.getStepName(), tableName, deleteCount));
     }
+
+    /**
+     * TRUNCATE文によるクリーニングのログを出力する。
+     * @param tableName クリーンしたテーブル名
+     */
+    private void loggingTruncate(final String tableName) {
+        ProgressLogger.write(MessageFormat.format(""
+                        + "job name: [{0}] step name: [{1}] table name: [{2}] truncated",
+                jobContext.getJobName(), stepContext.getStepName(), tableName));
+    }
+
+    /**
+     * テーブルの入れ替えのログを出力する。
+     * @param tableName 入れ替えたテーブル名
+     */
+    private void loggingSwap(final String tableName) {
+        ProgressLogger.write(MessageFormat.format(""
+                        + "job name: [{0}] step name: [{1}] table name: [{2}] swapped",
+                jobContext.getJobName(), stepContext.getStepName(), tableName));
+    }
+
+    /**
+     * 入れ替えの途中で停止したテーブルを復旧したことのログを出力する。
+     * @param tableName 復旧したテーブル名
+     */
+    private void loggingSwapRecovered(final String tableName) {
+        ProgressLogger.write(MessageFormat.format(""
+                        + "job name: [{0}] step name: [{1}] table name: [{2}] restored from the previous swap",
+                jobContext.getJobName(), stepContext.getStepName(), tableName));
+    }
+
+    /**
+     * 前回の実行でクリーニングが完了しているため、クリーニングを行わないことをログに出力する。
+     * @param tableName クリーニング対象のテーブル名
+     */
+    private void loggingCleaningSkipped(final String tableName) {
+        ProgressLogger.write(MessageFormat.format(""
+                        + "job name: [{0}] step name: [{1}] table name: [{2}] cleaning skipped",
+                jobContext.getJobName(), stepContext.getStepName(), tableName));
+    }
 }
@@ -0,0 +1,194 @@
+package nablarch.etl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import nablarch.common.dao.ColumnMeta;
+import nablarch.common.dao.EntityUtil;
+import nablarch.core.db.connection.AppDbConnection;
+import nablarch.core.db.connection.TransactionManagerConnection;
+import nablarch.core.db.dialect.Dialect;
+import nablarch.core.db.statement.SqlPStatement;
+
+/**
+ * Entityオブジェクトを一括で登録するクラス。
+ * <p/>
+ * Entityのメタデータと各カラムの値を取得するアクセサは、生成時に1度だけ解決して保持する。
+ * 登録はデータベース製品に応じて以下のいずれかの方法で行う。
+ * <ul>
+ * <li>Oracle:1行分のINSERT文をJDBCのバッチ実行でまとめて実行する</li>
+ * <li>上記以外:複数行を指定したINSERT文({@code insert into ... values (...), (...)})で登録する</li>
+ * </ul>
+ * 複数行を指定したINSERT文の1文あたりの行数は、指定された行数とデータベースのパラメータ数の上限から決定する。
+ */
+final class EntityBulkInserter {
+
+    /** 1文あたりのパラメータ数の上限(SQL Server) */
+    private static final int SQLSERVER_MAX_PARAMETERS = 2000;
+
+    /** 1文あたりの行数の上限(SQL Server) */
+    private static final int SQLSERVER_MAX_ROWS = 1000;
+
+    /** 1文あたりのパラメータ数の上限(SQL Server以外) */
+    private static final int DEFAULT_MAX_PARAMETERS = 32767;
+
+    /** INSERT文の先頭部分({@code insert into テーブル (カラム) values }) */
+    private final String insertPrefix;
+
+    /** 1行分のVALUES句 */
+    private final String rowValues;
+
+    /** カラムの値を取得するアクセサ */
+    private final List<ColumnAccessor> accessors = new ArrayList<ColumnAccessor>();
+
+    /** 1文あたりの行数(1の場合はJDBCのバッチ実行で登録する) */
+    private final int rowsPerStatement;
+
+    /** JDBCのバッチ実行でまとめて実行する件数 */
+    private final int batchSize;
+
+    /** 行数ごとのINSERT文 */
+    private final Map<Integer, String> sqlCache = new HashMap<Integer, String>();
+
+    /**
+     * コンストラクタ。
+     *
+     * @param bean Entityクラス
+     * @param size 1回の実行で登録する行数
+     * @param connection データベース接続
+     */
+    EntityBulkInserter(final Class<?> bean, final int size, final TransactionManagerConnection connection) {
+        final Dialect dialect = connection.getDialect();
+        final StringBuilder columns = new StringBuilder();
+        final StringBuilder values = new StringBuilder("(");
+        for (ColumnMeta column : EntityUtil.findAllColumns(bean)) {
+            if (column.isGeneratedValue()) {
+                throw new InvalidEtlConfigException(
+                        "bulk insert does not support generated value columns. bean = [" + bean.getName()
+                                + "], column = [" + column.getName() + ']');
+            }
+            if (!accessors.isEmpty()) {
+                columns.append(", ");
+                values.append(", ");
+            }
+            columns.append(column.getName());
+            values.append('?');
+            accessors.add(new ColumnAccessor(bean, column, dialect));
+        }
+        values.append(')');
+        insertPrefix = "insert into " + EntityUtil.getTableNameWithSchema(bean) + " (" + columns + ") values ";
+        rowValues = values.toString();
+        batchSize = size;
+        rowsPerStatement = resolveRowsPerStatement(EtlUtil.getUrl(connection), size, accessors.size());
+    }
+
+    /**
+     * 1文あたりの行数を決定する。
+     *
+     * @param url データベース接続のURL
+     * @param size 1回の実行で登録する行数
+     * @param columnCount カラム数
+     * @return 1文あたりの行数
+     */
+    static int resolveRowsPerStatement(final String url, final int size, final int columnCount) {
+        if (url.startsWith("jdbc:oracle")) {
+            return 1;
+        }
+        if (url.startsWith("jdbc:sqlserver")) {
+            return Math.max(1, Math.min(Math.min(size, SQLSERVER_MAX_ROWS), SQLSERVER_MAX_PARAMETERS / columnCount));
+        }
+        return Math.max(1, Math.min(size, DEFAULT_MAX_PARAMETERS / columnCount));
+    }
+
+    /**
+     * 1文あたりの行数を取得する。
+     *
+     * @return 1文あたりの行数
+     */
+    int getRowsPerStatement() {
+        return rowsPerStatement;
+    }
+
+    /**
+     * Entityオブジェクトを登録する。
+     * <p/>
+     * 1文あたりの行数に満たない端数の行は、その行数のINSERT文で登録する。
+     *
+     * @param connection データベース接続
+     * @param items Entityオブジェクト
+     */
+    void insert(final AppDbConnection connection, final List<Object> items) {
+        final int statements = items.size() / rowsPerStatement;
+        final int statementsPerBatch = Math.max(1, batchSize / rowsPerStatement);
+        if (statements > 0) {
+            final SqlPStatement statement = connection.prepareStatement(getSql(rowsPerStatement));
+            try {
+                for (int i = 0; i < statements; i++) {
+                    bindRows(statement, items, i * rowsPerStatement, rowsPerStatement);
+                    statement.addBatch();
+                    if ((i + 1) % statementsPerBatch == 0) {
+                        statement.executeBatch();
+                    }
+                }
+                if (statements % statementsPerBatch != 0) {
+                    statement.executeBatch();
+                }
+            } finally {
+                statement.close();
+            }
+        }
+        final int remainder = items.size() % rowsPerStatement;
+        if (remainder > 0) {
+            final SqlPStatement statement = connection.prepareStatement(getSql(remainder));
+            try {
+                bindRows(statement, items, items.size() - remainder, remainder);
+                statement.executeUpdate();
+            } finally {
+                statement.close();
+            }
+        }
+    }
+
+    /**
+     * 指定された行数のINSERT文を取得する。
+     *
+     * @param rows 行数
+     * @return INSERT文
+     */
+    private String getSql(final int rows) {
+        String sql = sqlCache.get(rows);
+        if (sql == null) {
+            final StringBuilder sb = new StringBuilder(insertPrefix.length() + (rowValues.length() + 2) * rows);
+            sb.append(insertPrefix);
+            for (int i = 0; i < rows; i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append(rowValues);
+            }
+            sql = sb.toString();
+            sqlCache.put(rows, sql);
+        }
+        return sql;
+    }
+
+    /**
+     * Entityオブジェクトの値をパラメータに設定する。
+     *
+     * @param statement ステートメント
+     * @param items Entityオブジェクト
+     * @param from 設定する先頭のEntityオブジェクトの位置
+     * @param rows 設定する行数
+     */
+    private void bindRows(final SqlPStatement statement, final List<Object> items, final int from, final int rows) {
+        int index = 1;
+        for (int row = from; row < from + rows; row++) {
+            final Object item = items.get(row);
+            for (ColumnAccessor accessor : accessors) {
+                accessor.bind(statement, index++, item);
+            }
+        }
+    }
+}
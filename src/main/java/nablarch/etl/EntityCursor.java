@@ -0,0 +1,144 @@
+package nablarch.etl;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.text.MessageFormat;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import nablarch.common.dao.EntityUtil;
+import nablarch.core.db.connection.DbConnectionContext;
+import nablarch.core.db.statement.ResultSetIterator;
+import nablarch.core.db.statement.SqlPStatement;
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+
+/**
+ * フェッチサイズを指定してSELECT文を実行し、取得したレコードをBeanに変換して返すイテレータ。
+ * <p/>
+ * フェッチサイズはデータベース製品に応じて以下のように設定する。
+ * <ul>
+ * <li>MySQL:ドライバが結果を1行ずつストリーミングするように{@link Integer#MIN_VALUE}を設定する</li>
+ * <li>PostgreSQL:指定されたフェッチサイズを設定する。自動コミットが有効な場合はドライバが全件をメモリに読み込むため、警告ログを出力する</li>
+ * <li>上記以外:指定されたフェッチサイズを設定する</li>
+ * </ul>
+ * 閉じるときに、取得したレコード数とフェッチサイズから求めたラウンドトリップ数をログに出力する。
+ */
+final class EntityCursor implements Iterator<Object> {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerManager.get("etl");
+
+    /** Beanクラス */
+    private final Class<?> bean;
+
+    /** SELECT文 */
+    private final SqlPStatement statement;
+
+    /** ドライバに設定したフェッチサイズ */
+    private final int fetchSize;
+
+    /** SELECT文の結果 */
+    private final ResultSetIterator rows;
+
+    /** 次のレコードを読み込み済みか否か */
+    private boolean prefetched;
+
+    /** 次のレコードが存在するか否か */
+    private boolean hasNextRow;
+
+    /** 取得したレコード数 */
+    private long fetchedCount;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param bean Beanクラス
+     * @param statement SELECT文
+     * @param fetchSize フェッチサイズ
+     */
+    EntityCursor(final Class<?> bean, final SqlPStatement statement, final int fetchSize) {
+        this.bean = bean;
+        this.statement = statement;
+        this.fetchSize = resolveFetchSize(fetchSize);
+        statement.setFetchSize(this.fetchSize);
+        rows = statement.executeQuery();
+    }
+
+    /**
+     * データベース製品に応じて、ドライバに設定するフェッチサイズを決定する。
+     *
+     * @param fetchSize 指定されたフェッチサイズ
+     * @return ドライバに設定するフェッチサイズ
+     */
+    static int resolveFetchSize(final int fetchSize) {
+        final Connection connection = DbConnectionContext.getTransactionManagerConnection().getConnection();
+        try {
+            final String product = connection.getMetaData().getDatabaseProductName();
+            if ("MySQL".equalsIgnoreCase(product)) {
+                return Integer.MIN_VALUE;
+            }
+            if ("PostgreSQL".equalsIgnoreCase(product) && connection.getAutoCommit()) {
+                LOGGER.logWarn("fetch size is ignored because auto-commit is enabled."
+                        + " PostgreSQL driver reads all rows into memory. fetch size=[" + fetchSize + ']');
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("failed to get database metadata.", e);
+        }
+        return fetchSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!prefetched) {
+            hasNextRow = rows.next();
+            prefetched = true;
+        }
+        return hasNextRow;
+    }
+
+    @Override
+    public Object next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        prefetched = false;
+        fetchedCount++;
+        return EntityUtil.createEntity(bean, rows.getRow());
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * ラウンドトリップ数を求める。
+     * <p/>
+     * 最後のフェッチ(フェッチサイズに満たない件数または0件の取得)を含めた回数とする。
+     * ストリーミングの場合は1とする。
+     *
+     * @return ラウンドトリップ数
+     */
+    long getRoundTrips() {
+        if (fetchSize <= 0) {
+            return 1L;
+        }
+        return fetchedCount / fetchSize + 1;
+    }
+
+    /**
+     * SELECT文の結果を閉じ、取得したレコード数とラウンドトリップ数をログに出力する。
+     */
+    void close() {
+        try {
+            rows.close();
+        } finally {
+            statement.close();
+        }
+        LOGGER.logInfo(MessageFormat.format(
+                "fetch statistics. bean class=[{0}], fetch size=[{1}], fetched count=[{2}], round trips=[{3}]",
+                bean.getName(), String.valueOf(fetchSize), String.valueOf(fetchedCount),
+                String.valueOf(getRoundTrips())));
+    }
+}
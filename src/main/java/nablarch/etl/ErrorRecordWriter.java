@@ -0,0 +1,146 @@
+package nablarch.etl;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import nablarch.common.dao.UniversalDao;
+import nablarch.core.beans.BeanUtil;
+
+/**
+ * エラーレコードをエラーテーブルのEntityに変換し、まとめてエラーテーブルに登録するクラス。
+ * <p/>
+ * 受け取ったエラーレコードは、指定された件数に達するごとに{@link UniversalDao#batchInsert(List)}で登録する。
+ * <p/>
+ * ワークテーブルのEntityからエラーテーブルのEntityへのプロパティのコピーに使用するgetterとsetterは、
+ * 生成時に解決して保持する。
+ * 同名のプロパティの型が異なる場合は型の変換が必要となるため、{@link BeanUtil#createAndCopy(Class, Object)}でコピーする。
+ */
+final class ErrorRecordWriter {
+
+    /** エラーテーブルのEntityクラス */
+    private final Class<?> errorEntity;
+
+    /** 1回の登録でまとめるレコード数 */
+    private final int batchSize;
+
+    /** コピーするプロパティのgetter */
+    private final List<Method> getters = new ArrayList<Method>();
+
+    /** コピーするプロパティのsetter({@link #getters}と同じ順序で保持する) */
+    private final List<Method> setters = new ArrayList<Method>();
+
+    /** {@link BeanUtil}でコピーするか否か */
+    private final boolean useBeanUtil;
+
+    /** 登録していないエラーレコード */
+    private final List<Object> records;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param workEntity ワークテーブルのEntityクラス
+     * @param errorEntity エラーテーブルのEntityクラス
+     * @param batchSize 1回の登録でまとめるレコード数
+     */
+    ErrorRecordWriter(final Class<?> workEntity, final Class<?> errorEntity, final int batchSize) {
+        this.errorEntity = errorEntity;
+        this.batchSize = batchSize;
+        records = new ArrayList<Object>(batchSize);
+
+        final Map<String, Method> readMethods = new HashMap<String, Method>();
+        for (PropertyDescriptor descriptor : getPropertyDescriptors(workEntity)) {
+            if (descriptor.getReadMethod() != null) {
+                readMethods.put(descriptor.getName(), descriptor.getReadMethod());
+            }
+        }
+        boolean typeMismatch = false;
+        for (PropertyDescriptor descriptor : getPropertyDescriptors(errorEntity)) {
+            final Method getter = readMethods.get(descriptor.getName());
+            final Method setter = descriptor.getWriteMethod();
+            if (getter == null || setter == null) {
+                continue;
+            }
+            if (!setter.getParameterTypes()[0].isAssignableFrom(getter.getReturnType())) {
+                typeMismatch = true;
+            }
+            getter.setAccessible(true);
+            setter.setAccessible(true);
+            getters.add(getter);
+            setters.add(setter);
+        }
+        useBeanUtil = typeMismatch;
+    }
+
+    /**
+     * Beanクラスのプロパティの情報を取得する。
+     *
+     * @param bean Beanクラス
+     * @return プロパティの情報
+     */
+    private static PropertyDescriptor[] getPropertyDescriptors(final Class<?> bean) {
+        try {
+            return Introspector.getBeanInfo(bean).getPropertyDescriptors();
+        } catch (IntrospectionException e) {
+            throw new IllegalStateException("failed to introspect bean. bean = [" + bean.getName() + ']', e);
+        }
+    }
+
+    /**
+     * エラーレコードを追加する。
+     * <p/>
+     * 登録していないエラーレコードが1回の登録でまとめるレコード数に達した場合は、エラーテーブルに登録する。
+     *
+     * @param item エラーレコード
+     */
+    void add(final WorkItem item) {
+        records.add(useBeanUtil ? BeanUtil.createAndCopy(errorEntity, item) : copy(item));
+        if (records.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * 登録していないエラーレコードをエラーテーブルに登録する。
+     */
+    void flush() {
+        if (records.isEmpty()) {
+            return;
+        }
+        UniversalDao.batchInsert(records);
+        records.clear();
+    }
+
+    /**
+     * ワークテーブルのEntityをエラーテーブルのEntityにコピーする。
+     *
+     * @param item ワークテーブルのEntity
+     * @return エラーテーブルのEntity
+     */
+    private Object copy(final WorkItem item) {
+        try {
+            final Object record = errorEntity.newInstance();
+            for (int i = 0; i < getters.size(); i++) {
+                setters.get(i).invoke(record, getters.get(i).invoke(item));
+            }
+            return record;
+        } catch (InstantiationException e) {
+            throw new IllegalStateException(
+                    "failed to instantiate error entity. bean = [" + errorEntity.getName() + ']', e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        } catch (InvocationTargetException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
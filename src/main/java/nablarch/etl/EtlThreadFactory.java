@@ -0,0 +1,35 @@
+package nablarch.etl;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ETLの処理で使用するスレッドを生成する{@link ThreadFactory}実装クラス。
+ * <p/>
+ * スレッドダンプで用途を特定できるように、スレッド名は「etl-用途-連番」とする。
+ * 各スレッドは呼び出し元のスレッドが完了を待ち合わせるため、JVMの終了を妨げないようにデーモンスレッドとする。
+ */
+final class EtlThreadFactory implements ThreadFactory {
+
+    /** スレッド名の接頭辞 */
+    private final String namePrefix;
+
+    /** スレッドの連番 */
+    private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+    /**
+     * コンストラクタ。
+     *
+     * @param purpose スレッドの用途(スレッド名に使用する)
+     */
+    EtlThreadFactory(final String purpose) {
+        namePrefix = "etl-" + purpose + '-';
+    }
+
+    @Override
+    public Thread newThread(final Runnable runnable) {
+        final Thread thread = new Thread(runnable, namePrefix + threadNumber.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,61 @@
+package nablarch.etl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+
+/**
+ * 1つのファイルに書き込む{@link ChunkOutput}実装クラス。
+ */
+final class FileChunkOutput implements ChunkOutput {
+
+    /** 出力先 */
+    private final OutputStream out;
+
+    /** 出力ファイルのチャネル(再実行できない場合は{@code null}) */
+    private final FileChannel channel;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param out 出力先
+     * @param channel 出力ファイルのチャネル(再実行できない場合は{@code null}。ディスクへの反映は行わない)
+     * @param header 先頭に書き込むヘッダ行(既存のファイルに追記する場合は{@code null})
+     * @throws IOException 入出力例外
+     */
+    FileChunkOutput(final OutputStream out, final FileChannel channel, final byte[] header) throws IOException {
+        this.out = out;
+        this.channel = channel;
+        if (header != null) {
+            out.write(header);
+        }
+    }
+
+    @Override
+    public void write(final byte[] data, final int offset, final int length) throws IOException {
+        out.write(data, offset, length);
+    }
+
+    @Override
+    public void sync() throws IOException {
+        out.flush();
+        if (channel != null) {
+            channel.force(false);
+        }
+    }
+
+    @Override
+    public FileWriteCheckpoint checkpoint(final long recordCount) throws IOException {
+        return new FileWriteCheckpoint(channel.position(), recordCount, new long[0]);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    @Override
+    public void complete() {
+        // 1つのファイルに書き込む場合は通知するものがない
+    }
+}
@@ -1,11 +1,19 @@
 package nablarch.etl;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.SequenceInputStream;
 import java.io.Serializable;
+import java.nio.channels.Channels;
+import java.util.zip.GZIPInputStream;
 
+import javax.batch.api.BatchProperty;
 import javax.batch.api.chunk.AbstractItemReader;
 import javax.batch.operations.BatchRuntimeException;
 import javax.batch.runtime.context.JobContext;
@@ -20,8 +28,11 @@ import nablarch.core.log.basic.LogLevel;
 import nablarch.core.log.operation.OperationLogger;
 import nablarch.core.message.MessageLevel;
 import nablarch.core.message.MessageUtil;
+import nablarch.core.util.StringUtil;
 import nablarch.etl.config.EtlConfig;
+import nablarch.etl.config.FileCompression;
 import nablarch.etl.config.FileToDbStepConfig;
+import nablarch.etl.config.InputCountMode;
 import nablarch.etl.config.PathConfig;
 import nablarch.etl.config.StepConfig;
 import nablarch.fw.batch.ee.progress.ProgressManager;
@@ -29,7 +40,38 @@ import nablarch.fw.batch.ee.progress.ProgressManager;
 /**
  * 入力ファイルからJavaオブジェクトへ変換を行う{@link javax.batch.api.chunk.ItemReader}実装クラス。
  * <p/>
- * 本実装ではチェックポイントはサポートしない。このため、restart時にはファイルの先頭から処理を再開する。
+ * チェックポイントには、読み込み済みのレコードの終端位置(バイトオフセット)、レコード数、物理行数及び
+ * 入力ファイルのフィンガープリントを保持する。restart時には、入力ファイルが変更されていないことを確認したうえで
+ * 終端位置に直接移動し、次のレコードから処理を再開する。入力ファイルが変更されている場合は再開せずに例外を送出する。
+ * ヘッダ行がある形式の場合は、ヘッダ行を読み込んだ後に再開位置から読み込む。
+ * また、{@link WorkItem}の行数には読み込み済みの物理行数を加算し、最初から処理した場合と同じ行数とする。
+ * 囲み文字内に改行を含むレコードは複数行となるため、レコード数ではなく物理行数を使用する。
+ * <p/>
+ * レコードの境界を判定できない形式の場合はチェックポイントはサポートしない。
+ * このため、restart時にはファイルの先頭から処理を再開する。
+ * <p/>
+ * 進捗ログに出力する入力件数は、{@link FileToDbStepConfig#getInputCountMode()}に従い取得する。
+ * <ul>
+ * <li>{@link InputCountMode#EXACT}:レコードをJavaオブジェクトに変換せずにレコードの境界を走査して数える</li>
+ * <li>{@link InputCountMode#ESTIMATE}:ファイルサイズと先頭レコードの平均長から見積もり、読み込みの進行に合わせて補正する</li>
+ * <li>{@link InputCountMode#NONE}:入力件数を取得しない</li>
+ * </ul>
+ * レコードの境界を判定できない形式の場合は、{@link InputCountMode#NONE}以外のモードではファイルを全件読み込んで数える。
+ * <p/>
+ * {@link FileToDbStepConfig#getParserThreads()}に2以上が設定された場合は、{@link ParallelRecordReader}を使用して
+ * 複数のスレッドでJavaオブジェクトに変換する。読み込み順序及び{@link WorkItem}の行数はシングルスレッドの場合と同じとなる。
+ * レコードの境界を判定できない形式の場合は、設定に関わらずシングルスレッドで変換する。
+ * <p/>
+ * 固定長形式の場合に{@link FileToDbStepConfig#isMemoryMapped()}が{@code true}のときは、
+ * 入力ファイルをメモリにマッピングして読み込む({@link MappedFileInputStream})。
+ * {@link ParallelRecordReader}はブロック単位に読み込むため、{@link FileToDbStepConfig#getParserThreads()}に2以上が
+ * 設定された場合との併用はできない。併用した場合は{@link InvalidEtlConfigException}を送出する。
+ * <p/>
+ * 入力ファイルがGZIP形式で圧縮されている場合({@link FileToDbStepConfig#getCompression()}参照)は、展開しながら読み込む。
+ * 圧縮ファイルはバイトオフセットでレコードの位置を特定できないため、チェックポイント、並列変換、
+ * メモリマップドファイル及びパーティション実行はサポートしない。また、入力件数の見積もりは行わず正確な件数を数える。
+ * <p/>
+ * {@link FileSplitPartitionMapper}を使用したパーティション実行時は、バッチプロパティで指定された範囲のみを読み込む。
  *
  * @author Hisaaki Shioiri
  */
@@ -37,6 +79,9 @@ import nablarch.fw.batch.ee.progress.ProgressManager;
 @Dependent
 public class FileItemReader extends AbstractItemReader {
 
+    /** 圧縮ファイルを展開する際のバッファサイズ */
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
     /** {@link JobContext} */
     private final JobContext jobContext;
 
@@ -55,6 +100,68 @@ public class FileItemReader extends AbstractItemReader {
     /** データからJavaオブジェクトに変換を行うマッパー */
     private ObjectMapper<?> reader;
 
+    /** 入力ファイル */
+    private File inputFile;
+
+    /** 入力ファイルの形式情報 */
+    private RecordFormat recordFormat;
+
+    /** 入力ファイルが圧縮されているか否か */
+    private boolean compressed;
+
+    /** 入力ファイルのストリーム */
+    private FileInputStream inputStream;
+
+    /** 入力ファイルのサイズ */
+    private long inputFileSize;
+
+    /** 入力件数が見積もりか否か */
+    private boolean estimated;
+
+    /** 進捗ログに出力した入力件数 */
+    private long inputCount;
+
+    /** 読み込んだ件数 */
+    private long readCount;
+
+    /** 行数の補正値(読み込みを開始する位置より前のデータの物理行数) */
+    private long lineNumberOffset;
+
+    /** チェックポイントの位置を求めるためのストリーム */
+    private FileInputStream checkpointStream;
+
+    /** チェックポイントの位置を求めるためのスキャナ */
+    private RecordScanner checkpointScanner;
+
+    /** {@link #checkpointScanner}の開始位置 */
+    private long checkpointStart;
+
+    /** {@link #checkpointScanner}で読み進めたレコード数 */
+    private long scannedCount;
+
+    /** 読み込みを終了する位置(パーティション実行時のみ有効) */
+    private long segmentEnd;
+
+    /** 読み込みを開始する位置(パーティション実行時に{@link FileSplitPartitionMapper}が設定する) */
+    @Inject
+    @BatchProperty
+    String startOffset;
+
+    /** 読み込みを終了する位置(パーティション実行時に{@link FileSplitPartitionMapper}が設定する) */
+    @Inject
+    @BatchProperty
+    String endOffset;
+
+    /** 読み込みを開始する位置より前のレコード数(パーティション実行時に{@link FileSplitPartitionMapper}が設定する) */
+    @Inject
+    @BatchProperty
+    String startRecord;
+
+    /** 読み込みを開始する位置より前の物理行数(パーティション実行時に{@link FileSplitPartitionMapper}が設定する) */
+    @Inject
+    @BatchProperty
+    String startLine;
+
     /**
      * コンストラクタ。
      * @param jobContext {@link JobContext}
@@ -79,6 +186,8 @@ public class FileItemReader extends AbstractItemReader {
 
     /**
      * 入力ファイルを開き、{@link ObjectMapper}を生成する。
+     * <p/>
+     * チェックポイント情報が指定された場合は、チェックポイントの位置から読み込みを再開する。
      */
     @Override
     public void open(final Serializable checkpoint) throws Exception {
@@ -90,10 +199,221 @@ public class FileItemReader extends AbstractItemReader {
 
         final File inputFilePath = new File(inputFileBasePath, stepConfig.getFileName());
 
-        reader = ObjectMapperFactory.create(
-                stepConfig.getBean(), createFileInputStream(inputFilePath));
-        progressManager.setInputCount(getNumberOfRecordInInputFile(createFileInputStream(inputFilePath)));
+        compressed = stepConfig.getCompression().resolve(stepConfig.getFileName()) == FileCompression.GZIP;
+        // 圧縮ファイルはバイトオフセットでレコードの位置を特定できないため、位置に依存する機能は使用しない
+        recordFormat = compressed ? null : RecordFormat.of(stepConfig.getBean());
+        if (stepConfig.isMemoryMapped() && stepConfig.getParserThreads() > 1
+                && recordFormat != null && recordFormat.isFixedLength()) {
+            throw new InvalidEtlConfigException(
+                    "memoryMapped can not be used with parserThreads greater than 1. parserThreads = ["
+                            + stepConfig.getParserThreads() + "], jobId = [" + jobId + "], stepId = [" + stepId + ']');
+        }
+
+        closeCheckpointStream();
+        inputFile = inputFilePath;
+        inputStream = createFileInputStream(inputFilePath);
+        inputFileSize = inputFilePath.length();
+        readCount = 0;
+        lineNumberOffset = 0;
+        checkpointStart = 0;
+        scannedCount = 0;
+
+        segmentEnd = Long.MAX_VALUE;
+
+        final boolean partitioned = !StringUtil.isNullOrEmpty(startOffset);
+        if (partitioned) {
+            startSegment();
+        }
+        final boolean resumed = checkpoint instanceof FileReadCheckpoint && recordFormat != null;
+        if (resumed) {
+            resume((FileReadCheckpoint) checkpoint);
+        }
+        if (recordFormat != null && stepConfig.getParserThreads() > 1) {
+            final byte[] header = readHeader();
+            if (!resumed && !partitioned) {
+                inputStream.getChannel().position(header.length);
+            }
+            reader = new ParallelRecordReader(stepConfig.getBean(), recordFormat, header, inputStream,
+                    segmentEnd, stepConfig.getParserThreads());
+        } else if (resumed || partitioned) {
+            reader = ObjectMapperFactory.create(stepConfig.getBean(),
+                    new SequenceInputStream(new ByteArrayInputStream(readHeader()), openDataStream()));
+        } else {
+            reader = ObjectMapperFactory.create(stepConfig.getBean(), openDataStream());
+        }
+        if (!partitioned) {
+            // パーティション実行時の入力件数はFileSplitPartitionMapperで出力する
+            setupInputCount(inputFilePath);
+        }
+    }
+
+    /**
+     * 入力ファイルの現在位置から読み込みを終了する位置までを読み込むストリームを生成する。
+     * <p/>
+     * 固定長形式でメモリマップドファイルを使用する設定の場合は、{@link MappedFileInputStream}を使用する。
+     * 圧縮ファイルの場合は、展開しながら読み込むストリームとなる。
+     *
+     * @return 入力ファイルのストリーム
+     * @throws IOException 入出力例外
+     */
+    private InputStream openDataStream() throws IOException {
+        if (compressed) {
+            return new GZIPInputStream(inputStream, GZIP_BUFFER_SIZE);
+        }
+        final long position = inputStream.getChannel().position();
+        if (stepConfig.isMemoryMapped() && recordFormat != null && recordFormat.isFixedLength()) {
+            return new MappedFileInputStream(inputStream.getChannel(), inputStream, position,
+                    Math.min(segmentEnd, inputFileSize), recordFormat.recordLength);
+        }
+        if (segmentEnd == Long.MAX_VALUE) {
+            return inputStream;
+        }
+        return new SegmentInputStream(inputStream, segmentEnd - position);
+    }
+
+    /**
+     * 入力ファイルをパーティションに割り当てられた範囲の開始位置に移動する。
+     *
+     * @throws IOException 入出力例外
+     */
+    private void startSegment() throws IOException {
+        if (compressed) {
+            throw new InvalidEtlConfigException(
+                    "compressed input file can not be split. fileName = [" + stepConfig.getFileName()
+                            + "], jobId = [" + jobContext.getJobName() + "], stepId = [" + stepContext.getStepName() + ']');
+        }
+        if (recordFormat == null) {
+            throw new InvalidEtlConfigException(
+                    "input file can not be split because record boundaries of the bean can not be determined."
+                            + " bean = [" + stepConfig.getBean().getName() + "], jobId = [" + jobContext.getJobName()
+                            + "], stepId = [" + stepContext.getStepName() + ']');
+        }
+        final long offset = Long.parseLong(startOffset);
+        final long records = Long.parseLong(startRecord);
+        segmentEnd = Long.parseLong(endOffset);
+        inputStream.getChannel().position(offset);
+        readCount = records;
+        lineNumberOffset = Long.parseLong(startLine);
+        checkpointStart = offset;
+        scannedCount = records;
+    }
+
+    /**
+     * 入力ファイルをチェックポイントの位置に移動し、読み込みを再開する状態にする。
+     *
+     * @param checkpoint チェックポイント情報
+     * @throws IOException 入出力例外
+     */
+    private void resume(final FileReadCheckpoint checkpoint) throws IOException {
+        if (!checkpoint.matches(inputFile)) {
+            final String message = MessageUtil.createMessage(MessageLevel.ERROR, "nablarch.etl.input-file-changed",
+                    inputFile.getAbsolutePath())
+                    .formatMessage();
+            OperationLogger.write(LogLevel.ERROR, message);
+            throw new BatchRuntimeException(message);
+        }
+        inputStream.getChannel().position(checkpoint.getOffset());
+        readCount = checkpoint.getRecordCount();
+        lineNumberOffset = checkpoint.getLineCount();
+        checkpointStart = checkpoint.getOffset();
+        scannedCount = checkpoint.getRecordCount();
+    }
+
+    /**
+     * ヘッダ行を読み込む。
+     *
+     * @return ヘッダ行のバイト列。ヘッダ行がない形式の場合は空のバイト列
+     * @throws IOException 入出力例外
+     */
+    private byte[] readHeader() throws IOException {
+        if (!recordFormat.headerRequired) {
+            return new byte[0];
+        }
+        final RandomAccessFile raf = new RandomAccessFile(inputFile, "r");
+        try {
+            final RecordScanner scanner = new RecordScanner(recordFormat, raf.getChannel(), 0L);
+            scanner.skipHeader();
+            final byte[] header = new byte[(int) scanner.position()];
+            raf.seek(0L);
+            raf.readFully(header);
+            return header;
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * 入力件数を取得し、進捗ログに出力する。
+     *
+     * @param inputFilePath 入力ファイルパス
+     * @throws IOException 入出力例外
+     */
+    private void setupInputCount(final File inputFilePath) throws IOException {
+        final InputCountMode mode = stepConfig.getInputCountMode();
+        if (mode == InputCountMode.NONE) {
+            return;
+        }
+        final RecordFormat format = RecordFormat.of(stepConfig.getBean());
+        if (format == null) {
+            inputCount = getNumberOfRecordInInputFile(openCountStream(inputFilePath));
+        } else if (compressed) {
+            final InputStream stream = openCountStream(inputFilePath);
+            try {
+                inputCount = RecordScanner.count(Channels.newChannel(stream), format);
+            } finally {
+                stream.close();
+            }
+        } else if (mode == InputCountMode.ESTIMATE) {
+            inputCount = RecordScanner.estimate(inputFilePath, format);
+            estimated = !format.isFixedLength();
+        } else {
+            inputCount = RecordScanner.count(inputFilePath, format);
+        }
+        progressManager.setInputCount(inputCount);
+    }
 
+    /**
+     * 入力件数を数えるためのストリームを生成する。
+     * <p/>
+     * 圧縮ファイルの場合は展開しながら読み込むストリームとなる。
+     *
+     * @param inputFilePath 入力ファイルパス
+     * @return 入力ストリーム
+     * @throws IOException 入出力例外
+     */
+    private InputStream openCountStream(final File inputFilePath) throws IOException {
+        final FileInputStream stream = createFileInputStream(inputFilePath);
+        if (!compressed) {
+            return stream;
+        }
+        try {
+            return new GZIPInputStream(stream, GZIP_BUFFER_SIZE);
+        } catch (IOException e) {
+            stream.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 見積もった入力件数を、これまでに読み込んだ件数とバイト数から補正する。
+     * <p/>
+     * 読み込んだバイト数には、入力ファイルのストリームの位置ではなく読み込み済みのレコードの終端位置を使用する。
+     * ストリームの位置は、先読みしたデータや{@link ParallelRecordReader}の位置指定の読み込みにより、
+     * 読み込み済みのレコードの位置と一致しないためである。
+     * <p/>
+     * 補正後の件数が1%以上変わった場合のみ、進捗ログに入力件数を出力し直す。
+     *
+     * @param readBytes 読み込み済みのレコードの終端位置
+     */
+    private void refineEstimatedInputCount(final long readBytes) {
+        if (!estimated || readCount == 0 || readBytes == 0) {
+            return;
+        }
+        final long refined = Math.max(readCount, Math.round((double) inputFileSize * readCount / readBytes));
+        if (Math.abs(refined - inputCount) * 100 >= inputCount) {
+            inputCount = refined;
+            progressManager.setInputCount(inputCount);
+        }
     }
 
     /**
@@ -123,7 +443,7 @@ public class FileItemReader extends AbstractItemReader {
      * @param inputFilePath 入力ファイルパス
      * @return 入力ストリーム
      */
-    private InputStream createFileInputStream(final File inputFilePath) {
+    private FileInputStream createFileInputStream(final File inputFilePath) {
         try {
             return new FileInputStream(inputFilePath);
         } catch (FileNotFoundException e) {
@@ -137,11 +457,137 @@ public class FileItemReader extends AbstractItemReader {
 
     @Override
     public Object readItem() throws Exception {
-        return reader.read();
+        final Object item = reader.read();
+        if (item == null) {
+            return null;
+        }
+        readCount++;
+        if (lineNumberOffset != 0 && item instanceof WorkItem) {
+            final WorkItem workItem = (WorkItem) item;
+            if (workItem.getLineNumber() != null) {
+                workItem.setLineNumber(workItem.getLineNumber() + lineNumberOffset);
+            }
+        }
+        return item;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * 読み込み済みのレコードの終端位置を求め、チェックポイント情報を返す。
+     * 終端位置は、前回のチェックポイントの位置からレコードの境界を走査して求める。
+     * <p/>
+     * 入力件数を見積もっている場合は、求めた終端位置を使用して入力件数の補正を行う。
+     *
+     * @return チェックポイント情報。レコードの境界を判定できない形式の場合は{@code null}
+     */
+    @Override
+    public Serializable checkpointInfo() throws Exception {
+        if (recordFormat == null) {
+            return null;
+        }
+        final long position = scanCheckpointPosition();
+        refineEstimatedInputCount(position);
+        return FileReadCheckpoint.create(inputFile, position, readCount,
+                lineNumberOffset + checkpointScanner.lines());
+    }
+
+    /**
+     * 読み込み済みのレコードの終端位置を求める。
+     *
+     * @return 読み込み済みのレコードの終端位置
+     * @throws IOException 入出力例外
+     */
+    private long scanCheckpointPosition() throws IOException {
+        if (checkpointScanner == null) {
+            checkpointStream = new FileInputStream(inputFile);
+            checkpointStream.getChannel().position(checkpointStart);
+            checkpointScanner = new RecordScanner(recordFormat, checkpointStream.getChannel(), checkpointStart);
+            if (checkpointStart == 0) {
+                checkpointScanner.skipHeader();
+            }
+        }
+        while (scannedCount < readCount && checkpointScanner.skipRecord()) {
+            scannedCount++;
+        }
+        return checkpointScanner.position();
+    }
+
+    /**
+     * チェックポイントの位置を求めるためのストリームを閉じる。
+     *
+     * @throws IOException 入出力例外
+     */
+    private void closeCheckpointStream() throws IOException {
+        if (checkpointStream != null) {
+            checkpointStream.close();
+            checkpointStream = null;
+            checkpointScanner = null;
+        }
     }
 
     @Override
     public void close() throws Exception {
-        reader.close();
+        try {
+            reader.close();
+        } finally {
+            closeCheckpointStream();
+        }
+    }
+
+    /**
+     * 指定されたバイト数までしか読み込まない入力ストリーム。
+     */
+    private static final class SegmentInputStream extends FilterInputStream {
+
+        /** 読み込み可能な残りのバイト数 */
+        private long remaining;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param in 入力ストリーム
+         * @param length 読み込み可能なバイト数
+         */
+        SegmentInputStream(final InputStream in, final long length) {
+            super(in);
+            remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            final int b = super.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            final int read = super.read(b, off, (int) Math.min(len, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            final long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
     }
 }
@@ -4,8 +4,10 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 import javax.batch.api.chunk.AbstractItemWriter;
 import javax.batch.operations.BatchRuntimeException;
@@ -23,11 +25,33 @@ import nablarch.core.message.MessageLevel;
 import nablarch.core.message.MessageUtil;
 import nablarch.etl.config.DbToFileStepConfig;
 import nablarch.etl.config.EtlConfig;
+import nablarch.etl.config.FileCompression;
 import nablarch.etl.config.PathConfig;
 import nablarch.etl.config.StepConfig;
 
 /**
  * ファイルにデータを書き込む{@link javax.batch.api.chunk.ItemWriter}の実装クラス。
+ * <p/>
+ * {@link DbToFileStepConfig#getCompression()}がGZIP形式の場合は、GZIP形式に圧縮して書き込む。
+ * <p/>
+ * {@link DbToFileStepConfig#isAsyncWrite()}が{@code true}の場合は、{@link ChunkFileWriter}の非同期モードを使用して
+ * 専用のスレッドでデータへの変換と書き込みを行う。チャンクのスレッドは、チェックポイント時のみ書き込みの完了を待ち合わせる。
+ * レコードの境界を判定できない形式の場合は、設定に関わらず同期して書き込む。
+ * <p/>
+ * レコードの境界を判定できる形式で圧縮せず、入力側が再実行時にコミット済みのレコードを読み飛ばす場合
+ * ({@link DbToFileStepConfig#isSkipOnRestart()}が{@code true}、または{@link DbToFileStepConfig#getPageSize()}が設定されている場合)は、
+ * チェックポイントとして出力ファイルのサイズ({@link FileWriteCheckpoint})を返す。
+ * 再実行時は、出力ファイルをチェックポイント時点のサイズに切り詰めてから追記するため、
+ * コミットされていないチャンクのデータが重複して出力されることはない。
+ * チェックポイントごとに出力ファイルの内容をディスクに反映するため、書き込みのスループットは低下する。
+ * それ以外の場合は、入力側が先頭から読み直すため、再実行時は出力ファイルを最初から作り直す。
+ * 出力ファイルがチェックポイント時点のサイズより小さい場合は、出力ファイルが変更されたとみなして例外を送出する。
+ * <p/>
+ * {@link DbToFileStepConfig#getMaxRecordsPerFile()}または{@link DbToFileStepConfig#getMaxBytesPerFile()}が
+ * 設定されている場合は、{@link RollingFileChunkOutput}を使用して上限に達するごとに出力ファイルを切り替える。
+ * 出力ファイルを切り替える場合は、レコードの境界を判定できる形式である必要がある。
+ * 書き込み中だったファイルは、全てのチャンクがコミットされ、ステップで例外が発生していない場合のみ
+ * クローズ時にマニフェストファイルに追加する。
  *
  * @author Kumiko Omi
  */
@@ -35,6 +59,12 @@ import nablarch.etl.config.StepConfig;
 @Named
 public class FileItemWriter extends AbstractItemWriter {
 
+    /** 圧縮する際のバッファサイズ */
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    /** 非同期書き込み時に同時に保持するチャンク数 */
+    private static final int ASYNC_WRITE_BUFFERS = 2;
+
     /** {@link JobContext} */
     private final JobContext jobContext;
 
@@ -50,6 +80,21 @@ public class FileItemWriter extends AbstractItemWriter {
     /** Javaオブジェクトからデータに変換を行うマッパー */
     private ObjectMapper<Object> mapper;
 
+    /** チャンク単位に書き込みを行うライタ */
+    private ChunkFileWriter chunkWriter;
+
+    /** チェックポイントを返すか否か */
+    private boolean restartable;
+
+    /** チャンク単位の書き込み先 */
+    private ChunkOutput chunkOutput;
+
+    /** 前回の実行までに書き込み済みのレコード数 */
+    private long restartedCount;
+
+    /** チェックポイント以降に書き込んだデータがあるか否か */
+    private boolean uncommitted;
+
     /**
      * コンストラクタ。
      * @param jobContext {@link JobContext}
@@ -82,10 +127,50 @@ public class FileItemWriter extends AbstractItemWriter {
         EtlUtil.verifyRequired(jobId, stepId, "bean", config.getBean());
         EtlUtil.verifyRequired(jobId, stepId, "fileName", config.getFileName());
 
-        final File outputFile = new File(outputFileBasePath, config.getFileName());
+        final RecordFormat format = RecordFormat.of(config.getBean());
+        final boolean rolling = config.getMaxRecordsPerFile() > 0 || config.getMaxBytesPerFile() > 0;
+        if (rolling && format == null) {
+            throw new InvalidEtlConfigException(
+                    "output file can not be split because record boundaries of the bean can not be determined."
+                            + " bean = [" + config.getBean().getName() + "], jobId = [" + jobId
+                            + "], stepId = [" + stepId + ']');
+        }
+        restartable = isRestartable(config);
+        final FileWriteCheckpoint restartPoint =
+                restartable && checkpoint instanceof FileWriteCheckpoint ? (FileWriteCheckpoint) checkpoint : null;
+        restartedCount = restartPoint == null ? 0L : restartPoint.getRecordCount();
+
+        final File outputFile = rolling
+                ? RollingFileChunkOutput.partFile(outputFileBasePath, config.getFileName(),
+                        restartPoint == null ? 1 : restartPoint.getCompletedFileCounts().length + 1)
+                : new File(outputFileBasePath, config.getFileName());
+        if (restartPoint != null) {
+            verifyRestartable(outputFile, restartPoint);
+        }
         try {
-            mapper = (ObjectMapper<Object>) ObjectMapperFactory.create(
-                    config.getBean(), new FileOutputStream(outputFile));
+            if (rolling) {
+                chunkOutput = new RollingFileChunkOutput(outputFileBasePath, config, format,
+                        ChunkFileWriter.formatHeader(config.getBean(), format), restartPoint);
+            } else {
+                final FileOutputStream fileOutputStream = restartPoint == null
+                        ? new FileOutputStream(outputFile)
+                        : new FileOutputStream(outputFile, true);
+                if (restartPoint != null) {
+                    fileOutputStream.getChannel().truncate(restartPoint.getLength());
+                }
+                final OutputStream outputStream = createOutputStream(config, fileOutputStream);
+                if (format != null && (restartable || config.isAsyncWrite())) {
+                    chunkOutput = new FileChunkOutput(outputStream,
+                            restartable ? fileOutputStream.getChannel() : null,
+                            restartPoint == null ? ChunkFileWriter.formatHeader(config.getBean(), format) : null);
+                } else {
+                    mapper = (ObjectMapper<Object>) ObjectMapperFactory.create(config.getBean(), outputStream);
+                }
+            }
+            if (chunkOutput != null) {
+                chunkWriter = new ChunkFileWriter(config.getBean(), format, chunkOutput,
+                        config.isAsyncWrite(), ASYNC_WRITE_BUFFERS);
+            }
         } catch (FileNotFoundException e) {
             final String message = MessageUtil.createMessage(
                     MessageLevel.ERROR, "nablarch.etl.invalid-output-file-path", outputFile.getAbsolutePath())
@@ -97,15 +182,113 @@ public class FileItemWriter extends AbstractItemWriter {
         super.open(checkpoint);
     }
 
+    /**
+     * 出力ファイルをチェックポイント時点から再開できるか否かを判定する。
+     * <p/>
+     * レコードの境界を判定できる形式で圧縮せず、入力側が再実行時にコミット済みのレコードを読み飛ばす場合に再開できる。
+     * 入力側が先頭から読み直す場合に追記すると、コミット済みのレコードが重複して出力されるため再開しない。
+     *
+     * @param config ステップの設定
+     * @return 再開できる場合は{@code true}
+     */
+    static boolean isRestartable(final DbToFileStepConfig config) {
+        return RecordFormat.of(config.getBean()) != null
+                && config.getCompression().resolve(config.getFileName()) == FileCompression.NONE
+                && (config.isSkipOnRestart() || config.getPageSize() > 0);
+    }
+
+    /**
+     * 出力ファイルをチェックポイント時点の状態から再開できることを検証する。
+     * <p/>
+     * 出力ファイルが存在しない場合や、チェックポイント時点のサイズより小さい場合は、
+     * 前回の実行後に出力ファイルが変更されたとみなして例外を送出する。
+     *
+     * @param outputFile 出力ファイル
+     * @param restartPoint チェックポイント情報
+     */
+    private static void verifyRestartable(final File outputFile, final FileWriteCheckpoint restartPoint) {
+        if (outputFile.isFile() && outputFile.length() >= restartPoint.getLength()) {
+            return;
+        }
+        final String message = MessageUtil.createMessage(
+                MessageLevel.ERROR, "nablarch.etl.output-file-changed", outputFile.getAbsolutePath())
+                                          .formatMessage();
+        OperationLogger.write(LogLevel.ERROR, message);
+        throw new BatchRuntimeException(message);
+    }
+
+    /**
+     * 圧縮形式に応じた出力ストリームを生成する。
+     * <p/>
+     * GZIP形式の場合、圧縮するスレッド数が2以上であれば{@link ParallelGzipOutputStream}で並列に圧縮する。
+     *
+     * @param config ステップの設定
+     * @param outputStream 出力ファイルのストリーム
+     * @return 出力ストリーム
+     * @throws IOException 入出力例外
+     */
+    static OutputStream createOutputStream(
+            final DbToFileStepConfig config, final OutputStream outputStream) throws IOException {
+        if (config.getCompression().resolve(config.getFileName()) != FileCompression.GZIP) {
+            return outputStream;
+        }
+        try {
+            if (config.getCompressionThreads() > 1) {
+                return new ParallelGzipOutputStream(outputStream, config.getCompressionThreads());
+            }
+            return new GZIPOutputStream(outputStream, GZIP_BUFFER_SIZE);
+        } catch (IOException e) {
+            outputStream.close();
+            throw e;
+        }
+    }
+
     @Override
     public void writeItems(final List<Object> items) throws IOException {
+        if (chunkWriter != null) {
+            uncommitted = true;
+            chunkWriter.write(items);
+            return;
+        }
         for (Object item : items) {
             mapper.write(item);
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * チャンク単位に書き込んでいる場合は、ここで書き込み中のチャンクを全て待ち合わせ、ファイルの内容をディスクに反映する。
+     * これにより、チェックポイントがコミットされた時点で、それまでのデータがファイルに出力されていることを保証する。
+     * 再実行できる場合は、反映後の出力ファイルのサイズをチェックポイント情報として返す。
+     */
+    @Override
+    public Serializable checkpointInfo() throws Exception {
+        if (chunkWriter == null) {
+            return super.checkpointInfo();
+        }
+        chunkWriter.sync();
+        uncommitted = false;
+        if (!restartable) {
+            return super.checkpointInfo();
+        }
+        return chunkOutput.checkpoint(restartedCount + chunkWriter.getItemCount());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * チャンク単位に書き込んでいる場合で、チェックポイント以降に書き込んだデータがなく、
+     * ステップで例外が発生していない場合は、正常に終了したものとして書き込みの完了を通知する。
+     */
     @Override
     public void close() throws Exception {
+        if (chunkWriter != null) {
+            chunkWriter.close();
+            if (!uncommitted && stepContext.getException() == null) {
+                chunkOutput.complete();
+            }
+        }
         if (mapper != null) {
             mapper.close();
         }
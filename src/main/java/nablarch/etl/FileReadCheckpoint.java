@@ -0,0 +1,149 @@
+package nablarch.etl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.util.zip.CRC32;
+
+/**
+ * {@link FileItemReader}のチェックポイント情報を保持するクラス。
+ * <p/>
+ * 再開位置(バイトオフセット)、読み込み済みのレコード数及び物理行数に加えて、
+ * 入力ファイルが変更されていないことを確認するためのフィンガープリントを保持する。
+ * フィンガープリントは、ファイルサイズ、ファイル先頭部分のチェックサム及び再開位置直前部分のチェックサムから構成される。
+ */
+final class FileReadCheckpoint implements Serializable {
+
+    /** シリアルバージョンUID */
+    private static final long serialVersionUID = 1L;
+
+    /** チェックサムを求める範囲のバイト数 */
+    private static final int CHECKSUM_LENGTH = 64 * 1024;
+
+    /** 再開位置 */
+    private final long offset;
+
+    /** 読み込み済みのレコード数 */
+    private final long recordCount;
+
+    /** 読み込み済みの物理行数(ヘッダ行を含まない) */
+    private final long lineCount;
+
+    /** ファイルサイズ */
+    private final long fileLength;
+
+    /** ファイル先頭部分のチェックサム */
+    private final long headChecksum;
+
+    /** 再開位置直前部分のチェックサム */
+    private final long precedingChecksum;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param offset 再開位置
+     * @param recordCount 読み込み済みのレコード数
+     * @param lineCount 読み込み済みの物理行数
+     * @param fileLength ファイルサイズ
+     * @param headChecksum ファイル先頭部分のチェックサム
+     * @param precedingChecksum 再開位置直前部分のチェックサム
+     */
+    private FileReadCheckpoint(final long offset, final long recordCount, final long lineCount,
+            final long fileLength, final long headChecksum, final long precedingChecksum) {
+        this.offset = offset;
+        this.recordCount = recordCount;
+        this.lineCount = lineCount;
+        this.fileLength = fileLength;
+        this.headChecksum = headChecksum;
+        this.precedingChecksum = precedingChecksum;
+    }
+
+    /**
+     * チェックポイント情報を生成する。
+     *
+     * @param file 入力ファイル
+     * @param offset 再開位置
+     * @param recordCount 読み込み済みのレコード数
+     * @param lineCount 読み込み済みの物理行数
+     * @return チェックポイント情報
+     * @throws IOException 入出力例外
+     */
+    static FileReadCheckpoint create(final File file, final long offset, final long recordCount,
+            final long lineCount) throws IOException {
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            return new FileReadCheckpoint(offset, recordCount, lineCount, raf.length(),
+                    checksum(raf, 0L, offset), checksum(raf, offset - CHECKSUM_LENGTH, offset));
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * 入力ファイルがチェックポイント情報を生成した時点から変更されていないか否か。
+     *
+     * @param file 入力ファイル
+     * @return 変更されていない場合は{@code true}
+     * @throws IOException 入出力例外
+     */
+    boolean matches(final File file) throws IOException {
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            return raf.length() == fileLength
+                    && checksum(raf, 0L, offset) == headChecksum
+                    && checksum(raf, offset - CHECKSUM_LENGTH, offset) == precedingChecksum;
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * 指定範囲のチェックサムを求める。
+     * <p/>
+     * 範囲は{@link #CHECKSUM_LENGTH}バイトを上限とし、ファイルの範囲外は含めない。
+     *
+     * @param raf ファイル
+     * @param from 開始位置
+     * @param to 終了位置(この位置は含まない)
+     * @return チェックサム
+     * @throws IOException 入出力例外
+     */
+    private static long checksum(final RandomAccessFile raf, final long from, final long to) throws IOException {
+        final long start = Math.max(0L, from);
+        final long end = Math.min(to, raf.length());
+        final byte[] bytes = new byte[(int) Math.max(0L, Math.min(CHECKSUM_LENGTH, end - start))];
+        raf.seek(start);
+        raf.readFully(bytes);
+        final CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return crc.getValue();
+    }
+
+    /**
+     * 再開位置を取得する。
+     *
+     * @return 再開位置
+     */
+    long getOffset() {
+        return offset;
+    }
+
+    /**
+     * 読み込み済みのレコード数を取得する。
+     *
+     * @return 読み込み済みのレコード数
+     */
+    long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * 読み込み済みの物理行数を取得する。
+     *
+     * @return 読み込み済みの物理行数
+     */
+    long getLineCount() {
+        return lineCount;
+    }
+}
@@ -0,0 +1,50 @@
+package nablarch.etl;
+
+import java.io.Serializable;
+
+import javax.batch.api.partition.AbstractPartitionAnalyzer;
+import javax.enterprise.context.Dependent;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import nablarch.fw.batch.ee.progress.ProgressManager;
+
+/**
+ * 各パーティションの処理件数を集計し、ステップ全体の進捗ログを出力する{@link javax.batch.api.partition.PartitionAnalyzer}実装クラス。
+ * <p/>
+ * 処理件数は{@link FileSplitPartitionCollector}から通知された件数を合算したものとなる。
+ * 入力件数は{@link FileSplitPartitionMapper}で設定されたものを使用する。
+ */
+@Named
+@Dependent
+public class FileSplitPartitionAnalyzer extends AbstractPartitionAnalyzer {
+
+    /** 進捗状況を管理するBean */
+    private final ProgressManager progressManager;
+
+    /** 全パーティションの処理件数 */
+    private long processedCount;
+
+    /**
+     * コンストラクタ。
+     * @param progressManager 進捗状況を管理するBean
+     */
+    @Inject
+    public FileSplitPartitionAnalyzer(final ProgressManager progressManager) {
+        this.progressManager = progressManager;
+    }
+
+    /**
+     * パーティションから通知された処理件数を合算し、進捗ログを出力する。
+     *
+     * @param data パーティションの処理件数
+     */
+    @Override
+    public void analyzeCollectorData(final Serializable data) throws Exception {
+        if (!(data instanceof Long)) {
+            return;
+        }
+        processedCount += (Long) data;
+        progressManager.outputProgressInfo(processedCount);
+    }
+}
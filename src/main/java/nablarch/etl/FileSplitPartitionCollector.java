@@ -0,0 +1,62 @@
+package nablarch.etl;
+
+import java.io.Serializable;
+
+import javax.batch.api.partition.PartitionCollector;
+import javax.batch.runtime.Metric;
+import javax.batch.runtime.context.StepContext;
+import javax.enterprise.context.Dependent;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+/**
+ * パーティションの処理件数を{@link FileSplitPartitionAnalyzer}に通知する{@link PartitionCollector}実装クラス。
+ * <p/>
+ * チェックポイントごとに、前回の通知以降に書き込んだ件数を通知する。
+ */
+@Named
+@Dependent
+public class FileSplitPartitionCollector implements PartitionCollector {
+
+    /** {@link StepContext} */
+    private final StepContext stepContext;
+
+    /** 前回通知した時点の書き込み件数 */
+    private long lastWriteCount;
+
+    /**
+     * コンストラクタ。
+     * @param stepContext {@link StepContext}
+     */
+    @Inject
+    public FileSplitPartitionCollector(final StepContext stepContext) {
+        this.stepContext = stepContext;
+    }
+
+    /**
+     * 前回の通知以降に書き込んだ件数を返す。
+     *
+     * @return 前回の通知以降に書き込んだ件数
+     */
+    @Override
+    public Serializable collectPartitionData() throws Exception {
+        final long writeCount = getWriteCount();
+        final long processed = writeCount - lastWriteCount;
+        lastWriteCount = writeCount;
+        return processed;
+    }
+
+    /**
+     * パーティションの書き込み件数を取得する。
+     *
+     * @return 書き込み件数
+     */
+    private long getWriteCount() {
+        for (Metric metric : stepContext.getMetrics()) {
+            if (metric.getType() == Metric.MetricType.WRITE_COUNT) {
+                return metric.getValue();
+            }
+        }
+        return 0L;
+    }
+}
@@ -0,0 +1,277 @@
+package nablarch.etl;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import javax.batch.api.partition.PartitionMapper;
+import javax.batch.api.partition.PartitionPlan;
+import javax.batch.api.partition.PartitionPlanImpl;
+import javax.batch.operations.BatchRuntimeException;
+import javax.batch.runtime.context.JobContext;
+import javax.batch.runtime.context.StepContext;
+import javax.enterprise.context.Dependent;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import nablarch.core.log.basic.LogLevel;
+import nablarch.core.log.operation.OperationLogger;
+import nablarch.core.message.MessageLevel;
+import nablarch.core.message.MessageUtil;
+import nablarch.etl.config.EtlConfig;
+import nablarch.etl.config.FileCompression;
+import nablarch.etl.config.FileToDbStepConfig;
+import nablarch.etl.config.PathConfig;
+import nablarch.etl.config.StepConfig;
+import nablarch.fw.batch.ee.progress.ProgressManager;
+
+/**
+ * 入力ファイルをレコードの境界で分割し、パーティションごとに読み込む範囲を決定する{@link PartitionMapper}実装クラス。
+ * <p/>
+ * {@link FileToDbStepConfig#getFileName()}の入力ファイルを{@link FileToDbStepConfig#getPartitions()}個の
+ * 範囲に分割し、各パーティションのプロパティに以下の値を設定する。
+ * パーティション数と同じ数のスレッドで実行する。
+ * <ul>
+ * <li>{@link #START_OFFSET}:読み込みを開始する位置(バイトオフセット)</li>
+ * <li>{@link #END_OFFSET}:読み込みを終了する位置(この位置は含まない)</li>
+ * <li>{@link #START_RECORD}:読み込みを開始する位置より前のレコード数</li>
+ * <li>{@link #START_LINE}:読み込みを開始する位置より前の物理行数(ヘッダ行を含まない)</li>
+ * </ul>
+ * 各パーティションでは{@link FileItemReader}にこれらの値をバッチプロパティとして設定することで、
+ * 割り当てられた範囲のみを読み込む。
+ * 入力件数は本クラスで進捗ログに出力し、各パーティションの処理件数は{@link FileSplitPartitionCollector}と
+ * {@link FileSplitPartitionAnalyzer}で集計して進捗ログに出力する。
+ * このため、パーティションを使用するステップには進捗ログ出力用のリスナーを設定しないこと。
+ * <pre>
+ * {@code
+ * <step id="extract">
+ *   <chunk item-count="1000">
+ *     <reader ref="fileItemReader">
+ *       <properties>
+ *         <property name="startOffset" value="#{partitionPlan['startOffset']}" />
+ *         <property name="endOffset" value="#{partitionPlan['endOffset']}" />
+ *         <property name="startRecord" value="#{partitionPlan['startRecord']}" />
+ *         <property name="startLine" value="#{partitionPlan['startLine']}" />
+ *       </properties>
+ *     </reader>
+ *     <writer ref="databaseItemWriter" />
+ *   </chunk>
+ *   <partition>
+ *     <mapper ref="fileSplitPartitionMapper" />
+ *     <collector ref="fileSplitPartitionCollector" />
+ *     <analyzer ref="fileSplitPartitionAnalyzer" />
+ *   </partition>
+ * </step>
+ * }
+ * </pre>
+ * レコードの境界を判定できない形式の場合及び圧縮ファイルの場合は、入力ファイルを分割できないため例外を送出する。
+ */
+@Named
+@Dependent
+public class FileSplitPartitionMapper implements PartitionMapper {
+
+    /** 読み込みを開始する位置を表すプロパティ名 */
+    public static final String START_OFFSET = "startOffset";
+
+    /** 読み込みを終了する位置を表すプロパティ名 */
+    public static final String END_OFFSET = "endOffset";
+
+    /** 読み込みを開始する位置より前のレコード数を表すプロパティ名 */
+    public static final String START_RECORD = "startRecord";
+
+    /** 読み込みを開始する位置より前の物理行数を表すプロパティ名 */
+    public static final String START_LINE = "startLine";
+
+    /** {@link JobContext} */
+    private final JobContext jobContext;
+
+    /** {@link StepContext} */
+    private final StepContext stepContext;
+
+    /** ETLの設定 */
+    private final FileToDbStepConfig stepConfig;
+
+    /** 入力ファイルのベースパス */
+    private final File inputFileBasePath;
+
+    /** 進捗状況を管理するBean */
+    private final ProgressManager progressManager;
+
+    /**
+     * コンストラクタ。
+     * @param jobContext {@link JobContext}
+     * @param stepContext {@link StepContext}
+     * @param stepConfig ステップの設定
+     * @param inputFileBasePath 入力ファイルの配置ディレクトリ
+     * @param progressManager 進捗状況を管理するBean
+     */
+    @Inject
+    public FileSplitPartitionMapper(
+            final JobContext jobContext,
+            final StepContext stepContext,
+            @EtlConfig final StepConfig stepConfig,
+            @PathConfig(BasePath.INPUT) final File inputFileBasePath,
+            final ProgressManager progressManager) {
+        this.jobContext = jobContext;
+        this.stepContext = stepContext;
+        this.stepConfig = (FileToDbStepConfig) stepConfig;
+        this.inputFileBasePath = inputFileBasePath;
+        this.progressManager = progressManager;
+    }
+
+    /**
+     * 入力ファイルをレコードの境界で分割し、パーティションプランを生成する。
+     * <p/>
+     * 固定長形式の場合はレコード数が均等になるように、可変長形式の場合はバイト数が均等になるように分割する。
+     */
+    @Override
+    public PartitionPlan mapPartitions() throws Exception {
+        final String jobId = jobContext.getJobName();
+        final String stepId = stepContext.getStepName();
+
+        EtlUtil.verifyRequired(jobId, stepId, "bean", stepConfig.getBean());
+        EtlUtil.verifyRequired(jobId, stepId, "fileName", stepConfig.getFileName());
+
+        if (stepConfig.getCompression().resolve(stepConfig.getFileName()) != FileCompression.NONE) {
+            throw new InvalidEtlConfigException(
+                    "compressed input file can not be split. fileName = [" + stepConfig.getFileName()
+                            + "], jobId = [" + jobId + "], stepId = [" + stepId + ']');
+        }
+        final RecordFormat format = RecordFormat.of(stepConfig.getBean());
+        if (format == null) {
+            throw new InvalidEtlConfigException(
+                    "input file can not be split because record boundaries of the bean can not be determined."
+                            + " bean = [" + stepConfig.getBean().getName() + "], jobId = [" + jobId
+                            + "], stepId = [" + stepId + ']');
+        }
+
+        final File inputFile = new File(inputFileBasePath, stepConfig.getFileName());
+        final int partitions = Math.max(1, stepConfig.getPartitions());
+        final List<Properties> segments = new ArrayList<Properties>(partitions);
+        final long inputCount = format.isFixedLength()
+                ? splitFixedLength(inputFile, format, partitions, segments)
+                : splitDelimited(inputFile, format, partitions, segments);
+        progressManager.setInputCount(inputCount);
+
+        final PartitionPlan plan = new PartitionPlanImpl();
+        plan.setPartitions(segments.size());
+        plan.setThreads(segments.size());
+        plan.setPartitionProperties(segments.toArray(new Properties[segments.size()]));
+        return plan;
+    }
+
+    /**
+     * 固定長形式の入力ファイルを、レコード数が均等になるように分割する。
+     *
+     * @param inputFile 入力ファイル
+     * @param format 形式情報
+     * @param partitions 分割数
+     * @param segments 分割した範囲の格納先
+     * @return 入力ファイルのレコード数
+     */
+    private long splitFixedLength(final File inputFile, final RecordFormat format, final int partitions,
+            final List<Properties> segments) {
+        verifyExists(inputFile);
+        final long length = inputFile.length();
+        final long records = (length + format.recordLength - 1) / format.recordLength;
+        final long recordsPerSegment = Math.max(1L, (records + partitions - 1) / partitions);
+        long startRecord = 0;
+        do {
+            final long endRecord = Math.min(records, startRecord + recordsPerSegment);
+            segments.add(segment(startRecord * format.recordLength,
+                    Math.min(length, endRecord * format.recordLength), startRecord, startRecord));
+            startRecord = endRecord;
+        } while (startRecord < records);
+        return records;
+    }
+
+    /**
+     * 可変長形式の入力ファイルを、バイト数が均等になるようにレコードの境界で分割する。
+     * <p/>
+     * 囲み文字内の改行を正しく判定するため、入力ファイルを先頭から走査して境界を求める。
+     * 囲み文字内の改行を含むレコードは複数行となるため、開始位置より前の物理行数もあわせて求める。
+     *
+     * @param inputFile 入力ファイル
+     * @param format 形式情報
+     * @param partitions 分割数
+     * @param segments 分割した範囲の格納先
+     * @return 入力ファイルのレコード数
+     * @throws IOException 入出力例外
+     */
+    private long splitDelimited(final File inputFile, final RecordFormat format, final int partitions,
+            final List<Properties> segments) throws IOException {
+        verifyExists(inputFile);
+        final FileInputStream stream = new FileInputStream(inputFile);
+        try {
+            final RecordScanner scanner = new RecordScanner(format, stream.getChannel(), 0L);
+            scanner.skipHeader();
+            final long dataStart = scanner.position();
+            final long dataLength = inputFile.length() - dataStart;
+
+            long records = 0;
+            long segmentStart = dataStart;
+            long segmentRecord = 0;
+            long segmentLine = 0;
+            for (int i = 1; i < partitions; i++) {
+                final long boundary = dataStart + dataLength * i / partitions;
+                while (scanner.position() < boundary && scanner.skipRecord()) {
+                    records++;
+                }
+                if (scanner.position() > segmentStart) {
+                    segments.add(segment(segmentStart, scanner.position(), segmentRecord, segmentLine));
+                    segmentStart = scanner.position();
+                    segmentRecord = records;
+                    segmentLine = scanner.lines();
+                }
+            }
+            while (scanner.skipRecord()) {
+                records++;
+            }
+            if (segments.isEmpty() || scanner.position() > segmentStart) {
+                segments.add(segment(segmentStart, scanner.position(), segmentRecord, segmentLine));
+            }
+            return records;
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * 入力ファイルが存在することを検証する。
+     *
+     * @param inputFile 入力ファイル
+     */
+    private static void verifyExists(final File inputFile) {
+        if (!inputFile.isFile()) {
+            final String message = MessageUtil.createMessage(MessageLevel.ERROR, "nablarch.etl.input-file-not-found",
+                    inputFile.getAbsolutePath())
+                    .formatMessage();
+            final FileNotFoundException cause = new FileNotFoundException(inputFile.getAbsolutePath());
+            OperationLogger.write(LogLevel.ERROR, message, cause);
+            throw new BatchRuntimeException(message, cause);
+        }
+    }
+
+    /**
+     * パーティションのプロパティを生成する。
+     *
+     * @param startOffset 読み込みを開始する位置
+     * @param endOffset 読み込みを終了する位置
+     * @param startRecord 読み込みを開始する位置より前のレコード数
+     * @param startLine 読み込みを開始する位置より前の物理行数
+     * @return パーティションのプロパティ
+     */
+    private static Properties segment(final long startOffset, final long endOffset, final long startRecord,
+            final long startLine) {
+        final Properties properties = new Properties();
+        properties.setProperty(START_OFFSET, String.valueOf(startOffset));
+        properties.setProperty(END_OFFSET, String.valueOf(endOffset));
+        properties.setProperty(START_RECORD, String.valueOf(startRecord));
+        properties.setProperty(START_LINE, String.valueOf(startLine));
+        return properties;
+    }
+}
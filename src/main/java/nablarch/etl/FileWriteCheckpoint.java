@@ -0,0 +1,68 @@
+package nablarch.etl;
+
+import java.io.Serializable;
+
+/**
+ * {@link FileItemWriter}のチェックポイント情報を保持するクラス。
+ * <p/>
+ * チェックポイント時点の出力ファイルのサイズと、書き込み済みのレコード数を保持する。
+ * 再実行時は出力ファイルをこのサイズに切り詰めてから追記することで、
+ * コミットされていないチャンクのデータが重複して出力されることを防ぐ。
+ * <p/>
+ * 出力ファイルを切り替えている場合は、書き込みを終えたファイルごとのレコード数も保持する。
+ * この場合、出力ファイルのサイズは書き込み中のファイルのサイズを表す。
+ */
+final class FileWriteCheckpoint implements Serializable {
+
+    /** シリアルバージョンUID */
+    private static final long serialVersionUID = 1L;
+
+    /** 出力ファイルのサイズ */
+    private final long length;
+
+    /** 書き込み済みのレコード数 */
+    private final long recordCount;
+
+    /** 書き込みを終えたファイルごとのレコード数 */
+    private final long[] completedFileCounts;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param length 出力ファイルのサイズ
+     * @param recordCount 書き込み済みのレコード数
+     * @param completedFileCounts 書き込みを終えたファイルごとのレコード数
+     */
+    FileWriteCheckpoint(final long length, final long recordCount, final long[] completedFileCounts) {
+        this.length = length;
+        this.recordCount = recordCount;
+        this.completedFileCounts = completedFileCounts.clone();
+    }
+
+    /**
+     * 出力ファイルのサイズを返す。
+     *
+     * @return 出力ファイルのサイズ
+     */
+    long getLength() {
+        return length;
+    }
+
+    /**
+     * 書き込み済みのレコード数を返す。
+     *
+     * @return 書き込み済みのレコード数
+     */
+    long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * 書き込みを終えたファイルごとのレコード数を返す。
+     *
+     * @return 書き込みを終えたファイルごとのレコード数(ファイルを切り替えていない場合は空の配列)
+     */
+    long[] getCompletedFileCounts() {
+        return completedFileCounts.clone();
+    }
+}
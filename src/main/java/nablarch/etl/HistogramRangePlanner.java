@@ -0,0 +1,54 @@
+package nablarch.etl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import nablarch.core.db.connection.AppDbConnection;
+import nablarch.core.db.connection.DbConnectionContext;
+import nablarch.core.db.statement.ResultSetIterator;
+import nablarch.core.db.statement.SqlPStatement;
+import nablarch.core.util.annotation.Published;
+import nablarch.etl.config.DbToDbStepConfig;
+import nablarch.etl.generator.LineNumberHistogramSqlGenerator;
+
+/**
+ * LINE_NUMBERカラムの度数分布をもとに範囲を計画する{@link RangePlanner}実装クラス。
+ * <p/>
+ * LINE_NUMBERを{@link DbToDbStepConfig.UpdateSize#getSize()}の幅の階級で区切ってレコード数を集計し、
+ * 各範囲のレコード数がサイズを超えない範囲で、できるだけ多くの階級をまとめて1つの範囲とする。
+ * バリデーションで削除されたレコードなどによりLINE_NUMBERに欠番がある場合でも、
+ * レコードが存在しない範囲や件数の少ない範囲に対してSQL実行とコミットが行われることを防ぐ。
+ */
+@Published(tag = "architect")
+public class HistogramRangePlanner implements RangePlanner {
+
+    @Override
+    public List<Long> plan(final DbToDbStepConfig config, final long processed, final long max) {
+        final long size = config.getUpdateSize().getSize();
+        final List<Long> bounds = new ArrayList<Long>();
+        final AppDbConnection connection = DbConnectionContext.getConnection();
+        final SqlPStatement statement = connection.prepareStatement(
+                new LineNumberHistogramSqlGenerator().generateSql(config));
+        statement.setLong(1, processed);
+        final ResultSetIterator rs = statement.executeQuery();
+        try {
+            long count = 0;
+            long bound = processed;
+            while (rs.next()) {
+                final long bucketCount = rs.getLong(2);
+                if (count > 0 && count + bucketCount > size) {
+                    bounds.add(bound);
+                    count = 0;
+                }
+                count += bucketCount;
+                bound = Math.min((rs.getLong(1) + 1) * size, max);
+            }
+            if (count > 0) {
+                bounds.add(max);
+            }
+        } finally {
+            rs.close();
+        }
+        return bounds;
+    }
+}
@@ -0,0 +1,164 @@
+package nablarch.etl;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import nablarch.common.dao.EntityUtil;
+import nablarch.core.db.connection.AppDbConnection;
+import nablarch.core.db.connection.DbConnectionContext;
+import nablarch.core.db.dialect.Dialect;
+import nablarch.core.db.statement.SelectOption;
+import nablarch.core.db.statement.SqlPStatement;
+import nablarch.core.db.statement.SqlResultSet;
+import nablarch.core.db.statement.SqlRow;
+
+/**
+ * キーの昇順にページ単位のSELECT文を繰り返し発行して、レコードを読み込むイテレータ。
+ * <p/>
+ * 指定されたSELECT文を副問い合わせとし、前ページの最後のキーより大きいレコードを
+ * キーの昇順に1ページ分だけ取得するSELECT文を発行する。
+ * ページごとにSELECT文が完結するため、全件を読み込む間1つのカーソルを開いたままにすることはない。
+ * <p/>
+ * ページの件数はダイアレクトのページング機能で制限する。
+ * ダイアレクトがページングに対応していない場合は、最大行数を指定して制限する。
+ */
+final class KeysetPageIterator implements Iterator<Object> {
+
+    /** Beanクラス */
+    private final Class<?> bean;
+
+    /** キーのカラム名 */
+    private final String key;
+
+    /** 1ページあたりのレコード数 */
+    private final int pageSize;
+
+    /** フェッチサイズ(0の場合はドライバのデフォルト) */
+    private final int fetchSize;
+
+    /** 先頭ページを取得するSQL文 */
+    private final String firstPageSql;
+
+    /** 2ページ目以降を取得するSQL文 */
+    private final String nextPageSql;
+
+    /** 最大行数を指定してページの件数を制限するか否か */
+    private final boolean limitByMaxRows;
+
+    /** 読み込み中のページのBean */
+    private final List<Object> pageItems = new ArrayList<Object>();
+
+    /** 読み込み中のページのキー */
+    private final List<Serializable> pageKeys = new ArrayList<Serializable>();
+
+    /** 読み込み中のページの次に返すレコードの位置 */
+    private int pageIndex;
+
+    /** 最後のページを取得したか否か */
+    private boolean lastPage;
+
+    /** 最後に返したレコードのキー */
+    private Serializable lastKey;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param bean Beanクラス
+     * @param sql 読み込み対象のレコードを取得するSELECT文
+     * @param key キーのカラム名
+     * @param pageSize 1ページあたりのレコード数
+     * @param fetchSize フェッチサイズ(0の場合はドライバのデフォルト)
+     * @param lastKey 読み込み済みの最後のキー(先頭から読み込む場合は{@code null})
+     */
+    KeysetPageIterator(final Class<?> bean, final String sql, final String key, final int pageSize,
+            final int fetchSize, final Serializable lastKey) {
+        this.bean = bean;
+        this.key = key;
+        this.pageSize = pageSize;
+        this.fetchSize = fetchSize;
+        this.lastKey = lastKey;
+
+        final Dialect dialect = DbConnectionContext.getTransactionManagerConnection().getDialect();
+        final SelectOption selectOption = new SelectOption(1, pageSize);
+        final String source = "SELECT * FROM (" + sql + ") KEYSET_PAGE_SOURCE";
+        firstPageSql = dialect.convertPaginationSql(source + " ORDER BY " + key, selectOption);
+        nextPageSql = dialect.convertPaginationSql(
+                source + " WHERE " + key + " > ? ORDER BY " + key, selectOption);
+        limitByMaxRows = !dialect.supportsOffset();
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (pageIndex >= pageItems.size()) {
+            if (lastPage) {
+                return false;
+            }
+            fetchPage();
+        }
+        return true;
+    }
+
+    @Override
+    public Object next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        lastKey = pageKeys.get(pageIndex);
+        return pageItems.get(pageIndex++);
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * 最後に返したレコードのキーを返す。
+     *
+     * @return 最後に返したレコードのキー
+     */
+    Serializable getLastKey() {
+        return lastKey;
+    }
+
+    /**
+     * 次のページを取得する。
+     * <p/>
+     * 取得した件数が1ページあたりのレコード数に満たない場合は、最後のページとみなす。
+     */
+    private void fetchPage() {
+        final AppDbConnection connection = DbConnectionContext.getConnection();
+        final SqlPStatement statement = connection.prepareStatement(lastKey == null ? firstPageSql : nextPageSql);
+        final SqlResultSet rows;
+        try {
+            if (limitByMaxRows) {
+                statement.setMaxRows(pageSize);
+            }
+            if (fetchSize > 0) {
+                statement.setFetchSize(Math.min(fetchSize, pageSize));
+            }
+            if (lastKey != null) {
+                statement.setObject(1, lastKey);
+            }
+            rows = statement.retrieve();
+        } finally {
+            statement.close();
+        }
+        pageItems.clear();
+        pageKeys.clear();
+        pageIndex = 0;
+        for (SqlRow row : rows) {
+            final Object keyValue = row.get(key);
+            if (!(keyValue instanceof Serializable)) {
+                throw new IllegalStateException(
+                        "page key column was not found or its value is not serializable. key = [" + key + ']');
+            }
+            pageItems.add(EntityUtil.createEntity(bean, row));
+            pageKeys.add((Serializable) keyValue);
+        }
+        lastPage = pageItems.size() < pageSize;
+    }
+}
@@ -0,0 +1,35 @@
+package nablarch.etl;
+
+import java.io.Serializable;
+
+/**
+ * キーでページングして読み込む{@link DatabaseItemReader}のチェックポイント情報を保持するクラス。
+ * <p/>
+ * 最後に読み込んだレコードのキーの値を保持する。再実行時は、このキーより大きいレコードから読み込む。
+ */
+final class KeysetReadCheckpoint implements Serializable {
+
+    /** シリアルバージョンUID */
+    private static final long serialVersionUID = 1L;
+
+    /** 最後に読み込んだレコードのキーの値 */
+    private final Serializable lastKey;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param lastKey 最後に読み込んだレコードのキーの値
+     */
+    KeysetReadCheckpoint(final Serializable lastKey) {
+        this.lastKey = lastKey;
+    }
+
+    /**
+     * 最後に読み込んだレコードのキーの値を返す。
+     *
+     * @return 最後に読み込んだレコードのキーの値
+     */
+    Serializable getLastKey() {
+        return lastKey;
+    }
+}
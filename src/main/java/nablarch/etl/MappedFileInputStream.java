@@ -0,0 +1,138 @@
+package nablarch.etl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * ファイルをメモリにマッピングして読み込む入力ストリーム。
+ * <p/>
+ * ファイルを一定サイズのウィンドウ単位に{@link FileChannel#map(FileChannel.MapMode, long, long)}でマッピングし、
+ * マッピングしたバッファから直接読み込む。ウィンドウ単位にマッピングするため、2GBを超えるファイルも読み込める。
+ * ウィンドウのサイズはレコード長の倍数とし、レコードがウィンドウをまたがないようにする。
+ * <p/>
+ * マッピングしたバッファはJavaの標準APIでは明示的に解放できないため、参照がなくなった後のGCで解放される。
+ */
+final class MappedFileInputStream extends InputStream {
+
+    /** デフォルトのウィンドウサイズの上限 */
+    static final long DEFAULT_WINDOW_SIZE = 256L * 1024 * 1024;
+
+    /** マッピングするファイルのチャネル */
+    private final FileChannel channel;
+
+    /** ストリームを閉じるときに合わせて閉じるリソース */
+    private final Closeable resource;
+
+    /** 読み込みを終了する位置 */
+    private final long end;
+
+    /** ウィンドウのサイズ */
+    private final long windowSize;
+
+    /** 現在のウィンドウ */
+    private MappedByteBuffer window;
+
+    /** 現在のウィンドウの開始位置 */
+    private long windowStart;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param channel マッピングするファイルのチャネル
+     * @param resource ストリームを閉じるときに合わせて閉じるリソース
+     * @param start 読み込みを開始する位置
+     * @param end 読み込みを終了する位置(この位置は含まない)
+     * @param recordLength レコード長
+     */
+    MappedFileInputStream(final FileChannel channel, final Closeable resource, final long start, final long end,
+            final int recordLength) {
+        this(channel, resource, start, end, recordLength, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param channel マッピングするファイルのチャネル
+     * @param resource ストリームを閉じるときに合わせて閉じるリソース
+     * @param start 読み込みを開始する位置
+     * @param end 読み込みを終了する位置(この位置は含まない)
+     * @param recordLength レコード長
+     * @param maxWindowSize ウィンドウサイズの上限
+     */
+    MappedFileInputStream(final FileChannel channel, final Closeable resource, final long start, final long end,
+            final int recordLength, final long maxWindowSize) {
+        this.channel = channel;
+        this.resource = resource;
+        this.end = end;
+        windowSize = Math.max(1L, maxWindowSize / recordLength) * recordLength;
+        windowStart = start;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!prepareWindow()) {
+            return -1;
+        }
+        return window.get() & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!prepareWindow()) {
+            return -1;
+        }
+        final int length = Math.min(len, window.remaining());
+        window.get(b, off, length);
+        return length;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && prepareWindow()) {
+            final int length = (int) Math.min(n - skipped, window.remaining());
+            window.position(window.position() + length);
+            skipped += length;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return window == null ? 0 : window.remaining();
+    }
+
+    /**
+     * 現在のウィンドウを読み終えている場合は、次のウィンドウをマッピングする。
+     *
+     * @return 読み込めるデータがある場合は{@code true}
+     * @throws IOException 入出力例外
+     */
+    private boolean prepareWindow() throws IOException {
+        if (window != null && window.hasRemaining()) {
+            return true;
+        }
+        if (window != null) {
+            windowStart += window.capacity();
+        }
+        final long size = Math.min(windowSize, Math.min(end, channel.size()) - windowStart);
+        if (size <= 0) {
+            window = null;
+            return false;
+        }
+        window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, size);
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        resource.close();
+    }
+}
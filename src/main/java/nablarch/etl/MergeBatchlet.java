@@ -1,6 +1,7 @@
 package nablarch.etl;
 
 import javax.batch.api.AbstractBatchlet;
+import javax.batch.api.BatchProperty;
 import javax.batch.runtime.context.JobContext;
 import javax.batch.runtime.context.StepContext;
 import javax.enterprise.context.Dependent;
@@ -21,6 +22,13 @@ import nablarch.fw.batch.ee.progress.ProgressManager;
 
 /**
  * 入力リソース(SELECT文の結果)を出力テーブルにMERGEする{@link javax.batch.api.Batchlet}実装クラス。
+ * <p/>
+ * {@link UpdateSize}の並列度が2以上の場合は、範囲ごとのMERGEを複数のスレッドで並列に実行する。
+ * 各スレッドが使用する{@link nablarch.core.db.connection.ConnectionFactory}と
+ * {@link nablarch.core.transaction.TransactionFactory}のコンポーネント名は、
+ * バッチプロパティ{@code connectionFactoryName}と{@code transactionFactoryName}で指定できる。
+ * <p/>
+ * {@link UpdateSize}が設定されている場合は、再実行時に前回の実行でコミット済みの範囲の次から処理を再開する。
  *
  * @author Hisaaki Shioiri
  */
@@ -43,6 +51,16 @@ public class MergeBatchlet extends AbstractBatchlet {
     /** 進捗状況を管理するBean */
     private final ProgressManager progressManager;
 
+    /** 並列実行時に使用するConnectionFactoryのコンポーネント名 */
+    @Inject
+    @BatchProperty
+    String connectionFactoryName;
+
+    /** 並列実行時に使用するTransactionFactoryのコンポーネント名 */
+    @Inject
+    @BatchProperty
+    String transactionFactoryName;
+
     /**
      * コンストラクト。
      * @param jobContext {@link JobContext}
@@ -96,17 +114,31 @@ public class MergeBatchlet extends AbstractBatchlet {
             EtlUtil.verifySqlRangeParameter(stepConfig);
             rangeUpdateHelper.verifyUpdateSize(updateSize);
 
+            final TransactionComponents transactionComponents = updateSize.getParallelism() > 1
+                    ? TransactionComponents.lookup(jobId, stepId, connectionFactoryName, transactionFactoryName)
+                    : null;
+
             final Long maxSize = rangeUpdateHelper.getMaxLineNumber(stepConfig);
             progressManager.setInputCount(maxSize);
-            
-            final Range range = new Range(updateSize.getSize(), maxSize);
-            while (range.next()) {
-                statement.setLong(1, range.from);
-                statement.setLong(2, range.to);
-                statement.executeUpdate();
-                commit();
-                progressManager.outputProgressInfo(range.to);
+
+            final Range range = rangeUpdateHelper.createRange(stepConfig, maxSize);
+            if (updateSize.getParallelism() > 1) {
+                new ParallelRangeExecutor(mergeSql, updateSize, rangeUpdateHelper, progressManager,
+                        transactionComponents).execute(range);
+            } else {
+                while (range.next()) {
+                    statement.setLong(1, range.from);
+                    statement.setLong(2, range.to);
+                    final long start = System.currentTimeMillis();
+                    final int updateCount = statement.executeUpdate();
+                    commit();
+                    rangeUpdateHelper.saveCommittedPosition(range.to);
+                    rangeUpdateHelper.adjustInterval(updateSize, range, range.to - range.from + 1,
+                            System.currentTimeMillis() - start, updateCount);
+                    progressManager.outputProgressInfo(range.to);
+                }
             }
+            rangeUpdateHelper.clearCommittedPosition();
         }
 
         return "SUCCESS";
@@ -0,0 +1,199 @@
+package nablarch.etl;
+
+import java.io.Serializable;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.batch.api.chunk.AbstractItemWriter;
+import javax.batch.runtime.context.JobContext;
+import javax.batch.runtime.context.StepContext;
+import javax.enterprise.context.Dependent;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import nablarch.common.dao.ColumnMeta;
+import nablarch.common.dao.EntityUtil;
+import nablarch.core.db.connection.DbConnectionContext;
+import nablarch.core.db.connection.TransactionManagerConnection;
+import nablarch.core.db.dialect.Dialect;
+import nablarch.core.db.statement.SqlPStatement;
+import nablarch.etl.config.DbToDbStepConfig;
+import nablarch.etl.config.EtlConfig;
+import nablarch.etl.config.FileToDbStepConfig;
+import nablarch.etl.config.StepConfig;
+import nablarch.etl.generator.MergeSqlGeneratorFactory;
+import nablarch.fw.batch.progress.ProgressLogger;
+
+/**
+ * データベースのテーブルに対してデータを登録または更新(MERGE)する{@link javax.batch.api.chunk.ItemWriter}実装クラス。
+ * <p/>
+ * {@link MergeBatchlet}とは異なり、ワークテーブルを使用せずにチャンク内のEntityオブジェクトを直接MERGEする。
+ * MERGE文は、1行分の値をパラメータで指定するSELECT文を入力として{@link MergeSqlGeneratorFactory}で生成し、
+ * Entityオブジェクトごとにパラメータを設定してJDBCのバッチ実行でまとめて実行する。
+ * <p/>
+ * 入力のSELECT文は、{@link EtlUtil#getAllColumns(String)}で取得したテーブルの全カラムを選択する。
+ * このため、Entityはテーブルの全カラムに対応するプロパティを持つ必要がある。
+ * <p/>
+ * ステップの設定には、MERGEのON句に指定するカラム名(mergeOnColumns)を設定する必要がある。
+ * DB2はパラメータの型を推論できないため使用できない。
+ */
+@Named
+@Dependent
+public class MergeItemWriter extends AbstractItemWriter {
+
+    /** {@link JobContext} */
+    private final JobContext jobContext;
+
+    /** {@link StepContext} */
+    private final StepContext stepContext;
+
+    /** ETLの設定 */
+    private final StepConfig stepConfig;
+
+    /** MERGE文 */
+    private String mergeSql;
+
+    /** パラメータの順に並べたカラムのアクセサ */
+    private final List<ColumnAccessor> accessors = new ArrayList<ColumnAccessor>();
+
+    /**
+     * コンストラクタ。
+     *
+     * @param jobContext {@link JobContext}
+     * @param stepContext {@link StepContext}
+     * @param stepConfig ステップの設定
+     */
+    @Inject
+    public MergeItemWriter(
+            final JobContext jobContext,
+            final StepContext stepContext,
+            @EtlConfig final StepConfig stepConfig) {
+        this.jobContext = jobContext;
+        this.stepContext = stepContext;
+        this.stepConfig = stepConfig;
+    }
+
+    @Override
+    public void open(final Serializable checkpoint) throws Exception {
+        final Class<?> bean;
+        final List<String> mergeOnColumns;
+        if (stepConfig instanceof DbToDbStepConfig) {
+            bean = ((DbToDbStepConfig) stepConfig).getBean();
+            mergeOnColumns = ((DbToDbStepConfig) stepConfig).getMergeOnColumns();
+        } else if (stepConfig instanceof FileToDbStepConfig) {
+            bean = ((FileToDbStepConfig) stepConfig).getBean();
+            mergeOnColumns = ((FileToDbStepConfig) stepConfig).getMergeOnColumns();
+        } else {
+            throw new InvalidEtlConfigException(
+                    "unsupported config type. supported class is DbToDbStepConfig or FileToDbStepConfig."
+                            + " step config class: " + (stepConfig == null ? "null" : stepConfig.getClass().getName()));
+        }
+        final String jobId = jobContext.getJobName();
+        final String stepId = stepContext.getStepName();
+        EtlUtil.verifyRequired(jobId, stepId, "bean", bean);
+        EtlUtil.verifyRequired(jobId, stepId, "mergeOnColumns", mergeOnColumns);
+
+        final TransactionManagerConnection connection = DbConnectionContext.getTransactionManagerConnection();
+        final String url = EtlUtil.getUrl(connection);
+        if (url.startsWith("jdbc:db2")) {
+            throw new IllegalStateException("MergeItemWriter does not support DB2. database url: " + url);
+        }
+        final String rowSql = createRowSql(bean, url, connection.getDialect());
+        mergeSql = MergeSqlGeneratorFactory.create(connection)
+                                           .generateSql(new RowSourceStepConfig(bean, mergeOnColumns, rowSql));
+        loggingStartChunk(EntityUtil.getTableName(bean));
+    }
+
+    /**
+     * 1行分の値をパラメータで指定するSELECT文を生成する。
+     * <p/>
+     * テーブルの全カラムを、カラム名を別名としてテーブルのカラム順に選択する。
+     *
+     * @param bean Entityクラス
+     * @param url データベース接続のURL
+     * @param dialect 値の変換に使用するダイアレクト
+     * @return SELECT文
+     */
+    private String createRowSql(final Class<?> bean, final String url, final Dialect dialect) {
+        final Map<String, ColumnMeta> columns = new HashMap<String, ColumnMeta>();
+        for (ColumnMeta column : EntityUtil.findAllColumns(bean)) {
+            columns.put(column.getName().toUpperCase(), column);
+        }
+        final StringBuilder sql = new StringBuilder("select ");
+        for (String columnName : EtlUtil.getAllColumns(EntityUtil.getTableName(bean))) {
+            final ColumnMeta column = columns.get(columnName.toUpperCase());
+            if (column == null) {
+                throw new InvalidEtlConfigException(
+                        "bean does not have a property for the column. bean = [" + bean.getName()
+                                + "], column = [" + columnName + ']');
+            }
+            if (!accessors.isEmpty()) {
+                sql.append(", ");
+            }
+            sql.append("? as ").append(columnName);
+            accessors.add(new ColumnAccessor(bean, column, dialect));
+        }
+        if (url.startsWith("jdbc:oracle")) {
+            sql.append(" from dual");
+        }
+        return sql.toString();
+    }
+
+    @Override
+    public void writeItems(final List<Object> items) throws Exception {
+        final SqlPStatement statement = DbConnectionContext.getConnection().prepareStatement(mergeSql);
+        try {
+            for (Object item : items) {
+                for (int i = 0; i < accessors.size(); i++) {
+                    accessors.get(i).bind(statement, i + 1, item);
+                }
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        } finally {
+            statement.close();
+        }
+    }
+
+    /**
+     * 進捗ログを出力する。
+     * @param tableName 登録先テーブル名
+     */
+    private void loggingStartChunk(final String tableName) {
+        ProgressLogger.write(MessageFormat.format("job name: [{0}] step name: [{1}] merge table name: [{2}]",
+                jobContext.getJobName(), stepContext.getStepName(), tableName));
+    }
+
+    /**
+     * MERGE文の入力となるSELECT文を保持するステップの設定。
+     * <p/>
+     * {@link nablarch.etl.generator.MergeSqlGenerator}に、SQL_IDに対応するSQL文の代わりに
+     * 1行分の値をパラメータで指定するSELECT文を渡すために使用する。
+     */
+    private static final class RowSourceStepConfig extends DbToDbStepConfig {
+
+        /** 入力となるSELECT文 */
+        private final String rowSql;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param bean Entityクラス
+         * @param mergeOnColumns MERGEのON句に指定するカラム名
+         * @param rowSql 入力となるSELECT文
+         */
+        private RowSourceStepConfig(final Class<?> bean, final List<String> mergeOnColumns, final String rowSql) {
+            this.rowSql = rowSql;
+            setBean(bean);
+            setMergeOnColumns(mergeOnColumns);
+        }
+
+        @Override
+        public String getSql() {
+            return rowSql;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package nablarch.etl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 複数のスレッドでGZIP形式に圧縮して出力する出力ストリーム。
+ * <p/>
+ * 書き込まれたデータを一定サイズのブロックに区切り、ブロックごとに独立したGZIPメンバーとして
+ * ワーカースレッドで圧縮する。圧縮したブロックは書き込まれた順番に出力する。
+ * 複数のGZIPメンバーを連結したファイルはGZIP形式(RFC 1952)として有効であり、
+ * {@link java.util.zip.GZIPInputStream}や{@code gzip}コマンドで展開できる。
+ * <p/>
+ * 圧縮中のブロック数には上限を設け、上限に達した場合は先頭のブロックの出力を待ち合わせる。
+ * <p/>
+ * {@link #flush()}では書き込み途中のブロックを圧縮せずに次のブロックに持ち越し、
+ * 最後のブロックは{@link #close()}でのみ圧縮する。
+ * これにより、チェックポイントごとにフラッシュした場合でも、小さなGZIPメンバーが大量に出力されて圧縮率が低下することはない。
+ */
+final class ParallelGzipOutputStream extends OutputStream {
+
+    /** ブロックサイズ */
+    private static final int BLOCK_SIZE = 1024 * 1024;
+
+    /** 出力先 */
+    private final OutputStream out;
+
+    /** 圧縮を行うワーカースレッド */
+    private final ExecutorService workers;
+
+    /** 同時に圧縮するブロックの上限 */
+    private final int maxPendingBlocks;
+
+    /** 圧縮中のブロック(書き込まれた順序で保持する) */
+    private final LinkedList<Future<byte[]>> pendingBlocks = new LinkedList<Future<byte[]>>();
+
+    /** 書き込み中のブロック */
+    private final byte[] block = new byte[BLOCK_SIZE];
+
+    /** 書き込み中のブロックのデータ長 */
+    private int count;
+
+    /** ブロックを1つ以上圧縮したか否か */
+    private boolean submitted;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param out 出力先
+     * @param threads ワーカースレッド数
+     */
+    ParallelGzipOutputStream(final OutputStream out, final int threads) {
+        this.out = out;
+        workers = Executors.newFixedThreadPool(threads, new EtlThreadFactory("gzip"));
+        maxPendingBlocks = threads * 2;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        if (count == block.length) {
+            submitBlock();
+        }
+        block[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        int offset = off;
+        int remaining = len;
+        while (remaining > 0) {
+            if (count == block.length) {
+                submitBlock();
+            }
+            final int length = Math.min(remaining, block.length - count);
+            System.arraycopy(b, offset, block, count, length);
+            count += length;
+            offset += length;
+            remaining -= length;
+        }
+    }
+
+    /**
+     * 圧縮中の全てのブロックを出力先に書き込む。
+     * <p/>
+     * 書き込み中のブロックは圧縮せずに保持し、以降に書き込まれたデータとともに1つのブロックとして圧縮する。
+     */
+    @Override
+    public void flush() throws IOException {
+        while (!pendingBlocks.isEmpty()) {
+            writeFirstBlock();
+        }
+        out.flush();
+    }
+
+    /**
+     * 書き込み中のブロックを圧縮して全てのブロックを出力先に書き込み、ワーカースレッドを停止して出力先を閉じる。
+     * <p/>
+     * 何も書き込まれていない場合は、空のGZIPメンバーを出力する。
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (count > 0 || !submitted) {
+                submitBlock();
+            }
+            flush();
+        } finally {
+            workers.shutdownNow();
+            out.close();
+        }
+    }
+
+    /**
+     * 書き込み中のブロックの圧縮を開始する。
+     * <p/>
+     * 圧縮中のブロックが上限に達している場合は、先頭のブロックを出力先に書き込む。
+     *
+     * @throws IOException 入出力例外
+     */
+    private void submitBlock() throws IOException {
+        pendingBlocks.add(workers.submit(new BlockCompressor(Arrays.copyOf(block, count))));
+        count = 0;
+        submitted = true;
+        while (pendingBlocks.size() > maxPendingBlocks) {
+            writeFirstBlock();
+        }
+    }
+
+    /**
+     * 先頭のブロックの圧縮完了を待ち合わせ、出力先に書き込む。
+     *
+     * @throws IOException 入出力例外
+     */
+    private void writeFirstBlock() throws IOException {
+        final Future<byte[]> first = pendingBlocks.removeFirst();
+        try {
+            out.write(first.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while compressing output data.");
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * 1ブロック分のデータをGZIPメンバーに圧縮するタスク。
+     */
+    private static class BlockCompressor implements Callable<byte[]> {
+
+        /** ブロックのデータ */
+        private final byte[] data;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param data ブロックのデータ
+         */
+        BlockCompressor(final byte[] data) {
+            this.data = data;
+        }
+
+        @Override
+        public byte[] call() throws IOException {
+            final ByteArrayOutputStream compressed = new ByteArrayOutputStream(data.length / 4 + 64);
+            final GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+            gzip.write(data);
+            gzip.close();
+            return compressed.toByteArray();
+        }
+    }
+}
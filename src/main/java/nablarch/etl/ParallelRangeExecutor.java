@@ -0,0 +1,246 @@
+package nablarch.etl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import nablarch.core.db.connection.DbConnectionContext;
+import nablarch.core.db.statement.SqlPStatement;
+import nablarch.core.db.transaction.SimpleDbTransactionManager;
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+import nablarch.core.transaction.TransactionContext;
+import nablarch.etl.config.DbToDbStepConfig.UpdateSize;
+import nablarch.fw.batch.ee.progress.ProgressManager;
+
+/**
+ * {@link Range}の範囲ごとの更新を、複数のスレッドで並列に実行するクラス。
+ * <p/>
+ * 各スレッドは個別のコネクションとトランザクションを持ち、{@link Range}から取得した範囲を
+ * 開始位置と終了位置のパラメータに設定してSQL文を実行し、範囲ごとにコミットする。
+ * コネクションとトランザクションは、{@link TransactionComponents}から取得する。
+ * 範囲のコミットごとに、先頭から連続してコミット済みとなった位置を{@link RangeUpdateHelper}で保存する。
+ * いずれかのスレッドで例外が発生した場合は新たな範囲の処理を開始せず、実行中の範囲の完了を待ち合わせてから
+ * コミット済みの範囲をログに出力し、発生した例外を送出する。
+ */
+final class ParallelRangeExecutor {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerManager.get("etl");
+
+    /** 範囲ごとに実行するSQL文 */
+    private final String sql;
+
+    /** 1回のSQL実行で処理するサイズに関する設定 */
+    private final UpdateSize updateSize;
+
+    /** 範囲更新のヘルパークラス */
+    private final RangeUpdateHelper rangeUpdateHelper;
+
+    /** 進捗状況を管理するBean */
+    private final ProgressManager progressManager;
+
+    /** 各スレッドのコネクションとトランザクションを取得するコンポーネント */
+    private final TransactionComponents transactionComponents;
+
+    /** コミット済みの範囲(開始位置と終了位置) */
+    private final Map<Long, Long> committedRanges = new TreeMap<Long, Long>();
+
+    /** コミット済みの範囲の件数の合計 */
+    private long committedCount;
+
+    /** 先頭から連続してコミット済みとなった位置 */
+    private long committedPosition;
+
+    /** 処理する範囲 */
+    private Range range;
+
+    /** いずれかのスレッドで例外が発生したか否か */
+    private boolean failed;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param sql 範囲ごとに実行するSQL文
+     * @param updateSize 1回のSQL実行で処理するサイズに関する設定
+     * @param rangeUpdateHelper 範囲更新のヘルパークラス
+     * @param progressManager 進捗状況を管理するBean
+     * @param transactionComponents 各スレッドのコネクションとトランザクションを取得するコンポーネント
+     */
+    ParallelRangeExecutor(final String sql, final UpdateSize updateSize, final RangeUpdateHelper rangeUpdateHelper,
+            final ProgressManager progressManager, final TransactionComponents transactionComponents) {
+        this.sql = sql;
+        this.updateSize = updateSize;
+        this.rangeUpdateHelper = rangeUpdateHelper;
+        this.progressManager = progressManager;
+        this.transactionComponents = transactionComponents;
+    }
+
+    /**
+     * 全ての範囲を並列に処理する。
+     *
+     * @param range 処理する範囲
+     */
+    void execute(final Range range) {
+        this.range = range;
+        committedPosition = range.to;
+        committedCount = range.to;
+        final int parallelism = updateSize.getParallelism();
+        final ExecutorService executor =
+                Executors.newFixedThreadPool(parallelism, new EtlThreadFactory("range-update"));
+        try {
+            final List<Future<Void>> workers = new ArrayList<Future<Void>>();
+            for (int i = 0; i < parallelism; i++) {
+                workers.add(executor.submit(new Worker()));
+            }
+            RuntimeException failure = null;
+            for (Future<Void> worker : workers) {
+                try {
+                    await(worker);
+                } catch (RuntimeException e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+            }
+            if (failure != null) {
+                LOGGER.logWarn("range update failed. committed ranges=" + formatCommittedRanges());
+                throw failure;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * スレッドの完了を待ち合わせる。
+     *
+     * @param worker スレッド
+     */
+    private static void await(final Future<Void> worker) {
+        try {
+            worker.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for range update.", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * 次に処理する範囲を取得する。
+     *
+     * @return 開始位置と終了位置。全ての範囲を処理した場合または例外が発生した場合は{@code null}
+     */
+    private synchronized long[] nextRange() {
+        if (failed || !range.next()) {
+            return null;
+        }
+        return new long[] {range.from, range.to};
+    }
+
+    /**
+     * 範囲のコミットを記録し、先頭から連続してコミット済みとなった位置の保存、範囲の間隔の調整
+     * および進捗状況の出力を行う。
+     *
+     * @param committed コミットした範囲の開始位置と終了位置
+     * @param elapsedMillis SQL実行とコミットにかかった時間(ミリ秒)
+     * @param updateCount SQL実行で更新した件数
+     */
+    private synchronized void committed(final long[] committed, final long elapsedMillis, final int updateCount) {
+        committedRanges.put(committed[0], committed[1]);
+        committedCount += committed[1] - committed[0] + 1;
+        while (committedRanges.containsKey(committedPosition + 1)) {
+            committedPosition = committedRanges.get(committedPosition + 1);
+        }
+        rangeUpdateHelper.saveCommittedPosition(committedPosition);
+        rangeUpdateHelper.adjustInterval(updateSize, range, committed[1] - committed[0] + 1,
+                elapsedMillis, updateCount);
+        progressManager.outputProgressInfo(committedCount);
+    }
+
+    /**
+     * 例外の発生を記録する。
+     */
+    private synchronized void failed() {
+        failed = true;
+    }
+
+    /**
+     * コミット済みの範囲をログ出力用の文字列に変換する。
+     * <p/>
+     * 連続する範囲はまとめて出力する。
+     *
+     * @return コミット済みの範囲
+     */
+    private synchronized String formatCommittedRanges() {
+        final List<String> ranges = new ArrayList<String>();
+        long from = -1;
+        long to = -1;
+        for (Map.Entry<Long, Long> entry : committedRanges.entrySet()) {
+            if (from >= 0 && entry.getKey() == to + 1) {
+                to = entry.getValue();
+                continue;
+            }
+            if (from >= 0) {
+                ranges.add(from + "-" + to);
+            }
+            from = entry.getKey();
+            to = entry.getValue();
+        }
+        if (from >= 0) {
+            ranges.add(from + "-" + to);
+        }
+        return ranges.toString();
+    }
+
+    /**
+     * 個別のトランザクションで範囲を順に処理するスレッド。
+     */
+    private class Worker implements Callable<Void> {
+
+        @Override
+        public Void call() {
+            final SimpleDbTransactionManager transaction =
+                    transactionComponents.createTransactionManager(TransactionContext.DEFAULT_TRANSACTION_CONTEXT_KEY);
+            transaction.beginTransaction();
+            try {
+                final SqlPStatement statement = DbConnectionContext.getConnection().prepareStatement(sql);
+                long[] current;
+                while ((current = nextRange()) != null) {
+                    statement.setLong(1, current[0]);
+                    statement.setLong(2, current[1]);
+                    final long start = System.currentTimeMillis();
+                    final int updateCount = statement.executeUpdate();
+                    transaction.commitTransaction();
+                    committed(current, System.currentTimeMillis() - start, updateCount);
+                }
+                return null;
+            } catch (RuntimeException e) {
+                failed();
+                transaction.rollbackTransaction();
+                throw e;
+            } catch (Error e) {
+                failed();
+                transaction.rollbackTransaction();
+                throw e;
+            } finally {
+                transaction.endTransaction();
+            }
+        }
+    }
+}
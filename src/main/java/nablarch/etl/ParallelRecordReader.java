@@ -0,0 +1,254 @@
+package nablarch.etl;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.batch.operations.BatchRuntimeException;
+
+import nablarch.common.databind.ObjectMapper;
+import nablarch.common.databind.ObjectMapperFactory;
+
+/**
+ * 入力ファイルを複数のスレッドでJavaオブジェクトに変換する{@link ObjectMapper}実装クラス。
+ * <p/>
+ * 入力ファイルをレコードの境界で一定件数ごとのブロックに分割し、ブロック単位にワーカースレッドで変換する。
+ * 変換中のブロックは上限付きのキューで保持し、キューが空いた分だけ次のブロックの変換を開始する。
+ * 変換結果はブロックの順番に返すため、読み込み順序はシングルスレッドで変換した場合と同じとなる。
+ * <p/>
+ * 各ブロックは、ヘッダ行の後にブロックのデータを続けたストリームとして個別の{@link ObjectMapper}で変換する。
+ * このため、{@link WorkItem}の行数にはブロックより前の物理行数を加算し、読み込み開始位置からの通し番号とする。
+ * 囲み文字内の改行を含むレコードは複数行となるため、レコード数ではなく{@link RecordScanner}で数えた物理行数を使用する。
+ * <p/>
+ * 本クラスは読み込み専用のため、{@link #write(Object)}はサポートしない。
+ */
+final class ParallelRecordReader implements ObjectMapper<Object> {
+
+    /** 1ブロックあたりのレコード数 */
+    private static final int RECORDS_PER_BLOCK = 1000;
+
+    /** Beanクラス */
+    private final Class<?> bean;
+
+    /** ヘッダ行のバイト列 */
+    private final byte[] header;
+
+    /** 入力ファイルのストリーム */
+    private final FileInputStream inputStream;
+
+    /** 入力ファイルのチャネル */
+    private final FileChannel channel;
+
+    /** レコードの境界を判定するスキャナ */
+    private final RecordScanner scanner;
+
+    /** 読み込みを終了する位置 */
+    private final long end;
+
+    /** 変換を行うワーカースレッド */
+    private final ExecutorService workers;
+
+    /** 同時に変換するブロックの上限 */
+    private final int maxPendingBlocks;
+
+    /** 変換中のブロック(ファイル内の順序で保持する) */
+    private final LinkedList<Future<List<Object>>> pendingBlocks = new LinkedList<Future<List<Object>>>();
+
+    /** 返却中のブロックの変換結果 */
+    private Iterator<Object> currentBlock = Collections.emptyList().iterator();
+
+    /** ファイルの終端まで分割したか否か */
+    private boolean split;
+
+    /**
+     * コンストラクタ。
+     * <p/>
+     * 入力ファイルのストリームは、読み込みを開始するレコードの位置に移動済みであること。
+     *
+     * @param bean Beanクラス
+     * @param format 入力ファイルの形式情報
+     * @param header ヘッダ行のバイト列
+     * @param inputStream 入力ファイルのストリーム
+     * @param end 読み込みを終了する位置(この位置は含まない)。レコードの境界であること
+     * @param threads ワーカースレッド数
+     * @throws IOException 入出力例外
+     */
+    ParallelRecordReader(final Class<?> bean, final RecordFormat format, final byte[] header,
+            final FileInputStream inputStream, final long end, final int threads) throws IOException {
+        this.bean = bean;
+        this.header = header;
+        this.inputStream = inputStream;
+        channel = inputStream.getChannel();
+        scanner = new RecordScanner(format, channel, channel.position());
+        this.end = end;
+        workers = Executors.newFixedThreadPool(threads, new EtlThreadFactory("parser"));
+        maxPendingBlocks = threads * 2;
+    }
+
+    @Override
+    public Object read() {
+        while (!currentBlock.hasNext()) {
+            fillPendingBlocks();
+            if (pendingBlocks.isEmpty()) {
+                return null;
+            }
+            currentBlock = takeBlock(pendingBlocks.removeFirst()).iterator();
+        }
+        return currentBlock.next();
+    }
+
+    /**
+     * 変換中のブロックが上限に達するまで、次のブロックの変換を開始する。
+     */
+    private void fillPendingBlocks() {
+        try {
+            while (!split && pendingBlocks.size() < maxPendingBlocks) {
+                final long start = scanner.position();
+                final long precedingLines = scanner.lines();
+                int records = 0;
+                while (records < RECORDS_PER_BLOCK && scanner.position() < end && scanner.skipRecord()) {
+                    records++;
+                }
+                if (records == 0) {
+                    split = true;
+                    break;
+                }
+                pendingBlocks.add(workers.submit(
+                        new BlockParser(readBlock(start, scanner.position()), precedingLines)));
+            }
+        } catch (IOException e) {
+            throw new BatchRuntimeException(e);
+        }
+    }
+
+    /**
+     * ブロックのデータを読み込む。
+     *
+     * @param start 開始位置
+     * @param end 終了位置(この位置は含まない)
+     * @return ブロックのデータ
+     * @throws IOException 入出力例外
+     */
+    private byte[] readBlock(final long start, final long end) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) < 0) {
+                throw new EOFException("unexpected end of input file. position = [" + (start + buffer.position()) + ']');
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * ブロックの変換結果を取得する。
+     * <p/>
+     * 変換中に発生した例外は、呼び出し元のスレッドに再送出する。
+     *
+     * @param block 変換中のブロック
+     * @return 変換結果
+     */
+    private static List<Object> takeBlock(final Future<List<Object>> block) {
+        try {
+            return block.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BatchRuntimeException(e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new BatchRuntimeException(cause);
+        }
+    }
+
+    /**
+     * サポートしない。
+     *
+     * @param object Javaオブジェクト
+     * @throws UnsupportedOperationException 常に送出する
+     */
+    @Override
+    public void write(final Object object) {
+        throw new UnsupportedOperationException("unsupported write method.");
+    }
+
+    /**
+     * 変換中のブロックを破棄し、ワーカースレッドを停止して入力ファイルを閉じる。
+     */
+    @Override
+    public void close() {
+        for (Future<List<Object>> block : pendingBlocks) {
+            block.cancel(true);
+        }
+        pendingBlocks.clear();
+        workers.shutdownNow();
+        try {
+            inputStream.close();
+        } catch (IOException ignored) {
+            // nop
+        }
+    }
+
+    /**
+     * 1ブロック分のデータをJavaオブジェクトに変換するタスク。
+     */
+    private class BlockParser implements Callable<List<Object>> {
+
+        /** ブロックのデータ */
+        private final byte[] block;
+
+        /** ブロックより前の物理行数 */
+        private final long precedingLines;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param block ブロックのデータ
+         * @param precedingLines ブロックより前の物理行数
+         */
+        BlockParser(final byte[] block, final long precedingLines) {
+            this.block = block;
+            this.precedingLines = precedingLines;
+        }
+
+        @Override
+        public List<Object> call() {
+            final ObjectMapper<?> mapper = ObjectMapperFactory.create(bean,
+                    new SequenceInputStream(new ByteArrayInputStream(header), new ByteArrayInputStream(block)));
+            try {
+                final List<Object> items = new ArrayList<Object>();
+                Object item;
+                while ((item = mapper.read()) != null) {
+                    if (precedingLines != 0 && item instanceof WorkItem) {
+                        final WorkItem workItem = (WorkItem) item;
+                        if (workItem.getLineNumber() != null) {
+                            workItem.setLineNumber(workItem.getLineNumber() + precedingLines);
+                        }
+                    }
+                    items.add(item);
+                }
+                return items;
+            } finally {
+                mapper.close();
+            }
+        }
+    }
+}
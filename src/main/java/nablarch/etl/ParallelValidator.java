@@ -0,0 +1,183 @@
+package nablarch.etl;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+/**
+ * {@link WorkItem}のバリデーションを、複数のスレッドで並列に実行するクラス。
+ * <p/>
+ * {@link #validate(WorkItem)}で受け取ったレコードを{@value #BATCH_SIZE}件ごとにまとめて検証スレッドに渡し、
+ * 検証を終えたレコードを受け取った順序で{@link Sink}に渡す。
+ * レコードの読み込みと{@link Sink}の呼び出しは呼び出し元のスレッドで行うため、
+ * データベースへのアクセスは呼び出し元のスレッドのコネクションのみで行われる。
+ * <p/>
+ * 検証中のまとまりが上限({@value #PENDING_BATCHES_PER_THREAD}×スレッド数)を超えた場合は、
+ * 先頭のまとまりの検証を待ち合わせるため、保持するレコードの件数は上限付きとなる。
+ */
+final class ParallelValidator {
+
+    /** 1つの検証スレッドにまとめて渡すレコード数 */
+    static final int BATCH_SIZE = 100;
+
+    /** スレッドあたりの検証中のまとまりの上限 */
+    static final int PENDING_BATCHES_PER_THREAD = 4;
+
+    /** バリデータ */
+    private final Validator validator;
+
+    /** 検証結果の受け取り先 */
+    private final Sink sink;
+
+    /** 検証を行うスレッド */
+    private final ExecutorService executor;
+
+    /** 検証中のまとまりの上限 */
+    private final int maxPendingBatches;
+
+    /** 検証中のまとまり(受け取った順序で保持する) */
+    private final LinkedList<Future<ValidationTask>> pendingBatches = new LinkedList<Future<ValidationTask>>();
+
+    /** 検証スレッドに渡していないレコード */
+    private List<WorkItem> items = new ArrayList<WorkItem>(BATCH_SIZE);
+
+    /**
+     * コンストラクタ。
+     *
+     * @param validator バリデータ
+     * @param threads 検証を行うスレッド数
+     * @param sink 検証結果の受け取り先
+     */
+    ParallelValidator(final Validator validator, final int threads, final Sink sink) {
+        this.validator = validator;
+        this.sink = sink;
+        executor = Executors.newFixedThreadPool(threads, new EtlThreadFactory("validator"));
+        maxPendingBatches = threads * PENDING_BATCHES_PER_THREAD;
+    }
+
+    /**
+     * レコードのバリデーションを行う。
+     * <p/>
+     * 検証を終えたレコードがある場合は、受け取った順序で{@link Sink}に渡してから呼び出し元に戻る。
+     *
+     * @param item レコード
+     */
+    void validate(final WorkItem item) {
+        items.add(item);
+        if (items.size() >= BATCH_SIZE) {
+            submit();
+        }
+        while (!pendingBatches.isEmpty() && (pendingBatches.size() > maxPendingBatches
+                || pendingBatches.getFirst().isDone())) {
+            awaitFirstBatch();
+        }
+    }
+
+    /**
+     * 受け取った全てのレコードの検証を待ち合わせ、{@link Sink}に渡す。
+     */
+    void complete() {
+        submit();
+        while (!pendingBatches.isEmpty()) {
+            awaitFirstBatch();
+        }
+    }
+
+    /**
+     * 検証スレッドを停止する。
+     * <p/>
+     * 検証中のレコードは破棄する。
+     */
+    void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 検証スレッドに渡していないレコードをまとめて検証スレッドに渡す。
+     */
+    private void submit() {
+        if (items.isEmpty()) {
+            return;
+        }
+        pendingBatches.add(executor.submit(new ValidationTask(items)));
+        items = new ArrayList<WorkItem>(BATCH_SIZE);
+    }
+
+    /**
+     * 先頭のまとまりの検証完了を待ち合わせ、レコードごとの検証結果を{@link Sink}に渡す。
+     */
+    private void awaitFirstBatch() {
+        final ValidationTask task;
+        try {
+            task = pendingBatches.removeFirst().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for validation.", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+        for (int i = 0; i < task.items.size(); i++) {
+            sink.accept(task.items.get(i), task.violations.get(i));
+        }
+    }
+
+    /**
+     * 検証結果の受け取り先。
+     */
+    interface Sink {
+
+        /**
+         * レコードの検証結果を受け取る。
+         *
+         * @param item レコード
+         * @param violations 検証エラーの内容(エラーがない場合は空)
+         */
+        void accept(WorkItem item, Set<ConstraintViolation<WorkItem>> violations);
+    }
+
+    /**
+     * まとめて受け取ったレコードを順に検証するタスク。
+     */
+    private class ValidationTask implements Callable<ValidationTask> {
+
+        /** レコード */
+        private final List<WorkItem> items;
+
+        /** レコードごとの検証エラーの内容 */
+        private final List<Set<ConstraintViolation<WorkItem>>> violations;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param items レコード
+         */
+        ValidationTask(final List<WorkItem> items) {
+            this.items = items;
+            violations = new ArrayList<Set<ConstraintViolation<WorkItem>>>(items.size());
+        }
+
+        @Override
+        public ValidationTask call() {
+            for (WorkItem item : items) {
+                violations.add(validator.validate(item));
+            }
+            return this;
+        }
+    }
+}
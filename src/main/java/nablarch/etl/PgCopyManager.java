@@ -0,0 +1,82 @@
+package nablarch.etl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * PostgreSQLのJDBCドライバが提供する{@code CopyManager}を使用して、{@code COPY FROM STDIN}を実行するクラス。
+ * <p/>
+ * JDBCドライバへのコンパイル時の依存を持たないように、{@code CopyManager}はリフレクションで呼び出す。
+ */
+final class PgCopyManager {
+
+    /** PostgreSQLのコネクションのインタフェース名 */
+    private static final String PG_CONNECTION_CLASS_NAME = "org.postgresql.PGConnection";
+
+    /** {@code CopyManager} */
+    private final Object copyManager;
+
+    /** {@code CopyManager#copyIn(String, Reader)} */
+    private final Method copyInMethod;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param connection PostgreSQLのコネクション
+     * @throws IllegalStateException PostgreSQLのJDBCドライバが存在しない場合、またはPostgreSQLのコネクションでない場合
+     */
+    PgCopyManager(final Connection connection) {
+        try {
+            final Class<?> pgConnectionClass = Class.forName(PG_CONNECTION_CLASS_NAME);
+            final Object pgConnection = connection.unwrap(pgConnectionClass);
+            copyManager = pgConnectionClass.getMethod("getCopyAPI").invoke(pgConnection);
+            copyInMethod = copyManager.getClass().getMethod("copyIn", String.class, Reader.class);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("PostgreSQL JDBC driver is required to use COPY.", e);
+        } catch (SQLException e) {
+            throw new IllegalStateException("connection is not a PostgreSQL connection.", e);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("failed to get CopyManager.", e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("failed to get CopyManager.", e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("failed to get CopyManager.", e.getCause());
+        }
+    }
+
+    /**
+     * {@code COPY FROM STDIN}を実行する。
+     *
+     * @param sql COPY文
+     * @param data 登録するデータ
+     * @return 登録した件数
+     * @throws SQLException データベース関連の例外
+     * @throws IOException 入出力例外
+     */
+    long copyIn(final String sql, final Reader data) throws SQLException, IOException {
+        try {
+            return (Long) copyInMethod.invoke(copyManager, sql, data);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("failed to invoke CopyManager.", e);
+        } catch (InvocationTargetException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
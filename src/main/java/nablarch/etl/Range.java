@@ -1,9 +1,16 @@
 package nablarch.etl;
 
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
 import nablarch.core.util.annotation.Published;
 
 /**
  * 一定間隔の範囲を提供するクラス。
+ * <p/>
+ * 終了位置の一覧が計画されている場合は、計画された終了位置ごとの範囲を提供する。
+ * 計画された終了位置が最大位置に達していない場合、残りは一定間隔の範囲を提供する。
  *
  * @author Kiyohito Itoh
  */
@@ -11,7 +18,7 @@ import nablarch.core.util.annotation.Published;
 public class Range {
 
     /** 間隔 */
-    final int interval;
+    int interval;
 
     /** 最大位置 */
     final long max;
@@ -22,16 +29,41 @@ public class Range {
     /** 終了位置 */
     long to;
 
+    /** 計画された終了位置 */
+    private final Iterator<Long> plannedBounds;
+
     /**
      * コンストラクタ。
      * @param interval 間隔
      * @param max 最大位置
      */
     Range(final int interval, final long max) {
+        this(interval, max, 0L);
+    }
+
+    /**
+     * 処理済みの位置の次から範囲を提供するコンストラクタ。
+     * @param interval 間隔
+     * @param max 最大位置
+     * @param processed 処理済みの位置
+     */
+    Range(final int interval, final long max, final long processed) {
+        this(interval, max, processed, Collections.<Long>emptyList());
+    }
+
+    /**
+     * 計画された終了位置ごとの範囲を提供するコンストラクタ。
+     * @param interval 計画された終了位置がない場合の間隔
+     * @param max 最大位置
+     * @param processed 処理済みの位置
+     * @param plannedBounds 計画された終了位置(昇順)
+     */
+    Range(final int interval, final long max, final long processed, final List<Long> plannedBounds) {
         this.interval = interval;
         this.max = max;
-        from = 1;
-        to = 0;
+        this.plannedBounds = plannedBounds.iterator();
+        from = processed + 1;
+        to = processed;
     }
 
     /**
@@ -43,10 +75,26 @@ public class Range {
             return false;
         }
         from = to + 1;
-        to += interval;
+        to = nextBound();
         if (to > max) {
             to = max;
         }
         return true;
     }
+
+    /**
+     * 次の終了位置を求める。
+     * <p/>
+     * 現在の終了位置より大きい計画された終了位置があればそれを返し、なければ一定間隔だけ進めた位置を返す。
+     * @return 次の終了位置
+     */
+    private long nextBound() {
+        while (plannedBounds.hasNext()) {
+            final long bound = plannedBounds.next();
+            if (bound > to) {
+                return bound;
+            }
+        }
+        return to + interval;
+    }
 }
@@ -0,0 +1,30 @@
+package nablarch.etl;
+
+import java.util.List;
+
+import nablarch.core.util.annotation.Published;
+import nablarch.etl.config.DbToDbStepConfig;
+
+/**
+ * 範囲更新で1回のSQL実行ごとに処理する範囲を計画するインタフェース。
+ * <p/>
+ * 実装クラスを{@value RangeUpdateHelper#RANGE_PLANNER_NAME}という名前でコンポーネント定義に設定すると、
+ * {@link RangeUpdateHelper}は計画された範囲ごとに処理を行う。
+ * 設定されていない場合は、{@link DbToDbStepConfig.UpdateSize#getSize()}の一定間隔で処理を行う。
+ */
+@Published(tag = "architect")
+public interface RangePlanner {
+
+    /**
+     * 範囲ごとの終了位置を計画する。
+     * <p/>
+     * 処理済みの位置より大きく、最大位置以下の終了位置を昇順で返す。
+     * 最後の終了位置が最大位置に達していない場合、残りは一定間隔で処理される。
+     *
+     * @param config ステップの設定
+     * @param processed 処理済みの位置
+     * @param max LINE_NUMBERカラムの最大値
+     * @return 範囲ごとの終了位置(昇順)
+     */
+    List<Long> plan(DbToDbStepConfig config, long processed, long max);
+}
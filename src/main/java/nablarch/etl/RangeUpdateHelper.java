@@ -1,5 +1,8 @@
 package nablarch.etl;
 
+import java.io.Serializable;
+import java.text.MessageFormat;
+
 import javax.batch.runtime.context.JobContext;
 import javax.batch.runtime.context.StepContext;
 import javax.enterprise.context.Dependent;
@@ -9,13 +12,21 @@ import nablarch.core.db.connection.AppDbConnection;
 import nablarch.core.db.connection.DbConnectionContext;
 import nablarch.core.db.statement.ResultSetIterator;
 import nablarch.core.db.statement.SqlPStatement;
+import nablarch.core.repository.SystemRepository;
 import nablarch.core.util.annotation.Published;
 import nablarch.etl.config.DbToDbStepConfig;
 import nablarch.etl.config.DbToDbStepConfig.UpdateSize;
 import nablarch.etl.generator.MaxLineNumberSqlGenerator;
+import nablarch.fw.batch.progress.ProgressLogger;
 
 /**
  * Range更新のヘルパークラス。
+ * <p/>
+ * 範囲ごとにコミットする処理を再実行できるように、コミット済みの位置をステップの永続ユーザデータに保存する。
+ * 再実行時は、保存された位置の次の範囲から処理を再開する。
+ * <p/>
+ * {@value #RANGE_PLANNER_NAME}という名前で{@link RangePlanner}がコンポーネント定義に設定されている場合は、
+ * 計画された範囲ごとに処理を行う。
  *
  * @author Hisaaki Shioiri
  */
@@ -23,6 +34,15 @@ import nablarch.etl.generator.MaxLineNumberSqlGenerator;
 @Dependent
 public class RangeUpdateHelper {
 
+    /** {@link RangePlanner}のコンポーネント名 */
+    public static final String RANGE_PLANNER_NAME = "rangePlanner";
+
+    /** 1回の調整で拡大する倍率の上限 */
+    private static final double MAX_GROWTH = 2.0;
+
+    /** 1回の調整で縮小する倍率の下限 */
+    private static final double MAX_SHRINK = 0.5;
+
     /** {@link JobContext} */
     private final JobContext jobContext;
 
@@ -49,6 +69,15 @@ public class RangeUpdateHelper {
      * <li>{@link UpdateSize#getBean()}が設定されていること</li>
      * <li>{@link UpdateSize#getSize()}が設定されていること</li>
      * <li>{@link UpdateSize#getSize()}が0より大きいこと</li>
+     * <li>{@link UpdateSize#getParallelism()}が設定されていること</li>
+     * <li>{@link UpdateSize#getParallelism()}が0より大きいこと</li>
+     * </ul>
+     * {@link UpdateSize#getTargetMillis()}が設定されている場合は、以下の検証も行う。
+     * <ul>
+     * <li>{@link UpdateSize#getTargetMillis()}が0より大きいこと</li>
+     * <li>{@link UpdateSize#getMinSize()}と{@link UpdateSize#getMaxSize()}が設定されていること</li>
+     * <li>{@link UpdateSize#getMinSize()}と{@link UpdateSize#getMaxSize()}が0より大きいこと</li>
+     * <li>{@link UpdateSize#getMinSize()}が{@link UpdateSize#getMaxSize()}以下であること</li>
      * </ul>
      *
      * @param updateSize {@link UpdateSize}
@@ -59,6 +88,23 @@ public class RangeUpdateHelper {
         EtlUtil.verifyRequired(jobId, stepId, "updateSize.size", updateSize.getSize());
         verifyUpdateSize(jobId, stepId, "updateSize.size", updateSize.getSize());
         EtlUtil.verifyRequired(jobId, stepId, "updateSize.bean", updateSize.getBean());
+        EtlUtil.verifyRequired(jobId, stepId, "updateSize.parallelism", updateSize.getParallelism());
+        verifyUpdateSize(jobId, stepId, "updateSize.parallelism", updateSize.getParallelism());
+        if (updateSize.getTargetMillis() == null) {
+            return;
+        }
+        verifyUpdateSize(jobId, stepId, "updateSize.targetMillis", updateSize.getTargetMillis());
+        EtlUtil.verifyRequired(jobId, stepId, "updateSize.minSize", updateSize.getMinSize());
+        verifyUpdateSize(jobId, stepId, "updateSize.minSize", updateSize.getMinSize());
+        EtlUtil.verifyRequired(jobId, stepId, "updateSize.maxSize", updateSize.getMaxSize());
+        verifyUpdateSize(jobId, stepId, "updateSize.maxSize", updateSize.getMaxSize());
+        if (updateSize.getMinSize() > updateSize.getMaxSize()) {
+            throw new InvalidEtlConfigException(
+                    String.format(
+                            "updateSize.minSize must be less than or equal to updateSize.maxSize."
+                                    + " jobId = [%s], stepId = [%s], minSize = [%s], maxSize = [%s]",
+                            jobId, stepId, updateSize.getMinSize(), updateSize.getMaxSize()));
+        }
     }
 
     /**
@@ -104,5 +150,90 @@ public class RangeUpdateHelper {
             }
         }
     }
-}
 
+    /**
+     * 範囲を生成する。
+     * <p/>
+     * 前回の実行でコミット済みの位置がステップの永続ユーザデータに保存されている場合は、
+     * その位置の次から始まる範囲を生成し、再開位置をログに出力する。
+     * {@link RangePlanner}が設定されている場合は、計画された終了位置を持つ範囲を生成する。
+     *
+     * @param config {@link DbToDbStepConfig}
+     * @param maxLineNumber LINE_NUMBERカラムの最大値
+     * @return 範囲
+     */
+    Range createRange(final DbToDbStepConfig config, final long maxLineNumber) {
+        final UpdateSize updateSize = config.getUpdateSize();
+        final long committedPosition = getCommittedPosition();
+        if (committedPosition > 0L) {
+            ProgressLogger.write(MessageFormat.format(
+                    "job name: [{0}] step name: [{1}] restart from line number: [{2}]",
+                    jobContext.getJobName(), stepContext.getStepName(), String.valueOf(committedPosition + 1)));
+        }
+        final RangePlanner planner = SystemRepository.get(RANGE_PLANNER_NAME);
+        if (planner == null) {
+            return new Range(updateSize.getSize(), maxLineNumber, committedPosition);
+        }
+        return new Range(updateSize.getSize(), maxLineNumber, committedPosition,
+                planner.plan(config, committedPosition, maxLineNumber));
+    }
+
+    /**
+     * 前回の実行でコミット済みの位置を取得する。
+     *
+     * @return コミット済みの位置。保存されていない場合は0
+     */
+    long getCommittedPosition() {
+        final Serializable data = stepContext.getPersistentUserData();
+        return data instanceof Long ? (Long) data : 0L;
+    }
+
+    /**
+     * コミット済みの位置をステップの永続ユーザデータに保存する。
+     *
+     * @param committedPosition コミット済みの位置
+     */
+    void saveCommittedPosition(final long committedPosition) {
+        stepContext.setPersistentUserData(committedPosition);
+    }
+
+    /**
+     * 全ての範囲を処理したため、保存したコミット済みの位置を破棄する。
+     */
+    void clearCommittedPosition() {
+        stepContext.setPersistentUserData(null);
+    }
+
+    /**
+     * SQL実行の処理時間をもとに、範囲の間隔を調整する。
+     * <p/>
+     * {@link UpdateSize#getTargetMillis()}が設定されている場合に、処理時間が目標時間に近づくように
+     * 処理したサイズから次の間隔を求め、下限と上限の範囲に収める。
+     * 急激な変動を避けるため、1回の調整で変化させる倍率は{@value #MAX_SHRINK}倍から{@value #MAX_GROWTH}倍までとする。
+     * 間隔を変更した場合は、変更後の間隔を進捗ログに出力する。
+     *
+     * @param updateSize {@link UpdateSize}
+     * @param range 範囲
+     * @param processedSize SQL実行で処理した範囲のサイズ
+     * @param elapsedMillis SQL実行とコミットにかかった時間(ミリ秒)
+     * @param updateCount SQL実行で更新した件数
+     */
+    void adjustInterval(final UpdateSize updateSize, final Range range, final long processedSize,
+            final long elapsedMillis, final int updateCount) {
+        if (updateSize.getTargetMillis() == null) {
+            return;
+        }
+        final double ratio = elapsedMillis <= 0L
+                ? MAX_GROWTH : (double) updateSize.getTargetMillis() / elapsedMillis;
+        final long next = (long) (processedSize * Math.min(MAX_GROWTH, Math.max(MAX_SHRINK, ratio)));
+        final int interval = (int) Math.min(updateSize.getMaxSize(), Math.max(updateSize.getMinSize(), next));
+        if (interval == range.interval) {
+            return;
+        }
+        range.interval = interval;
+        ProgressLogger.write(MessageFormat.format(
+                "job name: [{0}] step name: [{1}] update size: [{2}] elapsed time(ms): [{3}] update count: [{4}]",
+                jobContext.getJobName(), stepContext.getStepName(), String.valueOf(interval),
+                String.valueOf(elapsedMillis), String.valueOf(updateCount)));
+    }
+}
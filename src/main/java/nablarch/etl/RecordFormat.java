@@ -0,0 +1,153 @@
+package nablarch.etl;
+
+import java.nio.charset.Charset;
+
+import nablarch.common.databind.csv.Csv;
+import nablarch.common.databind.csv.CsvFormat;
+import nablarch.common.databind.fixedlength.FixedLength;
+
+/**
+ * 入力ファイルのレコード境界を判定するための形式情報を保持するクラス。
+ * <p/>
+ * Beanクラスに設定されたデータバインドのアノテーション({@link Csv}、{@link CsvFormat}、{@link FixedLength})から、
+ * レコードをJavaオブジェクトに変換することなくレコードの境界を判定するために必要な情報を構築する。
+ * <p/>
+ * レコードの区切りや囲み文字が1バイトで表現できない文字コード(UTF-16など)の場合は、
+ * レコード境界を判定できないため本クラスは構築しない。
+ */
+final class RecordFormat {
+
+    /** 固定長形式の場合のレコード長(行区切り文字を含むバイト数)。可変長形式の場合は0 */
+    final int recordLength;
+
+    /** レコードの終端を表すバイト */
+    final byte terminator;
+
+    /** 囲み文字を使用するか否か */
+    final boolean quoted;
+
+    /** 囲み文字を表すバイト */
+    final byte quote;
+
+    /** ヘッダ行があるか否か */
+    final boolean headerRequired;
+
+    /** 空行を無視するか否か */
+    final boolean ignoreEmptyLine;
+
+    /** 文字コード */
+    final Charset charset;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param recordLength 固定長形式の場合のレコード長
+     * @param terminator レコードの終端を表すバイト
+     * @param quoted 囲み文字を使用するか否か
+     * @param quote 囲み文字を表すバイト
+     * @param headerRequired ヘッダ行があるか否か
+     * @param ignoreEmptyLine 空行を無視するか否か
+     * @param charset 文字コード
+     */
+    private RecordFormat(final int recordLength, final byte terminator, final boolean quoted, final byte quote,
+            final boolean headerRequired, final boolean ignoreEmptyLine, final Charset charset) {
+        this.recordLength = recordLength;
+        this.terminator = terminator;
+        this.quoted = quoted;
+        this.quote = quote;
+        this.headerRequired = headerRequired;
+        this.ignoreEmptyLine = ignoreEmptyLine;
+        this.charset = charset;
+    }
+
+    /**
+     * 固定長形式か否か。
+     *
+     * @return 固定長形式の場合は{@code true}
+     */
+    boolean isFixedLength() {
+        return recordLength > 0;
+    }
+
+    /**
+     * Beanクラスのアノテーションから形式情報を構築する。
+     *
+     * @param bean Beanクラス
+     * @return 形式情報。レコード境界を判定できない形式の場合は{@code null}
+     */
+    static RecordFormat of(final Class<?> bean) {
+        final FixedLength fixedLength = bean.getAnnotation(FixedLength.class);
+        if (fixedLength != null) {
+            return fixedLength(fixedLength);
+        }
+        final Csv csv = bean.getAnnotation(Csv.class);
+        if (csv != null) {
+            return csv(csv, bean.getAnnotation(CsvFormat.class));
+        }
+        return null;
+    }
+
+    /**
+     * 固定長形式の形式情報を構築する。
+     *
+     * @param fixedLength 固定長のフォーマット定義
+     * @return 形式情報
+     */
+    private static RecordFormat fixedLength(final FixedLength fixedLength) {
+        final Charset charset = Charset.forName(fixedLength.charset());
+        final int lineSeparatorLength = fixedLength.lineSeparator().getBytes(charset).length;
+        return new RecordFormat(fixedLength.length() + lineSeparatorLength, (byte) 0, false, (byte) 0,
+                false, false, charset);
+    }
+
+    /**
+     * CSV形式の形式情報を構築する。
+     * <p/>
+     * 各CSVタイプの行区切り文字は全て{@code CRLF}のため、レコードの終端は{@code LF}となる。
+     *
+     * @param csv CSVのフォーマット定義
+     * @param format 個別のフォーマット定義
+     * @return 形式情報。レコード境界を判定できない場合は{@code null}
+     */
+    private static RecordFormat csv(final Csv csv, final CsvFormat format) {
+        switch (csv.type()) {
+            case DEFAULT:
+                return csv("\r\n", '"', true, true, "UTF-8");
+            case RFC4180:
+            case TSV:
+                return csv("\r\n", '"', false, false, "UTF-8");
+            case EXCEL:
+                return csv("\r\n", '"', false, false, "MS932");
+            default:
+                if (format == null) {
+                    return null;
+                }
+                return csv(format.lineSeparator(), format.quote(), format.requiredHeader(),
+                        format.ignoreEmptyLine(), format.charset());
+        }
+    }
+
+    /**
+     * CSV形式の形式情報を構築する。
+     *
+     * @param lineSeparator 行区切り文字
+     * @param quote 囲み文字
+     * @param headerRequired ヘッダ行があるか否か
+     * @param ignoreEmptyLine 空行を無視するか否か
+     * @param charsetName 文字コード
+     * @return 形式情報。レコード境界を判定できない場合は{@code null}
+     */
+    private static RecordFormat csv(final String lineSeparator, final char quote,
+            final boolean headerRequired, final boolean ignoreEmptyLine, final String charsetName) {
+        final Charset charset = Charset.forName(charsetName);
+        if (lineSeparator.isEmpty()) {
+            return null;
+        }
+        final byte[] terminator = lineSeparator.substring(lineSeparator.length() - 1).getBytes(charset);
+        final byte[] quoteBytes = String.valueOf(quote).getBytes(charset);
+        if (terminator.length != 1 || quoteBytes.length != 1) {
+            return null;
+        }
+        return new RecordFormat(0, terminator[0], true, quoteBytes[0], headerRequired, ignoreEmptyLine, charset);
+    }
+}
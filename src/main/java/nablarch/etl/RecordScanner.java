@@ -0,0 +1,274 @@
+package nablarch.etl;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * 入力データをJavaオブジェクトに変換することなく、レコード単位に読み進めるクラス。
+ * <p/>
+ * {@link RecordFormat}を元にレコードの境界を判定し、読み進めた位置(バイト数)を保持する。
+ * 可変長形式の場合は、囲み文字の外側にあるレコード終端のバイトをレコードの境界とする。
+ * <p/>
+ * 可変長形式では囲み文字内の改行により1レコードが複数行となるため、レコード数とは別に読み進めた物理行数を保持する。
+ * 物理行数には、囲み文字内も含めたレコード終端のバイトの数を数える。固定長形式の場合はレコード数と同じとなる。
+ */
+final class RecordScanner {
+
+    /** キャリッジリターン */
+    private static final byte CR = '\r';
+
+    /** バッファサイズ */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** 入力件数の見積もりに使用する最大レコード数 */
+    private static final int SAMPLE_RECORDS = 10000;
+
+    /** 入力件数の見積もりに使用する最大バイト数 */
+    private static final long SAMPLE_BYTES = 4L * 1024 * 1024;
+
+    /** 形式情報 */
+    private final RecordFormat format;
+
+    /** 読み込み元 */
+    private final ReadableByteChannel channel;
+
+    /** 読み込みバッファ */
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    /** 読み進めた位置 */
+    private long position;
+
+    /** 読み進めた物理行数(ヘッダ行を含まない) */
+    private long lines;
+
+    /** 読み込み元の終端に達したか否か */
+    private boolean eof;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param format 形式情報
+     * @param channel 読み込み元
+     * @param position 読み込み元の現在位置
+     */
+    RecordScanner(final RecordFormat format, final ReadableByteChannel channel, final long position) {
+        this.format = format;
+        this.channel = channel;
+        this.position = position;
+        buffer.flip();
+    }
+
+    /**
+     * 読み進めた位置を返す。
+     *
+     * @return 読み進めた位置
+     */
+    long position() {
+        return position;
+    }
+
+    /**
+     * 読み進めた物理行数を返す。
+     * <p/>
+     * ヘッダ行は物理行数に含めない。
+     *
+     * @return 読み進めた物理行数
+     */
+    long lines() {
+        return lines;
+    }
+
+    /**
+     * ヘッダ行がある形式の場合、ヘッダ行を読み飛ばす。
+     *
+     * @throws IOException 入出力例外
+     */
+    void skipHeader() throws IOException {
+        if (format.headerRequired) {
+            final long dataLines = lines;
+            skipRecord();
+            lines = dataLines;
+        }
+    }
+
+    /**
+     * 次のレコードの終端まで読み進める。
+     *
+     * @return レコードが存在した場合は{@code true}
+     * @throws IOException 入出力例外
+     */
+    boolean skipRecord() throws IOException {
+        return format.isFixedLength() ? skipFixedLengthRecord() : skipDelimitedRecord();
+    }
+
+    /**
+     * 固定長形式のレコードを読み進める。
+     *
+     * @return レコードが存在した場合は{@code true}
+     * @throws IOException 入出力例外
+     */
+    private boolean skipFixedLengthRecord() throws IOException {
+        long remaining = format.recordLength;
+        boolean found = false;
+        while (remaining > 0 && fill()) {
+            final int length = (int) Math.min(remaining, buffer.remaining());
+            consume(buffer.position() + length);
+            remaining -= length;
+            found = true;
+        }
+        if (found) {
+            lines++;
+        }
+        return found;
+    }
+
+    /**
+     * 可変長形式のレコードを読み進める。
+     *
+     * @return レコードが存在した場合は{@code true}
+     * @throws IOException 入出力例外
+     */
+    private boolean skipDelimitedRecord() throws IOException {
+        boolean inQuote = false;
+        boolean hasContent = false;
+        while (fill()) {
+            final byte[] bytes = buffer.array();
+            final int limit = buffer.limit();
+            int index = buffer.position();
+            while (index < limit) {
+                final byte b = bytes[index++];
+                if (format.quoted && b == format.quote) {
+                    inQuote = !inQuote;
+                    hasContent = true;
+                } else if (b == format.terminator) {
+                    lines++;
+                    if (!inQuote && (hasContent || !format.ignoreEmptyLine)) {
+                        consume(index);
+                        return true;
+                    }
+                } else if (b != CR) {
+                    hasContent = true;
+                }
+            }
+            consume(limit);
+        }
+        return hasContent;
+    }
+
+    /**
+     * バッファの読み込み位置を進める。
+     *
+     * @param newPosition バッファの新しい読み込み位置
+     */
+    private void consume(final int newPosition) {
+        position += newPosition - buffer.position();
+        buffer.position(newPosition);
+    }
+
+    /**
+     * バッファに未読のデータがない場合、読み込み元からデータを読み込む。
+     *
+     * @return 未読のデータがある場合は{@code true}
+     * @throws IOException 入出力例外
+     */
+    private boolean fill() throws IOException {
+        if (buffer.hasRemaining()) {
+            return true;
+        }
+        if (eof) {
+            return false;
+        }
+        buffer.clear();
+        int read;
+        do {
+            read = channel.read(buffer);
+        } while (read == 0);
+        buffer.flip();
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * ファイルのレコード数を数える。
+     * <p/>
+     * 固定長形式の場合はファイルサイズから算出し、可変長形式の場合はレコードの境界を走査して数える。
+     * ヘッダ行はレコード数に含めない。
+     *
+     * @param file ファイル
+     * @param format 形式情報
+     * @return レコード数
+     * @throws IOException 入出力例外
+     */
+    static long count(final File file, final RecordFormat format) throws IOException {
+        if (format.isFixedLength()) {
+            return (file.length() + format.recordLength - 1) / format.recordLength;
+        }
+        final FileInputStream stream = new FileInputStream(file);
+        try {
+            return count(stream.getChannel(), format);
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * 読み込み元の終端までレコードの境界を走査して、レコード数を数える。
+     * <p/>
+     * ヘッダ行はレコード数に含めない。
+     *
+     * @param channel 読み込み元
+     * @param format 形式情報
+     * @return レコード数
+     * @throws IOException 入出力例外
+     */
+    static long count(final ReadableByteChannel channel, final RecordFormat format) throws IOException {
+        final RecordScanner scanner = new RecordScanner(format, channel, 0L);
+        scanner.skipHeader();
+        long count = 0;
+        while (scanner.skipRecord()) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * ファイルのレコード数を見積もる。
+     * <p/>
+     * 可変長形式の場合は、ファイルの先頭から一定量のレコードを走査して平均レコード長を求め、
+     * ファイルサイズから見積もる。ファイル全体を走査できた場合は正確なレコード数となる。
+     * 固定長形式の場合は、{@link #count(File, RecordFormat)}と同じ結果となる。
+     *
+     * @param file ファイル
+     * @param format 形式情報
+     * @return 見積もったレコード数
+     * @throws IOException 入出力例外
+     */
+    static long estimate(final File file, final RecordFormat format) throws IOException {
+        if (format.isFixedLength()) {
+            return count(file, format);
+        }
+        final FileInputStream stream = new FileInputStream(file);
+        try {
+            final RecordScanner scanner = new RecordScanner(format, stream.getChannel(), 0L);
+            scanner.skipHeader();
+            final long dataStart = scanner.position();
+            long sampled = 0;
+            while (sampled < SAMPLE_RECORDS && scanner.position() - dataStart < SAMPLE_BYTES) {
+                if (!scanner.skipRecord()) {
+                    return sampled;
+                }
+                sampled++;
+            }
+            final long sampledBytes = scanner.position() - dataStart;
+            return Math.round((double) (file.length() - dataStart) * sampled / sampledBytes);
+        } finally {
+            stream.close();
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package nablarch.etl;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.List;
+
+import nablarch.etl.config.DbToFileStepConfig;
+
+/**
+ * レコード数またはバイト数の上限に達するごとに、出力ファイルを切り替えて書き込む{@link ChunkOutput}実装クラス。
+ * <p/>
+ * 出力ファイルの名前は、設定されたファイル名の拡張子の直前に4桁の連番を付与したものとする。
+ * (例:{@code name.csv}の場合は{@code name-0001.csv}、{@code name-0002.csv}...)
+ * 拡張子が{@code .gz}の場合は、その直前の拡張子の前に連番を付与する。(例:{@code name-0001.csv.gz})
+ * ヘッダ行がある形式の場合は、各ファイルの先頭にヘッダ行を出力する。
+ * <p/>
+ * 書き込みを終えたファイルの一覧は、設定されたファイル名に{@code .manifest}を付与したマニフェストファイルに出力する。
+ * マニフェストファイルには、1行につき「ファイル名,レコード数」の形式で出力する。
+ * マニフェストファイルはチェックポイントごとに更新するため、後続の処理は一覧に含まれるファイルから順に取り込むことができる。
+ * 書き込み中のファイルは、全てのチャンクがコミットされて正常に終了した場合のみ({@link #complete()})一覧に追加する。
+ * 異常終了した場合は一覧に追加しないため、コミットされていないデータを含むファイルが後続の処理に渡ることはない。
+ * <p/>
+ * 各ファイルは閉じる際にディスクに反映するため、一覧に追加したファイルはOSの異常終了後も内容が欠けることはない。
+ * 圧縮形式の場合は閉じる際に終端のデータが書き込まれるため、終端のデータもあわせて反映する。
+ */
+final class RollingFileChunkOutput implements ChunkOutput {
+
+    /** マニフェストファイルの拡張子 */
+    static final String MANIFEST_SUFFIX = ".manifest";
+
+    /** 出力ファイルのベースパス */
+    private final File basePath;
+
+    /** ステップの設定 */
+    private final DbToFileStepConfig config;
+
+    /** 出力ファイルの形式情報 */
+    private final RecordFormat format;
+
+    /** 各ファイルの先頭に書き込むヘッダ行 */
+    private final byte[] header;
+
+    /** 書き込みを終えたファイルごとのレコード数 */
+    private final List<Long> completedFileCounts = new ArrayList<Long>();
+
+    /** 書き込み中のファイルのストリーム */
+    private FileOutputStream fileStream;
+
+    /** 書き込み中のファイルの出力先 */
+    private OutputStream out;
+
+    /** 書き込み中のファイルの連番 */
+    private int fileIndex;
+
+    /** 書き込み中のファイルのレコード数 */
+    private long fileRecordCount;
+
+    /** 書き込み中のファイルのバイト数(圧縮前) */
+    private long fileByteCount;
+
+    /** マニフェストファイルに出力済みのファイル数 */
+    private int manifestFileCount;
+
+    /**
+     * コンストラクタ。
+     * <p/>
+     * チェックポイント情報がある場合は、書き込み中だったファイルをチェックポイント時点のサイズに切り詰めて追記する。
+     * 以前の実行で出力された後続の連番のファイルは削除する。
+     *
+     * @param basePath 出力ファイルのベースパス
+     * @param config ステップの設定
+     * @param format 出力ファイルの形式情報
+     * @param header 各ファイルの先頭に書き込むヘッダ行
+     * @param restartPoint チェックポイント情報(最初から書き込む場合は{@code null})
+     * @throws IOException 入出力例外
+     */
+    RollingFileChunkOutput(final File basePath, final DbToFileStepConfig config, final RecordFormat format,
+            final byte[] header, final FileWriteCheckpoint restartPoint) throws IOException {
+        this.basePath = basePath;
+        this.config = config;
+        this.format = format;
+        this.header = header;
+        if (restartPoint == null) {
+            openFile(1);
+        } else {
+            long completedRecords = 0;
+            for (long count : restartPoint.getCompletedFileCounts()) {
+                completedFileCounts.add(count);
+                completedRecords += count;
+            }
+            fileIndex = completedFileCounts.size() + 1;
+            fileStream = new FileOutputStream(partFile(basePath, config.getFileName(), fileIndex), true);
+            fileStream.getChannel().truncate(restartPoint.getLength());
+            out = FileItemWriter.createOutputStream(config, new ForceOnCloseOutputStream(fileStream));
+            fileRecordCount = restartPoint.getRecordCount() - completedRecords;
+            fileByteCount = restartPoint.getLength();
+        }
+        deleteStaleFiles();
+        writeManifest(completedFileCounts);
+    }
+
+    /**
+     * 連番を付与した出力ファイルを返す。
+     *
+     * @param basePath 出力ファイルのベースパス
+     * @param fileName 設定されたファイル名
+     * @param index 連番
+     * @return 出力ファイル
+     */
+    static File partFile(final File basePath, final String fileName, final int index) {
+        return new File(basePath, partFileName(fileName, index));
+    }
+
+    /**
+     * 設定されたファイル名に連番を付与する。
+     *
+     * @param fileName 設定されたファイル名
+     * @param index 連番
+     * @return 連番を付与したファイル名
+     */
+    private static String partFileName(final String fileName, final int index) {
+        final String compressionSuffix = fileName.toLowerCase().endsWith(".gz")
+                ? fileName.substring(fileName.length() - 3) : "";
+        final String name = fileName.substring(0, fileName.length() - compressionSuffix.length());
+        final int separator = Math.max(name.lastIndexOf('/'), name.lastIndexOf(File.separatorChar));
+        final int dot = name.lastIndexOf('.');
+        final int insertAt = dot > separator + 1 ? dot : name.length();
+        return name.substring(0, insertAt) + String.format("-%04d", index) + name.substring(insertAt)
+                + compressionSuffix;
+    }
+
+    @Override
+    public void write(final byte[] data, final int offset, final int length) throws IOException {
+        final RecordScanner scanner = new RecordScanner(format,
+                Channels.newChannel(new ByteArrayInputStream(data, offset, length)), 0L);
+        int runStart = offset;
+        int recordStart = offset;
+        long runRecords = 0;
+        while (scanner.skipRecord()) {
+            final int recordEnd = offset + (int) scanner.position();
+            if (fileRecordCount + runRecords > 0
+                    && exceedsLimit(fileRecordCount + runRecords + 1, fileByteCount + recordEnd - runStart)) {
+                writeRun(data, runStart, recordStart, runRecords);
+                rollFile();
+                runStart = recordStart;
+                runRecords = 0;
+            }
+            runRecords++;
+            recordStart = recordEnd;
+        }
+        writeRun(data, runStart, offset + length, runRecords);
+    }
+
+    /**
+     * 書き込み中のファイルの上限を超えるか否かを判定する。
+     *
+     * @param records 書き込み後のレコード数
+     * @param bytes 書き込み後のバイト数
+     * @return 上限を超える場合は{@code true}
+     */
+    private boolean exceedsLimit(final long records, final long bytes) {
+        return (config.getMaxRecordsPerFile() > 0 && records > config.getMaxRecordsPerFile())
+                || (config.getMaxBytesPerFile() > 0 && bytes > config.getMaxBytesPerFile());
+    }
+
+    /**
+     * 連続するレコードをまとめて書き込み中のファイルに書き込む。
+     *
+     * @param data データ
+     * @param start 書き込むデータの開始位置
+     * @param end 書き込むデータの終了位置(この位置は含まない)
+     * @param records 書き込むレコード数
+     * @throws IOException 入出力例外
+     */
+    private void writeRun(final byte[] data, final int start, final int end, final long records)
+            throws IOException {
+        if (end > start) {
+            out.write(data, start, end - start);
+        }
+        fileRecordCount += records;
+        fileByteCount += end - start;
+    }
+
+    /**
+     * 書き込み中のファイルを閉じ、次の連番のファイルを開く。
+     * <p/>
+     * 閉じたファイルはディスクに反映済みのため、次の{@link #sync()}でマニフェストファイルに追加する。
+     *
+     * @throws IOException 入出力例外
+     */
+    private void rollFile() throws IOException {
+        out.close();
+        out = null;
+        completedFileCounts.add(fileRecordCount);
+        openFile(fileIndex + 1);
+    }
+
+    /**
+     * 指定された連番のファイルを新規に開き、ヘッダ行を書き込む。
+     *
+     * @param index 連番
+     * @throws IOException 入出力例外
+     */
+    private void openFile(final int index) throws IOException {
+        fileIndex = index;
+        fileStream = new FileOutputStream(partFile(basePath, config.getFileName(), index));
+        out = FileItemWriter.createOutputStream(config, new ForceOnCloseOutputStream(fileStream));
+        out.write(header);
+        fileRecordCount = 0;
+        fileByteCount = header.length;
+    }
+
+    /**
+     * 以前の実行で出力された、書き込み中のファイルより後の連番のファイルを削除する。
+     *
+     * @throws IOException 入出力例外
+     */
+    private void deleteStaleFiles() throws IOException {
+        int index = fileIndex + 1;
+        File stale = partFile(basePath, config.getFileName(), index);
+        while (stale.isFile()) {
+            if (!stale.delete()) {
+                throw new IOException("failed to delete stale output file. file = [" + stale.getAbsolutePath() + ']');
+            }
+            stale = partFile(basePath, config.getFileName(), ++index);
+        }
+    }
+
+    /**
+     * マニフェストファイルを出力する。
+     * <p/>
+     * 一時ファイルに出力してから置き換えるため、後続の処理が書き込み途中の内容を読み込むことはない。
+     *
+     * @param fileCounts ファイルごとのレコード数
+     * @throws IOException 入出力例外
+     */
+    private void writeManifest(final List<Long> fileCounts) throws IOException {
+        final File manifest = new File(basePath, config.getFileName() + MANIFEST_SUFFIX);
+        final File temporary = new File(basePath, config.getFileName() + MANIFEST_SUFFIX + ".tmp");
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(temporary), "UTF-8");
+        try {
+            for (int i = 0; i < fileCounts.size(); i++) {
+                writer.write(partFile(basePath, config.getFileName(), i + 1).getName());
+                writer.write(',' + String.valueOf(fileCounts.get(i)) + '\n');
+            }
+        } finally {
+            writer.close();
+        }
+        if (manifest.exists() && !manifest.delete()) {
+            throw new IOException("failed to replace manifest file. file = [" + manifest.getAbsolutePath() + ']');
+        }
+        if (!temporary.renameTo(manifest)) {
+            throw new IOException("failed to replace manifest file. file = [" + manifest.getAbsolutePath() + ']');
+        }
+        manifestFileCount = fileCounts.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * 前回のチェックポイント以降に書き込みを終えたファイルがある場合は、マニフェストファイルを更新する。
+     */
+    @Override
+    public void sync() throws IOException {
+        out.flush();
+        fileStream.getChannel().force(false);
+        if (completedFileCounts.size() > manifestFileCount) {
+            writeManifest(completedFileCounts);
+        }
+    }
+
+    @Override
+    public FileWriteCheckpoint checkpoint(final long recordCount) throws IOException {
+        final long[] counts = new long[completedFileCounts.size()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = completedFileCounts.get(i);
+        }
+        return new FileWriteCheckpoint(fileStream.getChannel().position(), recordCount, counts);
+    }
+
+    /**
+     * 書き込み中のファイルを閉じ、ディスクに反映する。
+     * <p/>
+     * 書き込み中のファイルはマニフェストファイルに追加しない。
+     */
+    @Override
+    public void close() throws IOException {
+        if (out == null) {
+            return;
+        }
+        out.close();
+        out = null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * 書き込み中だったファイルをマニフェストファイルに追加する。
+     */
+    @Override
+    public void complete() throws IOException {
+        final List<Long> fileCounts = new ArrayList<Long>(completedFileCounts);
+        fileCounts.add(fileRecordCount);
+        writeManifest(fileCounts);
+    }
+
+    /**
+     * 閉じる際に、ファイルの内容をメタデータを含めてディスクに反映する出力ストリーム。
+     */
+    private static final class ForceOnCloseOutputStream extends FilterOutputStream {
+
+        /** 出力ファイルのストリーム */
+        private final FileOutputStream fileStream;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param fileStream 出力ファイルのストリーム
+         */
+        ForceOnCloseOutputStream(final FileOutputStream fileStream) {
+            super(fileStream);
+            this.fileStream = fileStream;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            fileStream.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                fileStream.getChannel().force(true);
+            } finally {
+                fileStream.close();
+            }
+        }
+    }
+}
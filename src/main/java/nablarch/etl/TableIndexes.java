@@ -0,0 +1,329 @@
+package nablarch.etl;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import nablarch.common.dao.DatabaseUtil;
+import nablarch.common.dao.EntityUtil;
+import nablarch.core.db.connection.DbConnectionContext;
+import nablarch.etl.generator.TableSwapSqlGenerator;
+
+/**
+ * テーブルが持つ主キーとインデックスの定義を保持するクラス。
+ * <p/>
+ * 定義はデータベースのメタデータから取得する。
+ * 主キー制約によって作成されたインデックスは、主キーとして扱いインデックスには含めない。
+ * カラムの並び順(降順)はインデックスの定義に含める。
+ * <p/>
+ * メタデータから同じ定義で再作成できない以下のインデックスは、インデックスには含めず再作成できないインデックスとして保持する。
+ * <ul>
+ * <li>条件付きのインデックス(メタデータがフィルタ条件を返すもの)</li>
+ * <li>ハッシュインデックス</li>
+ * <li>式に対するインデックスなど、テーブルのカラム以外を含むインデックス
+ * (Oracleの関数ベースのインデックスが参照する{@code SYS_NC}で始まる隠しカラムを含む)</li>
+ * </ul>
+ */
+final class TableIndexes {
+
+    /** 主キーの制約名(主キーがない場合は{@code null}) */
+    private final String primaryKeyName;
+
+    /** 主キーのカラム名 */
+    private final List<String> primaryKeyColumns;
+
+    /** インデックス */
+    private final List<Index> indexes;
+
+    /** 再作成できないインデックスの名前 */
+    private final List<String> unsupportedIndexNames;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param primaryKeyName 主キーの制約名
+     * @param primaryKeyColumns 主キーのカラム名
+     * @param indexes インデックス
+     * @param unsupportedIndexNames 再作成できないインデックスの名前
+     */
+    private TableIndexes(final String primaryKeyName, final List<String> primaryKeyColumns,
+            final List<Index> indexes, final List<String> unsupportedIndexNames) {
+        this.primaryKeyName = primaryKeyName;
+        this.primaryKeyColumns = primaryKeyColumns;
+        this.indexes = indexes;
+        this.unsupportedIndexNames = unsupportedIndexNames;
+    }
+
+    /**
+     * テーブルが持つ主キーとインデックスの定義を取得する。
+     *
+     * @param entity テーブルのエンティティクラス
+     * @return 主キーとインデックスの定義
+     * @throws RuntimeException データベース関連の例外が発生した場合
+     */
+    static TableIndexes find(final Class<?> entity) {
+        final String schemaName = EntityUtil.getSchemaName(entity);
+        final String schema = schemaName == null ? null : DatabaseUtil.convertIdentifiers(schemaName);
+        final String convertedTableName = DatabaseUtil.convertIdentifiers(EntityUtil.getTableName(entity));
+        try {
+            final DatabaseMetaData metaData = DbConnectionContext.getTransactionManagerConnection()
+                                                                 .getConnection()
+                                                                 .getMetaData();
+            final Map<Integer, String> primaryKeyColumns = new TreeMap<Integer, String>();
+            String primaryKeyName = null;
+            final ResultSet primaryKeys = metaData.getPrimaryKeys(null, schema, convertedTableName);
+            try {
+                while (primaryKeys.next()) {
+                    primaryKeyName = primaryKeys.getString("PK_NAME");
+                    primaryKeyColumns.put(primaryKeys.getInt("KEY_SEQ"), primaryKeys.getString("COLUMN_NAME"));
+                }
+            } finally {
+                primaryKeys.close();
+            }
+            final List<String> pkColumns = new ArrayList<String>(primaryKeyColumns.values());
+            final List<Index> indexes = findIndexes(metaData, schema, convertedTableName, pkColumns);
+            final List<Index> supported = new ArrayList<Index>();
+            final List<String> unsupportedIndexNames = new ArrayList<String>();
+            for (Index index : indexes) {
+                if (index.supported) {
+                    supported.add(index);
+                } else {
+                    unsupportedIndexNames.add(index.name);
+                }
+            }
+            return new TableIndexes(primaryKeyName, pkColumns, supported, unsupportedIndexNames);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 主キー制約によって作成されたインデックスを除いたインデックスの定義を取得する。
+     *
+     * @param metaData {@link DatabaseMetaData}
+     * @param schema スキーマ名(指定しない場合は{@code null})
+     * @param tableName テーブル名
+     * @param primaryKeyColumns 主キーのカラム名
+     * @return インデックスの定義
+     * @throws SQLException データベース関連の例外
+     */
+    private static List<Index> findIndexes(final DatabaseMetaData metaData, final String schema,
+            final String tableName, final List<String> primaryKeyColumns) throws SQLException {
+        final Set<String> tableColumns = findColumnNames(metaData, schema, tableName);
+        final Map<String, Index> indexes = new LinkedHashMap<String, Index>();
+        final ResultSet rs = metaData.getIndexInfo(null, schema, tableName, false, false);
+        try {
+            while (rs.next()) {
+                final String name = rs.getString("INDEX_NAME");
+                final short type = rs.getShort("TYPE");
+                if (type == DatabaseMetaData.tableIndexStatistic || name == null) {
+                    continue;
+                }
+                Index index = indexes.get(name);
+                if (index == null) {
+                    index = new Index(name, !rs.getBoolean("NON_UNIQUE"));
+                    indexes.put(name, index);
+                }
+                final String column = rs.getString("COLUMN_NAME");
+                final String filterCondition = rs.getString("FILTER_CONDITION");
+                if (type == DatabaseMetaData.tableIndexHashed
+                        || (filterCondition != null && filterCondition.trim().length() > 0)
+                        || column == null || !tableColumns.contains(column.toUpperCase())) {
+                    index.supported = false;
+                    continue;
+                }
+                index.columns.put((int) rs.getShort("ORDINAL_POSITION"),
+                        "D".equalsIgnoreCase(rs.getString("ASC_OR_DESC")) ? column + " desc" : column);
+            }
+        } finally {
+            rs.close();
+        }
+        final List<Index> result = new ArrayList<Index>();
+        for (Index index : indexes.values()) {
+            if (index.unique && primaryKeyColumns.equals(index.getColumns())) {
+                continue;
+            }
+            result.add(index);
+        }
+        return result;
+    }
+
+    /**
+     * テーブルのカラム名を大文字に変換して取得する。
+     *
+     * @param metaData {@link DatabaseMetaData}
+     * @param schema スキーマ名(指定しない場合は{@code null})
+     * @param tableName テーブル名
+     * @return カラム名
+     * @throws SQLException データベース関連の例外
+     */
+    private static Set<String> findColumnNames(final DatabaseMetaData metaData, final String schema,
+            final String tableName) throws SQLException {
+        final Set<String> columnNames = new HashSet<String>();
+        final ResultSet rs = metaData.getColumns(null, schema, tableName, null);
+        try {
+            while (rs.next()) {
+                columnNames.add(rs.getString("COLUMN_NAME").toUpperCase());
+            }
+        } finally {
+            rs.close();
+        }
+        return columnNames;
+    }
+
+    /**
+     * 主キーと一意インデックスを除いたインデックスのみを保持する{@link TableIndexes}を返す。
+     * <p/>
+     * 一意インデックスは一意制約によって作成されている場合があり、データの整合性を保証するため対象外とする。
+     * 再作成できないインデックスも対象外とする。
+     *
+     * @return 一意でないインデックスのみを保持する{@link TableIndexes}
+     */
+    TableIndexes nonUniqueIndexes() {
+        final List<Index> nonUnique = new ArrayList<Index>();
+        for (Index index : indexes) {
+            if (!index.unique) {
+                nonUnique.add(index);
+            }
+        }
+        return new TableIndexes(null, Collections.<String>emptyList(), nonUnique, Collections.<String>emptyList());
+    }
+
+    /**
+     * 主キーの制約名とインデックス名をシャドウテーブル用の名前に変更した{@link TableIndexes}を返す。
+     * <p/>
+     * 制約名とインデックス名はスキーマ内で一意である必要があるデータベース製品があるため、
+     * 名前の末尾が{@value TableSwapSqlGenerator#SHADOW_SUFFIX}の場合は除去し、それ以外の場合は付与する。
+     *
+     * @return 名前を変更した{@link TableIndexes}
+     */
+    TableIndexes toShadowNames() {
+        final List<Index> renamed = new ArrayList<Index>();
+        for (Index index : indexes) {
+            final Index shadow = new Index(toShadowName(index.name), index.unique);
+            shadow.columns.putAll(index.columns);
+            renamed.add(shadow);
+        }
+        return new TableIndexes(primaryKeyName == null ? null : toShadowName(primaryKeyName), primaryKeyColumns,
+                renamed, unsupportedIndexNames);
+    }
+
+    /**
+     * 名前の末尾の{@value TableSwapSqlGenerator#SHADOW_SUFFIX}を付与または除去する。
+     *
+     * @param name 名前
+     * @return 変更後の名前
+     */
+    private static String toShadowName(final String name) {
+        final String suffix = TableSwapSqlGenerator.SHADOW_SUFFIX;
+        if (name.length() > suffix.length() && name.toUpperCase().endsWith(suffix)) {
+            return name.substring(0, name.length() - suffix.length());
+        }
+        return name + suffix;
+    }
+
+    /**
+     * インデックス名を取得する。
+     *
+     * @return インデックス名
+     */
+    List<String> getIndexNames() {
+        final List<String> names = new ArrayList<String>();
+        for (Index index : indexes) {
+            names.add(index.name);
+        }
+        return names;
+    }
+
+    /**
+     * 再作成できないインデックスの名前を取得する。
+     *
+     * @return 再作成できないインデックスの名前
+     */
+    List<String> getUnsupportedIndexNames() {
+        return unsupportedIndexNames;
+    }
+
+    /**
+     * 主キーとインデックスを作成するSQL文を生成する。
+     *
+     * @param tableName テーブル名(スキーマ名を含む)
+     * @return 主キーとインデックスを作成するSQL文(主キーを先頭とする)
+     */
+    List<String> generateCreateSql(final String tableName) {
+        final List<String> sql = new ArrayList<String>();
+        if (!primaryKeyColumns.isEmpty()) {
+            final String constraint = primaryKeyName == null ? "" : "constraint " + primaryKeyName + ' ';
+            sql.add("alter table " + tableName + " add " + constraint
+                    + "primary key (" + join(primaryKeyColumns) + ')');
+        }
+        for (Index index : indexes) {
+            sql.add("create " + (index.unique ? "unique " : "") + "index " + index.name
+                    + " on " + tableName + " (" + join(index.getColumns()) + ')');
+        }
+        return sql;
+    }
+
+    /**
+     * カラム名をカンマ区切りで連結する。
+     *
+     * @param columns カラム名
+     * @return 連結したカラム名
+     */
+    private static String join(final List<String> columns) {
+        final StringBuilder sb = new StringBuilder();
+        for (String column : columns) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(column);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * インデックスの定義。
+     */
+    private static final class Index {
+
+        /** インデックス名 */
+        private final String name;
+
+        /** 一意インデックスか否か */
+        private final boolean unique;
+
+        /** カラムの位置とカラム名(降順の場合は{@code desc}を付与したもの) */
+        private final Map<Integer, String> columns = new TreeMap<Integer, String>();
+
+        /** メタデータから再作成できるか否か */
+        private boolean supported = true;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param name インデックス名
+         * @param unique 一意インデックスか否か
+         */
+        private Index(final String name, final boolean unique) {
+            this.name = name;
+            this.unique = unique;
+        }
+
+        /**
+         * インデックスのカラム名を位置順に取得する。
+         *
+         * @return カラム名
+         */
+        private List<String> getColumns() {
+            return new ArrayList<String>(columns.values());
+        }
+    }
+}
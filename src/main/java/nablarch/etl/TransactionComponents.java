@@ -0,0 +1,99 @@
+package nablarch.etl;
+
+import nablarch.core.db.connection.ConnectionFactory;
+import nablarch.core.db.transaction.SimpleDbTransactionManager;
+import nablarch.core.repository.SystemRepository;
+import nablarch.core.transaction.TransactionFactory;
+import nablarch.core.util.StringUtil;
+
+/**
+ * ステップのトランザクションとは別に、個別のコネクションとトランザクションを使用するためのコンポーネントを保持するクラス。
+ * <p/>
+ * {@link ConnectionFactory}と{@link TransactionFactory}は、バッチプロパティで指定された名前でリポジトリから取得する。
+ * 名前が指定されていない場合は、以下の名前で取得する。
+ * <ul>
+ * <li>{@value #DEFAULT_CONNECTION_FACTORY_NAME}:{@link ConnectionFactory}</li>
+ * <li>{@value #DEFAULT_TRANSACTION_FACTORY_NAME}:{@link TransactionFactory}</li>
+ * </ul>
+ * コンポーネントは生成時に取得するため、リポジトリに登録されていない場合は、
+ * 別スレッドでの処理を開始する前に{@link InvalidEtlConfigException}を送出する。
+ */
+final class TransactionComponents {
+
+    /** {@link ConnectionFactory}のデフォルトのコンポーネント名 */
+    static final String DEFAULT_CONNECTION_FACTORY_NAME = "connectionFactory";
+
+    /** {@link TransactionFactory}のデフォルトのコンポーネント名 */
+    static final String DEFAULT_TRANSACTION_FACTORY_NAME = "jdbcTransactionFactory";
+
+    /** {@link ConnectionFactory} */
+    private final ConnectionFactory connectionFactory;
+
+    /** {@link TransactionFactory} */
+    private final TransactionFactory transactionFactory;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param connectionFactory {@link ConnectionFactory}
+     * @param transactionFactory {@link TransactionFactory}
+     */
+    private TransactionComponents(final ConnectionFactory connectionFactory,
+            final TransactionFactory transactionFactory) {
+        this.connectionFactory = connectionFactory;
+        this.transactionFactory = transactionFactory;
+    }
+
+    /**
+     * リポジトリからコンポーネントを取得する。
+     *
+     * @param jobId ジョブID
+     * @param stepId ステップID
+     * @param connectionFactoryName {@link ConnectionFactory}のコンポーネント名({@code null}の場合はデフォルト)
+     * @param transactionFactoryName {@link TransactionFactory}のコンポーネント名({@code null}の場合はデフォルト)
+     * @return コンポーネント
+     */
+    static TransactionComponents lookup(final String jobId, final String stepId,
+            final String connectionFactoryName, final String transactionFactoryName) {
+        final ConnectionFactory connectionFactory = SystemRepository.get(
+                resolveName(connectionFactoryName, DEFAULT_CONNECTION_FACTORY_NAME));
+        if (connectionFactory == null) {
+            throw new InvalidEtlConfigException(String.format(
+                    "ConnectionFactory was not found in the repository. jobId = [%s], stepId = [%s], name = [%s]",
+                    jobId, stepId, resolveName(connectionFactoryName, DEFAULT_CONNECTION_FACTORY_NAME)));
+        }
+        final TransactionFactory transactionFactory = SystemRepository.get(
+                resolveName(transactionFactoryName, DEFAULT_TRANSACTION_FACTORY_NAME));
+        if (transactionFactory == null) {
+            throw new InvalidEtlConfigException(String.format(
+                    "TransactionFactory was not found in the repository. jobId = [%s], stepId = [%s], name = [%s]",
+                    jobId, stepId, resolveName(transactionFactoryName, DEFAULT_TRANSACTION_FACTORY_NAME)));
+        }
+        return new TransactionComponents(connectionFactory, transactionFactory);
+    }
+
+    /**
+     * コンポーネント名を解決する。
+     *
+     * @param name 指定されたコンポーネント名
+     * @param defaultName デフォルトのコンポーネント名
+     * @return コンポーネント名
+     */
+    private static String resolveName(final String name, final String defaultName) {
+        return StringUtil.isNullOrEmpty(name) ? defaultName : name;
+    }
+
+    /**
+     * 指定された名前でトランザクションを管理する{@link SimpleDbTransactionManager}を生成する。
+     *
+     * @param transactionName トランザクション名
+     * @return {@link SimpleDbTransactionManager}
+     */
+    SimpleDbTransactionManager createTransactionManager(final String transactionName) {
+        final SimpleDbTransactionManager transaction = new SimpleDbTransactionManager();
+        transaction.setConnectionFactory(connectionFactory);
+        transaction.setTransactionFactory(transactionFactory);
+        transaction.setDbTransactionName(transactionName);
+        return transaction;
+    }
+}
@@ -3,6 +3,7 @@ package nablarch.etl;
 import static nablarch.etl.EtlUtil.verifyRequired;
 
 import java.text.MessageFormat;
+import java.util.Iterator;
 import java.util.Set;
 
 import javax.batch.api.AbstractBatchlet;
@@ -18,7 +19,6 @@ import javax.validation.Validator;
 import nablarch.common.dao.DeferredEntityList;
 import nablarch.common.dao.EntityUtil;
 import nablarch.common.dao.UniversalDao;
-import nablarch.core.beans.BeanUtil;
 import nablarch.core.db.connection.AppDbConnection;
 import nablarch.core.db.connection.DbConnectionContext;
 import nablarch.core.db.connection.TransactionManagerConnection;
@@ -45,7 +45,10 @@ import nablarch.fw.batch.ee.progress.ProgressManager;
  * <p/>
  * 一時テーブルのデータを全レコード取得し、{@link ValidationStepConfig#getBean()}のバリデーションルールに従いバリデーションを実施する。
  * エラーが発生した場合には、そのレコードを退避テーブル(エラーテーブル)({@link ValidationStepConfig#getErrorEntity}に対応するテーブル)に移動する。
+ * エラーテーブルへの登録は、{@link ValidationStepConfig#getErrorInsertBatchSize()}の件数ごとにまとめて行う。
  * また、エラーの詳細はワーニングレベルでログ出力を行う。
+ * {@link ValidationStepConfig#getErrorLogSampleSize()}が設定されている場合は、その数までのエラーのみ詳細をログ出力し、
+ * エラー件数をプロパティ名とメッセージテンプレートごとに集計して進捗ログの出力時と処理の終了時に進捗ログに出力する。
  * <p/>
  * エラー発生時にジョブを継続するか否かのモード指定によって切り替えることができる。
  * {@link ValidationStepConfig#getMode()}が{@link Mode#CONTINUE}の場合には処理を継続し、
@@ -54,6 +57,11 @@ import nablarch.fw.batch.ee.progress.ProgressManager;
  * 許容するエラー数が設定でき、その数を超えた場合には即ジョブをアボートする。
  * 許容するエラー数の設定は、{@link ValidationStepConfig#getErrorLimit()}より取得する。
  * この値が設定されていない場合やマイナス値の場合は、この機能は無効化される。
+ * <p/>
+ * {@link ValidationStepConfig#getValidationThreads()}に2以上が設定された場合は、
+ * 一時テーブルの読み込みとエラーの記録をこのスレッドで行い、バリデーションのみを複数のスレッドで並列に実行する。
+ * エラーの記録はレコードを読み込んだ順序で行うため、エラーの出力順序と許容するエラー数の判定結果は
+ * 並列に実行しない場合と同じとなる。
  *
  * @author Hisaaki Shioiri
  */
@@ -111,40 +119,58 @@ public class ValidationBatchlet extends AbstractBatchlet {
         truncateErrorTable(errorTable);
 
         final ValidationResult validationResult = new ValidationResult();
+        final ErrorRecordWriter errorRecordWriter =
+                new ErrorRecordWriter(inputTable, errorTable, stepConfig.getErrorInsertBatchSize());
+        final ValidationErrorReporter errorReporter = new ValidationErrorReporter(
+                jobContext.getJobName(), stepContext.getStepName(), stepConfig.getErrorLogSampleSize());
         final Validator validator = ValidatorUtil.getValidator();
 
         final long logInterval = getLogInterval();
 
         // 一時テーブルのデータを全て取得しValidationを行う。
-        final DeferredEntityList<?> workItems = (DeferredEntityList<?>) UniversalDao.defer().findAll(inputTable);
+        final EntityCursor cursor = openCursor(inputTable);
+        final DeferredEntityList<?> workItems =
+                cursor == null ? (DeferredEntityList<?>) UniversalDao.defer().findAll(inputTable) : null;
+        final Iterator<?> items = cursor == null ? workItems.iterator() : cursor;
         progressManager.setInputCount(getRecordCountInInputTable());
 
-        for (Object item : workItems) {
-            validationResult.incrementCount();
-
-            final WorkItem workItem = (WorkItem) item;
-            final Set<ConstraintViolation<WorkItem>> constraintViolations = validator.validate(workItem);
-
-            if (validationResult.getLineCount() % logInterval == 0L) {
-                progressManager.outputProgressInfo(validationResult.getLineCount());
-            }
-
-            if (constraintViolations.isEmpty()) {
-                continue;
+        if (stepConfig.getValidationThreads() > 1) {
+            final ParallelValidator parallelValidator = new ParallelValidator(
+                    validator, stepConfig.getValidationThreads(), new ParallelValidator.Sink() {
+                        @Override
+                        public void accept(final WorkItem item,
+                                final Set<ConstraintViolation<WorkItem>> constraintViolations) {
+                            onValidated(item, constraintViolations, validationResult, errorRecordWriter,
+                                    errorReporter, logInterval);
+                        }
+                    });
+            try {
+                while (items.hasNext()) {
+                    parallelValidator.validate((WorkItem) items.next());
+                }
+                parallelValidator.complete();
+            } finally {
+                parallelValidator.close();
             }
-
-            validationResult.addErrorCount(constraintViolations.size());
-            onError(workItem, constraintViolations, errorTable);
-            if (isOverLimit(stepConfig, validationResult)) {
-                throw new EtlJobAbortedException("number of validation errors has exceeded the maximum number of errors."
-                        + " bean class=[" + inputTable.getName() + ']');
+        } else {
+            while (items.hasNext()) {
+                final WorkItem workItem = (WorkItem) items.next();
+                onValidated(workItem, validator.validate(workItem), validationResult, errorRecordWriter,
+                        errorReporter, logInterval);
             }
         }
-        
+
+        errorRecordWriter.flush();
+        errorReporter.writeSummary();
+
         if (validationResult.getLineCount() % logInterval != 0L) {
             progressManager.outputProgressInfo(validationResult.getLineCount());
         }
-        workItems.close();
+        if (cursor == null) {
+            workItems.close();
+        } else {
+            cursor.close();
+        }
 
         deleteErrorRecord(inputTable, errorTable);
 
@@ -183,6 +209,22 @@ public class ValidationBatchlet extends AbstractBatchlet {
         commit();
     }
 
+    /**
+     * フェッチサイズが設定されている場合に、フェッチサイズを指定して一時テーブルのデータを取得するイテレータを生成する。
+     *
+     * @param inputTable 一時テーブル
+     * @return イテレータ。フェッチサイズが設定されていない場合は{@code null}
+     */
+    private EntityCursor openCursor(final Class<?> inputTable) {
+        if (stepConfig.getFetchSize() <= 0) {
+            return null;
+        }
+        final AppDbConnection connection = DbConnectionContext.getConnection();
+        return new EntityCursor(inputTable,
+                connection.prepareStatement("select * from " + EntityUtil.getTableNameWithSchema(inputTable)),
+                stepConfig.getFetchSize());
+    }
+
     /**
      * 入力テーブルのレコード数を取得する。
      * @return レコード数
@@ -235,6 +277,17 @@ public class ValidationBatchlet extends AbstractBatchlet {
         verifyRequired(jobName, stepName, "bean", stepConfig.getBean());
         verifyRequired(jobName, stepName, "errorEntity", stepConfig.getErrorEntity());
         verifyRequired(jobName, stepName, "mode", stepConfig.getMode());
+
+        if (stepConfig.getValidationThreads() < 1) {
+            throw new InvalidEtlConfigException(String.format(
+                    "validationThreads must be greater than 0. jobId = [%s], stepId = [%s], size = [%s]",
+                    jobName, stepName, stepConfig.getValidationThreads()));
+        }
+        if (stepConfig.getErrorInsertBatchSize() < 1) {
+            throw new InvalidEtlConfigException(String.format(
+                    "errorInsertBatchSize must be greater than 0. jobId = [%s], stepId = [%s], size = [%s]",
+                    jobName, stepName, stepConfig.getErrorInsertBatchSize()));
+        }
     }
 
     /**
@@ -263,33 +316,62 @@ public class ValidationBatchlet extends AbstractBatchlet {
     }
 
 
+    /**
+     * 1レコードのValidation結果を記録する。
+     * <p/>
+     * 進捗状況の出力を行い、エラーがある場合はエラーテーブルへの登録とエラーの許容数の判定を行う。
+     *
+     * @param workItem Validationを行ったアイテム
+     * @param constraintViolations Validationのエラー内容
+     * @param validationResult バリデーション結果
+     * @param errorRecordWriter エラーレコードの登録先
+     * @param errorReporter エラーの出力先
+     * @param logInterval 進捗ログの出力間隔
+     */
+    private void onValidated(
+            final WorkItem workItem,
+            final Set<ConstraintViolation<WorkItem>> constraintViolations,
+            final ValidationResult validationResult,
+            final ErrorRecordWriter errorRecordWriter,
+            final ValidationErrorReporter errorReporter,
+            final long logInterval) {
+
+        validationResult.incrementCount();
+        if (validationResult.getLineCount() % logInterval == 0L) {
+            progressManager.outputProgressInfo(validationResult.getLineCount());
+            errorReporter.writeSummary();
+        }
+
+        if (constraintViolations.isEmpty()) {
+            return;
+        }
+
+        validationResult.addErrorCount(constraintViolations.size());
+        onError(workItem, constraintViolations, errorRecordWriter, errorReporter);
+        if (isOverLimit(stepConfig, validationResult)) {
+            errorRecordWriter.flush();
+            errorReporter.writeSummary();
+            throw new EtlJobAbortedException("number of validation errors has exceeded the maximum number of errors."
+                    + " bean class=[" + stepConfig.getBean().getName() + ']');
+        }
+    }
+
     /**
      * Validationエラー時の処理を行う。
      *
      * @param item Validationエラーが発生したアイテム
      * @param constraintViolations Validationのエラー内容
-     * @param errorTable エラーテーブルのエンティティクラス
+     * @param errorRecordWriter エラーレコードの登録先
+     * @param errorReporter エラーの出力先
      */
     private static void onError(
             final WorkItem item,
             final Set<ConstraintViolation<WorkItem>> constraintViolations,
-            final Class<?> errorTable) {
-
-        for (ConstraintViolation<WorkItem> violation : constraintViolations) {
-            LOGGER.logWarn(MessageFormat.format(
-                            "validation error has occurred. bean class=[{0}], property name=[{1}], error message=[{2}], line number=[{3}]",
-                            item.getClass()
-                                    .getName(),
-                            violation.getPropertyPath()
-                                    .toString(),
-                            violation.getMessage(),
-                            item.getLineNumber()
-                    )
-            );
-
-        }
+            final ErrorRecordWriter errorRecordWriter,
+            final ValidationErrorReporter errorReporter) {
 
-        UniversalDao.insert(BeanUtil.createAndCopy(errorTable, item));
+        errorReporter.report(item, constraintViolations);
+        errorRecordWriter.add(item);
     }
 
     /**
@@ -0,0 +1,157 @@
+package nablarch.etl;
+
+import java.text.MessageFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.validation.ConstraintViolation;
+
+import nablarch.core.log.Logger;
+import nablarch.core.log.LoggerManager;
+import nablarch.fw.batch.progress.ProgressLogger;
+
+/**
+ * バリデーションエラーをログに出力するクラス。
+ * <p/>
+ * ログに出力するエラー数の上限が設定されていない場合は、全てのエラーをワーニングレベルでログに出力する。
+ * <p/>
+ * 上限が設定されている場合は、上限に達するまでのエラーをワーニングレベルでログに出力し、
+ * 以降のエラーはログに出力せずに件数のみを数える。
+ * エラーの件数はプロパティ名とメッセージテンプレートの組み合わせごとに集計し、
+ * {@link #writeSummary()}の呼び出し時に{@link ProgressLogger}で出力する。
+ * エラーの詳細はエラーテーブルに登録されたレコードで確認できる。
+ */
+final class ValidationErrorReporter {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerManager.get("etl");
+
+    /** ジョブ名 */
+    private final String jobName;
+
+    /** ステップ名 */
+    private final String stepName;
+
+    /** ログに出力するエラー数の上限(マイナス値の場合は上限なし) */
+    private final int sampleSize;
+
+    /** プロパティ名とメッセージテンプレートの組み合わせごとのエラー件数(発生順に保持する) */
+    private final Map<String, ErrorCount> errorCounts = new LinkedHashMap<String, ErrorCount>();
+
+    /** ログに出力したエラー数 */
+    private long loggedCount;
+
+    /** ログに出力しなかったエラー数 */
+    private long suppressedCount;
+
+    /** 前回の集計結果の出力以降にエラーが発生したか否か */
+    private boolean updated;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param jobName ジョブ名
+     * @param stepName ステップ名
+     * @param sampleSize ログに出力するエラー数の上限({@code null}またはマイナス値の場合は上限なし)
+     */
+    ValidationErrorReporter(final String jobName, final String stepName, final Integer sampleSize) {
+        this.jobName = jobName;
+        this.stepName = stepName;
+        this.sampleSize = sampleSize == null ? -1 : sampleSize;
+    }
+
+    /**
+     * レコードのバリデーションエラーを出力する。
+     *
+     * @param item Validationエラーが発生したアイテム
+     * @param constraintViolations Validationのエラー内容
+     */
+    void report(final WorkItem item, final Set<ConstraintViolation<WorkItem>> constraintViolations) {
+        for (ConstraintViolation<WorkItem> violation : constraintViolations) {
+            if (sampleSize < 0 || loggedCount < sampleSize) {
+                loggedCount++;
+                LOGGER.logWarn(MessageFormat.format(
+                        "validation error has occurred. bean class=[{0}], property name=[{1}], error message=[{2}], line number=[{3}]",
+                        item.getClass().getName(),
+                        violation.getPropertyPath().toString(),
+                        violation.getMessage(),
+                        item.getLineNumber()));
+            } else {
+                if (suppressedCount == 0L) {
+                    LOGGER.logWarn("number of validation errors has reached the sample size."
+                            + " subsequent errors are only counted. sample size=[" + sampleSize + ']');
+                }
+                suppressedCount++;
+            }
+            if (sampleSize >= 0) {
+                count(violation);
+            }
+        }
+    }
+
+    /**
+     * エラー件数を集計する。
+     *
+     * @param violation Validationのエラー内容
+     */
+    private void count(final ConstraintViolation<WorkItem> violation) {
+        final String propertyName = violation.getPropertyPath().toString();
+        final String key = propertyName + '\n' + violation.getMessageTemplate();
+        ErrorCount errorCount = errorCounts.get(key);
+        if (errorCount == null) {
+            errorCount = new ErrorCount(propertyName, violation.getMessageTemplate());
+            errorCounts.put(key, errorCount);
+        }
+        errorCount.count++;
+        updated = true;
+    }
+
+    /**
+     * エラー件数の集計結果を出力する。
+     * <p/>
+     * ログに出力するエラー数の上限が設定されていない場合と、前回の出力以降にエラーが発生していない場合は何もしない。
+     */
+    void writeSummary() {
+        if (!updated) {
+            return;
+        }
+        updated = false;
+        ProgressLogger.write(MessageFormat.format(
+                "job name: [{0}] step name: [{1}] validation error count: [{2}] logged: [{3}] suppressed: [{4}]",
+                jobName, stepName, String.valueOf(loggedCount + suppressedCount), String.valueOf(loggedCount),
+                String.valueOf(suppressedCount)));
+        for (ErrorCount errorCount : errorCounts.values()) {
+            ProgressLogger.write(MessageFormat.format(
+                    "job name: [{0}] step name: [{1}] property name: [{2}] message template: [{3}] error count: [{4}]",
+                    jobName, stepName, errorCount.propertyName, errorCount.messageTemplate,
+                    String.valueOf(errorCount.count)));
+        }
+    }
+
+    /**
+     * プロパティ名とメッセージテンプレートの組み合わせごとのエラー件数。
+     */
+    private static class ErrorCount {
+
+        /** プロパティ名 */
+        private final String propertyName;
+
+        /** メッセージテンプレート */
+        private final String messageTemplate;
+
+        /** エラー件数 */
+        private long count;
+
+        /**
+         * コンストラクタ。
+         *
+         * @param propertyName プロパティ名
+         * @param messageTemplate メッセージテンプレート
+         */
+        ErrorCount(final String propertyName, final String messageTemplate) {
+            this.propertyName = propertyName;
+            this.messageTemplate = messageTemplate;
+        }
+    }
+}
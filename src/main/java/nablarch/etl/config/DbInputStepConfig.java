@@ -1,5 +1,7 @@
 package nablarch.etl.config;
 
+import nablarch.core.db.statement.BasicSqlLoader;
+import nablarch.core.repository.SystemRepository;
 import nablarch.core.util.annotation.Published;
 
 /**
@@ -16,6 +18,24 @@ public abstract class DbInputStepConfig extends StepConfig {
     /** SQL_ID */
     private String sqlId;
 
+    /** キーでページングして読み込む場合の1ページあたりのレコード数 */
+    private int pageSize;
+
+    /** ページングに使用するキーのカラム名 */
+    private String pageKey = "LINE_NUMBER";
+
+    /** 入力件数の取得モード */
+    private InputCountMode inputCountMode = InputCountMode.EXACT;
+
+    /** 入力件数を取得するSQL_ID */
+    private String countSqlId;
+
+    /** SELECT文のフェッチサイズ */
+    private int fetchSize;
+
+    /** 再実行時に読み込み済みのレコードを読み飛ばすか否か */
+    private boolean skipOnRestart;
+
     /**
      * Beanクラスを取得する。
      * @return Beanクラス
@@ -47,4 +67,147 @@ public abstract class DbInputStepConfig extends StepConfig {
     public void setSqlId(String sqlId) {
         this.sqlId = sqlId;
     }
+
+    /**
+     * キーでページングして読み込む場合の1ページあたりのレコード数を取得する。
+     * @return 1ページあたりのレコード数
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * キーでページングして読み込む場合の1ページあたりのレコード数を設定する。
+     * <p/>
+     * 1以上を設定した場合は、1つのカーソルで全件を読み込むのではなく、
+     * {@link #getPageKey()}のカラムの昇順にページ単位のSELECT文を繰り返し発行して読み込む。
+     * デフォルトは0(1つのカーソルで読み込む)。
+     * @param pageSize 1ページあたりのレコード数
+     */
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * ページングに使用するキーのカラム名を取得する。
+     * @return ページングに使用するキーのカラム名
+     */
+    public String getPageKey() {
+        return pageKey;
+    }
+
+    /**
+     * ページングに使用するキーのカラム名を設定する。
+     * <p/>
+     * 一意で、SELECT文の結果に含まれるカラムを指定すること。デフォルトは{@code LINE_NUMBER}。
+     * @param pageKey ページングに使用するキーのカラム名
+     */
+    public void setPageKey(String pageKey) {
+        this.pageKey = pageKey;
+    }
+
+    /**
+     * 入力件数の取得モードを取得する。
+     * @return 入力件数の取得モード
+     */
+    public InputCountMode getInputCountMode() {
+        return inputCountMode;
+    }
+
+    /**
+     * 入力件数の取得モードを設定する。
+     * <p/>
+     * デフォルトは{@link InputCountMode#EXACT}。
+     * {@link InputCountMode#ESTIMATE}は、1つのテーブルを条件なしで読み込むSELECT文の場合のみ有効な見積もりとなる。
+     * 結合や条件を含むSELECT文の場合は、{@link #setCountSqlId(String)}で入力件数を取得するSQL文を設定すること。
+     * @param inputCountMode 入力件数の取得モード
+     */
+    public void setInputCountMode(InputCountMode inputCountMode) {
+        this.inputCountMode = inputCountMode;
+    }
+
+    /**
+     * 入力件数を取得するSQL_IDを取得する。
+     * @return 入力件数を取得するSQL_ID
+     */
+    public String getCountSqlId() {
+        return countSqlId;
+    }
+
+    /**
+     * 入力件数を取得するSQL_IDを設定する。
+     * <p/>
+     * 設定した場合は、{@link #getSqlId()}のSQL文の件数を数える代わりに、
+     * このSQL文の結果(1行目の1列目)を入力件数とする。{@link #getBean()}と同じSQLファイルに定義すること。
+     * @param countSqlId 入力件数を取得するSQL_ID
+     */
+    public void setCountSqlId(String countSqlId) {
+        this.countSqlId = countSqlId;
+    }
+
+    /**
+     * SELECT文のフェッチサイズを取得する。
+     * @return SELECT文のフェッチサイズ
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * SELECT文のフェッチサイズを設定する。
+     * <p/>
+     * 1以上を設定した場合は、1回のラウンドトリップでこの件数のレコードを取得する。
+     * MySQLの場合は、設定値に関わらず1行ずつストリーミングで取得する。
+     * デフォルトは0(ドライバのデフォルトを使用する)。
+     * @param fetchSize SELECT文のフェッチサイズ
+     */
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * 再実行時に読み込み済みのレコードを読み飛ばすか否かを取得する。
+     * @return 読み飛ばす場合は{@code true}
+     */
+    public boolean isSkipOnRestart() {
+        return skipOnRestart;
+    }
+
+    /**
+     * 再実行時に読み込み済みのレコードを読み飛ばすか否かを設定する。
+     * <p/>
+     * {@code true}を設定した場合は、1つのカーソルで読み込む場合に、チェックポイント時点の読み込み件数分の
+     * レコードを読み飛ばしてから読み込みを再開する。
+     * 再実行時に同じレコードを読み飛ばすため、SELECT文には一意な並び順となるORDER BY句を指定すること。
+     * ORDER BY句がない場合や並び順が一意でない場合は、読み込まれないレコードや重複して読み込まれるレコードが発生する。
+     * キーでページングして読み込む場合は、設定に関わらずキーの値から再開する。
+     * デフォルトは{@code false}(先頭から読み込み直す)。
+     * @param skipOnRestart 読み飛ばす場合は{@code true}
+     */
+    public void setSkipOnRestart(boolean skipOnRestart) {
+        this.skipOnRestart = skipOnRestart;
+    }
+
+    /**
+     * SQL_IDに対応するSQL文をロードする。
+     * <p/>
+     * "sqlLoader"という名前でコンポーネント定義に設定された{@link BasicSqlLoader}から取得する。
+     *
+     * @return SQL_IDに対応するSQL文
+     */
+    public String loadSql() {
+
+        final String sqlLoaderName = "sqlLoader";
+        final BasicSqlLoader loader = SystemRepository.get(sqlLoaderName);
+
+        if (loader == null) {
+            throw new IllegalStateException(
+                    String.format("BasicSqlLoader was not found. Using the name \"%s\", "
+                                    + "please set BasicSqlLoader to component configuration.",
+                            sqlLoaderName));
+        }
+
+        return loader.getValue(getBean().getName())
+                .get(getSqlId());
+    }
 }
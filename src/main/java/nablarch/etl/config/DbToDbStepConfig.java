@@ -3,10 +3,10 @@ package nablarch.etl.config;
 import java.util.List;
 
 import nablarch.core.db.statement.BasicSqlLoader;
-import nablarch.core.repository.SystemRepository;
 import nablarch.core.util.annotation.Published;
 import nablarch.etl.generator.InsertSqlGenerator;
 import nablarch.etl.generator.OracleDirectPathInsertSqlGenerator;
+import nablarch.etl.generator.ShadowTableInsertSqlGenerator;
 
 /**
  * DBtoDBステップの設定を保持するクラス。
@@ -33,6 +33,21 @@ public class DbToDbStepConfig extends DbInputStepConfig {
     /** INSERTモード */
     private InsertMode insertMode = InsertMode.NORMAL;
 
+    /** クリーニングモード */
+    private CleaningMode cleaningMode = CleaningMode.DELETE;
+
+    /** 分割削除で1回に削除するレコード数 */
+    private Integer cleaningChunkSize;
+
+    /** 登録前にインデックスを削除し、登録後に再作成するか否か */
+    private boolean deferIndexes;
+
+    /** インデックスを再作成するスレッド数 */
+    private int indexRebuildThreads = 1;
+
+    /** 一括登録で1回の実行で登録する行数 */
+    private Integer bulkInsertSize;
+
     /**
      * MERGEのON句に指定するカラム名を取得する。
      *
@@ -88,41 +103,118 @@ public class DbToDbStepConfig extends DbInputStepConfig {
     }
 
     /**
-     * 初期化を行う。
+     * クリーニングモードを取得する。
+     *
+     * @return クリーニングモード
      */
-    @Override
-    protected void onInitialize() {
-        sql = loadSql();
+    public CleaningMode getCleaningMode() {
+        return cleaningMode;
     }
 
     /**
-     * SQL_IDに対応するSQL文を取得する。
+     * クリーニングモードを設定する。
      *
-     * @return SQL_IDに対応するSQL文
+     * @param cleaningMode クリーニングモード
      */
-    public String getSql() {
-        return sql;
+    public void setCleaningMode(final CleaningMode cleaningMode) {
+        this.cleaningMode = cleaningMode;
     }
 
     /**
-     * SQL_IDに対応するSQL文をロードする。
+     * 分割削除で1回に削除するレコード数を取得する。
      *
-     * @return SQL_IDに対応するSQL文
+     * @return 分割削除で1回に削除するレコード数
      */
-    private String loadSql() {
+    public Integer getCleaningChunkSize() {
+        return cleaningChunkSize;
+    }
 
-        final String sqlLoaderName = "sqlLoader";
-        final BasicSqlLoader loader = SystemRepository.get(sqlLoaderName);
+    /**
+     * 分割削除で1回に削除するレコード数を設定する。
+     *
+     * @param cleaningChunkSize 分割削除で1回に削除するレコード数
+     */
+    public void setCleaningChunkSize(final Integer cleaningChunkSize) {
+        this.cleaningChunkSize = cleaningChunkSize;
+    }
 
-        if (loader == null) {
-            throw new IllegalStateException(
-                    String.format("BasicSqlLoader was not found. Using the name \"%s\", "
-                                    + "please set BasicSqlLoader to component configuration.",
-                            sqlLoaderName));
-        }
+    /**
+     * 登録前にインデックスを削除し、登録後に再作成するか否かを取得する。
+     *
+     * @return インデックスを削除して再作成する場合は{@code true}
+     */
+    public boolean isDeferIndexes() {
+        return deferIndexes;
+    }
+
+    /**
+     * 登録前にインデックスを削除し、登録後に再作成するか否かを設定する。
+     * <p/>
+     * 主キーと一意インデックスは対象外とする。デフォルトは{@code false}。
+     *
+     * @param deferIndexes インデックスを削除して再作成する場合は{@code true}
+     */
+    public void setDeferIndexes(final boolean deferIndexes) {
+        this.deferIndexes = deferIndexes;
+    }
 
-        return loader.getValue(getBean().getName())
-                .get(getSqlId());
+    /**
+     * インデックスを再作成するスレッド数を取得する。
+     *
+     * @return インデックスを再作成するスレッド数
+     */
+    public int getIndexRebuildThreads() {
+        return indexRebuildThreads;
+    }
+
+    /**
+     * インデックスを再作成するスレッド数を設定する。
+     * <p/>
+     * 2以上を設定した場合は、複数のインデックスを並列に作成する。デフォルトは1(並列化しない)。
+     *
+     * @param indexRebuildThreads インデックスを再作成するスレッド数
+     */
+    public void setIndexRebuildThreads(final int indexRebuildThreads) {
+        this.indexRebuildThreads = indexRebuildThreads;
+    }
+
+    /**
+     * 一括登録で1回の実行で登録する行数を取得する。
+     *
+     * @return 一括登録で1回の実行で登録する行数
+     */
+    public Integer getBulkInsertSize() {
+        return bulkInsertSize;
+    }
+
+    /**
+     * 一括登録で1回の実行で登録する行数を設定する。
+     * <p/>
+     * 設定した場合は、{@link nablarch.etl.DatabaseItemWriter}が複数行を指定したINSERT文
+     * (Oracleの場合はJDBCのバッチ実行)で登録する。
+     * 設定しない場合は、{@link nablarch.common.dao.UniversalDao#batchInsert(java.util.List)}で登録する。
+     *
+     * @param bulkInsertSize 一括登録で1回の実行で登録する行数
+     */
+    public void setBulkInsertSize(final Integer bulkInsertSize) {
+        this.bulkInsertSize = bulkInsertSize;
+    }
+
+    /**
+     * 初期化を行う。
+     */
+    @Override
+    protected void onInitialize() {
+        sql = loadSql();
+    }
+
+    /**
+     * SQL_IDに対応するSQL文を取得する。
+     *
+     * @return SQL_IDに対応するSQL文
+     */
+    public String getSql() {
+        return sql;
     }
 
     /**
@@ -138,6 +230,18 @@ public class DbToDbStepConfig extends DbInputStepConfig {
         /** データ取得元のBeanクラス */
         private Class<?> bean;
 
+        /** 並列度 */
+        private Integer parallelism = 1;
+
+        /** 1回のSQL実行の目標時間(ミリ秒) */
+        private Integer targetMillis;
+
+        /** 1回のSQL実行で処理するサイズの下限 */
+        private Integer minSize;
+
+        /** 1回のSQL実行で処理するサイズの上限 */
+        private Integer maxSize;
+
         /**
          * 1回のSQL実行で処理するサイズを取得する。
          *
@@ -173,6 +277,83 @@ public class DbToDbStepConfig extends DbInputStepConfig {
         public void setBean(Class<?> bean) {
             this.bean = bean;
         }
+
+        /**
+         * 並列度を取得する。
+         * <p/>
+         * 2以上の場合は、範囲ごとのSQL実行を並列度と同じ数のスレッドで並列に行う。
+         *
+         * @return 並列度
+         */
+        public Integer getParallelism() {
+            return parallelism;
+        }
+
+        /**
+         * 並列度を設定する。
+         *
+         * @param parallelism 並列度
+         */
+        public void setParallelism(Integer parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        /**
+         * 1回のSQL実行の目標時間(ミリ秒)を取得する。
+         * <p/>
+         * 設定されている場合は、SQL実行ごとの処理時間が目標時間に近づくように、
+         * 1回のSQL実行で処理するサイズを下限と上限の範囲で調整する。
+         *
+         * @return 1回のSQL実行の目標時間(ミリ秒)。調整しない場合は{@code null}
+         */
+        public Integer getTargetMillis() {
+            return targetMillis;
+        }
+
+        /**
+         * 1回のSQL実行の目標時間(ミリ秒)を設定する。
+         *
+         * @param targetMillis 1回のSQL実行の目標時間(ミリ秒)
+         */
+        public void setTargetMillis(Integer targetMillis) {
+            this.targetMillis = targetMillis;
+        }
+
+        /**
+         * 1回のSQL実行で処理するサイズの下限を取得する。
+         *
+         * @return 1回のSQL実行で処理するサイズの下限
+         */
+        public Integer getMinSize() {
+            return minSize;
+        }
+
+        /**
+         * 1回のSQL実行で処理するサイズの下限を設定する。
+         *
+         * @param minSize 1回のSQL実行で処理するサイズの下限
+         */
+        public void setMinSize(Integer minSize) {
+            this.minSize = minSize;
+        }
+
+        /**
+         * 1回のSQL実行で処理するサイズの上限を取得する。
+         *
+         * @return 1回のSQL実行で処理するサイズの上限
+         */
+        public Integer getMaxSize() {
+            return maxSize;
+        }
+
+        /**
+         * 1回のSQL実行で処理するサイズの上限を設定する。
+         *
+         * @param maxSize 1回のSQL実行で処理するサイズの上限
+         */
+        public void setMaxSize(Integer maxSize) {
+            this.maxSize = maxSize;
+        }
     }
 
     /**
@@ -193,6 +374,23 @@ public class DbToDbStepConfig extends DbInputStepConfig {
             public InsertSqlGenerator getInsertSqlGenerator() {
                 return new OracleDirectPathInsertSqlGenerator();
             }
+        },
+        /**
+         * シャドウテーブル入れ替えモード
+         * <p/>
+         * インデックスを持たないシャドウテーブルに登録後、出力先テーブルと入れ替える。
+         * <p/>
+         * カラムのデフォルト値、チェック制約、外部キー制約、権限およびトリガーは入れ替え後のテーブルに引き継がれないため、
+         * これらを持つテーブルや、ビューから参照されるテーブルには使用できない。
+         * <p/>
+         * DDLが個別にコミットされるデータベース製品(Oracleなど)では、入れ替えの間は出力先テーブルが存在しない状態となるため、
+         * 出力先テーブルにアクセスする他の処理と並行して実行しないこと。
+         */
+        SWAP {
+            @Override
+            public InsertSqlGenerator getInsertSqlGenerator() {
+                return new ShadowTableInsertSqlGenerator();
+            }
         };
 
         /**
@@ -202,4 +400,17 @@ public class DbToDbStepConfig extends DbInputStepConfig {
          */
         public abstract InsertSqlGenerator getInsertSqlGenerator();
     }
+
+    /**
+     * ロードステップで出力先テーブルをクリーニングするモード。
+     */
+    @Published(tag = "architect")
+    public enum CleaningMode {
+        /** DELETE文で全件を削除するモード */
+        DELETE,
+        /** TRUNCATE文で全件を削除するモード */
+        TRUNCATE,
+        /** 主キーを指定したDELETE文で一定件数ごとに削除し、都度コミットするモード */
+        CHUNKED_DELETE
+    }
 }
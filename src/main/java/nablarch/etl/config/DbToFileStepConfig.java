@@ -13,6 +13,21 @@ public class DbToFileStepConfig extends DbInputStepConfig {
     /** ファイル名 */
     private String fileName;
 
+    /** 出力ファイルの圧縮形式 */
+    private FileCompression compression = FileCompression.AUTO;
+
+    /** 出力ファイルを圧縮するスレッド数 */
+    private int compressionThreads = 1;
+
+    /** 出力ファイルに非同期で書き込むか否か */
+    private boolean asyncWrite;
+
+    /** 1ファイルあたりの最大レコード数 */
+    private long maxRecordsPerFile;
+
+    /** 1ファイルあたりの最大バイト数 */
+    private long maxBytesPerFile;
+
     /**
      * ファイル名を取得する。
      * @return ファイル名
@@ -29,6 +44,98 @@ public class DbToFileStepConfig extends DbInputStepConfig {
         this.fileName = fileName;
     }
 
+    /**
+     * 出力ファイルの圧縮形式を取得する。
+     * @return 出力ファイルの圧縮形式
+     */
+    public FileCompression getCompression() {
+        return compression;
+    }
+
+    /**
+     * 出力ファイルの圧縮形式を設定する。
+     * <p/>
+     * デフォルトは{@link FileCompression#AUTO}(ファイル名の拡張子から判定する)。
+     * @param compression 出力ファイルの圧縮形式
+     */
+    public void setCompression(FileCompression compression) {
+        this.compression = compression;
+    }
+
+    /**
+     * 出力ファイルを圧縮するスレッド数を取得する。
+     * @return 出力ファイルを圧縮するスレッド数
+     */
+    public int getCompressionThreads() {
+        return compressionThreads;
+    }
+
+    /**
+     * 出力ファイルを圧縮するスレッド数を設定する。
+     * <p/>
+     * 2以上を設定した場合は、出力データをブロックに区切り複数のスレッドで並列に圧縮する。デフォルトは1。
+     * @param compressionThreads 出力ファイルを圧縮するスレッド数
+     */
+    public void setCompressionThreads(int compressionThreads) {
+        this.compressionThreads = compressionThreads;
+    }
+
+    /**
+     * 出力ファイルに非同期で書き込むか否かを取得する。
+     * @return 非同期で書き込む場合は{@code true}
+     */
+    public boolean isAsyncWrite() {
+        return asyncWrite;
+    }
+
+    /**
+     * 出力ファイルに非同期で書き込むか否かを設定する。
+     * <p/>
+     * {@code true}を設定した場合は、専用のスレッドでデータへの変換と書き込みを行う。デフォルトは{@code false}。
+     * @param asyncWrite 非同期で書き込む場合は{@code true}
+     */
+    public void setAsyncWrite(boolean asyncWrite) {
+        this.asyncWrite = asyncWrite;
+    }
+
+    /**
+     * 1ファイルあたりの最大レコード数を取得する。
+     * @return 1ファイルあたりの最大レコード数
+     */
+    public long getMaxRecordsPerFile() {
+        return maxRecordsPerFile;
+    }
+
+    /**
+     * 1ファイルあたりの最大レコード数を設定する。
+     * <p/>
+     * 1以上を設定した場合は、レコード数が上限に達するごとに出力ファイルを切り替える。
+     * デフォルトは0(切り替えない)。
+     * @param maxRecordsPerFile 1ファイルあたりの最大レコード数
+     */
+    public void setMaxRecordsPerFile(long maxRecordsPerFile) {
+        this.maxRecordsPerFile = maxRecordsPerFile;
+    }
+
+    /**
+     * 1ファイルあたりの最大バイト数を取得する。
+     * @return 1ファイルあたりの最大バイト数
+     */
+    public long getMaxBytesPerFile() {
+        return maxBytesPerFile;
+    }
+
+    /**
+     * 1ファイルあたりの最大バイト数を設定する。
+     * <p/>
+     * 1以上を設定した場合は、次のレコードを書き込むと上限を超える場合に出力ファイルを切り替える。
+     * 圧縮する場合は、圧縮前のバイト数で判定する。デフォルトは0(切り替えない)。
+     * @param maxBytesPerFile 1ファイルあたりの最大バイト数
+     */
+    public void setMaxBytesPerFile(long maxBytesPerFile) {
+        this.maxBytesPerFile = maxBytesPerFile;
+    }
+
     /**
      * 初期化を行う。
      */
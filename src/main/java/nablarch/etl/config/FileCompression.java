@@ -0,0 +1,29 @@
+package nablarch.etl.config;
+
+import nablarch.core.util.annotation.Published;
+
+/**
+ * 入出力ファイルの圧縮形式。
+ */
+@Published(tag = "architect")
+public enum FileCompression {
+    /** ファイル名の拡張子から判定する(拡張子が{@code .gz}の場合はGZIP、それ以外は非圧縮) */
+    AUTO,
+    /** 圧縮しない */
+    NONE,
+    /** GZIP形式 */
+    GZIP;
+
+    /**
+     * ファイル名を元に、実際に使用する圧縮形式を判定する。
+     *
+     * @param fileName ファイル名
+     * @return 圧縮形式({@link #NONE}または{@link #GZIP})
+     */
+    public FileCompression resolve(final String fileName) {
+        if (this != AUTO) {
+            return this;
+        }
+        return fileName != null && fileName.toLowerCase().endsWith(".gz") ? GZIP : NONE;
+    }
+}
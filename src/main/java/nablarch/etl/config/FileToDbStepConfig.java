@@ -1,5 +1,7 @@
 package nablarch.etl.config;
 
+import java.util.List;
+
 import nablarch.core.util.annotation.Published;
 
 /**
@@ -16,6 +18,33 @@ public class FileToDbStepConfig extends StepConfig {
     /** ファイル名 */
     private String fileName;
 
+    /** 入力件数の取得モード */
+    private InputCountMode inputCountMode = InputCountMode.EXACT;
+
+    /** 入力ファイルを変換するスレッド数 */
+    private int parserThreads = 1;
+
+    /** 入力ファイルの分割数 */
+    private int partitions = 1;
+
+    /** 入力ファイルをメモリにマッピングして読み込むか否か */
+    private boolean memoryMapped;
+
+    /** 入力ファイルの圧縮形式 */
+    private FileCompression compression = FileCompression.AUTO;
+
+    /** 登録前にインデックスを削除し、登録後に再作成するか否か */
+    private boolean deferIndexes;
+
+    /** インデックスを再作成するスレッド数 */
+    private int indexRebuildThreads = 1;
+
+    /** 一括登録で1回の実行で登録する行数 */
+    private Integer bulkInsertSize;
+
+    /** MERGEのON句に指定するカラム名 */
+    private List<String> mergeOnColumns;
+
     /**
      * Beanクラスを取得する。
      * @return Beanクラス
@@ -48,6 +77,172 @@ public class FileToDbStepConfig extends StepConfig {
         this.fileName = fileName;
     }
 
+    /**
+     * 入力件数の取得モードを取得する。
+     * @return 入力件数の取得モード
+     */
+    public InputCountMode getInputCountMode() {
+        return inputCountMode;
+    }
+
+    /**
+     * 入力件数の取得モードを設定する。
+     * <p/>
+     * デフォルトは{@link InputCountMode#EXACT}。
+     * @param inputCountMode 入力件数の取得モード
+     */
+    public void setInputCountMode(InputCountMode inputCountMode) {
+        this.inputCountMode = inputCountMode;
+    }
+
+    /**
+     * 入力ファイルを変換するスレッド数を取得する。
+     * @return 入力ファイルを変換するスレッド数
+     */
+    public int getParserThreads() {
+        return parserThreads;
+    }
+
+    /**
+     * 入力ファイルを変換するスレッド数を設定する。
+     * <p/>
+     * 2以上を設定した場合は、複数のスレッドで並列に変換する。デフォルトは1(並列化しない)。
+     * @param parserThreads 入力ファイルを変換するスレッド数
+     */
+    public void setParserThreads(int parserThreads) {
+        this.parserThreads = parserThreads;
+    }
+
+    /**
+     * 入力ファイルの分割数を取得する。
+     * @return 入力ファイルの分割数
+     */
+    public int getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * 入力ファイルの分割数を設定する。
+     * <p/>
+     * {@link nablarch.etl.FileSplitPartitionMapper}を使用したパーティション実行時に、
+     * 入力ファイルを分割するパーティション数として使用する。デフォルトは1(分割しない)。
+     * @param partitions 入力ファイルの分割数
+     */
+    public void setPartitions(int partitions) {
+        this.partitions = partitions;
+    }
+
+    /**
+     * 入力ファイルをメモリにマッピングして読み込むか否かを取得する。
+     * @return メモリにマッピングして読み込む場合は{@code true}
+     */
+    public boolean isMemoryMapped() {
+        return memoryMapped;
+    }
+
+    /**
+     * 入力ファイルをメモリにマッピングして読み込むか否かを設定する。
+     * <p/>
+     * 固定長形式の入力ファイルの場合のみ有効となる。デフォルトは{@code false}。
+     * 固定長形式の場合、{@link #setParserThreads(int)}に2以上を設定した場合との併用はできない。
+     * @param memoryMapped メモリにマッピングして読み込む場合は{@code true}
+     */
+    public void setMemoryMapped(boolean memoryMapped) {
+        this.memoryMapped = memoryMapped;
+    }
+
+    /**
+     * 入力ファイルの圧縮形式を取得する。
+     * @return 入力ファイルの圧縮形式
+     */
+    public FileCompression getCompression() {
+        return compression;
+    }
+
+    /**
+     * 入力ファイルの圧縮形式を設定する。
+     * <p/>
+     * デフォルトは{@link FileCompression#AUTO}(ファイル名の拡張子から判定する)。
+     * @param compression 入力ファイルの圧縮形式
+     */
+    public void setCompression(FileCompression compression) {
+        this.compression = compression;
+    }
+
+    /**
+     * 登録前にインデックスを削除し、登録後に再作成するか否かを取得する。
+     * @return インデックスを削除して再作成する場合は{@code true}
+     */
+    public boolean isDeferIndexes() {
+        return deferIndexes;
+    }
+
+    /**
+     * 登録前にインデックスを削除し、登録後に再作成するか否かを設定する。
+     * <p/>
+     * 主キーと一意インデックスは対象外とする。パーティション実行時は使用できない。デフォルトは{@code false}。
+     * @param deferIndexes インデックスを削除して再作成する場合は{@code true}
+     */
+    public void setDeferIndexes(boolean deferIndexes) {
+        this.deferIndexes = deferIndexes;
+    }
+
+    /**
+     * インデックスを再作成するスレッド数を取得する。
+     * @return インデックスを再作成するスレッド数
+     */
+    public int getIndexRebuildThreads() {
+        return indexRebuildThreads;
+    }
+
+    /**
+     * インデックスを再作成するスレッド数を設定する。
+     * <p/>
+     * 2以上を設定した場合は、複数のインデックスを並列に作成する。デフォルトは1(並列化しない)。
+     * @param indexRebuildThreads インデックスを再作成するスレッド数
+     */
+    public void setIndexRebuildThreads(int indexRebuildThreads) {
+        this.indexRebuildThreads = indexRebuildThreads;
+    }
+
+    /**
+     * 一括登録で1回の実行で登録する行数を取得する。
+     * @return 一括登録で1回の実行で登録する行数
+     */
+    public Integer getBulkInsertSize() {
+        return bulkInsertSize;
+    }
+
+    /**
+     * 一括登録で1回の実行で登録する行数を設定する。
+     * <p/>
+     * 設定した場合は、{@link nablarch.etl.DatabaseItemWriter}が複数行を指定したINSERT文
+     * (Oracleの場合はJDBCのバッチ実行)で登録する。
+     * 設定しない場合は、{@link nablarch.common.dao.UniversalDao#batchInsert(java.util.List)}で登録する。
+     * @param bulkInsertSize 一括登録で1回の実行で登録する行数
+     */
+    public void setBulkInsertSize(Integer bulkInsertSize) {
+        this.bulkInsertSize = bulkInsertSize;
+    }
+
+    /**
+     * MERGEのON句に指定するカラム名を取得する。
+     * @return MERGEのON句に指定するカラム名
+     */
+    public List<String> getMergeOnColumns() {
+        return mergeOnColumns;
+    }
+
+    /**
+     * MERGEのON句に指定するカラム名を設定する。
+     * <p/>
+     * {@link nablarch.etl.MergeItemWriter}を使用する場合に指定する。
+     * @param mergeOnColumns MERGEのON句に指定するカラム名
+     */
+    public void setMergeOnColumns(List<String> mergeOnColumns) {
+        this.mergeOnColumns = mergeOnColumns;
+    }
+
     /**
      * 初期化を行う。
      */
@@ -0,0 +1,23 @@
+package nablarch.etl.config;
+
+import nablarch.core.util.annotation.Published;
+
+/**
+ * 進捗ログに出力する入力件数の取得モード。
+ */
+@Published(tag = "architect")
+public enum InputCountMode {
+    /** 入力件数を正確に取得する */
+    EXACT,
+    /**
+     * 入力件数を見積もる
+     * <p/>
+     * Beanに対応するテーブルの統計情報の行数を入力件数とするため、
+     * 1つのテーブルを条件なしで読み込むSELECT文の場合のみ有効な見積もりとなる。
+     * 結合や条件を含むSELECT文の場合は、入力件数を取得するSQL_IDを設定すること。
+     * 統計情報が取得できない場合(JDBCドライバが統計情報を返さない場合など)は、入力件数を取得しない。
+     */
+    ESTIMATE,
+    /** 入力件数を取得しない */
+    NONE
+}
@@ -13,6 +13,9 @@ import nablarch.core.util.annotation.Published;
  * デフォルト値は、アボート
  * </li>
  * <li>許容するエラーの件数。エラー数がこの数を超えた場合はJOBがアボートする</li>
+ * <li>バリデーションを並列に実行するスレッド数。デフォルト値は、1(並列に実行しない)</li>
+ * <li>エラーテーブルへの登録でまとめるレコード数。デフォルト値は、1000</li>
+ * <li>詳細をログに出力するエラーの件数。デフォルト値は、未設定(全てのエラーを出力する)</li>
  * </ul>
  *
  * @author Hisaaki Shioiri
@@ -29,6 +32,15 @@ public class ValidationStepConfig extends DbInputStepConfig {
     /** 許容するエラー数 */
     private Integer errorLimit;
 
+    /** バリデーションを実行するスレッド数 */
+    private int validationThreads = 1;
+
+    /** エラーテーブルへの登録でまとめるレコード数 */
+    private int errorInsertBatchSize = 1000;
+
+    /** 詳細をログに出力するエラーの件数 */
+    private Integer errorLogSampleSize;
+
     /**
      * 初期化処理では特に何もしない
      */
@@ -90,6 +102,69 @@ public class ValidationStepConfig extends DbInputStepConfig {
         this.errorLimit = errorLimit;
     }
 
+    /**
+     * バリデーションを実行するスレッド数を取得する。
+     *
+     * @return バリデーションを実行するスレッド数
+     */
+    public int getValidationThreads() {
+        return validationThreads;
+    }
+
+    /**
+     * バリデーションを実行するスレッド数を設定する。
+     * <p/>
+     * 2以上を設定した場合は、一時テーブルの読み込みとエラーの記録は1つのスレッドで行い、
+     * バリデーションのみを指定されたスレッド数で並列に実行する。
+     *
+     * @param validationThreads バリデーションを実行するスレッド数
+     */
+    public void setValidationThreads(final int validationThreads) {
+        this.validationThreads = validationThreads;
+    }
+
+    /**
+     * エラーテーブルへの登録でまとめるレコード数を取得する。
+     *
+     * @return エラーテーブルへの登録でまとめるレコード数
+     */
+    public int getErrorInsertBatchSize() {
+        return errorInsertBatchSize;
+    }
+
+    /**
+     * エラーテーブルへの登録でまとめるレコード数を設定する。
+     * <p/>
+     * エラーレコードはこの件数に達するごとにバッチ更新でエラーテーブルに登録する。
+     *
+     * @param errorInsertBatchSize エラーテーブルへの登録でまとめるレコード数
+     */
+    public void setErrorInsertBatchSize(final int errorInsertBatchSize) {
+        this.errorInsertBatchSize = errorInsertBatchSize;
+    }
+
+    /**
+     * 詳細をログに出力するエラーの件数を取得する。
+     *
+     * @return 詳細をログに出力するエラーの件数
+     */
+    public Integer getErrorLogSampleSize() {
+        return errorLogSampleSize;
+    }
+
+    /**
+     * 詳細をログに出力するエラーの件数を設定する。
+     * <p/>
+     * 設定した場合は、この件数を超えたエラーの詳細はログに出力せず、
+     * プロパティ名とメッセージテンプレートごとのエラー件数を進捗ログに出力する。
+     * 設定されていない場合やマイナス値の場合は、全てのエラーの詳細をログに出力する。
+     *
+     * @param errorLogSampleSize 詳細をログに出力するエラーの件数
+     */
+    public void setErrorLogSampleSize(final Integer errorLogSampleSize) {
+        this.errorLogSampleSize = errorLogSampleSize;
+    }
+
     /**
      * Validationエラー発生時の処理継続モード
      */
@@ -0,0 +1,46 @@
+package nablarch.etl.generator;
+
+import java.util.Arrays;
+import java.util.List;
+
+import nablarch.common.dao.EntityUtil;
+
+/**
+ * DB2用のテーブルを入れ替えるSQL文を生成するクラス。
+ * <p/>
+ * シャドウテーブルは{@code create table ... like}で作成し、テーブル名は{@code rename table}で変更する。
+ * {@code rename table}はトランザクション内で実行できるため、2つのテーブル名の変更を1つのトランザクションでコミットする。
+ * 依存するオブジェクトはカタログビュー({@code syscat.checks}など)から検索する。
+ */
+public class Db2TableSwapSqlGenerator extends TableSwapSqlGenerator {
+
+    @Override
+    public String generateCreateShadowSql(final Class<?> entity) {
+        return "create table " + qualify(entity, getShadowTableName(entity))
+                + " like " + EntityUtil.getTableNameWithSchema(entity);
+    }
+
+    @Override
+    protected String generateRenameSql(final Class<?> entity, final String from, final String to) {
+        return "rename table " + qualify(entity, from) + " to " + to;
+    }
+
+    @Override
+    public boolean isTransactionalDdl() {
+        return true;
+    }
+
+    @Override
+    public List<String> generateFindDependentObjectsSql(final Class<?> entity) {
+        final String schema = getSchemaLiteral(entity, "current schema");
+        final String tableName = getTableNameLiteral(entity);
+        final String condition = " where tabschema = " + schema + " and tabname = " + tableName;
+        return Arrays.asList(
+                "select 'CHECK CONSTRAINT', constname from syscat.checks" + condition + " and type = 'C'",
+                "select 'TRIGGER', trigname from syscat.triggers" + condition,
+                "select 'VIEW', viewname from syscat.viewdep where btype = 'T' and bschema = " + schema
+                        + " and bname = " + tableName,
+                "select 'GRANT', grantee from syscat.tabauth" + condition
+                        + " and grantor <> grantee and grantor <> 'SYSIBM'");
+    }
+}
@@ -0,0 +1,30 @@
+package nablarch.etl.generator;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * H2用のテーブルを入れ替えるSQL文を生成するクラス。
+ * <p/>
+ * テーブル名は{@code alter table ... rename to}で変更する。
+ * H2ではDDLが個別にコミットされるため、2つのテーブル名の変更の間は入れ替え対象のテーブルが存在しない。
+ * <p/>
+ * 依存するオブジェクトはH2の{@code information_schema}から検索する。
+ * ビューが参照するテーブルはディクショナリから取得できないため、ビューの定義にテーブル名を含むものを検索する。
+ */
+public class H2TableSwapSqlGenerator extends TableSwapSqlGenerator {
+
+    @Override
+    public List<String> generateFindDependentObjectsSql(final Class<?> entity) {
+        final String schema = getSchemaLiteral(entity, "schema()");
+        final String tableName = getTableNameLiteral(entity);
+        final String condition = " where table_schema = " + schema + " and table_name = " + tableName;
+        return Arrays.asList(
+                "select 'CHECK CONSTRAINT', constraint_name from information_schema.constraints" + condition
+                        + " and constraint_type = 'CHECK'",
+                "select 'TRIGGER', trigger_name from information_schema.triggers" + condition,
+                "select 'VIEW', table_name from information_schema.views where table_schema = " + schema
+                        + " and upper(view_definition) like '%' || upper(" + tableName + ") || '%'",
+                "select 'GRANT', grantee from information_schema.rights" + condition);
+    }
+}
@@ -0,0 +1,24 @@
+package nablarch.etl.generator;
+
+import nablarch.common.dao.EntityUtil;
+import nablarch.core.util.StringUtil;
+
+/**
+ * インデックスを削除するSQL文を生成するクラス。
+ * <p/>
+ * このクラスでは、スキーマ名で修飾したインデックス名を指定して{@code drop index}を生成する。
+ */
+public class IndexSqlGenerator {
+
+    /**
+     * インデックスを削除するSQL文を生成する。
+     *
+     * @param entity インデックスを持つテーブルのエンティティクラス
+     * @param indexName インデックス名
+     * @return インデックスを削除するSQL文
+     */
+    public String generateDropSql(final Class<?> entity, final String indexName) {
+        final String schema = EntityUtil.getSchemaName(entity);
+        return "drop index " + (StringUtil.isNullOrEmpty(schema) ? indexName : schema + '.' + indexName);
+    }
+}
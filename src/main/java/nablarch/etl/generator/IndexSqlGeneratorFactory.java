@@ -0,0 +1,36 @@
+package nablarch.etl.generator;
+
+import nablarch.core.db.connection.TransactionManagerConnection;
+import nablarch.core.util.StringUtil;
+import nablarch.etl.EtlUtil;
+
+/**
+ * インデックスを削除するSQL文を生成するジェネレータのファクトリクラス。
+ * <p/>
+ * データベース接続のURLを元に、インデックスを削除するSQL文のジェネレータクラスを生成する。
+ */
+public final class IndexSqlGeneratorFactory {
+
+    /**
+     * 隠蔽コンストラクタ。
+     */
+    private IndexSqlGeneratorFactory() {
+    }
+
+    /**
+     * インデックスを削除するSQL文を生成するジェネレータを生成する。
+     *
+     * @param connection データベース接続
+     * @return インデックスを削除するSQL文を生成するジェネレータ
+     */
+    public static IndexSqlGenerator create(final TransactionManagerConnection connection) {
+        final String url = EtlUtil.getUrl(connection);
+        if (StringUtil.isNullOrEmpty(url)) {
+            throw new IllegalStateException("failed to get connection url.");
+        }
+        if (url.startsWith("jdbc:sqlserver") || url.startsWith("jdbc:mysql")) {
+            return new SqlServerIndexSqlGenerator();
+        }
+        return new IndexSqlGenerator();
+    }
+}
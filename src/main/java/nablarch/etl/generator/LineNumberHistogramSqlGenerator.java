@@ -0,0 +1,30 @@
+package nablarch.etl.generator;
+
+import nablarch.common.dao.EntityUtil;
+import nablarch.etl.config.DbToDbStepConfig;
+
+/**
+ * LINE_NUMBERカラムの度数分布を取得するSQL文を生成するクラス。
+ * <p/>
+ * LINE_NUMBERを{@link DbToDbStepConfig.UpdateSize#getSize()}の幅で区切った階級ごとに、
+ * 階級の番号(0始まり)とレコード数を階級の昇順に取得する。
+ * 集計対象は、パラメータに指定したLINE_NUMBERより大きいレコードとする。
+ */
+public class LineNumberHistogramSqlGenerator extends SqlGeneratorSupport<DbToDbStepConfig> {
+
+    @Override
+    public String generateSql(DbToDbStepConfig config) {
+
+        final Class<?> clazz = config.getUpdateSize().getBean();
+        verify(clazz);
+
+        final String tableName = EntityUtil.getTableNameWithSchema(clazz);
+        final String bucket = "floor((LINE_NUMBER - 1) / " + config.getUpdateSize().getSize() + ')';
+
+        return "select " + bucket + " as BUCKET, count(*) as LINE_COUNT"
+                + " from " + tableName
+                + " where LINE_NUMBER > ?"
+                + " group by " + bucket
+                + " order by 1";
+    }
+}
@@ -0,0 +1,33 @@
+package nablarch.etl.generator;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Oracle用のテーブルを入れ替えるSQL文を生成するクラス。
+ * <p/>
+ * テーブル名は{@code alter table ... rename to}で変更する。
+ * OracleではDDLが個別にコミットされるため、2つのテーブル名の変更の間は入れ替え対象のテーブルが存在しない。
+ * <p/>
+ * 依存するオブジェクトはデータ・ディクショナリ・ビュー({@code all_constraints}など)から検索する。
+ * シャドウテーブルには非NULL制約が引き継がれるため、非NULL制約のチェック制約は検索対象外とする。
+ */
+public class OracleTableSwapSqlGenerator extends TableSwapSqlGenerator {
+
+    @Override
+    public List<String> generateFindDependentObjectsSql(final Class<?> entity) {
+        final String schema = getSchemaLiteral(entity, "sys_context('USERENV', 'CURRENT_SCHEMA')");
+        final String tableName = getTableNameLiteral(entity);
+        return Arrays.asList(
+                "select 'CHECK CONSTRAINT', constraint_name from all_constraints"
+                        + " where owner = " + schema + " and table_name = " + tableName
+                        + " and constraint_type = 'C' and search_condition_vc not like '% IS NOT NULL'",
+                "select 'TRIGGER', trigger_name from all_triggers"
+                        + " where table_owner = " + schema + " and table_name = " + tableName,
+                "select 'VIEW', name from all_dependencies"
+                        + " where referenced_owner = " + schema + " and referenced_name = " + tableName
+                        + " and referenced_type = 'TABLE' and type = 'VIEW'",
+                "select 'GRANT', grantee from all_tab_privs"
+                        + " where table_schema = " + schema + " and table_name = " + tableName);
+    }
+}
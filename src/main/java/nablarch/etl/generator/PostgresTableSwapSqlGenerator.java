@@ -0,0 +1,44 @@
+package nablarch.etl.generator;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * PostgreSQL用のテーブルを入れ替えるSQL文を生成するクラス。
+ * <p/>
+ * テーブル名は{@code alter table ... rename to}で変更する。
+ * PostgreSQLではDDLをトランザクション内で実行できるため、2つのテーブル名の変更を1つのトランザクションでコミットする。
+ * <p/>
+ * 依存するオブジェクトはシステムカタログ({@code pg_constraint}など)から検索する。
+ * {@code information_schema}のチェック制約には非NULL制約が含まれ、
+ * ビューは所有者のもののみが参照できるため使用しない。
+ */
+public class PostgresTableSwapSqlGenerator extends TableSwapSqlGenerator {
+
+    @Override
+    public boolean isTransactionalDdl() {
+        return true;
+    }
+
+    @Override
+    public List<String> generateFindDependentObjectsSql(final Class<?> entity) {
+        final String schema = getSchemaLiteral(entity, "current_schema()");
+        final String tableName = getTableNameLiteral(entity);
+        final String condition = " inner join pg_namespace n on n.oid = t.relnamespace"
+                + " where n.nspname = " + schema + " and t.relname = " + tableName;
+        return Arrays.asList(
+                "select 'CHECK CONSTRAINT', c.conname from pg_constraint c"
+                        + " inner join pg_class t on t.oid = c.conrelid" + condition + " and c.contype = 'c'",
+                "select 'TRIGGER', g.tgname from pg_trigger g"
+                        + " inner join pg_class t on t.oid = g.tgrelid" + condition + " and not g.tgisinternal",
+                "select 'VIEW', v.relname from pg_depend d"
+                        + " inner join pg_rewrite r on r.oid = d.objid"
+                        + " inner join pg_class v on v.oid = r.ev_class"
+                        + " inner join pg_class t on t.oid = d.refobjid" + condition
+                        + " and d.classid = 'pg_rewrite'::regclass and v.oid <> t.oid"
+                        + " group by v.relname",
+                "select 'GRANT', grantee from information_schema.table_privileges"
+                        + " where table_schema = " + schema + " and table_name = " + tableName
+                        + " and grantor <> grantee");
+    }
+}
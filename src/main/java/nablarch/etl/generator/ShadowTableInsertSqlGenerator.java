@@ -0,0 +1,20 @@
+package nablarch.etl.generator;
+
+import nablarch.etl.config.DbToDbStepConfig;
+
+/**
+ * シャドウテーブルに登録するINSERT文を生成するクラス。
+ * <p/>
+ * 登録先のテーブル名を{@link TableSwapSqlGenerator#getShadowTableName(Class)}のシャドウテーブルとする。
+ * カラムリストと登録対象のデータを取得するSELECT文は{@link InsertSqlGenerator}と同じものを使用する。
+ */
+public class ShadowTableInsertSqlGenerator extends InsertSqlGenerator {
+
+    /** シャドウテーブルの名前を生成するジェネレータ */
+    private final TableSwapSqlGenerator swapSqlGenerator = new TableSwapSqlGenerator();
+
+    @Override
+    protected String generateInsertTableName(final DbToDbStepConfig config) {
+        return swapSqlGenerator.getShadowTableNameWithSchema(config.getBean());
+    }
+}
@@ -0,0 +1,16 @@
+package nablarch.etl.generator;
+
+import nablarch.common.dao.EntityUtil;
+
+/**
+ * SQL Server、MySQL用のインデックスを削除するSQL文を生成するクラス。
+ * <p/>
+ * インデックス名とテーブル名を指定して{@code drop index ... on}を生成する。
+ */
+public class SqlServerIndexSqlGenerator extends IndexSqlGenerator {
+
+    @Override
+    public String generateDropSql(final Class<?> entity, final String indexName) {
+        return "drop index " + indexName + " on " + EntityUtil.getTableNameWithSchema(entity);
+    }
+}
@@ -0,0 +1,45 @@
+package nablarch.etl.generator;
+
+import java.util.Arrays;
+import java.util.List;
+
+import nablarch.common.dao.EntityUtil;
+
+/**
+ * SQL Server用のテーブルを入れ替えるSQL文を生成するクラス。
+ * <p/>
+ * シャドウテーブルは{@code select ... into}で作成し、テーブル名は{@code sp_rename}で変更する。
+ * {@code sp_rename}はトランザクション内で実行できるため、2つのテーブル名の変更を1つのトランザクションでコミットする。
+ * 依存するオブジェクトはカタログビュー({@code sys.check_constraints}など)から検索する。
+ */
+public class SqlServerTableSwapSqlGenerator extends TableSwapSqlGenerator {
+
+    @Override
+    public String generateCreateShadowSql(final Class<?> entity) {
+        return "select * into " + qualify(entity, getShadowTableName(entity))
+                + " from " + EntityUtil.getTableNameWithSchema(entity) + " where 1 = 0";
+    }
+
+    @Override
+    protected String generateRenameSql(final Class<?> entity, final String from, final String to) {
+        return "exec sp_rename '" + qualify(entity, from) + "', '" + to + '\'';
+    }
+
+    @Override
+    public boolean isTransactionalDdl() {
+        return true;
+    }
+
+    @Override
+    public List<String> generateFindDependentObjectsSql(final Class<?> entity) {
+        final String objectId = "object_id(" + toLiteral(EntityUtil.getTableNameWithSchema(entity)) + ')';
+        return Arrays.asList(
+                "select 'CHECK CONSTRAINT', name from sys.check_constraints where parent_object_id = " + objectId,
+                "select 'TRIGGER', name from sys.triggers where parent_id = " + objectId,
+                "select 'VIEW', v.name from sys.sql_expression_dependencies d"
+                        + " inner join sys.views v on v.object_id = d.referencing_id"
+                        + " where d.referenced_id = " + objectId,
+                "select 'GRANT', user_name(grantee_principal_id) from sys.database_permissions"
+                        + " where class = 1 and major_id = " + objectId);
+    }
+}
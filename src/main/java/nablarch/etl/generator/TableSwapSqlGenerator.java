@@ -0,0 +1,197 @@
+package nablarch.etl.generator;
+
+import java.util.Arrays;
+import java.util.List;
+
+import nablarch.common.dao.DatabaseUtil;
+import nablarch.common.dao.EntityUtil;
+import nablarch.core.util.StringUtil;
+
+/**
+ * シャドウテーブルを使用してテーブルを入れ替えるSQL文を生成するクラス。
+ * <p/>
+ * シャドウテーブルは、入れ替え対象のテーブルと同じカラム構成で、インデックスや制約を持たないテーブルとして作成する。
+ * シャドウテーブルの名前は入れ替え対象のテーブル名に{@value #SHADOW_SUFFIX}を、
+ * 入れ替え後の旧テーブルの名前は{@value #OLD_SUFFIX}を付与したものとする。
+ * <p/>
+ * このクラスでは{@code alter table ... rename to}でテーブル名を変更する。
+ * テーブル名の変更はトランザクションでロールバックできないものとして扱い({@link #isTransactionalDdl()})、
+ * 依存するオブジェクトは標準SQLの{@code information_schema}から検索する。
+ */
+public class TableSwapSqlGenerator {
+
+    /** シャドウテーブルのサフィックス */
+    public static final String SHADOW_SUFFIX = "_SHADOW";
+
+    /** 旧テーブルのサフィックス */
+    public static final String OLD_SUFFIX = "_OLD";
+
+    /**
+     * シャドウテーブルの名前を取得する。
+     *
+     * @param entity エンティティクラス
+     * @return シャドウテーブルの名前(スキーマ名を含まない)
+     */
+    public String getShadowTableName(final Class<?> entity) {
+        return EntityUtil.getTableName(entity) + SHADOW_SUFFIX;
+    }
+
+    /**
+     * 旧テーブルの名前を取得する。
+     *
+     * @param entity エンティティクラス
+     * @return 旧テーブルの名前(スキーマ名を含まない)
+     */
+    public String getOldTableName(final Class<?> entity) {
+        return EntityUtil.getTableName(entity) + OLD_SUFFIX;
+    }
+
+    /**
+     * スキーマ名で修飾したシャドウテーブルの名前を取得する。
+     *
+     * @param entity エンティティクラス
+     * @return シャドウテーブルの名前(スキーマが指定されている場合はスキーマ名を含む)
+     */
+    public String getShadowTableNameWithSchema(final Class<?> entity) {
+        return qualify(entity, getShadowTableName(entity));
+    }
+
+    /**
+     * スキーマ名で修飾したテーブル名を生成する。
+     *
+     * @param entity エンティティクラス
+     * @param tableName テーブル名
+     * @return スキーマ名で修飾したテーブル名。スキーマが指定されていない場合はテーブル名
+     */
+    protected String qualify(final Class<?> entity, final String tableName) {
+        final String schema = EntityUtil.getSchemaName(entity);
+        return StringUtil.isNullOrEmpty(schema) ? tableName : schema + '.' + tableName;
+    }
+
+    /**
+     * シャドウテーブルを作成するSQL文を生成する。
+     *
+     * @param entity エンティティクラス
+     * @return シャドウテーブルを作成するSQL文
+     */
+    public String generateCreateShadowSql(final Class<?> entity) {
+        return "create table " + qualify(entity, getShadowTableName(entity))
+                + " as select * from " + EntityUtil.getTableNameWithSchema(entity) + " where 1 = 0";
+    }
+
+    /**
+     * 入れ替え対象のテーブルを旧テーブルに、シャドウテーブルを入れ替え対象のテーブルに名前を変更するSQL文を生成する。
+     *
+     * @param entity エンティティクラス
+     * @return 名前を変更するSQL文(実行順)
+     */
+    public List<String> generateSwapSql(final Class<?> entity) {
+        return Arrays.asList(
+                generateRenameSql(entity, EntityUtil.getTableName(entity), getOldTableName(entity)),
+                generateRenameSql(entity, getShadowTableName(entity), EntityUtil.getTableName(entity)));
+    }
+
+    /**
+     * テーブル名の変更をトランザクション内で実行できるか否かを返す。
+     * <p/>
+     * {@code true}の場合は、2つのテーブル名の変更が1つのトランザクションでコミットされるため、
+     * 他のトランザクションから入れ替え対象のテーブルが存在しない状態が見えることはない。
+     * {@code false}の場合は、DDLが個別にコミットされるため、2つのテーブル名の変更の間は入れ替え対象のテーブルが存在しない。
+     * <p/>
+     * このクラスでは{@code false}を返す。
+     *
+     * @return トランザクション内で実行できる場合は{@code true}
+     */
+    public boolean isTransactionalDdl() {
+        return false;
+    }
+
+    /**
+     * 入れ替え対象のテーブルに依存するオブジェクトのうち、シャドウテーブルに引き継げないものを検索するSQL文を生成する。
+     * <p/>
+     * 検索対象は、チェック制約、トリガー、テーブルを参照するビュー、他のユーザに付与された権限とする。
+     * 各SQL文は、1列目にオブジェクトの種類、2列目にオブジェクトの名前を返す。
+     * エンティティにスキーマが指定されていない場合は、接続しているユーザのカレントスキーマを検索する。
+     *
+     * @param entity エンティティクラス
+     * @return 依存するオブジェクトを検索するSQL文
+     */
+    public List<String> generateFindDependentObjectsSql(final Class<?> entity) {
+        final String condition = " where table_schema = " + getSchemaLiteral(entity, "current_schema")
+                + " and table_name = " + getTableNameLiteral(entity);
+        return Arrays.asList(
+                "select 'CHECK CONSTRAINT', constraint_name from information_schema.table_constraints"
+                        + condition + " and constraint_type = 'CHECK'",
+                "select 'TRIGGER', trigger_name from information_schema.triggers"
+                        + " where event_object_schema = " + getSchemaLiteral(entity, "current_schema")
+                        + " and event_object_table = " + getTableNameLiteral(entity),
+                "select 'VIEW', view_name from information_schema.view_table_usage" + condition,
+                "select 'GRANT', grantee from information_schema.table_privileges" + condition
+                        + " and grantor <> grantee");
+    }
+
+    /**
+     * データベースのディクショナリを検索する条件に使用するスキーマ名を取得する。
+     *
+     * @param entity エンティティクラス
+     * @param currentSchema エンティティにスキーマが指定されていない場合に使用する、カレントスキーマを返す式
+     * @return スキーマ名の文字列リテラル。スキーマが指定されていない場合はカレントスキーマを返す式
+     */
+    protected String getSchemaLiteral(final Class<?> entity, final String currentSchema) {
+        final String schema = EntityUtil.getSchemaName(entity);
+        return StringUtil.isNullOrEmpty(schema) ? currentSchema : toLiteral(DatabaseUtil.convertIdentifiers(schema));
+    }
+
+    /**
+     * データベースのディクショナリを検索する条件に使用するテーブル名を取得する。
+     *
+     * @param entity エンティティクラス
+     * @return データベースに格納されている大文字小文字に変換したテーブル名の文字列リテラル
+     */
+    protected String getTableNameLiteral(final Class<?> entity) {
+        return toLiteral(DatabaseUtil.convertIdentifiers(EntityUtil.getTableName(entity)));
+    }
+
+    /**
+     * 文字列リテラルに変換する。
+     *
+     * @param value 値
+     * @return 文字列リテラル
+     */
+    protected static String toLiteral(final String value) {
+        return '\'' + value.replace("'", "''") + '\'';
+    }
+
+    /**
+     * 入れ替えの途中で停止した場合に、旧テーブルを入れ替え対象のテーブルに名前を戻すSQL文を生成する。
+     *
+     * @param entity エンティティクラス
+     * @return 名前を変更するSQL文
+     */
+    public String generateRestoreSql(final Class<?> entity) {
+        return generateRenameSql(entity, getOldTableName(entity), EntityUtil.getTableName(entity));
+    }
+
+    /**
+     * テーブル名を変更するSQL文を生成する。
+     *
+     * @param entity エンティティクラス
+     * @param from 変更前のテーブル名(スキーマ名を含まない)
+     * @param to 変更後のテーブル名(スキーマ名を含まない)
+     * @return テーブル名を変更するSQL文
+     */
+    protected String generateRenameSql(final Class<?> entity, final String from, final String to) {
+        return "alter table " + qualify(entity, from) + " rename to " + to;
+    }
+
+    /**
+     * テーブルを削除するSQL文を生成する。
+     *
+     * @param entity エンティティクラス
+     * @param tableName 削除するテーブル名(スキーマ名を含まない)
+     * @return テーブルを削除するSQL文
+     */
+    public String generateDropSql(final Class<?> entity, final String tableName) {
+        return "drop table " + qualify(entity, tableName);
+    }
+}
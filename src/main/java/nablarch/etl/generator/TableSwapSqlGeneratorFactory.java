@@ -0,0 +1,44 @@
+package nablarch.etl.generator;
+
+import nablarch.core.db.connection.TransactionManagerConnection;
+import nablarch.core.util.StringUtil;
+import nablarch.etl.EtlUtil;
+
+/**
+ * テーブルを入れ替えるSQL文を生成するジェネレータのファクトリクラス。
+ * <p/>
+ * データベース接続のURLを元に、テーブルを入れ替えるSQL文のジェネレータクラスを生成する。
+ */
+public final class TableSwapSqlGeneratorFactory {
+
+    /**
+     * 隠蔽コンストラクタ。
+     */
+    private TableSwapSqlGeneratorFactory() {
+    }
+
+    /**
+     * テーブルを入れ替えるSQL文を生成するジェネレータを生成する。
+     *
+     * @param connection データベース接続
+     * @return テーブルを入れ替えるSQL文を生成するジェネレータ
+     */
+    public static TableSwapSqlGenerator create(final TransactionManagerConnection connection) {
+        final String url = EtlUtil.getUrl(connection);
+        if (StringUtil.isNullOrEmpty(url)) {
+            throw new IllegalStateException("failed to get connection url.");
+        }
+        if (url.startsWith("jdbc:sqlserver")) {
+            return new SqlServerTableSwapSqlGenerator();
+        } else if (url.startsWith("jdbc:db2")) {
+            return new Db2TableSwapSqlGenerator();
+        } else if (url.startsWith("jdbc:postgresql:")) {
+            return new PostgresTableSwapSqlGenerator();
+        } else if (url.startsWith("jdbc:oracle")) {
+            return new OracleTableSwapSqlGenerator();
+        } else if (url.startsWith("jdbc:h2")) {
+            return new H2TableSwapSqlGenerator();
+        }
+        return new TableSwapSqlGenerator();
+    }
+}
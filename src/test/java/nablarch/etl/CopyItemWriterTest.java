@@ -0,0 +1,256 @@
+package nablarch.etl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.batch.runtime.context.JobContext;
+import javax.batch.runtime.context.StepContext;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import nablarch.core.db.connection.ConnectionFactory;
+import nablarch.core.db.connection.DbConnectionContext;
+import nablarch.core.db.connection.TransactionManagerConnection;
+import nablarch.core.transaction.TransactionContext;
+import nablarch.etl.config.DbToDbStepConfig;
+import nablarch.etl.config.FileToDbStepConfig;
+import nablarch.test.support.SystemRepositoryResource;
+import nablarch.test.support.db.helper.DatabaseTestRunner;
+import nablarch.test.support.db.helper.VariousDbTestHelper;
+import nablarch.test.support.log.app.OnMemoryLogWriter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+
+import mockit.Expectations;
+import mockit.Mocked;
+
+/**
+ * {@link CopyItemWriter}のテストクラス。
+ * <p/>
+ * PostgreSQLが使用できない環境でもテストできるように、{@code COPY FROM STDIN}の実行部分は
+ * COPY文とデータを記録するスタブに置き換えて検証する。
+ */
+@RunWith(DatabaseTestRunner.class)
+public class CopyItemWriterTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Mocked
+    private JobContext mockJobContext;
+
+    @Mocked
+    private StepContext mockStepContext;
+
+    @ClassRule
+    public static SystemRepositoryResource resource = new SystemRepositoryResource("db-default.xml");
+
+    /** 実行されたCOPY文 */
+    private final List<String> copiedSql = new ArrayList<String>();
+
+    /** COPYで送信されたデータ */
+    private final List<String> copiedData = new ArrayList<String>();
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        VariousDbTestHelper.createTable(EtlCopyItemWriterEntity.class);
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        final ConnectionFactory connectionFactory = resource.getComponentByType(ConnectionFactory.class);
+        final TransactionManagerConnection connection = connectionFactory.getConnection(
+                TransactionContext.DEFAULT_TRANSACTION_CONTEXT_KEY);
+        DbConnectionContext.setConnection(connection);
+        OnMemoryLogWriter.clear();
+
+        new Expectations() {{
+            mockJobContext.getJobName();
+            result = "test-job";
+            minTimes = 0;
+            mockStepContext.getStepName();
+            result = "test-step";
+            minTimes = 0;
+        }};
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        final TransactionManagerConnection connection = DbConnectionContext.getTransactionManagerConnection();
+        connection.terminate();
+        DbConnectionContext.removeConnection();
+    }
+
+    /**
+     * チャンク内のEntityがテーブルのカラム順のCSV形式に変換され、COPYで送信されること。
+     */
+    @Test
+    public void writeItems() throws Exception {
+        final FileToDbStepConfig stepConfig = new FileToDbStepConfig();
+        stepConfig.setBean(EtlCopyItemWriterEntity.class);
+        final CopyItemWriter sut = new RecordingCopyItemWriter(stepConfig);
+
+        sut.open(null);
+        sut.writeItems(Arrays.<Object>asList(
+                new EtlCopyItemWriterEntity("001", "name_1", 10L),
+                new EtlCopyItemWriterEntity("002", "name,\"2\"", null),
+                new EtlCopyItemWriterEntity("003", "", 30L)));
+        sut.writeItems(Arrays.<Object>asList(
+                new EtlCopyItemWriterEntity("004", null, 40L)));
+
+        assertThat(copiedSql, is(Arrays.asList(
+                "copy etl_copy_item_writer (USER_ID, NAME, AGE) from stdin with csv",
+                "copy etl_copy_item_writer (USER_ID, NAME, AGE) from stdin with csv")));
+        assertThat(copiedData, is(Arrays.asList(
+                "\"001\",\"name_1\",10\n"
+                        + "\"002\",\"name,\"\"2\"\"\",\n"
+                        + "\"003\",\"\",30\n",
+                "\"004\",,40\n")));
+        OnMemoryLogWriter.assertLogContains("writer.progress",
+                "-INFO- job name: [test-job] step name: [test-step] write table name: [etl_copy_item_writer]");
+    }
+
+    /**
+     * 値の型に応じてCSVの値に変換されること。
+     */
+    @Test
+    public void appendValue() throws Exception {
+        assertThat(format(new BigDecimal("1E+3")), is("1000"));
+        assertThat(format(true), is("true"));
+        assertThat(format(java.sql.Date.valueOf("2016-01-02")), is("2016-01-02"));
+        assertThat(format(Timestamp.valueOf("2016-01-02 03:04:05.6")), is("2016-01-02 03:04:05.6"));
+        assertThat(format(new java.util.Date(Timestamp.valueOf("2016-01-02 03:04:05.0").getTime())),
+                is("2016-01-02 03:04:05.0"));
+        assertThat(format(new byte[] {0x01, (byte) 0xAB}), is("\\x01ab"));
+        assertThat(format("a\nb"), is("\"a\nb\""));
+    }
+
+    /**
+     * FILEtoDB以外のステップの設定の場合、例外が送出されること。
+     */
+    @Test
+    public void unsupportedStepConfigType_shouldThrowException() throws Exception {
+        final CopyItemWriter sut = new CopyItemWriter(mockJobContext, mockStepContext, new DbToDbStepConfig());
+
+        expectedException.expect(InvalidEtlConfigException.class);
+        expectedException.expectMessage("unsupported config type. supported class is FileToDbStepConfig."
+                + " step config class: " + DbToDbStepConfig.class.getName());
+        sut.open(null);
+    }
+
+    /**
+     * PostgreSQLのJDBCドライバが存在しない場合、例外が送出されること。
+     */
+    @Test
+    public void withoutPostgresDriver_shouldThrowException() throws Exception {
+        final FileToDbStepConfig stepConfig = new FileToDbStepConfig();
+        stepConfig.setBean(EtlCopyItemWriterEntity.class);
+        final CopyItemWriter sut = new CopyItemWriter(mockJobContext, mockStepContext, stepConfig);
+        sut.open(null);
+
+        expectedException.expect(IllegalStateException.class);
+        expectedException.expectMessage("PostgreSQL JDBC driver is required to use COPY.");
+        sut.writeItems(Arrays.<Object>asList(new EtlCopyItemWriterEntity("001", "name_1", 10L)));
+    }
+
+    private static String format(final Object value) {
+        final StringBuilder sb = new StringBuilder();
+        CopyItemWriter.appendValue(sb, value);
+        return sb.toString();
+    }
+
+    /**
+     * COPY文とデータを記録する{@link CopyItemWriter}。
+     */
+    private class RecordingCopyItemWriter extends CopyItemWriter {
+
+        RecordingCopyItemWriter(final FileToDbStepConfig stepConfig) {
+            super(mockJobContext, mockStepContext, stepConfig);
+        }
+
+        @Override
+        long copyIn(final String sql, final Reader data) throws SQLException, IOException {
+            final StringWriter writer = new StringWriter();
+            // レコードの途中で区切られるように、小さいバッファで読み込む
+            final char[] buffer = new char[7];
+            int read;
+            while ((read = data.read(buffer)) != -1) {
+                writer.write(buffer, 0, read);
+            }
+            copiedSql.add(sql);
+            copiedData.add(writer.toString());
+            return 0L;
+        }
+    }
+
+    @Entity
+    @Table(name = "etl_copy_item_writer")
+    public static class EtlCopyItemWriterEntity {
+
+        @Id
+        @Column(name = "user_id", length = 3)
+        public String userId;
+
+        @Column(name = "name")
+        public String name;
+
+        @Column(name = "age")
+        public Long age;
+
+        public EtlCopyItemWriterEntity() {
+        }
+
+        public EtlCopyItemWriterEntity(String userId, String name, Long age) {
+            this.userId = userId;
+            this.name = name;
+            this.age = age;
+        }
+
+        @Id
+        @Column(name = "user_id")
+        public String getUserId() {
+            return userId;
+        }
+
+        public void setUserId(String userId) {
+            this.userId = userId;
+        }
+
+        @Column(name = "name")
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        @Column(name = "age")
+        public Long getAge() {
+            return age;
+        }
+
+        public void setAge(Long age) {
+            this.age = age;
+        }
+    }
+}
@@ -4,6 +4,8 @@ import static org.hamcrest.CoreMatchers.*;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
+import java.io.Serializable;
+
 import javax.batch.runtime.context.JobContext;
 import javax.batch.runtime.context.StepContext;
 import javax.persistence.Column;
@@ -17,6 +19,7 @@ import nablarch.core.db.connection.DbConnectionContext;
 import nablarch.core.db.connection.TransactionManagerConnection;
 import nablarch.core.transaction.TransactionContext;
 import nablarch.etl.config.DbInputStepConfig;
+import nablarch.etl.config.InputCountMode;
 import nablarch.fw.batch.ee.progress.BasicProgressManager;
 import nablarch.test.support.SystemRepositoryResource;
 import nablarch.test.support.db.helper.DatabaseTestRunner;
@@ -208,6 +211,247 @@ public class DatabaseItemReaderTest {
                 containsString("-INFO- job name: [test-job] step name: [test-step] input count: [3]"));
     }
 
+    /**
+     * 読み飛ばす設定でチェックポイントから再開した場合、読み込み済みのレコードを読み飛ばすこと
+     */
+    @Test
+    public void testRestartFromCheckpoint() throws Exception {
+
+        // -------------------------------------------------- setup objects that is injected
+        new Expectations() {{
+            mockDbInputStepConfig.getBean();
+            result = TestEntity.class;
+            mockDbInputStepConfig.getSqlId();
+            result = "SELECT_MULTI_RECORDS";
+            mockDbInputStepConfig.isSkipOnRestart();
+            result = true;
+        }};
+
+        VariousDbTestHelper.setUpTable(
+                  TestEntity.create("10001", "abcdefghij", 10000)
+                , TestEntity.create("10002", "cdefghijkl", 20000)
+                , TestEntity.create("10003", "efghijklmn", 30000)
+                , TestEntity.create("10004", "ghijklmnop", 40000)
+                , TestEntity.create("10005", "ijklmnopqr", 50000)
+        );
+
+        sut.open(2L);
+        assertThat(sut.checkpointInfo(), is((Serializable) 2L));
+
+        TestEntity resultEntity = (TestEntity) sut.readItem();
+        assertThat(resultEntity.getCol1(), is("10003"));
+        assertThat(sut.readItem(), is(nullValue()));
+        assertThat(sut.checkpointInfo(), is((Serializable) 3L));
+    }
+
+    /**
+     * 読み飛ばす設定をしていない場合、チェックポイントから再開しても先頭から読み込み直すこと
+     */
+    @Test
+    public void testRestartWithoutSkip() throws Exception {
+
+        // -------------------------------------------------- setup objects that is injected
+        new Expectations() {{
+            mockDbInputStepConfig.getBean();
+            result = TestEntity.class;
+            mockDbInputStepConfig.getSqlId();
+            result = "SELECT_MULTI_RECORDS";
+        }};
+
+        VariousDbTestHelper.setUpTable(
+                  TestEntity.create("10001", "abcdefghij", 10000)
+                , TestEntity.create("10002", "cdefghijkl", 20000)
+                , TestEntity.create("10003", "efghijklmn", 30000)
+                , TestEntity.create("10004", "ghijklmnop", 40000)
+                , TestEntity.create("10005", "ijklmnopqr", 50000)
+        );
+
+        sut.open(2L);
+        assertThat(sut.checkpointInfo(), is((Serializable) 0L));
+
+        assertThat(((TestEntity) sut.readItem()).getCol1(), is("10005"));
+        assertThat(((TestEntity) sut.readItem()).getCol1(), is("10004"));
+        assertThat(((TestEntity) sut.readItem()).getCol1(), is("10003"));
+        assertThat(sut.readItem(), is(nullValue()));
+        assertThat(sut.checkpointInfo(), is((Serializable) 3L));
+    }
+
+    /**
+     * ページサイズを指定した場合、キーの昇順にページ単位で読み込めること。
+     * <p/>
+     * チェックポイントから再開した場合は、最後に読み込んだキーより大きいレコードから読み込むこと。
+     */
+    @Test
+    public void testReadByKeyset() throws Exception {
+
+        // -------------------------------------------------- setup objects that is injected
+        new Expectations() {{
+            mockDbInputStepConfig.getBean();
+            result = TestEntity.class;
+            mockDbInputStepConfig.getSqlId();
+            result = "SELECT_MULTI_RECORDS";
+            mockDbInputStepConfig.getPageSize();
+            result = 2;
+            mockDbInputStepConfig.getPageKey();
+            result = "COL1";
+            mockDbInputStepConfig.loadSql();
+            result = "SELECT COL1, COL2, COL3 FROM TEST_TABLE WHERE COL3 > 20000";
+        }};
+
+        VariousDbTestHelper.setUpTable(
+                  TestEntity.create("10001", "abcdefghij", 10000)
+                , TestEntity.create("10002", "cdefghijkl", 20000)
+                , TestEntity.create("10003", "efghijklmn", 30000)
+                , TestEntity.create("10004", "ghijklmnop", 40000)
+                , TestEntity.create("10005", "ijklmnopqr", 50000)
+        );
+
+        sut.open(null);
+        assertThat(((TestEntity) sut.readItem()).getCol1(), is("10003"));
+        assertThat(((TestEntity) sut.readItem()).getCol1(), is("10004"));
+        final Serializable checkpoint = sut.checkpointInfo();
+        assertThat(((TestEntity) sut.readItem()).getCol1(), is("10005"));
+        assertThat(sut.readItem(), is(nullValue()));
+
+        sut.open(checkpoint);
+        final TestEntity restarted = (TestEntity) sut.readItem();
+        assertThat(restarted.getCol1(), is("10005"));
+        assertThat(restarted.getCol3(), is(50000));
+        assertThat(sut.readItem(), is(nullValue()));
+    }
+
+    /**
+     * 入力件数を取得するSQL_IDを指定した場合、そのSQL文の結果が入力件数として出力されること。
+     */
+    @Test
+    public void testCountBySqlId() throws Exception {
+
+        // -------------------------------------------------- setup objects that is injected
+        new Expectations() {{
+            mockDbInputStepConfig.getBean();
+            result = TestEntity.class;
+            mockDbInputStepConfig.getSqlId();
+            result = "SELECT_MULTI_RECORDS";
+            mockDbInputStepConfig.getInputCountMode();
+            result = InputCountMode.EXACT;
+            mockDbInputStepConfig.getCountSqlId();
+            result = "COUNT_MULTI_RECORDS";
+        }};
+
+        VariousDbTestHelper.setUpTable(
+                  TestEntity.create("10001", "abcdefghij", 10000)
+                , TestEntity.create("10004", "ghijklmnop", 40000)
+                , TestEntity.create("10005", "ijklmnopqr", 50000)
+        );
+
+        sut.open(null);
+
+        assertThat(((TestEntity) sut.readItem()).getCol1(), is("10005"));
+        final String logMessage = OnMemoryLogWriter.getMessages("writer.progress")
+                                                   .get(0);
+        assertThat(logMessage,
+                containsString("-INFO- job name: [test-job] step name: [test-step] input count: [1]"));
+    }
+
+    /**
+     * 入力件数を取得しないモードの場合、入力件数が出力されずに読み込めること。
+     */
+    @Test
+    public void testInputCountNone() throws Exception {
+
+        // -------------------------------------------------- setup objects that is injected
+        new Expectations() {{
+            mockDbInputStepConfig.getBean();
+            result = TestEntity.class;
+            mockDbInputStepConfig.getSqlId();
+            result = "SELECT_MULTI_RECORDS";
+            mockDbInputStepConfig.getInputCountMode();
+            result = InputCountMode.NONE;
+        }};
+
+        VariousDbTestHelper.setUpTable(
+                  TestEntity.create("10004", "ghijklmnop", 40000)
+                , TestEntity.create("10005", "ijklmnopqr", 50000)
+        );
+
+        sut.open(null);
+
+        assertThat(((TestEntity) sut.readItem()).getCol1(), is("10005"));
+        assertThat(((TestEntity) sut.readItem()).getCol1(), is("10004"));
+        assertThat(sut.readItem(), is(nullValue()));
+        assertThat(OnMemoryLogWriter.getMessages("writer.progress").isEmpty(), is(true));
+    }
+
+    /**
+     * 入力件数の取得モードに見積もりを指定し、テーブルの統計情報が取得できない場合(H2など)、
+     * ワーニングログが出力され、入力件数は進捗ログに出力されないこと。
+     */
+    @Test
+    public void testEstimateWithoutStatistics() throws Exception {
+
+        // -------------------------------------------------- setup objects that is injected
+        new Expectations() {{
+            mockDbInputStepConfig.getBean();
+            result = TestEntity.class;
+            mockDbInputStepConfig.getSqlId();
+            result = "SELECT_MULTI_RECORDS";
+            mockDbInputStepConfig.getInputCountMode();
+            result = InputCountMode.ESTIMATE;
+        }};
+
+        VariousDbTestHelper.setUpTable(
+                  TestEntity.create("10004", "ghijklmnop", 40000)
+                , TestEntity.create("10005", "ijklmnopqr", 50000)
+        );
+
+        sut.open(null);
+
+        assertThat(((TestEntity) sut.readItem()).getCol1(), is("10005"));
+        assertThat(OnMemoryLogWriter.getMessages("writer.progress").isEmpty(), is(true));
+        assertThat(OnMemoryLogWriter.getMessages("writer.memory"), hasItem(containsString(
+                "-WARN- input count can not be estimated because the table statistics are not available."
+                        + " set countSqlId to output the input count. table name = [TEST_TABLE]")));
+    }
+
+    /**
+     * フェッチサイズを指定した場合、カーソルから全てのレコードが読み込めること。
+     * <p/>
+     * クローズ時に取得件数とラウンドトリップ数がログに出力されること。
+     */
+    @Test
+    public void testReadWithFetchSize() throws Exception {
+
+        // -------------------------------------------------- setup objects that is injected
+        new Expectations() {{
+            mockDbInputStepConfig.getBean();
+            result = TestEntity.class;
+            mockDbInputStepConfig.getSqlId();
+            result = "SELECT_MULTI_RECORDS";
+            mockDbInputStepConfig.getInputCountMode();
+            result = InputCountMode.NONE;
+            mockDbInputStepConfig.getFetchSize();
+            result = 2;
+        }};
+
+        VariousDbTestHelper.setUpTable(
+                  TestEntity.create("10003", "efghijklmn", 30000)
+                , TestEntity.create("10004", "ghijklmnop", 40000)
+                , TestEntity.create("10005", "ijklmnopqr", 50000)
+        );
+
+        sut.open(null);
+
+        assertThat(((TestEntity) sut.readItem()).getCol1(), is("10005"));
+        assertThat(((TestEntity) sut.readItem()).getCol1(), is("10004"));
+        assertThat(((TestEntity) sut.readItem()).getCol1(), is("10003"));
+        assertThat(sut.readItem(), is(nullValue()));
+
+        sut.close();
+        assertThat(OnMemoryLogWriter.getMessages("writer.memory"), hasItem(allOf(
+                containsString("fetch statistics. bean class=[" + TestEntity.class.getName() + ']'),
+                containsString("fetched count=[3]"))));
+    }
+
     /**
      * 対象レコードが0件の場合に読み込み結果がnullになること
      */
@@ -5,7 +5,12 @@ import static org.hamcrest.beans.HasPropertyWithValue.hasProperty;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
+import java.io.Serializable;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 
 import javax.batch.runtime.context.JobContext;
@@ -14,6 +19,8 @@ import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Id;
 import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
 
 import org.hamcrest.Matchers;
 
@@ -41,6 +48,7 @@ import org.junit.runner.RunWith;
 
 import mockit.Mocked;
 import mockit.Expectations;
+import mockit.Verifications;
 
 /**
  * {@link DatabaseItemWriter}のテストクラス。
@@ -63,6 +71,7 @@ public class DatabaseItemWriterTest {
     @BeforeClass
     public static void setUpClass() throws Exception {
         VariousDbTestHelper.createTable(EtlDatabaseItemWriterEntity.class);
+        VariousDbTestHelper.createTable(EtlDatabaseItemWriterDateEntity.class);
     }
 
     @Before
@@ -73,6 +82,7 @@ public class DatabaseItemWriterTest {
         DbConnectionContext.setConnection(connection);
 
         VariousDbTestHelper.delete(EtlDatabaseItemWriterEntity.class);
+        VariousDbTestHelper.delete(EtlDatabaseItemWriterDateEntity.class);
         OnMemoryLogWriter.clear();
         
         new Expectations() {{
@@ -129,6 +139,225 @@ public class DatabaseItemWriterTest {
         }
     }
     
+    /**
+     * インデックスの遅延作成が指定された場合、openでインデックスが削除され、closeで再作成されること。
+     */
+    @Test
+    public void deferIndexes() throws Exception {
+        final TransactionManagerConnection connection = DbConnectionContext.getTransactionManagerConnection();
+        connection.prepareStatement("create index etl_database_item_writer_ix on etl_database_item_writer (name)")
+                  .execute();
+        connection.commit();
+
+        final DbToDbStepConfig stepConfig = new DbToDbStepConfig();
+        stepConfig.setBean(EtlDatabaseItemWriterEntity.class);
+        stepConfig.setDeferIndexes(true);
+        stepConfig.setIndexRebuildThreads(2);
+        final DatabaseItemWriter sut = new DatabaseItemWriter(
+                mockJobContext, mockStepContext, stepConfig);
+
+        try {
+            // -------------------------------------------------- execute
+            sut.open(null);
+            assertThat("インデックスが削除されていること", existsIndex("ETL_DATABASE_ITEM_WRITER_IX"), is(false));
+
+            sut.writeItems(Arrays.<Object>asList(
+                    new EtlDatabaseItemWriterEntity("001", "name_1"),
+                    new EtlDatabaseItemWriterEntity("002", "name_2")));
+            connection.commit();
+            sut.close();
+
+            // -------------------------------------------------- assert
+            assertThat("インデックスが再作成されていること", existsIndex("ETL_DATABASE_ITEM_WRITER_IX"), is(true));
+            assertThat(VariousDbTestHelper.findAll(EtlDatabaseItemWriterEntity.class).size(), is(2));
+            OnMemoryLogWriter.assertLogContains("writer.memory",
+                    "indexes dropped. table name=[etl_database_item_writer], indexes=[ETL_DATABASE_ITEM_WRITER_IX]");
+            OnMemoryLogWriter.assertLogContains("writer.memory",
+                    "indexes rebuilt. table name=[etl_database_item_writer], index count=[1], threads=[1]");
+        } finally {
+            if (existsIndex("ETL_DATABASE_ITEM_WRITER_IX")) {
+                connection.prepareStatement("drop index etl_database_item_writer_ix").execute();
+                connection.commit();
+            }
+        }
+    }
+
+    /**
+     * インデックスを削除した後に異常終了した場合、再実行時にステップの永続ユーザデータに保存された定義から
+     * インデックスが再作成されること。
+     */
+    @Test
+    public void deferIndexes_restart() throws Exception {
+        final TransactionManagerConnection connection = DbConnectionContext.getTransactionManagerConnection();
+        connection.prepareStatement("create index etl_database_item_writer_ix on etl_database_item_writer (name)")
+                  .execute();
+        connection.commit();
+
+        final DbToDbStepConfig stepConfig = new DbToDbStepConfig();
+        stepConfig.setBean(EtlDatabaseItemWriterEntity.class);
+        stepConfig.setDeferIndexes(true);
+
+        try {
+            // -------------------------------------------------- 1st execution (closeされずに異常終了)
+            new DatabaseItemWriter(mockJobContext, mockStepContext, stepConfig).open(null);
+            assertThat("インデックスが削除されていること", existsIndex("ETL_DATABASE_ITEM_WRITER_IX"), is(false));
+
+            final List<Serializable> saved = new ArrayList<Serializable>();
+            new Verifications() {{
+                mockStepContext.setPersistentUserData(withCapture(saved));
+            }};
+            assertThat("削除したインデックスの定義が保存されていること", saved.size(), is(1));
+
+            // -------------------------------------------------- 2nd execution
+            new Expectations() {{
+                mockStepContext.getPersistentUserData();
+                result = saved.get(0);
+            }};
+            final DatabaseItemWriter sut = new DatabaseItemWriter(mockJobContext, mockStepContext, stepConfig);
+            sut.open(null);
+            sut.writeItems(Arrays.<Object>asList(new EtlDatabaseItemWriterEntity("001", "name_1")));
+            connection.commit();
+            sut.close();
+
+            // -------------------------------------------------- assert
+            assertThat("インデックスが再作成されていること", existsIndex("ETL_DATABASE_ITEM_WRITER_IX"), is(true));
+            OnMemoryLogWriter.assertLogContains("writer.memory",
+                    "-WARN- indexes dropped in the previous execution will be rebuilt."
+                            + " table name=[etl_database_item_writer], indexes=[ETL_DATABASE_ITEM_WRITER_IX]");
+            new Verifications() {{
+                mockStepContext.setPersistentUserData(null);
+            }};
+        } finally {
+            if (existsIndex("ETL_DATABASE_ITEM_WRITER_IX")) {
+                connection.prepareStatement("drop index etl_database_item_writer_ix").execute();
+                connection.commit();
+            }
+        }
+    }
+
+    /**
+     * パーティション実行でインデックスの遅延作成が指定された場合、例外が送出されること。
+     */
+    @Test
+    public void deferIndexesWithPartitions_shouldThrowException() throws Exception {
+        final FileToDbStepConfig stepConfig = new FileToDbStepConfig();
+        stepConfig.setBean(EtlDatabaseItemWriterEntity.class);
+        stepConfig.setDeferIndexes(true);
+        stepConfig.setPartitions(2);
+        final DatabaseItemWriter sut = new DatabaseItemWriter(
+                mockJobContext, mockStepContext, stepConfig);
+
+        expectedException.expect(InvalidEtlConfigException.class);
+        expectedException.expectMessage("deferIndexes can not be used with partitions."
+                + " jobId = [test-job], stepId = [test-step], partitions = [2]");
+        sut.open(null);
+    }
+
+    private static boolean existsIndex(final String indexName) throws Exception {
+        final ResultSet rs = DbConnectionContext.getTransactionManagerConnection()
+                                                .getConnection()
+                                                .getMetaData()
+                                                .getIndexInfo(null, null, "ETL_DATABASE_ITEM_WRITER", false, false);
+        try {
+            while (rs.next()) {
+                if (indexName.equals(rs.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            rs.close();
+        }
+    }
+
+    /**
+     * 一括登録の行数が指定された場合、複数行を指定したINSERT文で登録されること。
+     */
+    @Test
+    public void bulkInsert() throws Exception {
+
+        final FileToDbStepConfig stepConfig = new FileToDbStepConfig();
+        stepConfig.setBean(EtlDatabaseItemWriterEntity.class);
+        stepConfig.setBulkInsertSize(2);
+        final DatabaseItemWriter sut = new DatabaseItemWriter(
+                mockJobContext, mockStepContext, stepConfig);
+
+        // -------------------------------------------------- execute
+        sut.open(null);
+        sut.writeItems(Arrays.<Object>asList(
+                new EtlDatabaseItemWriterEntity("001", "name_1"),
+                new EtlDatabaseItemWriterEntity("002", null),
+                new EtlDatabaseItemWriterEntity("003", "name_3"),
+                new EtlDatabaseItemWriterEntity("004", "name_4"),
+                new EtlDatabaseItemWriterEntity("005", "name_5")));
+
+        // -------------------------------------------------- commit transaction
+        DbConnectionContext.getTransactionManagerConnection().commit();
+
+        // -------------------------------------------------- assert table
+        final List<EtlDatabaseItemWriterEntity> result =
+                VariousDbTestHelper.findAll(EtlDatabaseItemWriterEntity.class, "userId");
+        assertThat("5レコード登録されていること", result.size(), is(5));
+        String[][] expected = {{"001", "name_1"}, {"002", null}, {"003", "name_3"}, {"004", "name_4"}, {"005", "name_5"}};
+        for (int i = 0; i < result.size(); i++) {
+            assertThat("id", result.get(i).getUserId(), is(expected[i][0]));
+            assertThat("name", result.get(i).getName(), is(expected[i][1]));
+        }
+
+        // -------------------------------------------------- assert log
+        OnMemoryLogWriter.assertLogContains("writer.sql", "values (?, ?), (?, ?)");
+    }
+
+    /**
+     * 一括登録の行数が指定された場合、{@code java.util.Date}のプロパティがカラムの型に変換されて登録されること。
+     */
+    @Test
+    public void bulkInsertDateColumn() throws Exception {
+
+        final FileToDbStepConfig stepConfig = new FileToDbStepConfig();
+        stepConfig.setBean(EtlDatabaseItemWriterDateEntity.class);
+        stepConfig.setBulkInsertSize(2);
+        final DatabaseItemWriter sut = new DatabaseItemWriter(
+                mockJobContext, mockStepContext, stepConfig);
+
+        final Date updated = new Date(Timestamp.valueOf("2016-01-02 03:04:05.0").getTime());
+
+        // -------------------------------------------------- execute
+        sut.open(null);
+        sut.writeItems(Arrays.<Object>asList(
+                new EtlDatabaseItemWriterDateEntity("001", updated),
+                new EtlDatabaseItemWriterDateEntity("002", null),
+                new EtlDatabaseItemWriterDateEntity("003", updated)));
+
+        // -------------------------------------------------- commit transaction
+        DbConnectionContext.getTransactionManagerConnection().commit();
+
+        // -------------------------------------------------- assert table
+        final List<EtlDatabaseItemWriterDateEntity> result =
+                VariousDbTestHelper.findAll(EtlDatabaseItemWriterDateEntity.class, "userId");
+        assertThat("3レコード登録されていること", result.size(), is(3));
+        assertThat(result.get(0).getUpdatedAt().getTime(), is(updated.getTime()));
+        assertThat(result.get(1).getUpdatedAt(), is(nullValue()));
+        assertThat(result.get(2).getUpdatedAt().getTime(), is(updated.getTime()));
+    }
+
+    /**
+     * 一括登録の行数に0以下が指定された場合、例外が送出されること。
+     */
+    @Test
+    public void invalidBulkInsertSize_shouldThrowException() throws Exception {
+        final DbToDbStepConfig stepConfig = new DbToDbStepConfig();
+        stepConfig.setBean(EtlDatabaseItemWriterEntity.class);
+        stepConfig.setBulkInsertSize(0);
+        final DatabaseItemWriter sut = new DatabaseItemWriter(
+                mockJobContext, mockStepContext, stepConfig);
+
+        expectedException.expect(InvalidEtlConfigException.class);
+        expectedException.expectMessage(
+                "bulkInsertSize must be greater than 0. jobId = [test-job], stepId = [test-step], size = [0]");
+        sut.open(null);
+    }
+
     /**
      * INSERTに失敗した場合、例外が送出されること。
      */
@@ -265,6 +494,48 @@ public class DatabaseItemWriterTest {
         }
     }
 
+    // 日時のカラムを持つテスト用のEntityクラス
+    @Entity
+    @Table(name = "etl_database_item_writer_date")
+    public static class EtlDatabaseItemWriterDateEntity {
+
+        @Id
+        @Column(name = "user_id", length = 3)
+        public String userId;
+
+        @Column(name = "updated_at")
+        @Temporal(TemporalType.TIMESTAMP)
+        public Date updatedAt;
+
+        public EtlDatabaseItemWriterDateEntity() {
+        }
+
+        public EtlDatabaseItemWriterDateEntity(String userId, Date updatedAt) {
+            this.userId = userId;
+            this.updatedAt = updatedAt;
+        }
+
+        @Id
+        @Column(name = "user_id")
+        public String getUserId() {
+            return userId;
+        }
+
+        public void setUserId(String userId) {
+            this.userId = userId;
+        }
+
+        @Column(name = "updated_at")
+        @Temporal(TemporalType.TIMESTAMP)
+        public Date getUpdatedAt() {
+            return updatedAt;
+        }
+
+        public void setUpdatedAt(Date updatedAt) {
+            this.updatedAt = updatedAt;
+        }
+    }
+
     private static class MyStepConfig extends StepConfig {
 
         @Override
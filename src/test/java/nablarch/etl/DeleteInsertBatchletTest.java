@@ -4,6 +4,9 @@ import static org.hamcrest.CoreMatchers.*;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
+import java.io.Serializable;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -23,6 +26,7 @@ import nablarch.core.db.connection.TransactionManagerConnection;
 import nablarch.core.transaction.TransactionContext;
 import nablarch.core.transaction.TransactionFactory;
 import nablarch.etl.config.DbToDbStepConfig;
+import nablarch.etl.config.DbToDbStepConfig.CleaningMode;
 import nablarch.etl.config.DbToDbStepConfig.InsertMode;
 import nablarch.etl.config.DbToDbStepConfig.UpdateSize;
 import nablarch.fw.batch.ee.progress.BasicProgressManager;
@@ -41,7 +45,10 @@ import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 
 import mockit.Expectations;
+import mockit.Mock;
+import mockit.MockUp;
 import mockit.Mocked;
+import mockit.Verifications;
 
 /**
  * {@link DeleteInsertBatchlet}のテストクラス。
@@ -322,6 +329,476 @@ public class DeleteInsertBatchletTest {
         ));
     }
 
+    /**
+     * クリーニングモードにTRUNCATEを指定した場合、TRUNCATE文でクリーニングが行われること。
+     */
+    @Test
+    public void truncateAndInsert() throws Exception {
+
+        // -------------------------------------------------- setup work table data
+        VariousDbTestHelper.insert(
+                new WorkTableEntity(1L, 1L, "last1", "first1", "北海道"),
+                new WorkTableEntity(2L, 2L, "last2", "first2", "東京")
+        );
+
+        // 既存のデータ
+        VariousDbTestHelper.insert(
+                new BulkInsertEntity(3L, "last", "first", "fuga")
+        );
+
+        // -------------------------------------------------- setup objects that is injected
+        final DbToDbStepConfig stepConfig = new DbToDbStepConfig();
+        stepConfig.setSqlId("SELECT_ALL");
+        stepConfig.setBean(BulkInsertEntity.class);
+        stepConfig.setCleaningMode(CleaningMode.TRUNCATE);
+        stepConfig.initialize();
+
+        final DeleteInsertBatchlet sut = new DeleteInsertBatchlet(
+                mockJobContext,
+                mockStepContext,
+                new RangeUpdateHelper(mockJobContext, mockStepContext),
+                stepConfig,
+                new BasicProgressManager(mockJobContext, mockStepContext));
+
+        // -------------------------------------------------- execute
+        sut.process();
+        connection.commit();
+
+        final List<BulkInsertEntity> result = VariousDbTestHelper.findAll(BulkInsertEntity.class, "userId");
+        assertThat("truncate -> insertで2レコード登録されていること", result.size(), is(2));
+        assertThat(result.get(0).userId, is(1L));
+        assertThat(result.get(1).userId, is(2L));
+
+        // -------------------------------------------------- assert log
+        OnMemoryLogWriter.assertLogContains("writer.sql", "truncate table bulk_insert_entity");
+        final List<String> messages = OnMemoryLogWriter.getMessages("writer.progress");
+        assertThat(messages.get(0), containsString(
+                "-INFO- job name: [test-job] step name: [test-step] table name: [bulk_insert_entity] truncated"));
+    }
+
+    /**
+     * INSERTモードにSWAPを指定した場合、シャドウテーブルに登録後に出力先テーブルと入れ替えられること。
+     */
+    @Test
+    public void swapInsert() throws Exception {
+
+        // -------------------------------------------------- setup work table data
+        VariousDbTestHelper.insert(
+                new WorkTableEntity(1L, 1L, "last1", "first1", "北海道"),
+                new WorkTableEntity(2L, 2L, "last2", "first2", "東京")
+        );
+
+        // 既存のデータ
+        VariousDbTestHelper.insert(
+                new BulkInsertEntity(3L, "last", "first", "fuga")
+        );
+
+        // -------------------------------------------------- setup objects that is injected
+        final DbToDbStepConfig stepConfig = new DbToDbStepConfig();
+        stepConfig.setSqlId("SELECT_ALL");
+        stepConfig.setBean(BulkInsertEntity.class);
+        stepConfig.setInsertMode(InsertMode.SWAP);
+        stepConfig.initialize();
+
+        final DeleteInsertBatchlet sut = new DeleteInsertBatchlet(
+                mockJobContext,
+                mockStepContext,
+                new RangeUpdateHelper(mockJobContext, mockStepContext),
+                stepConfig,
+                new BasicProgressManager(mockJobContext, mockStepContext));
+
+        // -------------------------------------------------- execute
+        sut.process();
+        connection.commit();
+
+        final List<BulkInsertEntity> result = VariousDbTestHelper.findAll(BulkInsertEntity.class, "userId");
+        assertThat("入れ替え後は移送元の2レコードのみであること", result.size(), is(2));
+        assertThat(result.get(0).userId, is(1L));
+        assertThat(result.get(1).userId, is(2L));
+
+        // -------------------------------------------------- assert table
+        final DatabaseMetaData metaData = connection.getConnection().getMetaData();
+        assertThat("シャドウテーブルが残っていないこと", existsTable(metaData, "BULK_INSERT_ENTITY_SHADOW"), is(false));
+        assertThat("旧テーブルが残っていないこと", existsTable(metaData, "BULK_INSERT_ENTITY_OLD"), is(false));
+        final ResultSet primaryKeys = metaData.getPrimaryKeys(null, null, "BULK_INSERT_ENTITY");
+        try {
+            assertThat("主キーが作成されていること", primaryKeys.next(), is(true));
+            assertThat(primaryKeys.getString("COLUMN_NAME"), is("USER_ID"));
+        } finally {
+            primaryKeys.close();
+        }
+
+        // -------------------------------------------------- assert log
+        OnMemoryLogWriter.assertLogContains("writer.sql",
+                "create table bulk_insert_entity_SHADOW as select * from bulk_insert_entity where 1 = 0");
+        final List<String> messages = OnMemoryLogWriter.getMessages("writer.progress");
+        assertThat(messages.get(messages.size() - 1), containsString(
+                "-INFO- job name: [test-job] step name: [test-step] table name: [bulk_insert_entity] swapped"));
+    }
+
+    /**
+     * INSERTモードにSWAPを指定した場合、降順のインデックスは並び順を維持して作成されること。
+     */
+    @Test
+    public void swapInsert_descendingIndex() throws Exception {
+
+        VariousDbTestHelper.insert(
+                new WorkTableEntity(1L, 1L, "last1", "first1", "北海道")
+        );
+        connection.prepareStatement("create index bulk_insert_entity_ix1 on bulk_insert_entity (last_name desc)")
+                  .execute();
+        connection.commit();
+
+        // -------------------------------------------------- setup objects that is injected
+        final DbToDbStepConfig stepConfig = new DbToDbStepConfig();
+        stepConfig.setSqlId("SELECT_ALL");
+        stepConfig.setBean(BulkInsertEntity.class);
+        stepConfig.setInsertMode(InsertMode.SWAP);
+        stepConfig.initialize();
+
+        final DeleteInsertBatchlet sut = new DeleteInsertBatchlet(
+                mockJobContext,
+                mockStepContext,
+                new RangeUpdateHelper(mockJobContext, mockStepContext),
+                stepConfig,
+                new BasicProgressManager(mockJobContext, mockStepContext));
+
+        // -------------------------------------------------- execute
+        try {
+            sut.process();
+            connection.commit();
+
+            OnMemoryLogWriter.assertLogContains("writer.sql",
+                    "create index BULK_INSERT_ENTITY_IX1_SHADOW on bulk_insert_entity_SHADOW (LAST_NAME desc)");
+        } finally {
+            final DatabaseMetaData metaData = connection.getConnection().getMetaData();
+            final ResultSet indexes = metaData.getIndexInfo(null, null, "BULK_INSERT_ENTITY", false, false);
+            final List<String> indexNames = new ArrayList<String>();
+            try {
+                while (indexes.next()) {
+                    if (indexes.getString("INDEX_NAME") != null
+                            && indexes.getString("INDEX_NAME").toUpperCase().startsWith("BULK_INSERT_ENTITY_IX1")) {
+                        indexNames.add(indexes.getString("INDEX_NAME"));
+                    }
+                }
+            } finally {
+                indexes.close();
+            }
+            for (String indexName : indexNames) {
+                connection.prepareStatement("drop index " + indexName).execute();
+            }
+            connection.commit();
+        }
+    }
+
+    /**
+     * INSERTモードにSWAPを指定し、{@link UpdateSize}を設定した場合は例外が送出されること。
+     */
+    @Test
+    public void testSpecifySwapModeAndUpdateSize() throws Exception {
+        final DbToDbStepConfig stepConfig = new DbToDbStepConfig();
+        stepConfig.setBean(BulkInsertEntity.class);
+        stepConfig.setSqlId("SELECT_ALL");
+        stepConfig.setInsertMode(InsertMode.SWAP);
+        stepConfig.setUpdateSize(new UpdateSize());
+
+        final DeleteInsertBatchlet sut = new DeleteInsertBatchlet(
+                mockJobContext,
+                mockStepContext,
+                new RangeUpdateHelper(mockJobContext, mockStepContext),
+                stepConfig,
+                new BasicProgressManager(mockJobContext, mockStepContext));
+
+        expectedException.expect(InvalidEtlConfigException.class);
+        expectedException.expectMessage("Swap mode does not support UpdateSize.");
+        sut.process();
+    }
+
+    /**
+     * 前回の実行で移送先テーブルを旧テーブルに変更した後に停止していた場合、
+     * 旧テーブルの名前を戻してから入れ替えが行われること。
+     */
+    @Test
+    public void swapInsert_recoverFromInterruptedSwap() throws Exception {
+
+        // -------------------------------------------------- setup work table data
+        VariousDbTestHelper.insert(
+                new WorkTableEntity(1L, 1L, "last1", "first1", "北海道")
+        );
+        VariousDbTestHelper.insert(
+                new BulkInsertEntity(3L, "last", "first", "fuga")
+        );
+
+        // 移送先テーブルを旧テーブルに変更した状態を再現する
+        connection.prepareStatement(
+                "create table bulk_insert_entity_SHADOW as select * from bulk_insert_entity where 1 = 0").execute();
+        connection.prepareStatement("alter table bulk_insert_entity rename to bulk_insert_entity_OLD").execute();
+        connection.commit();
+
+        // -------------------------------------------------- setup objects that is injected
+        final DbToDbStepConfig stepConfig = new DbToDbStepConfig();
+        stepConfig.setSqlId("SELECT_ALL");
+        stepConfig.setBean(BulkInsertEntity.class);
+        stepConfig.setInsertMode(InsertMode.SWAP);
+        stepConfig.initialize();
+
+        final DeleteInsertBatchlet sut = new DeleteInsertBatchlet(
+                mockJobContext,
+                mockStepContext,
+                new RangeUpdateHelper(mockJobContext, mockStepContext),
+                stepConfig,
+                new BasicProgressManager(mockJobContext, mockStepContext));
+
+        // -------------------------------------------------- execute
+        sut.process();
+        connection.commit();
+
+        final List<BulkInsertEntity> result = VariousDbTestHelper.findAll(BulkInsertEntity.class, "userId");
+        assertThat(result.size(), is(1));
+        assertThat(result.get(0).userId, is(1L));
+
+        final DatabaseMetaData metaData = connection.getConnection().getMetaData();
+        assertThat("シャドウテーブルが残っていないこと", existsTable(metaData, "BULK_INSERT_ENTITY_SHADOW"), is(false));
+        assertThat("旧テーブルが残っていないこと", existsTable(metaData, "BULK_INSERT_ENTITY_OLD"), is(false));
+
+        // -------------------------------------------------- assert log
+        OnMemoryLogWriter.assertLogContains("writer.sql", "alter table bulk_insert_entity_OLD rename to bulk_insert_entity");
+        OnMemoryLogWriter.assertLogContains("writer.progress",
+                "-INFO- job name: [test-job] step name: [test-step] table name: [bulk_insert_entity]"
+                        + " restored from the previous swap");
+    }
+
+    /**
+     * INSERTモードにSWAPを指定し、移送先テーブルを参照するビューがある場合は例外が送出され、テーブルが入れ替えられないこと。
+     */
+    @Test
+    public void swapInsert_tableWithView() throws Exception {
+
+        VariousDbTestHelper.insert(
+                new BulkInsertEntity(3L, "last", "first", "fuga")
+        );
+        connection.prepareStatement(
+                "create view bulk_insert_entity_view as select user_id from bulk_insert_entity").execute();
+        connection.commit();
+
+        // -------------------------------------------------- setup objects that is injected
+        final DbToDbStepConfig stepConfig = new DbToDbStepConfig();
+        stepConfig.setSqlId("SELECT_ALL");
+        stepConfig.setBean(BulkInsertEntity.class);
+        stepConfig.setInsertMode(InsertMode.SWAP);
+        stepConfig.initialize();
+
+        final DeleteInsertBatchlet sut = new DeleteInsertBatchlet(
+                mockJobContext,
+                mockStepContext,
+                new RangeUpdateHelper(mockJobContext, mockStepContext),
+                stepConfig,
+                new BasicProgressManager(mockJobContext, mockStepContext));
+
+        // -------------------------------------------------- execute
+        try {
+            sut.process();
+            fail();
+        } catch (InvalidEtlConfigException e) {
+            assertThat(e.getMessage(), allOf(
+                    containsString("Swap mode does not support tables with objects"
+                            + " that can not be copied to the shadow table."),
+                    containsString("table name = [bulk_insert_entity], object type = [VIEW]")));
+        } finally {
+            connection.prepareStatement("drop view bulk_insert_entity_view").execute();
+            connection.commit();
+        }
+
+        final List<BulkInsertEntity> result = VariousDbTestHelper.findAll(BulkInsertEntity.class, "userId");
+        assertThat("移送先テーブルは変更されていないこと", result.size(), is(1));
+        assertThat(result.get(0).userId, is(3L));
+        assertThat("シャドウテーブルが作成されていないこと",
+                existsTable(connection.getConnection().getMetaData(), "BULK_INSERT_ENTITY_SHADOW"), is(false));
+    }
+
+    /**
+     * インデックスの削除と再作成を指定し、登録処理とインデックスの再作成の両方に失敗した場合、
+     * 登録処理の例外が送出され、再作成の失敗はワーニングログに出力されること。
+     */
+    @Test
+    public void deferIndexes_rebuildFailedAfterInsertFailed() throws Exception {
+
+        // 移送先テーブルの主キーが重複するデータ
+        VariousDbTestHelper.insert(
+                new WorkTableEntity(1L, 1L, "last1", "first1", "北海道"),
+                new WorkTableEntity(2L, 1L, "last2", "first2", "東京")
+        );
+
+        new MockUp<DeferredIndexes>() {
+            @Mock
+            void rebuild() {
+                throw new IllegalStateException("rebuild failed.");
+            }
+        };
+
+        // -------------------------------------------------- setup objects that is injected
+        final DbToDbStepConfig stepConfig = new DbToDbStepConfig();
+        stepConfig.setSqlId("SELECT_ALL");
+        stepConfig.setBean(BulkInsertEntity.class);
+        stepConfig.setDeferIndexes(true);
+        stepConfig.initialize();
+
+        final DeleteInsertBatchlet sut = new DeleteInsertBatchlet(
+                mockJobContext,
+                mockStepContext,
+                new RangeUpdateHelper(mockJobContext, mockStepContext),
+                stepConfig,
+                new BasicProgressManager(mockJobContext, mockStepContext));
+
+        // -------------------------------------------------- execute
+        try {
+            sut.process();
+            fail();
+        } catch (DbAccessException e) {
+            // 登録処理の例外が送出されること
+        }
+
+        OnMemoryLogWriter.assertLogContains("writer.memory",
+                "-WARN- failed to rebuild the dropped indexes after the insert failed."
+                        + " the indexes will be rebuilt on restart.");
+    }
+
+    /**
+     * INSERTモードにSWAPを指定し、インデックスの削除と再作成を指定した場合は例外が送出されること。
+     */
+    @Test
+    public void testSpecifySwapModeAndDeferIndexes() throws Exception {
+        final DbToDbStepConfig stepConfig = new DbToDbStepConfig();
+        stepConfig.setBean(BulkInsertEntity.class);
+        stepConfig.setSqlId("SELECT_ALL");
+        stepConfig.setInsertMode(InsertMode.SWAP);
+        stepConfig.setDeferIndexes(true);
+
+        final DeleteInsertBatchlet sut = new DeleteInsertBatchlet(
+                mockJobContext,
+                mockStepContext,
+                new RangeUpdateHelper(mockJobContext, mockStepContext),
+                stepConfig,
+                new BasicProgressManager(mockJobContext, mockStepContext));
+
+        expectedException.expect(InvalidEtlConfigException.class);
+        expectedException.expectMessage("Swap mode does not support deferIndexes.");
+        sut.process();
+    }
+
+    /**
+     * インデックスの削除と再作成を指定し、{@link UpdateSize}を設定した場合は例外が送出されること。
+     */
+    @Test
+    public void testSpecifyDeferIndexesAndUpdateSize() throws Exception {
+        final DbToDbStepConfig stepConfig = new DbToDbStepConfig();
+        stepConfig.setBean(BulkInsertEntity.class);
+        stepConfig.setSqlId("SELECT_ALL");
+        stepConfig.setDeferIndexes(true);
+        stepConfig.setUpdateSize(new UpdateSize());
+
+        final DeleteInsertBatchlet sut = new DeleteInsertBatchlet(
+                mockJobContext,
+                mockStepContext,
+                new RangeUpdateHelper(mockJobContext, mockStepContext),
+                stepConfig,
+                new BasicProgressManager(mockJobContext, mockStepContext));
+
+        expectedException.expect(InvalidEtlConfigException.class);
+        expectedException.expectMessage(
+                "deferIndexes can not be used with updateSize. jobId = [test-job], stepId = [test-step]");
+        sut.process();
+    }
+
+    private static boolean existsTable(final DatabaseMetaData metaData, final String tableName) throws Exception {
+        final ResultSet tables = metaData.getTables(null, null, tableName, null);
+        try {
+            return tables.next();
+        } finally {
+            tables.close();
+        }
+    }
+
+    /**
+     * クリーニングモードに分割削除を指定した場合、指定件数ごとにコミットしながらクリーニングが行われること。
+     */
+    @Test
+    public void chunkedDeleteAndInsert() throws Exception {
+
+        // -------------------------------------------------- setup work table data
+        VariousDbTestHelper.insert(
+                new WorkTableEntity(1L, 1L, "last1", "first1", "北海道"),
+                new WorkTableEntity(2L, 2L, "last2", "first2", "東京")
+        );
+
+        // 既存のデータ
+        VariousDbTestHelper.insert(
+                new BulkInsertEntity(3L, "last3", "first3", "fuga"),
+                new BulkInsertEntity(4L, "last4", "first4", "fuga"),
+                new BulkInsertEntity(5L, "last5", "first5", "fuga")
+        );
+
+        // -------------------------------------------------- setup objects that is injected
+        final DbToDbStepConfig stepConfig = new DbToDbStepConfig();
+        stepConfig.setSqlId("SELECT_ALL");
+        stepConfig.setBean(BulkInsertEntity.class);
+        stepConfig.setCleaningMode(CleaningMode.CHUNKED_DELETE);
+        stepConfig.setCleaningChunkSize(2);
+        stepConfig.initialize();
+
+        final DeleteInsertBatchlet sut = new DeleteInsertBatchlet(
+                mockJobContext,
+                mockStepContext,
+                new RangeUpdateHelper(mockJobContext, mockStepContext),
+                stepConfig,
+                new BasicProgressManager(mockJobContext, mockStepContext));
+
+        // -------------------------------------------------- execute
+        sut.process();
+        connection.commit();
+
+        final List<BulkInsertEntity> result = VariousDbTestHelper.findAll(BulkInsertEntity.class, "userId");
+        assertThat("chunked delete -> insertで2レコード登録されていること", result.size(), is(2));
+        assertThat(result.get(0).userId, is(1L));
+        assertThat(result.get(1).userId, is(2L));
+
+        // -------------------------------------------------- assert log
+        final List<String> sqlLogs = OnMemoryLogWriter.getMessages("writer.sql");
+        int commitLogCount = 0;
+        for (String message : sqlLogs) {
+            if (message.contains("transaction commit.")) {
+                commitLogCount++;
+            }
+        }
+        assertThat("クリーニングで2回コミットが行われること", commitLogCount, is(2));
+
+        final List<String> messages = OnMemoryLogWriter.getMessages("writer.progress");
+        assertThat(messages.get(0), containsString(
+                "-INFO- job name: [test-job] step name: [test-step] table name: [bulk_insert_entity] delete count: [3]"));
+    }
+
+    /**
+     * 分割削除で1回に削除するレコード数が設定されていない場合、例外が送出されること。
+     */
+    @Test
+    public void chunkedDeleteWithoutChunkSize_shouldThrowException() throws Exception {
+        final DbToDbStepConfig stepConfig = new DbToDbStepConfig();
+        stepConfig.setSqlId("SELECT_ALL");
+        stepConfig.setBean(BulkInsertEntity.class);
+        stepConfig.setCleaningMode(CleaningMode.CHUNKED_DELETE);
+
+        final DeleteInsertBatchlet sut = new DeleteInsertBatchlet(
+                mockJobContext,
+                mockStepContext,
+                new RangeUpdateHelper(mockJobContext, mockStepContext),
+                stepConfig,
+                new BasicProgressManager(mockJobContext, mockStepContext));
+
+        expectedException.expect(InvalidEtlConfigException.class);
+        expectedException.expectMessage("cleaningChunkSize is required. jobId = [test-job], stepId = [test-step]");
+        sut.process();
+    }
+
     /**
      * Rangeで分割してInsert処理が実行できること
      */
@@ -476,6 +953,85 @@ public class DeleteInsertBatchletTest {
         ));
     }
 
+    /**
+     * 前回の実行でコミット済みの位置が保存されている場合、クリーニングを行わずにその次の範囲から処理が再開されること。
+     */
+    @Test
+    public void restartRangeSplitInsert() throws Exception {
+
+        // -------------------------------------------------- setup work table data
+        VariousDbTestHelper.insert(
+                new WorkTableEntity(1L, 1L, "last1", "first1", "北海道"),
+                new WorkTableEntity(2L, 2L, "last2", "first2", "東京"),
+                new WorkTableEntity(3L, 3L, "last3", "first3", "長野"),
+                new WorkTableEntity(4L, 4L, "last4", "first4", "大阪"),
+                new WorkTableEntity(5L, 5L, "last5", "first5", "福岡")
+        );
+
+        // 前回の実行でコミット済みのデータ
+        VariousDbTestHelper.insert(
+                new BulkInsertEntity(1L, "last1", "first1", "北海道"),
+                new BulkInsertEntity(2L, "last2", "first2", "東京")
+        );
+
+        // -------------------------------------------------- setup objects that is injected
+        final DbToDbStepConfig stepConfig = new DbToDbStepConfig();
+        stepConfig.setSqlId("SELECT_ALL_WITH_RANGE");
+        stepConfig.setBean(BulkInsertEntity.class);
+        stepConfig.setInsertMode(InsertMode.NORMAL);
+        final UpdateSize size = new UpdateSize();
+        size.setSize(1);
+        size.setBean(WorkTableEntity.class);
+        stepConfig.setUpdateSize(size);
+        stepConfig.initialize();
+
+        new Expectations() {{
+            mockStepContext.getPersistentUserData();
+            result = 2L;
+        }};
+
+        final DeleteInsertBatchlet sut = new DeleteInsertBatchlet(
+                mockJobContext,
+                mockStepContext,
+                new RangeUpdateHelper(mockJobContext, mockStepContext),
+                stepConfig,
+                new BasicProgressManager(mockJobContext, mockStepContext));
+
+        // -------------------------------------------------- execute
+        sut.process();
+        connection.commit();
+
+        final List<BulkInsertEntity> result = VariousDbTestHelper.findAll(BulkInsertEntity.class, "userId");
+        assertThat("コミット済みの2レコードと再開後の3レコードが登録されていること", result.size(), is(5));
+
+        int index = 0;
+        String[] address = {"北海道", "東京", "長野", "大阪", "福岡"};
+        for (BulkInsertEntity entity : result) {
+            index++;
+            assertThat(entity.userId, is((long) index));
+            assertThat(entity.address, is(address[index - 1]));
+        }
+
+        // -------------------------------------------------- assert log
+        final List<String> messages = OnMemoryLogWriter.getMessages("writer.progress");
+        assertThat(messages, Matchers.contains(
+                containsString("-INFO- job name: [test-job] step name: [test-step] table name: [bulk_insert_entity] cleaning skipped"),
+                containsString("-INFO- job name: [test-job] step name: [test-step] input count: [5]"),
+                containsString("-INFO- job name: [test-job] step name: [test-step] restart from line number: [3]"),
+                containsString("remaining count: [2]"),
+                containsString("remaining count: [1]"),
+                containsString("remaining count: [0]")
+        ));
+
+        // -------------------------------------------------- assert persistent user data
+        new Verifications() {{
+            mockStepContext.setPersistentUserData(3L);
+            mockStepContext.setPersistentUserData(4L);
+            mockStepContext.setPersistentUserData(5L);
+            mockStepContext.setPersistentUserData((Serializable) withNull());
+        }};
+    }
+
     /**
      * 登録処理に失敗する場合
      */
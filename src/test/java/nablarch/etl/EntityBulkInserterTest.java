@@ -0,0 +1,40 @@
+package nablarch.etl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+/**
+ * {@link EntityBulkInserter}のテストクラス。
+ */
+public class EntityBulkInserterTest {
+
+    /**
+     * Oracleの場合は1行ずつのINSERT文(JDBCのバッチ実行)となること。
+     */
+    @Test
+    public void testResolveRowsPerStatement_oracle() throws Exception {
+        assertThat(EntityBulkInserter.resolveRowsPerStatement("jdbc:oracle:thin:@localhost:1521/xe", 500, 10), is(1));
+    }
+
+    /**
+     * SQL Serverの場合は行数とパラメータ数の上限で制限されること。
+     */
+    @Test
+    public void testResolveRowsPerStatement_sqlServer() throws Exception {
+        assertThat(EntityBulkInserter.resolveRowsPerStatement("jdbc:sqlserver://localhost:1433", 500, 10), is(200));
+        assertThat(EntityBulkInserter.resolveRowsPerStatement("jdbc:sqlserver://localhost:1433", 5000, 1), is(1000));
+        assertThat(EntityBulkInserter.resolveRowsPerStatement("jdbc:sqlserver://localhost:1433", 100, 3000), is(1));
+    }
+
+    /**
+     * 上記以外の場合は指定された行数とパラメータ数の上限で制限されること。
+     */
+    @Test
+    public void testResolveRowsPerStatement_default() throws Exception {
+        assertThat(EntityBulkInserter.resolveRowsPerStatement("jdbc:postgresql://localhost:5432/postgres", 500, 10),
+                is(500));
+        assertThat(EntityBulkInserter.resolveRowsPerStatement("jdbc:h2:mem:test", 10000, 100), is(327));
+    }
+}
@@ -0,0 +1,32 @@
+package nablarch.etl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+/**
+ * {@link EtlThreadFactory}のテストクラス。
+ */
+public class EtlThreadFactoryTest {
+
+    /**
+     * 用途と連番を含む名前のデーモンスレッドが生成されること。
+     */
+    @Test
+    public void testNewThread() throws Exception {
+        final EtlThreadFactory sut = new EtlThreadFactory("parser");
+        final Runnable task = new Runnable() {
+            @Override
+            public void run() {
+            }
+        };
+
+        final Thread first = sut.newThread(task);
+        final Thread second = sut.newThread(task);
+
+        assertThat(first.getName(), is("etl-parser-1"));
+        assertThat(second.getName(), is("etl-parser-2"));
+        assertThat(first.isDaemon(), is(true));
+    }
+}
@@ -8,14 +8,21 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 import javax.batch.operations.BatchRuntimeException;
 import javax.batch.runtime.context.JobContext;
 import javax.batch.runtime.context.StepContext;
 
 import nablarch.common.databind.csv.Csv;
+import nablarch.common.databind.fixedlength.Field;
+import nablarch.common.databind.fixedlength.FixedLength;
 import nablarch.core.repository.SystemRepository;
 import nablarch.etl.config.FileToDbStepConfig;
+import nablarch.etl.config.InputCountMode;
 import nablarch.fw.batch.ee.progress.BasicProgressManager;
 import nablarch.test.support.log.app.OnMemoryLogWriter;
 
@@ -158,6 +165,463 @@ public class FileItemReaderTest {
         assertThat("3レコードで終わり", sut.readItem(), is(nullValue()));
     }
 
+    /**
+     * 入力件数の取得モードが見積もりの場合、見積もった入力件数が出力されること。
+     */
+    @Test
+    public void estimateInputCount() throws Exception {
+
+        // -------------------------------------------------- setup file
+        final File file = new File(temporaryFolder.getRoot(), "dummy");
+        final BufferedWriter br = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "MS932"));
+        br.write("1,なまえ1\r\n");
+        br.write("2,なまえ2\r\n");
+        br.write("3,なまえ3\r\n");
+        br.close();
+
+        // -------------------------------------------------- setup objects that is injected
+        final FileToDbStepConfig stepConfig = new FileToDbStepConfig();
+        stepConfig.setBean(CsvFile.class);
+        stepConfig.setFileName("dummy");
+        stepConfig.setInputCountMode(InputCountMode.ESTIMATE);
+
+        final FileItemReader sut = new FileItemReader(
+                mockJobContext,
+                mockStepContext,
+                stepConfig,
+                temporaryFolder.getRoot(),
+                new BasicProgressManager(mockJobContext, mockStepContext));
+        sut.open(null);
+
+        assertThat(OnMemoryLogWriter.getMessages("writer.progress").get(0), containsString(
+                "-INFO- job name: [test-job] step name: [test-step] input count: [3]"));
+
+        assertThat(((CsvFile) sut.readItem()).getUserId(), is("1"));
+        assertThat(sut.checkpointInfo(), is(notNullValue()));
+        assertThat("ファイル全体から見積もった件数のため補正されないこと",
+                OnMemoryLogWriter.getMessages("writer.progress").size(), is(1));
+        sut.close();
+    }
+
+    /**
+     * 入力件数の取得モードが見積もりで変換スレッド数に2以上を指定した場合、
+     * 読み込み済みのレコードの位置から入力件数が補正されること。
+     */
+    @Test
+    public void estimateInputCountWithParallelRead() throws Exception {
+
+        // -------------------------------------------------- setup file
+        final File file = new File(temporaryFolder.getRoot(), "dummy");
+        final BufferedWriter br = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "MS932"));
+        // 見積もりに使用する先頭のレコードより、後続のレコードを長くする
+        for (int i = 1; i <= 10000; i++) {
+            br.write(i + ",a\r\n");
+        }
+        for (int i = 10001; i <= 20000; i++) {
+            br.write(i + ",aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa\r\n");
+        }
+        br.close();
+
+        // -------------------------------------------------- setup objects that is injected
+        final FileToDbStepConfig stepConfig = new FileToDbStepConfig();
+        stepConfig.setBean(CsvWorkFile.class);
+        stepConfig.setFileName("dummy");
+        stepConfig.setInputCountMode(InputCountMode.ESTIMATE);
+        stepConfig.setParserThreads(4);
+
+        final FileItemReader sut = new FileItemReader(
+                mockJobContext,
+                mockStepContext,
+                stepConfig,
+                temporaryFolder.getRoot(),
+                new BasicProgressManager(mockJobContext, mockStepContext));
+        sut.open(null);
+        assertThat("先頭のレコードから見積もるため実際の件数より多くなること",
+                OnMemoryLogWriter.getMessages("writer.progress").get(0),
+                not(containsString("input count: [20000]")));
+
+        for (int i = 1; i <= 20000; i++) {
+            assertThat(((CsvWorkFile) sut.readItem()).getUserId(), is(String.valueOf(i)));
+        }
+        sut.checkpointInfo();
+        final List<String> messages = OnMemoryLogWriter.getMessages("writer.progress");
+        assertThat(messages.get(messages.size() - 1), containsString(
+                "-INFO- job name: [test-job] step name: [test-step] input count: [20000]"));
+        sut.close();
+    }
+
+    /**
+     * 入力件数の取得モードが取得しないの場合、入力件数が出力されないこと。
+     */
+    @Test
+    public void noInputCount() throws Exception {
+
+        // -------------------------------------------------- setup file
+        final File file = new File(temporaryFolder.getRoot(), "dummy");
+        final BufferedWriter br = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "MS932"));
+        br.write("1,なまえ1\r\n");
+        br.write("2,なまえ2\r\n");
+        br.close();
+
+        // -------------------------------------------------- setup objects that is injected
+        final FileToDbStepConfig stepConfig = new FileToDbStepConfig();
+        stepConfig.setBean(CsvFile.class);
+        stepConfig.setFileName("dummy");
+        stepConfig.setInputCountMode(InputCountMode.NONE);
+
+        final FileItemReader sut = new FileItemReader(
+                mockJobContext,
+                mockStepContext,
+                stepConfig,
+                temporaryFolder.getRoot(),
+                new BasicProgressManager(mockJobContext, mockStepContext));
+        sut.open(null);
+
+        assertThat(OnMemoryLogWriter.getMessages("writer.progress").isEmpty(), is(true));
+        assertThat(((CsvFile) sut.readItem()).getUserId(), is("1"));
+        assertThat(((CsvFile) sut.readItem()).getUserId(), is("2"));
+        assertThat(sut.readItem(), is(nullValue()));
+        sut.close();
+    }
+
+    /**
+     * チェックポイント情報を指定した場合、チェックポイントの位置から読み込みが再開されること。
+     * <p/>
+     * 行数は、囲み文字内に改行を含むレコードがあってもファイルの先頭から読み込んだ場合と同じになること。
+     */
+    @Test
+    public void restartFromCheckpoint() throws Exception {
+
+        // -------------------------------------------------- setup file
+        final File file = new File(temporaryFolder.getRoot(), "dummy");
+        final BufferedWriter br = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "MS932"));
+        br.write("1,なまえ1\r\n");
+        br.write("2,\"なま\r\nえ2\"\r\n");
+        br.write("3,なまえ3\r\n");
+        br.write("4,なまえ4\r\n");
+        br.close();
+
+        // -------------------------------------------------- setup objects that is injected
+        final FileToDbStepConfig stepConfig = new FileToDbStepConfig();
+        stepConfig.setBean(CsvWorkFile.class);
+        stepConfig.setFileName("dummy");
+
+        final FileItemReader first = new FileItemReader(
+                mockJobContext,
+                mockStepContext,
+                stepConfig,
+                temporaryFolder.getRoot(),
+                new BasicProgressManager(mockJobContext, mockStepContext));
+        first.open(null);
+        assertThat(((CsvWorkFile) first.readItem()).getUserId(), is("1"));
+        assertThat(((CsvWorkFile) first.readItem()).getUserId(), is("2"));
+        final Serializable checkpoint = first.checkpointInfo();
+        final CsvWorkFile expectedThird = (CsvWorkFile) first.readItem();
+        assertThat(expectedThird.getUserId(), is("3"));
+        final CsvWorkFile expectedFourth = (CsvWorkFile) first.readItem();
+        assertThat(expectedFourth.getUserId(), is("4"));
+        first.close();
+
+        final FileItemReader sut = new FileItemReader(
+                mockJobContext,
+                mockStepContext,
+                stepConfig,
+                temporaryFolder.getRoot(),
+                new BasicProgressManager(mockJobContext, mockStepContext));
+        sut.open(checkpoint);
+
+        final CsvWorkFile third = (CsvWorkFile) sut.readItem();
+        assertThat(third.getUserId(), is("3"));
+        assertThat(third.getName(), is("なまえ3"));
+        assertThat(third.getLineNumber(), is(expectedThird.getLineNumber()));
+
+        final CsvWorkFile fourth = (CsvWorkFile) sut.readItem();
+        assertThat(fourth.getUserId(), is("4"));
+        assertThat(fourth.getLineNumber(), is(expectedFourth.getLineNumber()));
+        assertThat(sut.readItem(), is(nullValue()));
+        sut.close();
+    }
+
+    /**
+     * チェックポイント情報を取得後に入力ファイルが変更された場合、
+     * 再開されずにオペレータ向けログが出力され例外が送出されること。
+     */
+    @Test
+    public void restartWithChangedFile() throws Exception {
+
+        // -------------------------------------------------- setup file
+        final File file = new File(temporaryFolder.getRoot(), "dummy");
+        BufferedWriter br = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "MS932"));
+        br.write("1,なまえ1\r\n");
+        br.write("2,なまえ2\r\n");
+        br.close();
+
+        // -------------------------------------------------- setup objects that is injected
+        final FileToDbStepConfig stepConfig = new FileToDbStepConfig();
+        stepConfig.setBean(CsvFile.class);
+        stepConfig.setFileName("dummy");
+
+        final FileItemReader first = new FileItemReader(
+                mockJobContext,
+                mockStepContext,
+                stepConfig,
+                temporaryFolder.getRoot(),
+                new BasicProgressManager(mockJobContext, mockStepContext));
+        first.open(null);
+        first.readItem();
+        final Serializable checkpoint = first.checkpointInfo();
+        first.close();
+
+        br = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "MS932"));
+        br.write("9,なまえ9\r\n");
+        br.write("2,なまえ2\r\n");
+        br.close();
+
+        final FileItemReader sut = new FileItemReader(
+                mockJobContext,
+                mockStepContext,
+                stepConfig,
+                temporaryFolder.getRoot(),
+                new BasicProgressManager(mockJobContext, mockStepContext));
+        try {
+            sut.open(checkpoint);
+            fail();
+        } catch (BatchRuntimeException e) {
+            final String message = "入力ファイルが前回の実行時から変更されているため、チェックポイントから処理を再開できません。"
+                    + "入力ファイルが正しいかを確認してください。入力ファイル=[" + file.getAbsolutePath() + ']';
+            assertThat(OnMemoryLogWriter.getMessages("writer.operator").get(0), containsString("-ERROR- " + message));
+            assertThat(e.getMessage(), is(message));
+        }
+    }
+
+    /**
+     * 変換スレッド数に2以上を指定した場合、並列に変換しても読み込み順序と行数がファイルの順序どおりとなること。
+     * <p/>
+     * チェックポイントから再開した場合も、再開位置から順序どおりに読み込めること。
+     */
+    @Test
+    public void parallelRead() throws Exception {
+
+        // -------------------------------------------------- setup file
+        final File file = new File(temporaryFolder.getRoot(), "dummy");
+        final BufferedWriter br = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "MS932"));
+        for (int i = 1; i <= 2500; i++) {
+            br.write(i + ",なまえ" + i + "\r\n");
+        }
+        br.close();
+
+        // -------------------------------------------------- setup objects that is injected
+        final FileToDbStepConfig stepConfig = new FileToDbStepConfig();
+        stepConfig.setBean(CsvWorkFile.class);
+        stepConfig.setFileName("dummy");
+        stepConfig.setParserThreads(4);
+
+        final FileItemReader first = new FileItemReader(
+                mockJobContext,
+                mockStepContext,
+                stepConfig,
+                temporaryFolder.getRoot(),
+                new BasicProgressManager(mockJobContext, mockStepContext));
+        first.open(null);
+        for (int i = 1; i <= 1200; i++) {
+            final CsvWorkFile actual = (CsvWorkFile) first.readItem();
+            assertThat(actual.getUserId(), is(String.valueOf(i)));
+            assertThat(actual.getLineNumber(), is((long) i));
+        }
+        final Serializable checkpoint = first.checkpointInfo();
+        first.close();
+
+        final FileItemReader sut = new FileItemReader(
+                mockJobContext,
+                mockStepContext,
+                stepConfig,
+                temporaryFolder.getRoot(),
+                new BasicProgressManager(mockJobContext, mockStepContext));
+        sut.open(checkpoint);
+        for (int i = 1201; i <= 2500; i++) {
+            final CsvWorkFile actual = (CsvWorkFile) sut.readItem();
+            assertThat(actual.getUserId(), is(String.valueOf(i)));
+            assertThat(actual.getName(), is("なまえ" + i));
+            assertThat(actual.getLineNumber(), is((long) i));
+        }
+        assertThat(sut.readItem(), is(nullValue()));
+        sut.close();
+    }
+
+    /**
+     * 囲み文字内に改行を含むレコードがある場合も、並列に変換した行数がシングルスレッドで変換した場合と同じになること。
+     */
+    @Test
+    public void parallelReadWithMultiLineRecords() throws Exception {
+
+        // -------------------------------------------------- setup file
+        final File file = new File(temporaryFolder.getRoot(), "dummy");
+        final BufferedWriter br = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "MS932"));
+        for (int i = 1; i <= 2500; i++) {
+            br.write(i % 7 == 0 ? i + ",\"なまえ\r\n" + i + "\"\r\n" : i + ",なまえ" + i + "\r\n");
+        }
+        br.close();
+
+        // -------------------------------------------------- setup objects that is injected
+        final FileToDbStepConfig stepConfig = new FileToDbStepConfig();
+        stepConfig.setBean(CsvWorkFile.class);
+        stepConfig.setFileName("dummy");
+
+        final List<Long> expected = new ArrayList<Long>();
+        final FileItemReader single = new FileItemReader(
+                mockJobContext,
+                mockStepContext,
+                stepConfig,
+                temporaryFolder.getRoot(),
+                new BasicProgressManager(mockJobContext, mockStepContext));
+        single.open(null);
+        CsvWorkFile item;
+        while ((item = (CsvWorkFile) single.readItem()) != null) {
+            expected.add(item.getLineNumber());
+        }
+        single.close();
+
+        stepConfig.setParserThreads(4);
+        final FileItemReader sut = new FileItemReader(
+                mockJobContext,
+                mockStepContext,
+                stepConfig,
+                temporaryFolder.getRoot(),
+                new BasicProgressManager(mockJobContext, mockStepContext));
+        sut.open(null);
+        for (int i = 1; i <= 2500; i++) {
+            final CsvWorkFile actual = (CsvWorkFile) sut.readItem();
+            assertThat(actual.getUserId(), is(String.valueOf(i)));
+            assertThat(actual.getLineNumber(), is(expected.get(i - 1)));
+        }
+        assertThat(sut.readItem(), is(nullValue()));
+        sut.close();
+    }
+
+    /**
+     * メモリにマッピングして読み込む設定の場合、固定長形式のファイルが読み込めること。
+     * <p/>
+     * チェックポイントから再開した場合も、再開位置から読み込めること。
+     */
+    @Test
+    public void readMemoryMappedFile() throws Exception {
+
+        // -------------------------------------------------- setup file
+        final File file = new File(temporaryFolder.getRoot(), "dummy");
+        final BufferedWriter br = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "MS932"));
+        br.write("00001なまえ1\r\n");
+        br.write("00002なまえ2\r\n");
+        br.write("00003なまえ3\r\n");
+        br.close();
+
+        // -------------------------------------------------- setup objects that is injected
+        final FileToDbStepConfig stepConfig = new FileToDbStepConfig();
+        stepConfig.setBean(FixedLengthFile.class);
+        stepConfig.setFileName("dummy");
+        stepConfig.setMemoryMapped(true);
+
+        final FileItemReader first = new FileItemReader(
+                mockJobContext,
+                mockStepContext,
+                stepConfig,
+                temporaryFolder.getRoot(),
+                new BasicProgressManager(mockJobContext, mockStepContext));
+        first.open(null);
+        assertThat(OnMemoryLogWriter.getMessages("writer.progress").get(0), containsString(
+                "-INFO- job name: [test-job] step name: [test-step] input count: [3]"));
+
+        final FixedLengthFile actual = (FixedLengthFile) first.readItem();
+        assertThat(actual.getUserId(), is("00001"));
+        assertThat(actual.getName(), is("なまえ1"));
+        final Serializable checkpoint = first.checkpointInfo();
+        first.close();
+
+        final FileItemReader sut = new FileItemReader(
+                mockJobContext,
+                mockStepContext,
+                stepConfig,
+                temporaryFolder.getRoot(),
+                new BasicProgressManager(mockJobContext, mockStepContext));
+        sut.open(checkpoint);
+        assertThat(((FixedLengthFile) sut.readItem()).getUserId(), is("00002"));
+        final FixedLengthFile third = (FixedLengthFile) sut.readItem();
+        assertThat(third.getUserId(), is("00003"));
+        assertThat(third.getLineNumber(), is(3L));
+        assertThat(sut.readItem(), is(nullValue()));
+        sut.close();
+    }
+
+    /**
+     * メモリにマッピングして読み込む設定と並列変換を併用した場合、例外が送出されること。
+     */
+    @Test
+    public void memoryMappedWithParserThreads_shouldThrowException() throws Exception {
+
+        // -------------------------------------------------- setup file
+        final File file = new File(temporaryFolder.getRoot(), "dummy");
+        final BufferedWriter br = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "MS932"));
+        br.write("00001なまえ1\r\n");
+        br.close();
+
+        // -------------------------------------------------- setup objects that is injected
+        final FileToDbStepConfig stepConfig = new FileToDbStepConfig();
+        stepConfig.setBean(FixedLengthFile.class);
+        stepConfig.setFileName("dummy");
+        stepConfig.setMemoryMapped(true);
+        stepConfig.setParserThreads(4);
+
+        final FileItemReader sut = new FileItemReader(
+                mockJobContext,
+                mockStepContext,
+                stepConfig,
+                temporaryFolder.getRoot(),
+                new BasicProgressManager(mockJobContext, mockStepContext));
+
+        expectedException.expect(InvalidEtlConfigException.class);
+        expectedException.expectMessage("memoryMapped can not be used with parserThreads greater than 1."
+                + " parserThreads = [4], jobId = [test-job], stepId = [test-step]");
+        sut.open(null);
+    }
+
+    /**
+     * 入力ファイル名の拡張子が.gzの場合、展開しながら読み込めること。
+     * <p/>
+     * 圧縮ファイルの場合はチェックポイント情報を返さないこと。
+     */
+    @Test
+    public void readCompressedFile() throws Exception {
+
+        // -------------------------------------------------- setup file
+        final File file = new File(temporaryFolder.getRoot(), "dummy.csv.gz");
+        final BufferedWriter br = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(new FileOutputStream(file)), "MS932"));
+        br.write("1,なまえ1\r\n");
+        br.write("2,なまえ2\r\n");
+        br.close();
+
+        // -------------------------------------------------- setup objects that is injected
+        final FileToDbStepConfig stepConfig = new FileToDbStepConfig();
+        stepConfig.setBean(CsvFile.class);
+        stepConfig.setFileName("dummy.csv.gz");
+        stepConfig.setInputCountMode(InputCountMode.ESTIMATE);
+
+        final FileItemReader sut = new FileItemReader(
+                mockJobContext,
+                mockStepContext,
+                stepConfig,
+                temporaryFolder.getRoot(),
+                new BasicProgressManager(mockJobContext, mockStepContext));
+        sut.open(null);
+
+        assertThat(OnMemoryLogWriter.getMessages("writer.progress").get(0), containsString(
+                "-INFO- job name: [test-job] step name: [test-step] input count: [2]"));
+        assertThat(((CsvFile) sut.readItem()).getName(), is("なまえ1"));
+        assertThat(sut.checkpointInfo(), is(nullValue()));
+        assertThat(((CsvFile) sut.readItem()).getName(), is("なまえ2"));
+        assertThat(sut.readItem(), is(nullValue()));
+        sut.close();
+    }
+
     /**
      * クローズを呼び出すことでファイルが閉じられること
      * <p/>
@@ -253,4 +717,57 @@ public class FileItemReaderTest {
             this.name = name;
         }
     }
-}
\ No newline at end of file
+
+    @Csv(
+            type = Csv.CsvType.EXCEL,
+            properties = {"userId", "name"}
+    )
+    public static class CsvWorkFile extends WorkItem {
+
+        private String userId;
+
+        private String name;
+
+        public String getUserId() {
+            return userId;
+        }
+
+        public void setUserId(String userId) {
+            this.userId = userId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    @FixedLength(length = 12, charset = "MS932", lineSeparator = "\r\n")
+    public static class FixedLengthFile extends WorkItem {
+
+        private String userId;
+
+        private String name;
+
+        @Field(offset = 1, length = 5)
+        public String getUserId() {
+            return userId;
+        }
+
+        public void setUserId(String userId) {
+            this.userId = userId;
+        }
+
+        @Field(offset = 6, length = 7)
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
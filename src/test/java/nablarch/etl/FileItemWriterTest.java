@@ -11,10 +11,15 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.FileReader;
+import java.io.InputStreamReader;
 import java.io.Reader;
+import java.io.Serializable;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 import javax.batch.operations.BatchRuntimeException;
 import javax.batch.runtime.context.JobContext;
@@ -173,6 +178,387 @@ public class FileItemWriterTest {
                         + "10003,30000\r\n"));
     }
 
+    /**
+     * 出力ファイル名の拡張子が.gzの場合、GZIP形式で圧縮して出力されること。
+     * <p/>
+     * 圧縮するスレッド数に2以上を指定した場合も、同じ内容に展開できること。
+     */
+    @Test
+    public void testWriteCompressedFile() throws Exception {
+
+        final File outputFileBasePath = temporaryFolder.newFolder();
+
+        for (int threads = 1; threads <= 2; threads++) {
+            // -------------------------------------------------- setup objects that is injected
+            final DbToFileStepConfig stepConfig = new DbToFileStepConfig();
+            stepConfig.setBean(EtlFileItemWriterBean.class);
+            stepConfig.setFileName("dummy" + threads + ".csv.gz");
+            stepConfig.setCompressionThreads(threads);
+
+            final FileItemWriter sut = new FileItemWriter(
+                    mockJobContext,
+                    mockStepContext,
+                    stepConfig,
+                    outputFileBasePath
+            );
+
+            sut.open(null);
+            sut.writeItems(Arrays.<Object>asList(
+                    EtlFileItemWriterBean.create("10001", 10000),
+                    EtlFileItemWriterBean.create("10002", 20000)));
+            sut.close();
+
+            final Reader reader = new InputStreamReader(new GZIPInputStream(
+                    new FileInputStream(new File(outputFileBasePath, "dummy" + threads + ".csv.gz"))), "UTF-8");
+            final StringBuilder actual = new StringBuilder();
+            int read;
+            while ((read = reader.read()) != -1) {
+                actual.append((char) read);
+            }
+            reader.close();
+            assertThat(actual.toString(), is("FIELD-NAME1,FIELD-NAME2\r\n10001,10000\r\n10002,20000\r\n"));
+        }
+    }
+
+    /**
+     * 非同期で書き込む設定の場合、チェックポイント時にそれまでのデータがファイルに出力されていること。
+     * <p/>
+     * ヘッダ行は先頭に1度だけ出力されること。
+     */
+    @Test
+    public void testAsyncWrite() throws Exception {
+
+        final File outputFileBasePath = temporaryFolder.newFolder();
+        final File output = new File(outputFileBasePath, "dummy");
+
+        // -------------------------------------------------- setup objects that is injected
+        final DbToFileStepConfig stepConfig = new DbToFileStepConfig();
+        stepConfig.setBean(EtlFileItemWriterBean.class);
+        stepConfig.setFileName("dummy");
+        stepConfig.setAsyncWrite(true);
+
+        final FileItemWriter sut = new FileItemWriter(
+                mockJobContext,
+                mockStepContext,
+                stepConfig,
+                outputFileBasePath
+        );
+
+        sut.open(null);
+        sut.writeItems(Arrays.<Object>asList(
+                EtlFileItemWriterBean.create("10001", 10000),
+                EtlFileItemWriterBean.create("10002", 20000)));
+        sut.checkpointInfo();
+        assertThat("チェックポイント時点のデータが出力されていること",
+                readFile(output), is("FIELD-NAME1,FIELD-NAME2\r\n10001,10000\r\n10002,20000\r\n"));
+
+        sut.writeItems(Collections.<Object>singletonList(EtlFileItemWriterBean.create("10003", 30000)));
+        sut.writeItems(Collections.<Object>singletonList(EtlFileItemWriterBean.create("10004", 40000)));
+        sut.writeItems(Collections.<Object>singletonList(EtlFileItemWriterBean.create("10005", 50000)));
+        sut.close();
+
+        assertThat(readFile(output), is("FIELD-NAME1,FIELD-NAME2\r\n"
+                + "10001,10000\r\n"
+                + "10002,20000\r\n"
+                + "10003,30000\r\n"
+                + "10004,40000\r\n"
+                + "10005,50000\r\n"));
+    }
+
+    /**
+     * チェックポイントから再開した場合、出力ファイルをチェックポイント時点のサイズに切り詰めて追記すること。
+     * <p/>
+     * ヘッダ行は再度出力されないこと。
+     */
+    @Test
+    public void testRestartFromCheckpoint() throws Exception {
+
+        final File outputFileBasePath = temporaryFolder.newFolder();
+        final File output = new File(outputFileBasePath, "dummy");
+
+        // -------------------------------------------------- setup objects that is injected
+        final DbToFileStepConfig stepConfig = new DbToFileStepConfig();
+        stepConfig.setBean(EtlFileItemWriterBean.class);
+        stepConfig.setFileName("dummy");
+        stepConfig.setSkipOnRestart(true);
+
+        final FileItemWriter first = new FileItemWriter(
+                mockJobContext, mockStepContext, stepConfig, outputFileBasePath);
+        first.open(null);
+        first.writeItems(Arrays.<Object>asList(
+                EtlFileItemWriterBean.create("10001", 10000),
+                EtlFileItemWriterBean.create("10002", 20000)));
+        final Serializable checkpoint = first.checkpointInfo();
+        // コミットされずに異常終了したチャンク
+        first.writeItems(Collections.<Object>singletonList(EtlFileItemWriterBean.create("10003", 99999)));
+        first.close();
+
+        final FileItemWriter sut = new FileItemWriter(
+                mockJobContext, mockStepContext, stepConfig, outputFileBasePath);
+        sut.open(checkpoint);
+        sut.writeItems(Collections.<Object>singletonList(EtlFileItemWriterBean.create("10003", 30000)));
+        final FileWriteCheckpoint restarted = (FileWriteCheckpoint) sut.checkpointInfo();
+        sut.close();
+
+        assertThat(readFile(output), is("FIELD-NAME1,FIELD-NAME2\r\n"
+                + "10001,10000\r\n"
+                + "10002,20000\r\n"
+                + "10003,30000\r\n"));
+        assertThat(restarted.getLength(), is(output.length()));
+        assertThat(restarted.getRecordCount(), is(3L));
+    }
+
+    /**
+     * 出力ファイルがチェックポイント時点のサイズより小さい場合は、オペレータ通知ログが出力され、例外が送出されること。
+     */
+    @Test
+    public void testRestartWithChangedFile() throws Exception {
+
+        final File outputFileBasePath = temporaryFolder.newFolder();
+        final File output = new File(outputFileBasePath, "dummy");
+        final FileOutputStream stream = new FileOutputStream(output);
+        stream.write("FIELD-NAME1,FIELD-NAME2\r\n".getBytes("UTF-8"));
+        stream.close();
+
+        // -------------------------------------------------- setup objects that is injected
+        final DbToFileStepConfig stepConfig = new DbToFileStepConfig();
+        stepConfig.setBean(EtlFileItemWriterBean.class);
+        stepConfig.setFileName("dummy");
+        stepConfig.setSkipOnRestart(true);
+        final FileItemWriter sut = new FileItemWriter(
+                mockJobContext, mockStepContext, stepConfig, outputFileBasePath);
+
+        try {
+            sut.open(new FileWriteCheckpoint(output.length() + 1, 1L));
+            fail();
+        } catch (BatchRuntimeException e) {
+            final String message = "出力ファイルが前回の実行時から変更されているため、チェックポイントから処理を再開できません。"
+                    + "出力ファイルが正しいかを確認してください。出力ファイル=[" + output.getAbsolutePath() + ']';
+            assertThat(OnMemoryLogWriter.getMessages("writer.operator")
+                                        .get(0), containsString("-ERROR- " + message));
+            assertThat(e.getMessage(), is(message));
+        }
+    }
+
+    /**
+     * 入力側が再実行時に先頭から読み直す設定(デフォルト)の場合、チェックポイント情報は返されず、
+     * 再実行時は出力ファイルが最初から作り直されること。
+     * <p/>
+     * 前回の実行のチェックポイント情報が渡された場合でも、追記せずに作り直すため、レコードが重複して出力されないこと。
+     */
+    @Test
+    public void testRestartWithDefaultConfig() throws Exception {
+
+        final File outputFileBasePath = temporaryFolder.newFolder();
+        final File output = new File(outputFileBasePath, "dummy");
+
+        // -------------------------------------------------- setup objects that is injected
+        final DbToFileStepConfig stepConfig = new DbToFileStepConfig();
+        stepConfig.setBean(EtlFileItemWriterBean.class);
+        stepConfig.setFileName("dummy");
+
+        final FileItemWriter first = new FileItemWriter(
+                mockJobContext, mockStepContext, stepConfig, outputFileBasePath);
+        first.open(null);
+        first.writeItems(Arrays.<Object>asList(
+                EtlFileItemWriterBean.create("10001", 10000),
+                EtlFileItemWriterBean.create("10002", 20000)));
+        assertThat(first.checkpointInfo(), is((Serializable) null));
+        // コミットされずに異常終了したチャンク
+        first.writeItems(Collections.<Object>singletonList(EtlFileItemWriterBean.create("10003", 99999)));
+        first.close();
+        final long writtenLength = output.length();
+
+        // 入力側は先頭から読み直すため、全てのレコードを再度書き込む
+        final FileItemWriter sut = new FileItemWriter(
+                mockJobContext, mockStepContext, stepConfig, outputFileBasePath);
+        sut.open(new FileWriteCheckpoint(writtenLength, 2L));
+        sut.writeItems(Arrays.<Object>asList(
+                EtlFileItemWriterBean.create("10001", 10000),
+                EtlFileItemWriterBean.create("10002", 20000),
+                EtlFileItemWriterBean.create("10003", 30000)));
+        assertThat(sut.checkpointInfo(), is((Serializable) null));
+        sut.close();
+
+        assertThat(readFile(output), is("FIELD-NAME1,FIELD-NAME2\r\n"
+                + "10001,10000\r\n"
+                + "10002,20000\r\n"
+                + "10003,30000\r\n"));
+    }
+
+    /**
+     * 1ファイルあたりの最大レコード数を設定した場合、上限に達するごとに出力ファイルが切り替わること。
+     * <p/>
+     * 各ファイルにヘッダ行が出力され、マニフェストファイルにファイルごとのレコード数が出力されること。
+     */
+    @Test
+    public void testRollingByRecordCount() throws Exception {
+
+        final File outputFileBasePath = temporaryFolder.newFolder();
+
+        // -------------------------------------------------- setup objects that is injected
+        final DbToFileStepConfig stepConfig = new DbToFileStepConfig();
+        stepConfig.setBean(EtlFileItemWriterBean.class);
+        stepConfig.setFileName("output.csv");
+        stepConfig.setMaxRecordsPerFile(2);
+
+        final FileItemWriter sut = new FileItemWriter(
+                mockJobContext, mockStepContext, stepConfig, outputFileBasePath);
+        sut.open(null);
+        sut.writeItems(Arrays.<Object>asList(
+                EtlFileItemWriterBean.create("10001", 10000),
+                EtlFileItemWriterBean.create("10002", 20000),
+                EtlFileItemWriterBean.create("10003", 30000)));
+        sut.checkpointInfo();
+        assertThat("チェックポイント時点で書き込みを終えたファイルがマニフェストファイルに出力されていること",
+                readFile(new File(outputFileBasePath, "output.csv.manifest")), is("output-0001.csv,2\n"));
+
+        sut.writeItems(Arrays.<Object>asList(
+                EtlFileItemWriterBean.create("10004", 40000),
+                EtlFileItemWriterBean.create("10005", 50000)));
+        sut.checkpointInfo();
+        assertThat("書き込み中のファイルはマニフェストファイルに出力されないこと",
+                readFile(new File(outputFileBasePath, "output.csv.manifest")),
+                is("output-0001.csv,2\noutput-0002.csv,2\n"));
+        sut.close();
+
+        assertThat(readFile(new File(outputFileBasePath, "output-0001.csv")),
+                is("FIELD-NAME1,FIELD-NAME2\r\n10001,10000\r\n10002,20000\r\n"));
+        assertThat(readFile(new File(outputFileBasePath, "output-0002.csv")),
+                is("FIELD-NAME1,FIELD-NAME2\r\n10003,30000\r\n10004,40000\r\n"));
+        assertThat(readFile(new File(outputFileBasePath, "output-0003.csv")),
+                is("FIELD-NAME1,FIELD-NAME2\r\n10005,50000\r\n"));
+        assertThat(new File(outputFileBasePath, "output.csv").exists(), is(false));
+        assertThat(readFile(new File(outputFileBasePath, "output.csv.manifest")),
+                is("output-0001.csv,2\noutput-0002.csv,2\noutput-0003.csv,1\n"));
+    }
+
+    /**
+     * 出力ファイルが切り替わった場合、書き込みを終えたファイルはマニフェストファイルに出力される前にディスクに反映されること。
+     */
+    @Test
+    public <T extends FileChannel> void testRollingForcesCompletedFile() throws Exception {
+
+        final File outputFileBasePath = temporaryFolder.newFolder();
+        final File manifest = new File(outputFileBasePath, "output.csv.manifest");
+        final List<String> manifestsOnForce = new ArrayList<String>();
+        new MockUp<T>() {
+            @Mock
+            void force(final boolean metaData) throws Exception {
+                if (metaData) {
+                    manifestsOnForce.add(readFile(manifest));
+                }
+            }
+        };
+
+        // -------------------------------------------------- setup objects that is injected
+        final DbToFileStepConfig stepConfig = new DbToFileStepConfig();
+        stepConfig.setBean(EtlFileItemWriterBean.class);
+        stepConfig.setFileName("output.csv");
+        stepConfig.setMaxRecordsPerFile(2);
+
+        final FileItemWriter sut = new FileItemWriter(
+                mockJobContext, mockStepContext, stepConfig, outputFileBasePath);
+        sut.open(null);
+        sut.writeItems(Arrays.<Object>asList(
+                EtlFileItemWriterBean.create("10001", 10000),
+                EtlFileItemWriterBean.create("10002", 20000),
+                EtlFileItemWriterBean.create("10003", 30000)));
+        sut.checkpointInfo();
+        assertThat(manifestsOnForce, is(Arrays.asList("")));
+        assertThat(readFile(manifest), is("output-0001.csv,2\n"));
+
+        sut.close();
+        assertThat("最後のファイルも閉じる際にディスクに反映されること", manifestsOnForce, is(Arrays.asList("", "output-0001.csv,2\n")));
+        assertThat(readFile(manifest), is("output-0001.csv,2\noutput-0002.csv,1\n"));
+    }
+
+    /**
+     * 1ファイルあたりの最大バイト数を設定した場合、次のレコードで上限を超えるときに出力ファイルが切り替わること。
+     * <p/>
+     * チェックポイントから再開した場合は、書き込み中だったファイルから追記し、以前の実行で出力された後続のファイルは削除されること。
+     */
+    @Test
+    public void testRollingBySizeAndRestart() throws Exception {
+
+        final File outputFileBasePath = temporaryFolder.newFolder();
+
+        // -------------------------------------------------- setup objects that is injected
+        final DbToFileStepConfig stepConfig = new DbToFileStepConfig();
+        stepConfig.setBean(EtlFileItemWriterBean.class);
+        stepConfig.setFileName("output.csv");
+        stepConfig.setSkipOnRestart(true);
+        // ヘッダ行(25バイト) + 2レコード(13バイト * 2)
+        stepConfig.setMaxBytesPerFile(51);
+
+        final FileItemWriter first = new FileItemWriter(
+                mockJobContext, mockStepContext, stepConfig, outputFileBasePath);
+        first.open(null);
+        first.writeItems(Arrays.<Object>asList(
+                EtlFileItemWriterBean.create("10001", 10000),
+                EtlFileItemWriterBean.create("10002", 20000),
+                EtlFileItemWriterBean.create("10003", 30000)));
+        final Serializable checkpoint = first.checkpointInfo();
+        // コミットされずに異常終了したチャンク
+        first.writeItems(Arrays.<Object>asList(
+                EtlFileItemWriterBean.create("10004", 99999),
+                EtlFileItemWriterBean.create("10005", 99999),
+                EtlFileItemWriterBean.create("10006", 99999)));
+        first.close();
+        assertThat(new File(outputFileBasePath, "output-0003.csv").exists(), is(true));
+        assertThat("コミットされていないチャンクを書き込んだファイルはマニフェストファイルに出力されないこと",
+                readFile(new File(outputFileBasePath, "output.csv.manifest")), is("output-0001.csv,2\n"));
+
+        final FileItemWriter sut = new FileItemWriter(
+                mockJobContext, mockStepContext, stepConfig, outputFileBasePath);
+        sut.open(checkpoint);
+        sut.writeItems(Collections.<Object>singletonList(EtlFileItemWriterBean.create("10004", 40000)));
+        sut.checkpointInfo();
+        sut.close();
+
+        assertThat(readFile(new File(outputFileBasePath, "output-0001.csv")),
+                is("FIELD-NAME1,FIELD-NAME2\r\n10001,10000\r\n10002,20000\r\n"));
+        assertThat(readFile(new File(outputFileBasePath, "output-0002.csv")),
+                is("FIELD-NAME1,FIELD-NAME2\r\n10003,30000\r\n10004,40000\r\n"));
+        assertThat(new File(outputFileBasePath, "output-0003.csv").exists(), is(false));
+        assertThat(readFile(new File(outputFileBasePath, "output.csv.manifest")),
+                is("output-0001.csv,2\noutput-0002.csv,2\n"));
+    }
+
+    /**
+     * ステップで例外が発生した場合、チェックポイント後にクローズしても書き込み中のファイルがマニフェストファイルに出力されないこと。
+     */
+    @Test
+    public void testRollingStepFailed() throws Exception {
+
+        final File outputFileBasePath = temporaryFolder.newFolder();
+
+        // -------------------------------------------------- setup objects that is injected
+        final DbToFileStepConfig stepConfig = new DbToFileStepConfig();
+        stepConfig.setBean(EtlFileItemWriterBean.class);
+        stepConfig.setFileName("output.csv");
+        stepConfig.setMaxRecordsPerFile(2);
+
+        new Expectations() {{
+            mockStepContext.getException();
+            result = new IllegalStateException("commit failed.");
+        }};
+
+        final FileItemWriter sut = new FileItemWriter(
+                mockJobContext, mockStepContext, stepConfig, outputFileBasePath);
+        sut.open(null);
+        sut.writeItems(Arrays.<Object>asList(
+                EtlFileItemWriterBean.create("10001", 10000),
+                EtlFileItemWriterBean.create("10002", 20000),
+                EtlFileItemWriterBean.create("10003", 30000)));
+        sut.checkpointInfo();
+        sut.close();
+
+        assertThat(readFile(new File(outputFileBasePath, "output-0002.csv")),
+                is("FIELD-NAME1,FIELD-NAME2\r\n10003,30000\r\n"));
+        assertThat(readFile(new File(outputFileBasePath, "output.csv.manifest")), is("output-0001.csv,2\n"));
+    }
+
     /**
      * クローズを呼び出すことでファイルが閉じられること
      * <p/>
@@ -0,0 +1,75 @@
+package nablarch.etl;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.Serializable;
+
+import javax.batch.runtime.Metric;
+import javax.batch.runtime.context.JobContext;
+import javax.batch.runtime.context.StepContext;
+
+import nablarch.fw.batch.ee.progress.BasicProgressManager;
+import nablarch.fw.batch.ee.progress.ProgressManager;
+import nablarch.test.support.log.app.OnMemoryLogWriter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import mockit.Expectations;
+import mockit.Mocked;
+
+/**
+ * {@link FileSplitPartitionCollector}及び{@link FileSplitPartitionAnalyzer}のテストクラス。
+ */
+public class FileSplitPartitionCollectorTest {
+
+    @Mocked
+    private JobContext mockJobContext;
+
+    @Mocked
+    private StepContext mockStepContext;
+
+    @Mocked
+    private Metric mockMetric;
+
+    @Before
+    public void setUp() {
+        OnMemoryLogWriter.clear();
+    }
+
+    /**
+     * 前回の通知以降に書き込んだ件数が通知され、全パーティションの合計件数で進捗ログが出力されること。
+     */
+    @Test
+    public void collectAndAnalyze() throws Exception {
+        new Expectations() {{
+            mockStepContext.getStepName();
+            result = "test-step";
+            mockJobContext.getJobName();
+            result = "test-job";
+            mockStepContext.getMetrics();
+            result = new Metric[] {mockMetric};
+            mockMetric.getType();
+            result = Metric.MetricType.WRITE_COUNT;
+            mockMetric.getValue();
+            returns(1000L, 1500L);
+        }};
+
+        final FileSplitPartitionCollector collector = new FileSplitPartitionCollector(mockStepContext);
+        final Serializable first = collector.collectPartitionData();
+        final Serializable second = collector.collectPartitionData();
+        assertThat(first, is((Serializable) 1000L));
+        assertThat(second, is((Serializable) 500L));
+
+        final ProgressManager progressManager = new BasicProgressManager(mockJobContext, mockStepContext);
+        progressManager.setInputCount(3000);
+        final FileSplitPartitionAnalyzer sut = new FileSplitPartitionAnalyzer(progressManager);
+        sut.analyzeCollectorData(first);
+        sut.analyzeCollectorData(second);
+        sut.analyzeCollectorData(first);
+
+        assertThat(OnMemoryLogWriter.getMessages("writer.progress").get(3), containsString("remaining count: [500]"));
+    }
+}
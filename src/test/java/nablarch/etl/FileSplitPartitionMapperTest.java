@@ -0,0 +1,244 @@
+package nablarch.etl;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import javax.batch.api.partition.PartitionPlan;
+import javax.batch.runtime.context.JobContext;
+import javax.batch.runtime.context.StepContext;
+
+import nablarch.common.databind.csv.Csv;
+import nablarch.common.databind.fixedlength.Field;
+import nablarch.common.databind.fixedlength.FixedLength;
+import nablarch.etl.config.FileToDbStepConfig;
+import nablarch.fw.batch.ee.progress.BasicProgressManager;
+import nablarch.test.support.log.app.OnMemoryLogWriter;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import mockit.Expectations;
+import mockit.Mocked;
+
+/**
+ * {@link FileSplitPartitionMapper}のテストクラス。
+ */
+public class FileSplitPartitionMapperTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Mocked
+    private JobContext mockJobContext;
+
+    @Mocked
+    private StepContext mockStepContext;
+
+    @Before
+    public void setUp() {
+        new Expectations() {{
+            mockStepContext.getStepName();
+            result = "test-step";
+            mockJobContext.getJobName();
+            result = "test-job";
+        }};
+
+        OnMemoryLogWriter.clear();
+    }
+
+    /**
+     * 可変長形式の入力ファイルがレコードの境界で分割され、
+     * 各範囲を読み込んだ結果がファイル全体を読み込んだ結果と一致すること。
+     * <p/>
+     * 囲み文字内の改行では分割されないこと。
+     * 行数は、囲み文字内に改行を含むレコードがあってもファイル全体を読み込んだ場合と同じになること。
+     */
+    @Test
+    public void splitCsv() throws Exception {
+        final StringBuilder data = new StringBuilder("id,name\r\n");
+        for (int i = 1; i <= 100; i++) {
+            data.append(i)
+                .append(i % 7 == 0 ? ",\"name\r\n" + i + "\"\r\n" : ",name" + i + "\r\n");
+        }
+        createFile(data.toString());
+
+        final FileToDbStepConfig stepConfig = createStepConfig(CsvWorkFile.class, 3);
+        final PartitionPlan plan = createMapper(stepConfig).mapPartitions();
+
+        assertThat(plan.getPartitions(), is(3));
+        assertThat(plan.getThreads(), is(3));
+        assertThat(OnMemoryLogWriter.getMessages("writer.progress").get(0), containsString(
+                "-INFO- job name: [test-job] step name: [test-step] input count: [100]"));
+
+        final Properties[] segments = plan.getPartitionProperties();
+        assertThat(segments[0].getProperty(FileSplitPartitionMapper.START_OFFSET), is("9"));
+        assertThat(segments[0].getProperty(FileSplitPartitionMapper.START_RECORD), is("0"));
+        assertThat(segments[0].getProperty(FileSplitPartitionMapper.START_LINE), is("0"));
+        for (int i = 1; i < segments.length; i++) {
+            assertThat("範囲が連続していること",
+                    segments[i].getProperty(FileSplitPartitionMapper.START_OFFSET),
+                    is(segments[i - 1].getProperty(FileSplitPartitionMapper.END_OFFSET)));
+        }
+
+        final List<CsvWorkFile> actual = new ArrayList<CsvWorkFile>();
+        for (Properties segment : segments) {
+            actual.addAll(read(stepConfig, segment, CsvWorkFile.class));
+        }
+        assertThat(actual.size(), is(100));
+        for (int i = 0; i < actual.size(); i++) {
+            assertThat(actual.get(i).getId(), is(String.valueOf(i + 1)));
+        }
+        assertThat(actual.get(6).getName(), is("name\r\n7"));
+
+        final List<CsvWorkFile> expected = read(stepConfig, new Properties(), CsvWorkFile.class);
+        for (int i = 0; i < actual.size(); i++) {
+            assertThat(actual.get(i).getLineNumber(), is(expected.get(i).getLineNumber()));
+        }
+    }
+
+    /**
+     * 固定長形式の入力ファイルがレコード数が均等になるように分割されること。
+     */
+    @Test
+    public void splitFixedLength() throws Exception {
+        final StringBuilder data = new StringBuilder();
+        for (int i = 1; i <= 10; i++) {
+            data.append(String.format("%05d\r\n", i));
+        }
+        createFile(data.toString());
+
+        final FileToDbStepConfig stepConfig = createStepConfig(FixedLengthWorkFile.class, 4);
+        final PartitionPlan plan = createMapper(stepConfig).mapPartitions();
+
+        assertThat(plan.getPartitions(), is(4));
+        final Properties[] segments = plan.getPartitionProperties();
+        assertThat(segments[1].getProperty(FileSplitPartitionMapper.START_OFFSET), is("21"));
+        assertThat(segments[1].getProperty(FileSplitPartitionMapper.END_OFFSET), is("42"));
+        assertThat(segments[1].getProperty(FileSplitPartitionMapper.START_RECORD), is("3"));
+        assertThat(segments[1].getProperty(FileSplitPartitionMapper.START_LINE), is("3"));
+        assertThat(segments[3].getProperty(FileSplitPartitionMapper.END_OFFSET), is("70"));
+
+        final List<FixedLengthWorkFile> actual = read(stepConfig, segments[3], FixedLengthWorkFile.class);
+        assertThat(actual.size(), is(1));
+        assertThat(actual.get(0).getId(), is("00010"));
+        assertThat(actual.get(0).getLineNumber(), is(10L));
+    }
+
+    /**
+     * レコードの境界を判定できないBeanの場合、例外が送出されること。
+     */
+    @Test
+    public void unsupportedBean() throws Exception {
+        createFile("1\r\n");
+
+        expectedException.expect(InvalidEtlConfigException.class);
+        expectedException.expectMessage("input file can not be split because record boundaries of the bean can not be determined.");
+        createMapper(createStepConfig(Object.class, 2)).mapPartitions();
+    }
+
+    private FileToDbStepConfig createStepConfig(final Class<?> bean, final int partitions) {
+        final FileToDbStepConfig stepConfig = new FileToDbStepConfig();
+        stepConfig.setBean(bean);
+        stepConfig.setFileName("dummy");
+        stepConfig.setPartitions(partitions);
+        return stepConfig;
+    }
+
+    private FileSplitPartitionMapper createMapper(final FileToDbStepConfig stepConfig) {
+        return new FileSplitPartitionMapper(
+                mockJobContext,
+                mockStepContext,
+                stepConfig,
+                temporaryFolder.getRoot(),
+                new BasicProgressManager(mockJobContext, mockStepContext));
+    }
+
+    private <T> List<T> read(final FileToDbStepConfig stepConfig, final Properties segment, final Class<T> type)
+            throws Exception {
+        final FileItemReader reader = new FileItemReader(
+                mockJobContext,
+                mockStepContext,
+                stepConfig,
+                temporaryFolder.getRoot(),
+                new BasicProgressManager(mockJobContext, mockStepContext));
+        reader.startOffset = segment.getProperty(FileSplitPartitionMapper.START_OFFSET);
+        reader.endOffset = segment.getProperty(FileSplitPartitionMapper.END_OFFSET);
+        reader.startRecord = segment.getProperty(FileSplitPartitionMapper.START_RECORD);
+        reader.startLine = segment.getProperty(FileSplitPartitionMapper.START_LINE);
+        reader.open(null);
+        try {
+            final List<T> items = new ArrayList<T>();
+            Object item;
+            while ((item = reader.readItem()) != null) {
+                items.add(type.cast(item));
+            }
+            assertThat(reader.readItem(), is(nullValue()));
+            return items;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private void createFile(final String data) throws Exception {
+        final OutputStream stream = new FileOutputStream(new File(temporaryFolder.getRoot(), "dummy"));
+        try {
+            stream.write(data.getBytes("UTF-8"));
+        } finally {
+            stream.close();
+        }
+    }
+
+    @Csv(type = Csv.CsvType.DEFAULT, properties = {"id", "name"}, headers = {"id", "name"})
+    public static class CsvWorkFile extends WorkItem {
+
+        private String id;
+
+        private String name;
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    @FixedLength(length = 5, charset = "UTF-8", lineSeparator = "\r\n")
+    public static class FixedLengthWorkFile extends WorkItem {
+
+        private String id;
+
+        @Field(offset = 1, length = 5)
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+    }
+}
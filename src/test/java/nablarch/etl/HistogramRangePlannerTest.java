@@ -0,0 +1,141 @@
+package nablarch.etl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import nablarch.core.db.connection.ConnectionFactory;
+import nablarch.core.db.connection.DbConnectionContext;
+import nablarch.core.db.connection.TransactionManagerConnection;
+import nablarch.core.transaction.TransactionContext;
+import nablarch.etl.config.DbToDbStepConfig;
+import nablarch.etl.config.DbToDbStepConfig.UpdateSize;
+import nablarch.test.support.SystemRepositoryResource;
+import nablarch.test.support.db.helper.DatabaseTestRunner;
+import nablarch.test.support.db.helper.VariousDbTestHelper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * {@link HistogramRangePlanner}のテスト。
+ */
+@RunWith(DatabaseTestRunner.class)
+public class HistogramRangePlannerTest {
+
+    @ClassRule
+    public static SystemRepositoryResource resource = new SystemRepositoryResource("db-default.xml");
+
+    private final HistogramRangePlanner sut = new HistogramRangePlanner();
+
+    private TransactionManagerConnection connection;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        VariousDbTestHelper.createTable(EtlHistogramWorkEntity.class);
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        final ConnectionFactory connectionFactory = resource.getComponent("connectionFactory");
+        connection = connectionFactory.getConnection(TransactionContext.DEFAULT_TRANSACTION_CONTEXT_KEY);
+        DbConnectionContext.setConnection(connection);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        connection.terminate();
+        DbConnectionContext.removeConnection();
+    }
+
+    /**
+     * LINE_NUMBERに欠番がある場合、各範囲のレコード数がサイズを超えない範囲でまとめられること。
+     * <p/>
+     * レコードが存在しない区間は前の範囲に含まれ、最後の範囲の終了位置は最大位置となること。
+     */
+    @Test
+    public void testPlanWithGaps() throws Exception {
+        VariousDbTestHelper.setUpTable(
+                new EtlHistogramWorkEntity(1L),
+                new EtlHistogramWorkEntity(2L),
+                new EtlHistogramWorkEntity(7L),
+                new EtlHistogramWorkEntity(12L),
+                new EtlHistogramWorkEntity(13L),
+                new EtlHistogramWorkEntity(14L),
+                new EtlHistogramWorkEntity(30L)
+        );
+
+        final List<Long> result = sut.plan(createConfig(3), 0L, 30L);
+
+        // 階級ごとのレコード数:[1-3]=2, [7-9]=1, [10-12]=1, [13-15]=2, [28-30]=1
+        // 範囲ごとのレコード数:[1-9]=3, [10-15]=3, [16-30]=1
+        assertThat(result, is(Arrays.asList(9L, 15L, 30L)));
+    }
+
+    /**
+     * 処理済みの位置以前のレコードは計画の対象外となること。
+     */
+    @Test
+    public void testPlanFromProcessed() throws Exception {
+        VariousDbTestHelper.setUpTable(
+                new EtlHistogramWorkEntity(1L),
+                new EtlHistogramWorkEntity(2L),
+                new EtlHistogramWorkEntity(3L),
+                new EtlHistogramWorkEntity(4L),
+                new EtlHistogramWorkEntity(9L)
+        );
+
+        final List<Long> result = sut.plan(createConfig(2), 2L, 9L);
+
+        assertThat(result, is(Arrays.asList(4L, 9L)));
+    }
+
+    /**
+     * 対象のレコードが存在しない場合は、空の計画となること。
+     */
+    @Test
+    public void testPlanNoRecord() throws Exception {
+        VariousDbTestHelper.delete(EtlHistogramWorkEntity.class);
+
+        final List<Long> result = sut.plan(createConfig(3), 0L, 0L);
+
+        assertThat(result, is(Collections.<Long>emptyList()));
+    }
+
+    private static DbToDbStepConfig createConfig(final int size) {
+        final DbToDbStepConfig config = new DbToDbStepConfig();
+        final UpdateSize updateSize = new UpdateSize();
+        updateSize.setSize(size);
+        updateSize.setBean(EtlHistogramWorkEntity.class);
+        config.setUpdateSize(updateSize);
+        return config;
+    }
+
+    @Entity
+    @Table(name = "etl_histogram_work")
+    public static class EtlHistogramWorkEntity {
+
+        @Id
+        @Column(name = "LINE_NUMBER", length = 18, nullable = false, unique = true)
+        public Long lineNumber;
+
+        public EtlHistogramWorkEntity() {
+        }
+
+        public EtlHistogramWorkEntity(Long lineNumber) {
+            this.lineNumber = lineNumber;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package nablarch.etl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * {@link MappedFileInputStream}のテストクラス。
+ */
+public class MappedFileInputStreamTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * 複数のウィンドウにまたがるデータが読み込めること。
+     * <p/>
+     * ウィンドウのサイズはレコード長の倍数に切り捨てられること。
+     */
+    @Test
+    public void readAcrossWindows() throws Exception {
+        final File file = createFile("00001\r\n00002\r\n00003\r\n00004\r\n00005\r\n");
+
+        final FileInputStream stream = new FileInputStream(file);
+        final InputStream sut = new MappedFileInputStream(stream.getChannel(), stream, 0L, file.length(), 7, 20L);
+        try {
+            assertThat(sut.read(), is((int) '0'));
+            assertThat(sut.available(), is(13));
+            assertThat(readAll(sut), is("0001\r\n00002\r\n00003\r\n00004\r\n00005\r\n"));
+        } finally {
+            sut.close();
+        }
+    }
+
+    /**
+     * 指定した範囲のみが読み込めること。
+     */
+    @Test
+    public void readRange() throws Exception {
+        final File file = createFile("00001\r\n00002\r\n00003\r\n00004\r\n00005\r\n");
+
+        final FileInputStream stream = new FileInputStream(file);
+        final InputStream sut = new MappedFileInputStream(stream.getChannel(), stream, 7L, 28L, 7, 7L);
+        try {
+            assertThat(sut.skip(7L), is(7L));
+            assertThat(readAll(sut), is("00003\r\n00004\r\n"));
+            assertThat(sut.read(), is(-1));
+        } finally {
+            sut.close();
+        }
+    }
+
+    private static String readAll(final InputStream in) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[3];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toString("UTF-8");
+    }
+
+    private File createFile(final String data) throws Exception {
+        final File file = temporaryFolder.newFile();
+        final OutputStream stream = new FileOutputStream(file);
+        try {
+            stream.write(data.getBytes("UTF-8"));
+        } finally {
+            stream.close();
+        }
+        return file;
+    }
+}
@@ -380,6 +380,159 @@ public class MergeBatchletTest {
         ));
     }
 
+    /**
+     * 並列度が指定された場合に、範囲ごとのマージ処理が並列に実行され正常に終了すること。
+     */
+    @Test
+    public void mergeSuccessUsingParallelSplit() throws Exception {
+        // -------------------------------------------------- setup table data
+        VariousDbTestHelper.setUpTable(
+                new EtlMergeInputWorkEntity(1L, 1L, "name1", "address1"),
+                new EtlMergeInputWorkEntity(2L, 2L, "name2", "address2"),
+                new EtlMergeInputWorkEntity(3L, 3L, "name3", "address3"),
+                new EtlMergeInputWorkEntity(4L, 4L, "name4", "address4"),
+                new EtlMergeInputWorkEntity(5L, 5L, "name5", "address5")
+        );
+
+        VariousDbTestHelper.setUpTable(
+                new EtlMergeEntity(3L, "3", "3"),
+                new EtlMergeEntity(6L, "name6", "address6")
+        );
+
+        // -------------------------------------------------- setup objects that is injected
+        final DbToDbStepConfig stepConfig = new DbToDbStepConfig();
+        stepConfig.setBean(EtlMergeEntity.class);
+        stepConfig.setMergeOnColumns(Collections.singletonList("user_id"));
+        stepConfig.setSqlId("SELECT_ALL_WITH_RANGE");
+        final DbToDbStepConfig.UpdateSize updateSize = new DbToDbStepConfig.UpdateSize();
+        updateSize.setSize(2);
+        updateSize.setBean(EtlMergeInputWorkEntity.class);
+        updateSize.setParallelism(2);
+        stepConfig.setUpdateSize(updateSize);
+        stepConfig.initialize();
+
+        final MergeBatchlet sut = new MergeBatchlet(
+                mockJobContext,
+                mockStepContext,
+                stepConfig,
+                new RangeUpdateHelper(mockJobContext, mockStepContext),
+                new BasicProgressManager(mockJobContext, mockStepContext)
+        );
+
+        // -------------------------------------------------- execute
+        sut.process();
+
+        // -------------------------------------------------- assert
+        final List<EtlMergeEntity> result = VariousDbTestHelper.findAll(EtlMergeEntity.class, "userId");
+        assertThat("変更なし1、更新1、追加4で6レコード存在する", result.size(), is(6));
+
+        for (int i = 0; i < 6; i++) {
+            final EtlMergeEntity entity = result.get(i);
+            int index = i + 1;
+            assertThat(entity.userId, is((long) index));
+            assertThat(entity.name, is("name" + index));
+            assertThat(entity.address, is("address" + index));
+        }
+
+        final List<String> messages = OnMemoryLogWriter.getMessages("writer.progress");
+        assertThat("入力件数と範囲ごとの進捗が出力されること", messages.size(), is(4));
+        assertThat(messages.get(3), containsString("remaining count: [0]"));
+    }
+
+    /**
+     * 並列度に0以下が指定された場合、例外が送出されること。
+     */
+    @Test
+    public void testInvalidParallelism() throws Exception {
+        final DbToDbStepConfig stepConfig = new DbToDbStepConfig();
+        stepConfig.setBean(EtlMergeEntity.class);
+        stepConfig.setMergeOnColumns(Collections.singletonList("user_id"));
+        stepConfig.setSqlId("SELECT_ALL_WITH_RANGE");
+        final DbToDbStepConfig.UpdateSize updateSize = new DbToDbStepConfig.UpdateSize();
+        updateSize.setSize(2);
+        updateSize.setBean(EtlMergeInputWorkEntity.class);
+        updateSize.setParallelism(0);
+        stepConfig.setUpdateSize(updateSize);
+        stepConfig.initialize();
+
+        final MergeBatchlet sut = new MergeBatchlet(
+                mockJobContext,
+                mockStepContext,
+                stepConfig,
+                new RangeUpdateHelper(mockJobContext, mockStepContext),
+                new BasicProgressManager(mockJobContext, mockStepContext)
+        );
+
+        expectedException.expect(InvalidEtlConfigException.class);
+        expectedException.expectMessage("updateSize.parallelism must be greater than 0. "
+                + "jobId = [test-job], stepId = [test-step], size = [0]");
+        sut.process();
+    }
+
+    /**
+     * 並列実行時に使用するConnectionFactoryがリポジトリに登録されていない場合、
+     * 並列実行を開始する前に例外が送出されること。
+     */
+    @Test
+    public void testConnectionFactoryNotFound() throws Exception {
+        final DbToDbStepConfig stepConfig = new DbToDbStepConfig();
+        stepConfig.setBean(EtlMergeEntity.class);
+        stepConfig.setMergeOnColumns(Collections.singletonList("user_id"));
+        stepConfig.setSqlId("SELECT_ALL_WITH_RANGE");
+        final DbToDbStepConfig.UpdateSize updateSize = new DbToDbStepConfig.UpdateSize();
+        updateSize.setSize(2);
+        updateSize.setBean(EtlMergeInputWorkEntity.class);
+        updateSize.setParallelism(2);
+        stepConfig.setUpdateSize(updateSize);
+        stepConfig.initialize();
+
+        final MergeBatchlet sut = new MergeBatchlet(
+                mockJobContext,
+                mockStepContext,
+                stepConfig,
+                new RangeUpdateHelper(mockJobContext, mockStepContext),
+                new BasicProgressManager(mockJobContext, mockStepContext)
+        );
+        sut.connectionFactoryName = "notFoundConnectionFactory";
+
+        expectedException.expect(InvalidEtlConfigException.class);
+        expectedException.expectMessage("ConnectionFactory was not found in the repository. "
+                + "jobId = [test-job], stepId = [test-step], name = [notFoundConnectionFactory]");
+        sut.process();
+    }
+
+    /**
+     * 並列実行時に使用するTransactionFactoryがリポジトリに登録されていない場合、
+     * 並列実行を開始する前に例外が送出されること。
+     */
+    @Test
+    public void testTransactionFactoryNotFound() throws Exception {
+        final DbToDbStepConfig stepConfig = new DbToDbStepConfig();
+        stepConfig.setBean(EtlMergeEntity.class);
+        stepConfig.setMergeOnColumns(Collections.singletonList("user_id"));
+        stepConfig.setSqlId("SELECT_ALL_WITH_RANGE");
+        final DbToDbStepConfig.UpdateSize updateSize = new DbToDbStepConfig.UpdateSize();
+        updateSize.setSize(2);
+        updateSize.setBean(EtlMergeInputWorkEntity.class);
+        updateSize.setParallelism(2);
+        stepConfig.setUpdateSize(updateSize);
+        stepConfig.initialize();
+
+        final MergeBatchlet sut = new MergeBatchlet(
+                mockJobContext,
+                mockStepContext,
+                stepConfig,
+                new RangeUpdateHelper(mockJobContext, mockStepContext),
+                new BasicProgressManager(mockJobContext, mockStepContext)
+        );
+        sut.transactionFactoryName = "notFoundTransactionFactory";
+
+        expectedException.expect(InvalidEtlConfigException.class);
+        expectedException.expectMessage("TransactionFactory was not found in the repository. "
+                + "jobId = [test-job], stepId = [test-step], name = [notFoundTransactionFactory]");
+        sut.process();
+    }
+
     /**
      * 1回のSQL実行で処理するサイズが指定され、
      * 途中のSQL実行で処理件数が0の場合でも、
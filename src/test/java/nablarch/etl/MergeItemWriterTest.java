@@ -0,0 +1,179 @@
+package nablarch.etl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.batch.runtime.context.JobContext;
+import javax.batch.runtime.context.StepContext;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import nablarch.core.db.connection.ConnectionFactory;
+import nablarch.core.db.connection.DbConnectionContext;
+import nablarch.core.db.connection.TransactionManagerConnection;
+import nablarch.core.transaction.TransactionContext;
+import nablarch.etl.config.DbToDbStepConfig;
+import nablarch.etl.config.FileToDbStepConfig;
+import nablarch.test.support.SystemRepositoryResource;
+import nablarch.test.support.db.helper.DatabaseTestRunner;
+import nablarch.test.support.db.helper.VariousDbTestHelper;
+import nablarch.test.support.log.app.OnMemoryLogWriter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+
+import mockit.Expectations;
+import mockit.Mocked;
+
+/**
+ * {@link MergeItemWriter}のテストクラス。
+ */
+@RunWith(DatabaseTestRunner.class)
+public class MergeItemWriterTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Mocked
+    private JobContext mockJobContext;
+
+    @Mocked
+    private StepContext mockStepContext;
+
+    @ClassRule
+    public static SystemRepositoryResource resource = new SystemRepositoryResource("db-default.xml");
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        VariousDbTestHelper.createTable(EtlMergeItemWriterEntity.class);
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        final ConnectionFactory connectionFactory = resource.getComponentByType(ConnectionFactory.class);
+        final TransactionManagerConnection connection = connectionFactory.getConnection(
+                TransactionContext.DEFAULT_TRANSACTION_CONTEXT_KEY);
+        DbConnectionContext.setConnection(connection);
+
+        VariousDbTestHelper.delete(EtlMergeItemWriterEntity.class);
+        OnMemoryLogWriter.clear();
+
+        new Expectations() {{
+            mockJobContext.getJobName();
+            result = "test-job";
+            minTimes = 0;
+            mockStepContext.getStepName();
+            result = "test-step";
+            minTimes = 0;
+        }};
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        final TransactionManagerConnection connection = DbConnectionContext.getTransactionManagerConnection();
+        connection.terminate();
+        DbConnectionContext.removeConnection();
+    }
+
+    /**
+     * 既存のレコードは更新され、存在しないレコードは登録されること。
+     */
+    @Test
+    public void mergeSuccess() throws Exception {
+        VariousDbTestHelper.insert(
+                new EtlMergeItemWriterEntity("001", "old_1"),
+                new EtlMergeItemWriterEntity("003", "old_3"));
+
+        final FileToDbStepConfig stepConfig = new FileToDbStepConfig();
+        stepConfig.setBean(EtlMergeItemWriterEntity.class);
+        stepConfig.setMergeOnColumns(Arrays.asList("user_id"));
+        final MergeItemWriter sut = new MergeItemWriter(mockJobContext, mockStepContext, stepConfig);
+
+        // -------------------------------------------------- execute
+        sut.open(null);
+        sut.writeItems(Arrays.<Object>asList(
+                new EtlMergeItemWriterEntity("001", "new_1"),
+                new EtlMergeItemWriterEntity("002", "new_2")));
+        sut.writeItems(Arrays.<Object>asList(
+                new EtlMergeItemWriterEntity("004", null)));
+        DbConnectionContext.getTransactionManagerConnection().commit();
+
+        // -------------------------------------------------- assert table
+        final List<EtlMergeItemWriterEntity> result =
+                VariousDbTestHelper.findAll(EtlMergeItemWriterEntity.class, "userId");
+        assertThat(result.size(), is(4));
+        String[][] expected = {{"001", "new_1"}, {"002", "new_2"}, {"003", "old_3"}, {"004", null}};
+        for (int i = 0; i < result.size(); i++) {
+            assertThat("id", result.get(i).getUserId(), is(expected[i][0]));
+            assertThat("name", result.get(i).getName(), is(expected[i][1]));
+        }
+
+        // -------------------------------------------------- assert log
+        OnMemoryLogWriter.assertLogContains("writer.progress",
+                "-INFO- job name: [test-job] step name: [test-step] merge table name: [etl_merge_item_writer]");
+    }
+
+    /**
+     * MERGEのON句に指定するカラム名が設定されていない場合、例外が送出されること。
+     */
+    @Test
+    public void mergeOnColumnsIsNull_shouldThrowException() throws Exception {
+        final DbToDbStepConfig stepConfig = new DbToDbStepConfig();
+        stepConfig.setBean(EtlMergeItemWriterEntity.class);
+        final MergeItemWriter sut = new MergeItemWriter(mockJobContext, mockStepContext, stepConfig);
+
+        expectedException.expect(InvalidEtlConfigException.class);
+        expectedException.expectMessage("mergeOnColumns is required. jobId = [test-job], stepId = [test-step]");
+        sut.open(null);
+    }
+
+    @Entity
+    @Table(name = "etl_merge_item_writer")
+    public static class EtlMergeItemWriterEntity {
+
+        @Id
+        @Column(name = "user_id", length = 3)
+        public String userId;
+
+        @Column(name = "name")
+        public String name;
+
+        public EtlMergeItemWriterEntity() {
+        }
+
+        public EtlMergeItemWriterEntity(String userId, String name) {
+            this.userId = userId;
+            this.name = name;
+        }
+
+        @Id
+        @Column(name = "user_id")
+        public String getUserId() {
+            return userId;
+        }
+
+        public void setUserId(String userId) {
+            this.userId = userId;
+        }
+
+        @Column(name = "name")
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package nablarch.etl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+
+/**
+ * {@link ParallelGzipOutputStream}のテストクラス。
+ */
+public class ParallelGzipOutputStreamTest {
+
+    /**
+     * 複数ブロックに分かれるデータを圧縮した結果が、GZIP形式として元のデータに展開できること。
+     */
+    @Test
+    public void compressMultipleBlocks() throws Exception {
+        final byte[] data = new byte[5 * 1024 * 1024 + 123];
+        final Random random = new Random(0L);
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) ('a' + random.nextInt(4));
+        }
+
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        final OutputStream sut = new ParallelGzipOutputStream(compressed, 4);
+        sut.write(data[0]);
+        sut.write(data, 1, data.length - 1);
+        sut.close();
+
+        assertThat(Arrays.equals(decompress(compressed.toByteArray()), data), is(true));
+    }
+
+    /**
+     * 途中でフラッシュした場合、書き込み途中のブロックは出力されずに次のブロックに持ち越され、
+     * クローズ時に1つのGZIPメンバーとして出力されること。
+     */
+    @Test
+    public void flush() throws Exception {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        final OutputStream sut = new ParallelGzipOutputStream(compressed, 2);
+        sut.write("abc".getBytes("UTF-8"));
+        sut.flush();
+        assertThat("書き込み途中のブロックは出力されないこと", compressed.size(), is(0));
+
+        sut.write("def".getBytes("UTF-8"));
+        sut.flush();
+        sut.close();
+        assertThat(new String(decompress(compressed.toByteArray()), "UTF-8"), is("abcdef"));
+
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        final GZIPOutputStream gzip = new GZIPOutputStream(expected);
+        gzip.write("abcdef".getBytes("UTF-8"));
+        gzip.close();
+        assertThat("1つのGZIPメンバーとして出力されること", compressed.size(), is(expected.size()));
+    }
+
+    /**
+     * 途中でフラッシュした場合、ブロックサイズに達したブロックは出力されること。
+     */
+    @Test
+    public void flushFullBlocks() throws Exception {
+        final byte[] data = new byte[1024 * 1024 + 10];
+        Arrays.fill(data, (byte) 'a');
+
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        final OutputStream sut = new ParallelGzipOutputStream(compressed, 2);
+        sut.write(data);
+        sut.flush();
+        assertThat(decompress(compressed.toByteArray()).length, is(1024 * 1024));
+
+        sut.close();
+        assertThat(Arrays.equals(decompress(compressed.toByteArray()), data), is(true));
+    }
+
+    /**
+     * 何も書き込まれていない場合も、空のGZIP形式のデータが出力されること。
+     */
+    @Test
+    public void empty() throws Exception {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        new ParallelGzipOutputStream(compressed, 2).close();
+
+        assertThat(decompress(compressed.toByteArray()).length, is(0));
+    }
+
+    private static byte[] decompress(final byte[] compressed) throws Exception {
+        final InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        in.close();
+        return out.toByteArray();
+    }
+}
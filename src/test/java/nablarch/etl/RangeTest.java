@@ -1,5 +1,7 @@
 package nablarch.etl;
 
+import java.util.Arrays;
+
 import org.junit.Test;
 
 import static org.hamcrest.CoreMatchers.is;
@@ -37,6 +39,62 @@ public class RangeTest {
         assertThat(sut.next(), is(false));
         assertThat(sut.next(), is(false));
     }
+    /**
+     * 処理済みの位置が指定された場合、その次の位置から一定間隔の範囲が計算されること。
+     */
+    @Test
+    public void testNextFromProcessed() {
+
+        Range sut = new Range(3, 10L, 5L);
+
+        assertThat(sut.next(), is(true));
+        assertThat(sut.from, is(6L));
+        assertThat(sut.to, is(8L));
+
+        assertThat(sut.next(), is(true));
+        assertThat(sut.from, is(9L));
+        assertThat(sut.to, is(10L));
+
+        assertThat(sut.next(), is(false));
+
+        // 全て処理済みの場合
+        sut = new Range(3, 10L, 10L);
+        assertThat(sut.next(), is(false));
+    }
+
+    /**
+     * 終了位置が計画されている場合、計画された終了位置ごとの範囲が計算されること。
+     * <p/>
+     * 計画された終了位置が最大位置に達していない場合、残りは一定間隔の範囲となること。
+     */
+    @Test
+    public void testNextWithPlannedBounds() {
+
+        Range sut = new Range(3, 20L, 2L, Arrays.asList(1L, 9L, 10L, 14L));
+
+        assertThat(sut.next(), is(true));
+        assertThat(sut.from, is(3L));
+        assertThat(sut.to, is(9L));
+
+        assertThat(sut.next(), is(true));
+        assertThat(sut.from, is(10L));
+        assertThat(sut.to, is(10L));
+
+        assertThat(sut.next(), is(true));
+        assertThat(sut.from, is(11L));
+        assertThat(sut.to, is(14L));
+
+        assertThat(sut.next(), is(true));
+        assertThat(sut.from, is(15L));
+        assertThat(sut.to, is(17L));
+
+        assertThat(sut.next(), is(true));
+        assertThat(sut.from, is(18L));
+        assertThat(sut.to, is(20L));
+
+        assertThat(sut.next(), is(false));
+    }
+
     /**
      * いろんな間隔と最大値の組み合わせでも、一定間隔の範囲が正しく計算されること。
      */
@@ -0,0 +1,138 @@
+package nablarch.etl;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.util.List;
+
+import javax.batch.runtime.context.JobContext;
+import javax.batch.runtime.context.StepContext;
+
+import nablarch.etl.config.DbToDbStepConfig.UpdateSize;
+import nablarch.test.support.log.app.OnMemoryLogWriter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import mockit.Expectations;
+import mockit.Mocked;
+
+/**
+ * {@link RangeUpdateHelper}のテスト。
+ */
+public class RangeUpdateHelperTest {
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Mocked
+    private JobContext mockJobContext;
+
+    @Mocked
+    private StepContext mockStepContext;
+
+    private RangeUpdateHelper sut;
+
+    @Before
+    public void setUp() throws Exception {
+        new Expectations() {{
+            mockStepContext.getStepName();
+            result = "test-step";
+            mockJobContext.getJobName();
+            result = "test-job";
+        }};
+        sut = new RangeUpdateHelper(mockJobContext, mockStepContext);
+        OnMemoryLogWriter.clear();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        OnMemoryLogWriter.clear();
+    }
+
+    /**
+     * 目標時間が設定されている場合、処理時間に応じて間隔が下限と上限の範囲で調整されること。
+     */
+    @Test
+    public void testAdjustInterval() throws Exception {
+        final UpdateSize updateSize = createUpdateSize();
+        updateSize.setTargetMillis(100);
+        updateSize.setMinSize(5);
+        updateSize.setMaxSize(30);
+        final Range range = new Range(10, 1000L);
+
+        sut.adjustInterval(updateSize, range, 10L, 50L, 10);
+        assertThat("目標時間の半分なので2倍になること", range.interval, is(20));
+
+        sut.adjustInterval(updateSize, range, 20L, 400L, 20);
+        assertThat("縮小は1回で半分までとなること", range.interval, is(10));
+
+        sut.adjustInterval(updateSize, range, 10L, 100L, 10);
+        assertThat("目標時間どおりなので変わらないこと", range.interval, is(10));
+
+        sut.adjustInterval(updateSize, range, 20L, 0L, 0);
+        assertThat("上限を超えないこと", range.interval, is(30));
+
+        sut.adjustInterval(updateSize, range, 4L, 1000L, 4);
+        assertThat("下限を下回らないこと", range.interval, is(5));
+
+        final List<String> messages = OnMemoryLogWriter.getMessages("writer.progress");
+        assertThat("間隔を変更した場合のみログが出力されること", messages.size(), is(4));
+        assertThat(messages.get(0), containsString(
+                "-INFO- job name: [test-job] step name: [test-step] update size: [20]"
+                        + " elapsed time(ms): [50] update count: [10]"));
+    }
+
+    /**
+     * 目標時間が設定されていない場合、間隔は調整されないこと。
+     */
+    @Test
+    public void testAdjustIntervalWithoutTarget() throws Exception {
+        final Range range = new Range(10, 1000L);
+
+        sut.adjustInterval(createUpdateSize(), range, 10L, 1L, 10);
+
+        assertThat(range.interval, is(10));
+        assertThat(OnMemoryLogWriter.getMessages("writer.progress").isEmpty(), is(true));
+    }
+
+    /**
+     * 下限が上限より大きい場合、例外が送出されること。
+     */
+    @Test
+    public void testVerifyMinSizeGreaterThanMaxSize() throws Exception {
+        final UpdateSize updateSize = createUpdateSize();
+        updateSize.setTargetMillis(100);
+        updateSize.setMinSize(50);
+        updateSize.setMaxSize(30);
+
+        expectedException.expect(InvalidEtlConfigException.class);
+        expectedException.expectMessage("updateSize.minSize must be less than or equal to updateSize.maxSize."
+                + " jobId = [test-job], stepId = [test-step], minSize = [50], maxSize = [30]");
+        sut.verifyUpdateSize(updateSize);
+    }
+
+    /**
+     * 目標時間が設定され、上限が設定されていない場合、例外が送出されること。
+     */
+    @Test
+    public void testVerifyMaxSizeRequired() throws Exception {
+        final UpdateSize updateSize = createUpdateSize();
+        updateSize.setTargetMillis(100);
+        updateSize.setMinSize(5);
+
+        expectedException.expect(InvalidEtlConfigException.class);
+        expectedException.expectMessage("updateSize.maxSize is required. jobId = [test-job], stepId = [test-step]");
+        sut.verifyUpdateSize(updateSize);
+    }
+
+    private static UpdateSize createUpdateSize() {
+        final UpdateSize updateSize = new UpdateSize();
+        updateSize.setSize(10);
+        updateSize.setBean(Object.class);
+        return updateSize;
+    }
+}
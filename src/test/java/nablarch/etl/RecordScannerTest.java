@@ -0,0 +1,206 @@
+package nablarch.etl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+
+import nablarch.common.databind.csv.Csv;
+import nablarch.common.databind.fixedlength.FixedLength;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * {@link RecordScanner}のテストクラス。
+ */
+public class RecordScannerTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    /**
+     * CSVのレコード数が数えられること。
+     * <p/>
+     * 囲み文字内の改行はレコードの区切りとして扱われないこと。
+     */
+    @Test
+    public void countCsv() throws Exception {
+        final File file = createFile("MS932",
+                "1,なまえ1\r\n",
+                "2,\"な\r\nまえ2\"\r\n",
+                "3,\"なまえ\"\"3\"\"\"\r\n",
+                "4,なまえ4");
+
+        assertThat(RecordScanner.count(file, RecordFormat.of(ExcelCsv.class)), is(4L));
+    }
+
+    /**
+     * ヘッダ行と空行はレコード数に含まれないこと。
+     */
+    @Test
+    public void countCsvWithHeader() throws Exception {
+        final File file = createFile("UTF-8",
+                "id,name\r\n",
+                "1,name1\r\n",
+                "\r\n",
+                "2,name2\r\n",
+                "\r\n");
+
+        assertThat(RecordScanner.count(file, RecordFormat.of(DefaultCsv.class)), is(2L));
+    }
+
+    /**
+     * 空のファイルの場合、レコード数は0となること。
+     */
+    @Test
+    public void countEmptyFile() throws Exception {
+        final File file = createFile("UTF-8");
+
+        assertThat(RecordScanner.count(file, RecordFormat.of(ExcelCsv.class)), is(0L));
+        assertThat(RecordScanner.estimate(file, RecordFormat.of(ExcelCsv.class)), is(0L));
+    }
+
+    /**
+     * 固定長のレコード数がファイルサイズから算出されること。
+     */
+    @Test
+    public void countFixedLength() throws Exception {
+        final File file = createFile("UTF-8",
+                "00001\r\n",
+                "00002\r\n",
+                "00003\r\n");
+
+        final RecordFormat format = RecordFormat.of(FixedLengthFile.class);
+        assertThat(format.isFixedLength(), is(true));
+        assertThat(format.recordLength, is(7));
+        assertThat(RecordScanner.count(file, format), is(3L));
+        assertThat(RecordScanner.estimate(file, format), is(3L));
+    }
+
+    /**
+     * ファイル全体を走査できる場合、見積もり件数は正確な件数となること。
+     */
+    @Test
+    public void estimateSmallFile() throws Exception {
+        final File file = createFile("MS932",
+                "1,なまえ1\r\n",
+                "2,なまえ2\r\n",
+                "3,なまえ3\r\n");
+
+        assertThat(RecordScanner.estimate(file, RecordFormat.of(ExcelCsv.class)), is(3L));
+    }
+
+    /**
+     * 大きなファイルの場合、先頭レコードの平均長から件数が見積もられること。
+     */
+    @Test
+    public void estimateLargeFile() throws Exception {
+        final File file = temporaryFolder.newFile();
+        final OutputStream stream = new FileOutputStream(file);
+        try {
+            for (int i = 0; i < 50000; i++) {
+                stream.write(String.format("%08d,name\r\n", i).getBytes("UTF-8"));
+            }
+        } finally {
+            stream.close();
+        }
+
+        assertThat(RecordScanner.estimate(file, RecordFormat.of(ExcelCsv.class)), is(50000L));
+    }
+
+    /**
+     * レコードを読み進めた位置が取得できること。
+     */
+    @Test
+    public void position() throws Exception {
+        final File file = createFile("UTF-8",
+                "id,name\r\n",
+                "1,name1\r\n",
+                "2,name2");
+
+        final FileInputStream stream = new FileInputStream(file);
+        try {
+            final RecordScanner sut = new RecordScanner(RecordFormat.of(DefaultCsv.class), stream.getChannel(), 0L);
+            sut.skipHeader();
+            assertThat(sut.position(), is(9L));
+            assertThat(sut.skipRecord(), is(true));
+            assertThat(sut.position(), is(18L));
+            assertThat(sut.skipRecord(), is(true));
+            assertThat(sut.position(), is(25L));
+            assertThat(sut.skipRecord(), is(false));
+            assertThat(sut.position(), is(25L));
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * 読み進めた物理行数が取得できること。
+     * <p/>
+     * 囲み文字内の改行と空行は物理行数に含まれ、ヘッダ行は含まれないこと。
+     */
+    @Test
+    public void lines() throws Exception {
+        final File file = createFile("UTF-8",
+                "id,name\r\n",
+                "1,\"na\r\nme\r\n1\"\r\n",
+                "\r\n",
+                "2,name2\r\n");
+
+        final FileInputStream stream = new FileInputStream(file);
+        try {
+            final RecordScanner sut = new RecordScanner(RecordFormat.of(DefaultCsv.class), stream.getChannel(), 0L);
+            sut.skipHeader();
+            assertThat(sut.lines(), is(0L));
+            assertThat(sut.skipRecord(), is(true));
+            assertThat(sut.lines(), is(3L));
+            assertThat(sut.skipRecord(), is(true));
+            assertThat(sut.lines(), is(5L));
+            assertThat(sut.skipRecord(), is(false));
+            assertThat(sut.lines(), is(5L));
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * データバインドのアノテーションがないBeanの場合、形式情報は構築されないこと。
+     */
+    @Test
+    public void unsupportedBean() throws Exception {
+        assertThat(RecordFormat.of(ExcelCsv.class), is(notNullValue()));
+        assertThat(RecordFormat.of(Object.class), is(nullValue()));
+    }
+
+    private File createFile(final String charset, final String... lines) throws Exception {
+        final File file = temporaryFolder.newFile();
+        final OutputStream stream = new FileOutputStream(file);
+        try {
+            for (String line : lines) {
+                stream.write(line.getBytes(charset));
+            }
+        } finally {
+            stream.close();
+        }
+        return file;
+    }
+
+    @Csv(type = Csv.CsvType.EXCEL, properties = {"id", "name"})
+    public static class ExcelCsv {
+    }
+
+    @Csv(type = Csv.CsvType.DEFAULT, properties = {"id", "name"}, headers = {"id", "name"})
+    public static class DefaultCsv {
+    }
+
+    @FixedLength(length = 5, charset = "UTF-8", lineSeparator = "\r\n")
+    public static class FixedLengthFile {
+    }
+}
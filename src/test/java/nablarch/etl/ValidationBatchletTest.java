@@ -180,6 +180,45 @@ public class ValidationBatchletTest {
         ));
     }
 
+    /**
+     * フェッチサイズを指定した場合でも、全てのレコードがvalidationされること。
+     * <p/>
+     * 結果ログに加えて、フェッチの統計情報がログに出力されること。
+     */
+    @Test
+    public void validationWithFetchSize() throws Exception {
+        // -------------------------------------------------- setup input data
+        VariousDbTestHelper.setUpTable(
+                new ValidationBatchletEntity(1L, "あ", "か", "1"),
+                new ValidationBatchletEntity(2L, "い", "き", "1"),
+                new ValidationBatchletEntity(3L, "う", "く", "1")
+        );
+
+        final ValidationStepConfig stepConfig = new ValidationStepConfig();
+        stepConfig.setBean(ValidationBatchletBean.class);
+        stepConfig.setErrorTableEntity(ValidationBatchletErrorBean.class);
+        stepConfig.setFetchSize(2);
+        final ValidationBatchlet sut = new ValidationBatchlet(
+                mockJobContext,
+                mockStepContext,
+                stepConfig,
+                new BasicProgressManager(mockJobContext, mockStepContext));
+
+        // -------------------------------------------------- execute
+        assertThat("エラーなしなのでSUCCESS", sut.process(), is("SUCCESS"));
+
+        // -------------------------------------------------- assert log
+        final List<String> logMessages = OnMemoryLogWriter.getMessages("writer.memory");
+        assertThat(logMessages, Matchers.hasItem(allOf(
+                containsString("-INFO- fetch statistics. bean class=[" + ValidationBatchletBean.class.getName() + ']'),
+                containsString("fetched count=[3]"))));
+        assertThat(logMessages, Matchers.hasItem(
+                containsString("-INFO- validation result."
+                        + " bean class=[" + ValidationBatchletBean.class.getName() + "],"
+                        + " line count=[3],"
+                        + " error count=[0]")));
+    }
+
     /**
      * validationでエラーが1つ発生する場合のケース
      * <p/>
@@ -686,6 +725,242 @@ public class ValidationBatchletTest {
         sut.process();
     }
 
+    /**
+     * バリデーションを並列に実行した場合でも、エラーが読み込み順に記録されること。
+     */
+    @Test
+    public void validationWithThreads() throws Exception {
+        final ValidationStepConfig stepConfig = new ValidationStepConfig();
+        stepConfig.setBean(ValidationBatchletBean.class);
+        stepConfig.setErrorTableEntity(ValidationBatchletErrorBean.class);
+        stepConfig.setMode(ValidationStepConfig.Mode.CONTINUE);
+        stepConfig.setValidationThreads(3);
+        final ValidationBatchlet sut = new ValidationBatchlet(
+                mockJobContext,
+                mockStepContext,
+                stepConfig,
+                new BasicProgressManager(mockJobContext, mockStepContext));
+
+        // -------------------------------------------------- setup input data
+        VariousDbTestHelper.delete(ValidationBatchletEntity.class);
+        for (int i = 1; i <= 250; i++) {
+            final String firstName = i == 50 || i == 150 || i == 230 ? "いいいいいい" : "あ";
+            VariousDbTestHelper.insert(new ValidationBatchletEntity((long) i, firstName, "か", "10"));
+        }
+
+        // -------------------------------------------------- execute
+        assertThat(sut.process(), is("WARNING"));
+
+        // -------------------------------------------------- assert table
+        final List<ValidationBatchletErrorEntity> errors = VariousDbTestHelper.findAll(
+                ValidationBatchletErrorEntity.class, "lineNumber");
+        assertThat(errors.size(), is(3));
+        assertThat(errors.get(0).lineNumber, is(50L));
+        assertThat(errors.get(1).lineNumber, is(150L));
+        assertThat(errors.get(2).lineNumber, is(230L));
+
+        final List<ValidationBatchletEntity> work = VariousDbTestHelper.findAll(ValidationBatchletEntity.class);
+        assertThat(work.size(), is(247));
+
+        // -------------------------------------------------- assert log
+        final List<String> logMessages = OnMemoryLogWriter.getMessages("writer.memory");
+        assertThat("エラーは読み込み順に出力されること", logMessages, Matchers.contains(
+                containsString("line number=[50]"),
+                containsString("line number=[150]"),
+                containsString("line number=[230]"),
+                containsString("-INFO- validation result."
+                        + " bean class=[" + ValidationBatchletBean.class.getName() + "],"
+                        + " line count=[250],"
+                        + " error count=[3]")));
+    }
+
+    /**
+     * バリデーションを並列に実行した場合でも、許容するエラー数を超えた時点で異常終了すること。
+     */
+    @Test
+    public void testErrorLimitOverWithThreads() throws Exception {
+        final ValidationStepConfig stepConfig = new ValidationStepConfig();
+        stepConfig.setBean(ValidationBatchletBean.class);
+        stepConfig.setErrorTableEntity(ValidationBatchletErrorBean.class);
+        stepConfig.setErrorLimit(1);
+        stepConfig.setValidationThreads(2);
+        final ValidationBatchlet sut = new ValidationBatchlet(
+                mockJobContext,
+                mockStepContext,
+                stepConfig,
+                new BasicProgressManager(mockJobContext, mockStepContext));
+
+        // -------------------------------------------------- setup input data
+        VariousDbTestHelper.delete(ValidationBatchletEntity.class);
+        for (int i = 1; i <= 250; i++) {
+            final String firstName = i == 10 || i == 120 || i == 240 ? "いいいいいい" : "あ";
+            VariousDbTestHelper.insert(new ValidationBatchletEntity((long) i, firstName, "か", "10"));
+        }
+
+        // -------------------------------------------------- execute
+        try {
+            sut.process();
+            fail();
+        } catch (EtlJobAbortedException e) {
+            assertThat(e.getMessage(), is("number of validation errors has exceeded the maximum number of errors."
+                    + " bean class=[" + ValidationBatchletBean.class.getName() + ']'));
+        }
+
+        // -------------------------------------------------- assert log
+        final List<String> logMessages = OnMemoryLogWriter.getMessages("writer.memory");
+        assertThat("2件目のエラーで異常終了すること", logMessages, Matchers.contains(
+                containsString("line number=[10]"),
+                containsString("line number=[120]")));
+    }
+
+    /**
+     * 設定値[validationThreads]が不正な場合エラーが送出されること
+     */
+    @Test
+    public void testInvalidValidationThreads() throws Exception {
+        final ValidationStepConfig stepConfig = new ValidationStepConfig();
+        stepConfig.setBean(ValidationBatchletBean.class);
+        stepConfig.setErrorTableEntity(ValidationBatchletErrorBean.class);
+        stepConfig.setValidationThreads(0);
+
+        final ValidationBatchlet sut = new ValidationBatchlet(
+                mockJobContext,
+                mockStepContext,
+                stepConfig,
+                new BasicProgressManager(mockJobContext, mockStepContext));
+
+        expectedException.expect(InvalidEtlConfigException.class);
+        expectedException.expectMessage("validationThreads must be greater than 0."
+                + " jobId = [testInvalidValidationThreads_job], stepId = [testInvalidValidationThreads_step], size = [0]");
+        sut.process();
+    }
+
+    /**
+     * エラーテーブルへの登録でまとめるレコード数を超えるエラーがある場合でも、全てのエラーレコードが移動されること。
+     */
+    @Test
+    public void validationWithErrorInsertBatchSize() throws Exception {
+        final ValidationStepConfig stepConfig = new ValidationStepConfig();
+        stepConfig.setBean(ValidationBatchletBean.class);
+        stepConfig.setErrorTableEntity(ValidationBatchletErrorBean.class);
+        stepConfig.setMode(ValidationStepConfig.Mode.CONTINUE);
+        stepConfig.setErrorInsertBatchSize(2);
+        final ValidationBatchlet sut = new ValidationBatchlet(
+                mockJobContext,
+                mockStepContext,
+                stepConfig,
+                new BasicProgressManager(mockJobContext, mockStepContext));
+
+        // -------------------------------------------------- setup input data
+        VariousDbTestHelper.setUpTable(
+                new ValidationBatchletEntity(1L, "いいいいいい", "か", "1"),     // error 1
+                new ValidationBatchletEntity(2L, "い", "き", "1"),
+                new ValidationBatchletEntity(3L, "うううううう", "く", "1"),      // error 2
+                new ValidationBatchletEntity(4L, "ええええええ", "け", "1"),      // error 3
+                new ValidationBatchletEntity(5L, "お", "こ", "1"),
+                new ValidationBatchletEntity(6L, "かかかかかか", "さ", "1")      // error 4
+        );
+
+        // -------------------------------------------------- execute
+        assertThat(sut.process(), is("WARNING"));
+
+        // -------------------------------------------------- assert table
+        final List<ValidationBatchletErrorEntity> errors = VariousDbTestHelper.findAll(
+                ValidationBatchletErrorEntity.class, "lineNumber");
+        assertThat(errors.size(), is(4));
+        assertThat(errors.get(0).lineNumber, is(1L));
+        assertThat(errors.get(0).firstName, is("いいいいいい"));
+        assertThat(errors.get(0).lastName, is("か"));
+        assertThat(errors.get(0).age, is("1"));
+        assertThat(errors.get(1).lineNumber, is(3L));
+        assertThat(errors.get(2).lineNumber, is(4L));
+        assertThat(errors.get(3).lineNumber, is(6L));
+        assertThat(errors.get(3).firstName, is("かかかかかか"));
+
+        final List<ValidationBatchletEntity> inputs = VariousDbTestHelper.findAll(ValidationBatchletEntity.class,
+                "lineNumber");
+        assertThat(inputs.size(), is(2));
+        assertThat(inputs.get(0).lineNumber, is(2L));
+        assertThat(inputs.get(1).lineNumber, is(5L));
+    }
+
+    /**
+     * 設定値[errorInsertBatchSize]が不正な場合エラーが送出されること
+     */
+    @Test
+    public void testInvalidErrorInsertBatchSize() throws Exception {
+        final ValidationStepConfig stepConfig = new ValidationStepConfig();
+        stepConfig.setBean(ValidationBatchletBean.class);
+        stepConfig.setErrorTableEntity(ValidationBatchletErrorBean.class);
+        stepConfig.setErrorInsertBatchSize(0);
+
+        final ValidationBatchlet sut = new ValidationBatchlet(
+                mockJobContext,
+                mockStepContext,
+                stepConfig,
+                new BasicProgressManager(mockJobContext, mockStepContext));
+
+        expectedException.expect(InvalidEtlConfigException.class);
+        expectedException.expectMessage("errorInsertBatchSize must be greater than 0. jobId = "
+                + "[testInvalidErrorInsertBatchSize_job], stepId = [testInvalidErrorInsertBatchSize_step], size = [0]");
+        sut.process();
+    }
+
+    /**
+     * 詳細をログに出力するエラーの件数を設定した場合、その件数を超えたエラーは詳細が出力されず、
+     * プロパティ名とメッセージテンプレートごとのエラー件数が進捗ログに出力されること。
+     */
+    @Test
+    public void validationWithErrorLogSampleSize() throws Exception {
+        final ValidationStepConfig stepConfig = new ValidationStepConfig();
+        stepConfig.setBean(ValidationBatchletBean.class);
+        stepConfig.setErrorTableEntity(ValidationBatchletErrorBean.class);
+        stepConfig.setMode(ValidationStepConfig.Mode.CONTINUE);
+        stepConfig.setErrorLogSampleSize(2);
+        final ValidationBatchlet sut = new ValidationBatchlet(
+                mockJobContext,
+                mockStepContext,
+                stepConfig,
+                new BasicProgressManager(mockJobContext, mockStepContext));
+
+        // -------------------------------------------------- setup input data
+        VariousDbTestHelper.setUpTable(
+                new ValidationBatchletEntity(1L, "あ", "か", "1"),
+                new ValidationBatchletEntity(2L, "いいいいいい", "き", "1"),     // error 1
+                new ValidationBatchletEntity(3L, "うううううう", "く", "1"),     // error 2
+                new ValidationBatchletEntity(4L, "ええええええ", "け", "1"),     // error 3
+                new ValidationBatchletEntity(5L, "お", "こ", "100")              // error 4
+        );
+
+        // -------------------------------------------------- execute
+        assertThat(sut.process(), is("WARNING"));
+
+        // -------------------------------------------------- assert table
+        final List<ValidationBatchletErrorEntity> errors = VariousDbTestHelper.findAll(
+                ValidationBatchletErrorEntity.class);
+        assertThat("全てのエラーレコードが移動されること", errors.size(), is(4));
+
+        // -------------------------------------------------- assert log
+        final List<String> logMessages = OnMemoryLogWriter.getMessages("writer.memory");
+        assertThat(logMessages, Matchers.contains(
+                allOf(containsString("property name=[firstName]"), containsString("line number=[2]")),
+                allOf(containsString("property name=[firstName]"), containsString("line number=[3]")),
+                containsString("-WARN- number of validation errors has reached the sample size."
+                        + " subsequent errors are only counted. sample size=[2]"),
+                containsString("line count=[5], error count=[4]")));
+
+        final List<String> progress = OnMemoryLogWriter.getMessages("writer.progress");
+        assertThat(progress, Matchers.contains(
+                containsString("input count: [5]"),
+                containsString("job name: [validationWithErrorLogSampleSize_job]"
+                        + " step name: [validationWithErrorLogSampleSize_step]"
+                        + " validation error count: [4] logged: [2] suppressed: [2]"),
+                allOf(containsString("property name: [firstName]"), containsString("error count: [3]")),
+                allOf(containsString("property name: [age]"), containsString("error count: [1]")),
+                containsString("remaining count: [0]")
+        ));
+    }
+
     @Test
     public void testProgressLog() throws Exception {
         // -------------------------------------------------- setup error limit
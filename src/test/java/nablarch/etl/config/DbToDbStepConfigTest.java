@@ -100,6 +100,10 @@ public class DbToDbStepConfigTest {
         assertThat(sut.getMergeOnColumns(), nullValue());
         assertThat(sut.getUpdateSize(), nullValue());
         assertThat("INSERTモードのデフォルトはNORMAL", sut.getInsertMode(), is(DbToDbStepConfig.InsertMode.NORMAL));
+        assertThat("クリーニングモードのデフォルトはDELETE", sut.getCleaningMode(), is(DbToDbStepConfig.CleaningMode.DELETE));
+        assertThat("デフォルトはインデックスを削除しないこと", sut.isDeferIndexes(), is(false));
+        assertThat("デフォルトはインデックスを並列に作成しないこと", sut.getIndexRebuildThreads(), is(1));
+        assertThat("デフォルトは一括登録の行数を指定しないこと", sut.getBulkInsertSize(), is(nullValue()));
         assertThat("NORMAL用のSQLGeneratorが取得できること", sut.getInsertMode()
                 .getInsertSqlGenerator(), is(instanceOf(InsertSqlGenerator.class)));
 
@@ -136,6 +140,8 @@ public class DbToDbStepConfigTest {
         assertThat(sut.getMergeOnColumns().get(1), is("kodomo_id"));
         assertThat(sut.getUpdateSize().getSize(), is(1000));
         assertThat(sut.getUpdateSize().getBean().getName(), is(TestDto3.class.getName()));
+        assertThat("並列度のデフォルトは1であること", sut.getUpdateSize().getParallelism(), is(1));
+        assertThat("デフォルトはサイズを調整しないこと", sut.getUpdateSize().getTargetMillis(), nullValue());
         assertThat("設定したINSERTモードが取得できること", sut.getInsertMode(), is(InsertMode.ORACLE_DIRECT_PATH));
         assertThat("Oracleダイレクトパスインサート用のSQLGeneratorが取得できること",
                 sut.getInsertMode().getInsertSqlGenerator(), is(instanceOf(OracleDirectPathInsertSqlGenerator.class)));
@@ -1,6 +1,7 @@
 package nablarch.etl.config;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
 
 import nablarch.etl.config.app.TestDto;
@@ -35,5 +36,94 @@ public class DbToFileStepConfigTest {
         assertThat(sut.getBean().getName(), is(TestDto.class.getName()));
         assertThat(sut.getSqlId(), is("SELECT_TEST"));
         assertThat(sut.getFileName(), is(fileName));
+        assertThat("デフォルトは拡張子から圧縮形式を判定すること", sut.getCompression(), is(FileCompression.AUTO));
+        assertThat("デフォルトは並列に圧縮しないこと", sut.getCompressionThreads(), is(1));
+        assertThat("デフォルトは同期して書き込むこと", sut.isAsyncWrite(), is(false));
+        assertThat("デフォルトは出力ファイルを切り替えないこと", sut.getMaxRecordsPerFile(), is(0L));
+        assertThat("デフォルトは出力ファイルを切り替えないこと", sut.getMaxBytesPerFile(), is(0L));
+        assertThat("デフォルトは1つのカーソルで読み込むこと", sut.getPageSize(), is(0));
+        assertThat("デフォルトはLINE_NUMBERでページングすること", sut.getPageKey(), is("LINE_NUMBER"));
+        assertThat("デフォルトは入力件数を正確に取得すること", sut.getInputCountMode(), is(InputCountMode.EXACT));
+        assertThat(sut.getCountSqlId(), is(nullValue()));
+        assertThat("デフォルトはドライバのフェッチサイズで読み込むこと", sut.getFetchSize(), is(0));
+        assertThat("デフォルトは再実行時に先頭から読み込み直すこと", sut.isSkipOnRestart(), is(false));
+    }
+
+    /**
+     * 出力ファイルの圧縮形式と圧縮するスレッド数が設定できること。
+     */
+    @Test
+    public void testCompression() {
+        DbToFileStepConfig sut = new DbToFileStepConfig();
+        sut.setCompression(FileCompression.GZIP);
+        sut.setCompressionThreads(8);
+        assertThat(sut.getCompression(), is(FileCompression.GZIP));
+        assertThat(sut.getCompressionThreads(), is(8));
+    }
+
+    /**
+     * 出力ファイルに非同期で書き込むか否かが設定できること。
+     */
+    @Test
+    public void testAsyncWrite() {
+        DbToFileStepConfig sut = new DbToFileStepConfig();
+        sut.setAsyncWrite(true);
+        assertThat(sut.isAsyncWrite(), is(true));
+    }
+
+    /**
+     * 1ファイルあたりの最大レコード数と最大バイト数が設定できること。
+     */
+    @Test
+    public void testRollingLimits() {
+        DbToFileStepConfig sut = new DbToFileStepConfig();
+        sut.setMaxRecordsPerFile(1000000L);
+        sut.setMaxBytesPerFile(1024L * 1024 * 1024);
+        assertThat(sut.getMaxRecordsPerFile(), is(1000000L));
+        assertThat(sut.getMaxBytesPerFile(), is(1024L * 1024 * 1024));
+    }
+
+    /**
+     * キーでページングして読み込む設定ができること。
+     */
+    @Test
+    public void testPaging() {
+        DbToFileStepConfig sut = new DbToFileStepConfig();
+        sut.setPageSize(10000);
+        sut.setPageKey("ID");
+        assertThat(sut.getPageSize(), is(10000));
+        assertThat(sut.getPageKey(), is("ID"));
+    }
+
+    /**
+     * 入力件数の取得モードと入力件数を取得するSQL_IDが設定できること。
+     */
+    @Test
+    public void testInputCount() {
+        DbToFileStepConfig sut = new DbToFileStepConfig();
+        sut.setInputCountMode(InputCountMode.ESTIMATE);
+        sut.setCountSqlId("COUNT_TEST");
+        assertThat(sut.getInputCountMode(), is(InputCountMode.ESTIMATE));
+        assertThat(sut.getCountSqlId(), is("COUNT_TEST"));
+    }
+
+    /**
+     * フェッチサイズが設定できること。
+     */
+    @Test
+    public void testFetchSize() {
+        DbToFileStepConfig sut = new DbToFileStepConfig();
+        sut.setFetchSize(500);
+        assertThat(sut.getFetchSize(), is(500));
+    }
+
+    /**
+     * 再実行時に読み込み済みのレコードを読み飛ばすか否かが設定できること。
+     */
+    @Test
+    public void testSkipOnRestart() {
+        DbToFileStepConfig sut = new DbToFileStepConfig();
+        sut.setSkipOnRestart(true);
+        assertThat(sut.isSkipOnRestart(), is(true));
     }
 }
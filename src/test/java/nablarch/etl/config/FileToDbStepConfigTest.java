@@ -1,6 +1,7 @@
 package nablarch.etl.config;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
 
 import nablarch.etl.config.app.TestDto;
@@ -32,5 +33,67 @@ public class FileToDbStepConfigTest {
         assertThat(sut.getStepId(), is("step1"));
         assertThat(sut.getBean().getName(), is(TestDto.class.getName()));
         assertThat(sut.getFileName(), is(fileName));
+        assertThat("デフォルトは正確な件数を取得すること", sut.getInputCountMode(), is(InputCountMode.EXACT));
+        assertThat("デフォルトは並列化しないこと", sut.getParserThreads(), is(1));
+        assertThat("デフォルトは分割しないこと", sut.getPartitions(), is(1));
+        assertThat("デフォルトはメモリにマッピングしないこと", sut.isMemoryMapped(), is(false));
+        assertThat("デフォルトは拡張子から圧縮形式を判定すること", sut.getCompression(), is(FileCompression.AUTO));
+        assertThat("デフォルトはインデックスを削除しないこと", sut.isDeferIndexes(), is(false));
+        assertThat("デフォルトはインデックスを並列に作成しないこと", sut.getIndexRebuildThreads(), is(1));
+        assertThat("デフォルトは一括登録の行数を指定しないこと", sut.getBulkInsertSize(), is(nullValue()));
+        assertThat("デフォルトはMERGEのON句に指定するカラム名を指定しないこと", sut.getMergeOnColumns(), is(nullValue()));
+    }
+
+    /**
+     * 入力件数の取得モードが設定できること。
+     */
+    @Test
+    public void testInputCountMode() {
+        FileToDbStepConfig sut = new FileToDbStepConfig();
+        sut.setInputCountMode(InputCountMode.ESTIMATE);
+        assertThat(sut.getInputCountMode(), is(InputCountMode.ESTIMATE));
+    }
+
+    /**
+     * 入力ファイルを変換するスレッド数が設定できること。
+     */
+    @Test
+    public void testParserThreads() {
+        FileToDbStepConfig sut = new FileToDbStepConfig();
+        sut.setParserThreads(4);
+        assertThat(sut.getParserThreads(), is(4));
+    }
+
+    /**
+     * 入力ファイルの分割数が設定できること。
+     */
+    @Test
+    public void testPartitions() {
+        FileToDbStepConfig sut = new FileToDbStepConfig();
+        sut.setPartitions(32);
+        assertThat(sut.getPartitions(), is(32));
+    }
+
+    /**
+     * 入力ファイルをメモリにマッピングして読み込むか否かが設定できること。
+     */
+    @Test
+    public void testMemoryMapped() {
+        FileToDbStepConfig sut = new FileToDbStepConfig();
+        sut.setMemoryMapped(true);
+        assertThat(sut.isMemoryMapped(), is(true));
+    }
+
+    /**
+     * 入力ファイルの圧縮形式が設定できること。
+     */
+    @Test
+    public void testCompression() {
+        FileToDbStepConfig sut = new FileToDbStepConfig();
+        sut.setCompression(FileCompression.GZIP);
+        assertThat(sut.getCompression(), is(FileCompression.GZIP));
+        assertThat(FileCompression.AUTO.resolve("input.csv.GZ"), is(FileCompression.GZIP));
+        assertThat(FileCompression.AUTO.resolve("input.csv"), is(FileCompression.NONE));
+        assertThat(FileCompression.NONE.resolve("input.csv.gz"), is(FileCompression.NONE));
     }
 }
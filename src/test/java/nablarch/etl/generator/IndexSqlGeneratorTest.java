@@ -0,0 +1,64 @@
+package nablarch.etl.generator;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import javax.persistence.Entity;
+import javax.persistence.Table;
+
+import nablarch.core.db.connection.ConnectionFactory;
+import nablarch.core.db.connection.DbConnectionContext;
+import nablarch.core.db.connection.TransactionManagerConnection;
+import nablarch.core.transaction.TransactionContext;
+import nablarch.test.support.SystemRepositoryResource;
+import nablarch.test.support.db.helper.DatabaseTestRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * {@link IndexSqlGenerator}と{@link SqlServerIndexSqlGenerator}のテストクラス。
+ */
+@RunWith(DatabaseTestRunner.class)
+public class IndexSqlGeneratorTest {
+
+    @ClassRule
+    public static SystemRepositoryResource resource = new SystemRepositoryResource("db-default.xml");
+
+    @Before
+    public void setUp() throws Exception {
+        ConnectionFactory connectionFactory = resource.getComponent("connectionFactory");
+        DbConnectionContext.setConnection(connectionFactory.getConnection(TransactionContext.DEFAULT_TRANSACTION_CONTEXT_KEY));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        final TransactionManagerConnection connection = DbConnectionContext.getTransactionManagerConnection();
+        DbConnectionContext.removeConnection();
+        connection.terminate();
+    }
+
+    @Test
+    public void testGenerateDropSql() throws Exception {
+        final IndexSqlGenerator sut = new IndexSqlGenerator();
+        assertThat(sut.generateDropSql(TableOnly.class, "idx1"), is("drop index idx1"));
+        assertThat(sut.generateDropSql(TableAndSchema.class, "idx1"), is("drop index test.idx1"));
+    }
+
+    @Test
+    public void testGenerateDropSql_sqlServer() throws Exception {
+        final IndexSqlGenerator sut = new SqlServerIndexSqlGenerator();
+        assertThat(sut.generateDropSql(TableOnly.class, "idx1"), is("drop index idx1 on index_table"));
+        assertThat(sut.generateDropSql(TableAndSchema.class, "idx1"), is("drop index idx1 on test.index_table"));
+    }
+
+    @Entity
+    @Table(name = "index_table")
+    private static class TableOnly {}
+
+    @Entity
+    @Table(name = "index_table", schema = "test")
+    private static class TableAndSchema {}
+}
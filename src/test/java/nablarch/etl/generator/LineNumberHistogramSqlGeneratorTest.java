@@ -0,0 +1,88 @@
+package nablarch.etl.generator;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Map;
+
+import javax.persistence.Entity;
+import javax.persistence.Table;
+
+import nablarch.core.db.connection.ConnectionFactory;
+import nablarch.core.db.connection.DbConnectionContext;
+import nablarch.core.transaction.TransactionContext;
+import nablarch.etl.InvalidEtlConfigException;
+import nablarch.etl.config.DbToDbStepConfig;
+import nablarch.test.support.SystemRepositoryResource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ * {@link LineNumberHistogramSqlGenerator}のテスト。
+ */
+public class LineNumberHistogramSqlGeneratorTest {
+
+    private final LineNumberHistogramSqlGenerator sut = new LineNumberHistogramSqlGenerator();
+
+    @Rule
+    public SystemRepositoryResource systemRepositoryResource = new SystemRepositoryResource("db-default.xml");
+
+    @Before
+    public void setUp() throws Exception {
+        final ConnectionFactory connectionFactory = systemRepositoryResource.getComponentByType(ConnectionFactory.class);
+        DbConnectionContext.setConnection(connectionFactory.getConnection(TransactionContext.DEFAULT_TRANSACTION_CONTEXT_KEY));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        DbConnectionContext.removeConnection();
+    }
+
+    /**
+     * 設定で指定されたEntityのテーブル名とサイズが入ったSQL文が生成されること。
+     */
+    @Test
+    public void generateHistogramSql() {
+
+        final DbToDbStepConfig config = new DbToDbStepConfig() {
+            {
+                setUpdateSize(new UpdateSize());
+                getUpdateSize().setBean(EtlHistogramGenEntity.class);
+                getUpdateSize().setSize(1000);
+            }
+        };
+
+        final String result = sut.generateSql(config);
+
+        assertThat(result, is("select floor((LINE_NUMBER - 1) / 1000) as BUCKET, count(*) as LINE_COUNT"
+                + " from etl_work.etl_histogram_gen"
+                + " where LINE_NUMBER > ?"
+                + " group by floor((LINE_NUMBER - 1) / 1000)"
+                + " order by 1"));
+    }
+
+    /**
+     * 非Entityクラスはエラーとなること。
+     */
+    @Test(expected = InvalidEtlConfigException.class)
+    public void notEntityClass() throws Exception {
+
+        final DbToDbStepConfig config = new DbToDbStepConfig() {
+            {
+                setUpdateSize(new UpdateSize());
+                getUpdateSize().setBean(Map.class);
+                getUpdateSize().setSize(1000);
+            }
+        };
+
+        sut.generateSql(config);
+    }
+
+    @Entity
+    @Table(name = "etl_histogram_gen", schema = "etl_work")
+    public static class EtlHistogramGenEntity {
+    }
+}
@@ -0,0 +1,70 @@
+package nablarch.etl.generator;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertThat;
+
+import javax.persistence.Entity;
+import javax.persistence.Table;
+
+import nablarch.core.db.connection.ConnectionFactory;
+import nablarch.core.db.connection.DbConnectionContext;
+import nablarch.core.db.connection.TransactionManagerConnection;
+import nablarch.core.transaction.TransactionContext;
+import nablarch.test.support.SystemRepositoryResource;
+import nablarch.test.support.db.helper.DatabaseTestRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * {@link OracleTableSwapSqlGenerator}のテストクラス。
+ */
+@RunWith(DatabaseTestRunner.class)
+public class OracleTableSwapSqlGeneratorTest {
+
+    @ClassRule
+    public static SystemRepositoryResource resource = new SystemRepositoryResource("db-default.xml");
+
+    @Before
+    public void setUp() throws Exception {
+        ConnectionFactory connectionFactory = resource.getComponent("connectionFactory");
+        DbConnectionContext.setConnection(connectionFactory.getConnection(TransactionContext.DEFAULT_TRANSACTION_CONTEXT_KEY));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        final TransactionManagerConnection connection = DbConnectionContext.getTransactionManagerConnection();
+        DbConnectionContext.removeConnection();
+        connection.terminate();
+    }
+
+    /** テスト対象 */
+    TableSwapSqlGenerator sut = new OracleTableSwapSqlGenerator();
+
+    @Test
+    public void testIsTransactionalDdl() throws Exception {
+        assertThat(sut.isTransactionalDdl(), is(false));
+    }
+
+    @Test
+    public void testGenerateFindDependentObjectsSql() throws Exception {
+        assertThat(sut.generateFindDependentObjectsSql(SwapEntity.class), contains(
+                "select 'CHECK CONSTRAINT', constraint_name from all_constraints"
+                        + " where owner = 'TEST' and table_name = 'SWAP_TABLE'"
+                        + " and constraint_type = 'C' and search_condition_vc not like '% IS NOT NULL'",
+                "select 'TRIGGER', trigger_name from all_triggers"
+                        + " where table_owner = 'TEST' and table_name = 'SWAP_TABLE'",
+                "select 'VIEW', name from all_dependencies"
+                        + " where referenced_owner = 'TEST' and referenced_name = 'SWAP_TABLE'"
+                        + " and referenced_type = 'TABLE' and type = 'VIEW'",
+                "select 'GRANT', grantee from all_tab_privs"
+                        + " where table_schema = 'TEST' and table_name = 'SWAP_TABLE'"));
+    }
+
+    @Entity
+    @Table(name = "swap_table", schema = "test")
+    private static class SwapEntity {}
+}
@@ -0,0 +1,75 @@
+package nablarch.etl.generator;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertThat;
+
+import javax.persistence.Entity;
+import javax.persistence.Table;
+
+import nablarch.core.db.connection.ConnectionFactory;
+import nablarch.core.db.connection.DbConnectionContext;
+import nablarch.core.db.connection.TransactionManagerConnection;
+import nablarch.core.transaction.TransactionContext;
+import nablarch.test.support.SystemRepositoryResource;
+import nablarch.test.support.db.helper.DatabaseTestRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * {@link PostgresTableSwapSqlGenerator}のテストクラス。
+ */
+@RunWith(DatabaseTestRunner.class)
+public class PostgresTableSwapSqlGeneratorTest {
+
+    @ClassRule
+    public static SystemRepositoryResource resource = new SystemRepositoryResource("db-default.xml");
+
+    @Before
+    public void setUp() throws Exception {
+        ConnectionFactory connectionFactory = resource.getComponent("connectionFactory");
+        DbConnectionContext.setConnection(connectionFactory.getConnection(TransactionContext.DEFAULT_TRANSACTION_CONTEXT_KEY));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        final TransactionManagerConnection connection = DbConnectionContext.getTransactionManagerConnection();
+        DbConnectionContext.removeConnection();
+        connection.terminate();
+    }
+
+    /** テスト対象 */
+    TableSwapSqlGenerator sut = new PostgresTableSwapSqlGenerator();
+
+    @Test
+    public void testIsTransactionalDdl() throws Exception {
+        assertThat(sut.isTransactionalDdl(), is(true));
+    }
+
+    @Test
+    public void testGenerateFindDependentObjectsSql() throws Exception {
+        final String condition = " inner join pg_namespace n on n.oid = t.relnamespace"
+                + " where n.nspname = current_schema() and t.relname = 'SWAP_TABLE'";
+        assertThat(sut.generateFindDependentObjectsSql(SwapEntity.class), contains(
+                "select 'CHECK CONSTRAINT', c.conname from pg_constraint c"
+                        + " inner join pg_class t on t.oid = c.conrelid" + condition + " and c.contype = 'c'",
+                "select 'TRIGGER', g.tgname from pg_trigger g"
+                        + " inner join pg_class t on t.oid = g.tgrelid" + condition + " and not g.tgisinternal",
+                "select 'VIEW', v.relname from pg_depend d"
+                        + " inner join pg_rewrite r on r.oid = d.objid"
+                        + " inner join pg_class v on v.oid = r.ev_class"
+                        + " inner join pg_class t on t.oid = d.refobjid" + condition
+                        + " and d.classid = 'pg_rewrite'::regclass and v.oid <> t.oid"
+                        + " group by v.relname",
+                "select 'GRANT', grantee from information_schema.table_privileges"
+                        + " where table_schema = current_schema() and table_name = 'SWAP_TABLE'"
+                        + " and grantor <> grantee"));
+    }
+
+    @Entity
+    @Table(name = "swap_table")
+    private static class SwapEntity {}
+}
@@ -0,0 +1,81 @@
+package nablarch.etl.generator;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertThat;
+
+import javax.persistence.Entity;
+import javax.persistence.Table;
+
+import nablarch.core.db.connection.ConnectionFactory;
+import nablarch.core.db.connection.DbConnectionContext;
+import nablarch.core.db.connection.TransactionManagerConnection;
+import nablarch.core.transaction.TransactionContext;
+import nablarch.test.support.SystemRepositoryResource;
+import nablarch.test.support.db.helper.DatabaseTestRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * {@link SqlServerTableSwapSqlGenerator}のテストクラス。
+ */
+@RunWith(DatabaseTestRunner.class)
+public class SqlServerTableSwapSqlGeneratorTest {
+
+    @ClassRule
+    public static SystemRepositoryResource resource = new SystemRepositoryResource("db-default.xml");
+
+    @Before
+    public void setUp() throws Exception {
+        ConnectionFactory connectionFactory = resource.getComponent("connectionFactory");
+        DbConnectionContext.setConnection(connectionFactory.getConnection(TransactionContext.DEFAULT_TRANSACTION_CONTEXT_KEY));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        final TransactionManagerConnection connection = DbConnectionContext.getTransactionManagerConnection();
+        DbConnectionContext.removeConnection();
+        connection.terminate();
+    }
+
+    /** テスト対象 */
+    TableSwapSqlGenerator sut = new SqlServerTableSwapSqlGenerator();
+
+    @Test
+    public void testGenerateCreateShadowSql() throws Exception {
+        assertThat(sut.generateCreateShadowSql(SwapEntity.class),
+                is("select * into test.swap_table_SHADOW from test.swap_table where 1 = 0"));
+    }
+
+    @Test
+    public void testGenerateSwapSql() throws Exception {
+        assertThat(sut.generateSwapSql(SwapEntity.class), contains(
+                "exec sp_rename 'test.swap_table', 'swap_table_OLD'",
+                "exec sp_rename 'test.swap_table_SHADOW', 'swap_table'"));
+    }
+
+    @Test
+    public void testIsTransactionalDdl() throws Exception {
+        assertThat(sut.isTransactionalDdl(), is(true));
+    }
+
+    @Test
+    public void testGenerateFindDependentObjectsSql() throws Exception {
+        assertThat(sut.generateFindDependentObjectsSql(SwapEntity.class), contains(
+                "select 'CHECK CONSTRAINT', name from sys.check_constraints"
+                        + " where parent_object_id = object_id('test.swap_table')",
+                "select 'TRIGGER', name from sys.triggers where parent_id = object_id('test.swap_table')",
+                "select 'VIEW', v.name from sys.sql_expression_dependencies d"
+                        + " inner join sys.views v on v.object_id = d.referencing_id"
+                        + " where d.referenced_id = object_id('test.swap_table')",
+                "select 'GRANT', user_name(grantee_principal_id) from sys.database_permissions"
+                        + " where class = 1 and major_id = object_id('test.swap_table')"));
+    }
+
+    @Entity
+    @Table(name = "swap_table", schema = "test")
+    private static class SwapEntity {}
+}
@@ -0,0 +1,126 @@
+package nablarch.etl.generator;
+
+import static org.hamcrest.CoreMatchers.allOf;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.sql.DatabaseMetaData;
+
+import mockit.Expectations;
+import mockit.Mocked;
+import nablarch.core.db.connection.TransactionManagerConnection;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/**
+ * {@link TableSwapSqlGeneratorFactory}のテストクラス。
+ */
+public class TableSwapSqlGeneratorFactoryTest {
+
+    @Mocked
+    private TransactionManagerConnection connection;
+
+    @Rule
+    public ExpectedException expectedException = ExpectedException.none();
+
+    @Test
+    public void testCreate() throws Exception {
+
+        new Expectations() {{
+            final DatabaseMetaData metaData = connection.getConnection().getMetaData();
+            metaData.getURL();
+            result = "jdbc:hsqldb:mem:test";
+        }};
+
+        TableSwapSqlGenerator generator = TableSwapSqlGeneratorFactory.create(connection);
+        assertThat(generator, allOf(
+                instanceOf(TableSwapSqlGenerator.class),
+                not(instanceOf(SqlServerTableSwapSqlGenerator.class)),
+                not(instanceOf(Db2TableSwapSqlGenerator.class)),
+                not(instanceOf(PostgresTableSwapSqlGenerator.class)),
+                not(instanceOf(OracleTableSwapSqlGenerator.class)),
+                not(instanceOf(H2TableSwapSqlGenerator.class))));
+    }
+
+    @Test
+    public void testCreate_postgres() throws Exception {
+
+        new Expectations() {{
+            final DatabaseMetaData metaData = connection.getConnection().getMetaData();
+            metaData.getURL();
+            result = "jdbc:postgresql://localhost:5432/postgres";
+        }};
+
+        TableSwapSqlGenerator generator = TableSwapSqlGeneratorFactory.create(connection);
+        assertThat(generator, instanceOf(PostgresTableSwapSqlGenerator.class));
+    }
+
+    @Test
+    public void testCreate_oracle() throws Exception {
+
+        new Expectations() {{
+            final DatabaseMetaData metaData = connection.getConnection().getMetaData();
+            metaData.getURL();
+            result = "jdbc:oracle:thin:@localhost:1521/xe";
+        }};
+
+        TableSwapSqlGenerator generator = TableSwapSqlGeneratorFactory.create(connection);
+        assertThat(generator, instanceOf(OracleTableSwapSqlGenerator.class));
+    }
+
+    @Test
+    public void testCreate_h2() throws Exception {
+
+        new Expectations() {{
+            final DatabaseMetaData metaData = connection.getConnection().getMetaData();
+            metaData.getURL();
+            result = "jdbc:h2:mem:test";
+        }};
+
+        TableSwapSqlGenerator generator = TableSwapSqlGeneratorFactory.create(connection);
+        assertThat(generator, instanceOf(H2TableSwapSqlGenerator.class));
+    }
+
+    @Test
+    public void testCreate_sqlServer() throws Exception {
+
+        new Expectations() {{
+            final DatabaseMetaData metaData = connection.getConnection().getMetaData();
+            metaData.getURL();
+            result = "jdbc:sqlserver://localhost:1433;databaseName=test";
+        }};
+
+        TableSwapSqlGenerator generator = TableSwapSqlGeneratorFactory.create(connection);
+        assertThat(generator, instanceOf(SqlServerTableSwapSqlGenerator.class));
+    }
+
+    @Test
+    public void testCreate_db2() throws Exception {
+
+        new Expectations() {{
+            final DatabaseMetaData metaData = connection.getConnection().getMetaData();
+            metaData.getURL();
+            result = "jdbc:db2://localhost:50000/sample";
+        }};
+
+        TableSwapSqlGenerator generator = TableSwapSqlGeneratorFactory.create(connection);
+        assertThat(generator, instanceOf(Db2TableSwapSqlGenerator.class));
+    }
+
+    @Test
+    public void testCreate_url_null() throws Exception {
+        expectedException.expect(IllegalStateException.class);
+        expectedException.expectMessage(is("failed to get connection url."));
+
+        new Expectations() {{
+            final DatabaseMetaData metaData = connection.getConnection().getMetaData();
+            metaData.getURL();
+            result = null;
+        }};
+
+        TableSwapSqlGeneratorFactory.create(connection);
+    }
+}
@@ -0,0 +1,116 @@
+package nablarch.etl.generator;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertThat;
+
+import javax.persistence.Entity;
+import javax.persistence.Table;
+
+import nablarch.core.db.connection.ConnectionFactory;
+import nablarch.core.db.connection.DbConnectionContext;
+import nablarch.core.db.connection.TransactionManagerConnection;
+import nablarch.core.transaction.TransactionContext;
+import nablarch.test.support.SystemRepositoryResource;
+import nablarch.test.support.db.helper.DatabaseTestRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * {@link TableSwapSqlGenerator}のテストクラス。
+ */
+@RunWith(DatabaseTestRunner.class)
+public class TableSwapSqlGeneratorTest {
+
+    @ClassRule
+    public static SystemRepositoryResource resource = new SystemRepositoryResource("db-default.xml");
+
+    @Before
+    public void setUp() throws Exception {
+        ConnectionFactory connectionFactory = resource.getComponent("connectionFactory");
+        DbConnectionContext.setConnection(connectionFactory.getConnection(TransactionContext.DEFAULT_TRANSACTION_CONTEXT_KEY));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        final TransactionManagerConnection connection = DbConnectionContext.getTransactionManagerConnection();
+        DbConnectionContext.removeConnection();
+        connection.terminate();
+    }
+
+    /** テスト対象 */
+    TableSwapSqlGenerator sut = new TableSwapSqlGenerator();
+
+    @Test
+    public void testTableNames() throws Exception {
+        assertThat(sut.getShadowTableName(SwapEntity.class), is("swap_table_SHADOW"));
+        assertThat(sut.getOldTableName(SwapEntity.class), is("swap_table_OLD"));
+        assertThat(sut.getShadowTableNameWithSchema(SwapEntity.class), is("swap_table_SHADOW"));
+        assertThat(sut.getShadowTableNameWithSchema(SchemaSwapEntity.class), is("test.swap_table_SHADOW"));
+    }
+
+    @Test
+    public void testGenerateCreateShadowSql() throws Exception {
+        assertThat(sut.generateCreateShadowSql(SwapEntity.class),
+                is("create table swap_table_SHADOW as select * from swap_table where 1 = 0"));
+        assertThat(sut.generateCreateShadowSql(SchemaSwapEntity.class),
+                is("create table test.swap_table_SHADOW as select * from test.swap_table where 1 = 0"));
+    }
+
+    @Test
+    public void testGenerateSwapSql() throws Exception {
+        assertThat(sut.generateSwapSql(SwapEntity.class), contains(
+                "alter table swap_table rename to swap_table_OLD",
+                "alter table swap_table_SHADOW rename to swap_table"));
+        assertThat(sut.generateSwapSql(SchemaSwapEntity.class), contains(
+                "alter table test.swap_table rename to swap_table_OLD",
+                "alter table test.swap_table_SHADOW rename to swap_table"));
+    }
+
+    @Test
+    public void testGenerateRestoreSql() throws Exception {
+        assertThat(sut.generateRestoreSql(SwapEntity.class), is("alter table swap_table_OLD rename to swap_table"));
+        assertThat(sut.generateRestoreSql(SchemaSwapEntity.class),
+                is("alter table test.swap_table_OLD rename to swap_table"));
+    }
+
+    @Test
+    public void testGenerateDropSql() throws Exception {
+        assertThat(sut.generateDropSql(SchemaSwapEntity.class, "swap_table_OLD"), is("drop table test.swap_table_OLD"));
+    }
+
+    @Test
+    public void testIsTransactionalDdl() throws Exception {
+        assertThat(sut.isTransactionalDdl(), is(false));
+    }
+
+    @Test
+    public void testGenerateFindDependentObjectsSql() throws Exception {
+        assertThat(sut.generateFindDependentObjectsSql(SwapEntity.class), contains(
+                "select 'CHECK CONSTRAINT', constraint_name from information_schema.table_constraints"
+                        + " where table_schema = current_schema and table_name = 'SWAP_TABLE'"
+                        + " and constraint_type = 'CHECK'",
+                "select 'TRIGGER', trigger_name from information_schema.triggers"
+                        + " where event_object_schema = current_schema and event_object_table = 'SWAP_TABLE'",
+                "select 'VIEW', view_name from information_schema.view_table_usage"
+                        + " where table_schema = current_schema and table_name = 'SWAP_TABLE'",
+                "select 'GRANT', grantee from information_schema.table_privileges"
+                        + " where table_schema = current_schema and table_name = 'SWAP_TABLE'"
+                        + " and grantor <> grantee"));
+        assertThat(sut.generateFindDependentObjectsSql(SchemaSwapEntity.class).get(0),
+                is("select 'CHECK CONSTRAINT', constraint_name from information_schema.table_constraints"
+                        + " where table_schema = 'TEST' and table_name = 'SWAP_TABLE'"
+                        + " and constraint_type = 'CHECK'"));
+    }
+
+    @Entity
+    @Table(name = "swap_table")
+    private static class SwapEntity {}
+
+    @Entity
+    @Table(name = "swap_table", schema = "test")
+    private static class SchemaSwapEntity {}
+}
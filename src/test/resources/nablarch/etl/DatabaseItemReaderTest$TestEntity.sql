@@ -20,6 +20,11 @@ SELECT_MULTI_RECORDS =
   WHERE COL3 < 100
   ORDER BY COL1 DESC
 
+COUNT_MULTI_RECORDS =
+SELECT COUNT(*)
+  FROM TEST_TABLE
+ WHERE COL3 > 40000
+
 SELECT_FAILED =
 SELECT COL1,
        COL_NOT_EXIST